@@ -77,6 +77,32 @@ public interface AssociatedAttachmentResources {
 	 */
 	public Attachment attachFile(long objectId, File file, String contentType) throws FileNotFoundException, SmartsheetException;
 
+	/**
+	 * <p>Attach a file to the object, reporting the progress of the upload and the digest of the uploaded content.</p>
+	 * 
+	 * <p>The file is read once, through a file channel, both to be sent and to compute its digest. It is closed
+	 * whether or not the upload succeeds.</p>
+	 * 
+	 * <p>It mirrors to the following Smartsheet REST API method:<br /> 
+	 *   POST /sheet/{id}/attachments POST /row/{id}/attachments<br />
+	 *   POST /comment/{idd}/attachments</p>
+	 * 
+	 * @param objectId the id of the object
+	 * @param file the file to attach
+	 * @param contentType the content type of the file
+	 * @param listener the listener receiving the progress and digest of the upload, null for none
+	 * @return the created attachment
+	 * @throws FileNotFoundException the file not found exception
+	 * @throws IllegalArgumentException if any argument other than listener is null or empty string
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation
+	 */
+	public Attachment attachFile(long objectId, File file, String contentType, UploadListener listener) 
+			throws FileNotFoundException, SmartsheetException;
+
 	/**
 	 * <p>Attach a file to the object.</p>
 	 * 
@@ -0,0 +1,44 @@
+package com.smartsheet.api;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.List;
+
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Row;
+
+/**
+ * <p>This interface resolves a conflicting cell update, when the row being updated has been modified by another
+ * writer since it was last seen.</p>
+ * 
+ * <p>Thread Safety: Implementation of this interface must be thread safe if it's used by several threads.</p>
+ */
+public interface CellMerger {
+
+	/**
+	 * <p>Merge the intended cell updates with the current content of the row.</p>
+	 *
+	 * @param current the current row, with its cells
+	 * @param cells the cells the caller intended to write
+	 * @return the cells to write instead, or null to abandon the update
+	 */
+	public List<Cell> merge(Row current, List<Cell> cells);
+}
@@ -0,0 +1,38 @@
+package com.smartsheet.api;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+/**
+ * <p>This interface receives the progress of a long running operation made of many units of work, such as rows or
+ * bytes.</p>
+ * 
+ * <p>Thread Safety: Implementation of this interface must be thread safe, as it may be called from worker threads.</p>
+ */
+public interface ProgressListener {
+
+	/**
+	 * <p>Report that more units of work are done.</p>
+	 *
+	 * @param completed the number of units done so far, successful or not
+	 * @param total the total number of units, or -1 if unknown
+	 */
+	public void progress(long completed, long total);
+}
@@ -76,6 +76,27 @@ public interface RowResources {
 	 */
 	public List<Row> moveRow(long id, RowWrapper rowWrapper) throws SmartsheetException;
 
+	/**
+	 * <p>Move a row, retrying while the sheet is being updated by another request.</p>
+	 * 
+	 * <p>It mirrors to the following Smartsheet REST API method:<br />
+	 *  PUT /row/{id}</p>
+	 *
+	 * @param id the id of the row to move
+	 * @param rowWrapper the row wrapper that specifies where to move the row.
+	 * @param maxRetries the maximum number of retries
+	 * @return the list of rows that have been moved by this operation.
+	 * @throws IllegalArgumentException if any argument is null or maxRetries is negative
+	 * @throws UpdateConflictException if the sheet is still being updated by another request after the retries, if
+	 * maxRetries is positive
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation
+	 */
+	public List<Row> moveRow(long id, RowWrapper rowWrapper, int maxRetries) throws SmartsheetException;
+
 	/**
 	 * <p>Delete a row.</p>
 	 * 
@@ -126,6 +147,33 @@ public interface RowResources {
 	 */
 	public List<Cell> updateCells(long rowId, List<Cell> cells) throws SmartsheetException;
 
+	/**
+	 * <p>Update the values of the Cells in a Row, detecting modifications made by other writers.</p>
+	 * 
+	 * <p>It mirrors to the following Smartsheet REST API methods: GET /row/{id} and PUT /row/{id}/cells</p>
+	 * 
+	 * <p>The last values seen of the cells of each row are remembered from reads and writes made through this client.
+	 * If any of the cells being written has a different value when the row is updated, the merger is given the
+	 * current row and the intended cells and decides what to write. Edits of other cells or other rows are not
+	 * conflicts. Requests rejected because the sheet is being updated by another request are retried.</p>
+	 *
+	 * @param rowId the row id
+	 * @param cells the cells to update
+	 * @param merger the merger resolving conflicts
+	 * @param maxRetries the maximum number of retries
+	 * @return the updated cells
+	 * @throws IllegalArgumentException if any argument is null or maxRetries is negative
+	 * @throws UpdateConflictException if the merger abandons the update, or if the sheet is still being updated by
+	 * another request after the retries, if maxRetries is positive
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation
+	 */
+	public List<Cell> updateCells(long rowId, List<Cell> cells, CellMerger merger, int maxRetries)
+			throws SmartsheetException;
+
 	/**
 	 * <p>Get the cell modification history.</p>
 	 * 
@@ -23,6 +23,7 @@ package com.smartsheet.api;
 
 
 import java.util.List;
+import java.util.Map;
 
 import com.smartsheet.api.models.Column;
 
@@ -65,4 +66,37 @@ public interface SheetColumnResources {
 	 * @throws SmartsheetException if there is any other error during the operation
 	 */
 	public Column addColumn(long sheetId, Column column) throws SmartsheetException;
+
+	/**
+	 * <p>Get the column IDs of a sheet by column title, typically to build cell updates with
+	 * {@link com.smartsheet.api.models.Cell.UpdateRowCellsBuilder#UpdateRowCellsBuilder(Map)}.</p>
+	 * 
+	 * <p>The columns are cached per sheet and only listed (GET /sheet/{id}/columns) when they haven't been retrieved
+	 * yet or have been added, updated or deleted through this client since. Call {@link #listColumns(long)} to pick up
+	 * column changes made by other clients. When several columns share a title, the first one wins.</p>
+	 *
+	 * @param sheetId the sheet id
+	 * @return the unmodifiable map of column IDs by title
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation
+	 */
+	public Map<String, Long> getColumnIdsByTitle(long sheetId) throws SmartsheetException;
+
+	/**
+	 * <p>Get the column IDs of a sheet by column index.</p>
+	 * 
+	 * <p>The columns are cached per sheet, see {@link #getColumnIdsByTitle(long)}.</p>
+	 *
+	 * @param sheetId the sheet id
+	 * @return the unmodifiable map of column IDs by index
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation
+	 */
+	public Map<Integer, Long> getColumnIdsByIndex(long sheetId) throws SmartsheetException;
 }
@@ -0,0 +1,64 @@
+package com.smartsheet.api;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * <p>This interface receives a sheet as it is parsed from the response, one row at a time, so that a sheet of any size
+ * can be processed without holding its rows in memory.</p>
+ *
+ * <p>The methods are called in order: {@link #start(Sheet)} once, {@link #row(Row)} for each row, and
+ * {@link #end(Sheet)} once. A handler that throws an exception aborts the parsing.</p>
+ *
+ * <p>Thread Safety: Implementation of this interface doesn't need to be thread safe, its methods are called from the
+ * thread parsing the sheet.</p>
+ */
+public interface SheetHandler {
+
+	/**
+	 * <p>Start the sheet, before its first row.</p>
+	 *
+	 * <p>The sheet holds the properties that precede the rows in the response, which include the columns, but not the
+	 * rows.</p>
+	 *
+	 * @param sheet the sheet properties parsed so far
+	 * @throws SmartsheetException to abort the parsing
+	 */
+	public void start(Sheet sheet) throws SmartsheetException;
+
+	/**
+	 * <p>Handle the next row of the sheet.</p>
+	 *
+	 * @param row the row
+	 * @throws SmartsheetException to abort the parsing
+	 */
+	public void row(Row row) throws SmartsheetException;
+
+	/**
+	 * <p>End the sheet, after its last row.</p>
+	 *
+	 * @param sheet all the sheet properties, without the rows
+	 * @throws SmartsheetException to abort the parsing
+	 */
+	public void end(Sheet sheet) throws SmartsheetException;
+}
@@ -22,7 +22,9 @@ package com.smartsheet.api;
 
 
 
+import java.io.File;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.EnumSet;
 import java.util.List;
 
@@ -87,6 +89,26 @@ public interface SheetResources {
 	 */
 	public Sheet getSheet(long id, EnumSet<ObjectInclusion> includes) throws SmartsheetException;
 
+	/**
+	 * <p>Get a sheet, passing its rows to a handler one at a time as they are read from the response, so that the rows
+	 * of the sheet are never all held in memory.</p>
+	 * 
+	 * <p>It mirrors to the following Smartsheet REST API method: GET /sheet/{id}</p>
+	 *
+	 * @param id the id of the sheet
+	 * @param includes used to specify the optional objects to include.
+	 * @param handler the handler receiving the sheet
+	 * @throws IllegalArgumentException if handler is null
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation, or the exception thrown by the
+	 * handler
+	 */
+	public void streamSheet(long id, EnumSet<ObjectInclusion> includes, SheetHandler handler)
+			throws SmartsheetException;
+
 	/**
 	 * <p>Get a sheet as an Excel file.</p>
 	 * 
@@ -104,6 +126,50 @@ public interface SheetResources {
 	 */
 	public void getSheetAsExcel(long id, OutputStream outputStream) throws SmartsheetException;
 
+	/**
+	 * <p>Get a sheet as an Excel file, written to a channel through a direct buffer.</p>
+	 * 
+	 * <p>It mirrors to the following Smartsheet REST API method:<br />
+	 * GET /sheet/{id} with "application/vnd.ms-excel" Accept HTTP header</p>
+	 *
+	 * @param id the id of the sheet
+	 * @param channel the channel to which the Excel file will be written, which is not closed
+	 * @param listener the listener receiving the number of bytes written and the size of the file, or -1 if unknown,
+	 * null for none
+	 * @return the number of bytes written
+	 * @throws IllegalArgumentException if channel is null
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation
+	 */
+	public long getSheetAsExcel(long id, WritableByteChannel channel, ProgressListener listener)
+			throws SmartsheetException;
+
+	/**
+	 * <p>Get a sheet as an Excel file, written to a local file.</p>
+	 * 
+	 * <p>The download is written to a temporary file in the same directory, which replaces the file once the download
+	 * is complete, so the file is never left partially written.</p>
+	 * 
+	 * <p>It mirrors to the following Smartsheet REST API method:<br />
+	 * GET /sheet/{id} with "application/vnd.ms-excel" Accept HTTP header</p>
+	 *
+	 * @param id the id of the sheet
+	 * @param file the file to which the Excel file will be written
+	 * @param listener the listener receiving the number of bytes written and the size of the file, or -1 if unknown,
+	 * null for none
+	 * @return the number of bytes written
+	 * @throws IllegalArgumentException if file is null
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation
+	 */
+	public long getSheetAsExcel(long id, File file, ProgressListener listener) throws SmartsheetException;
+
 	/**
 	 * <p>Get a sheet as a PDF file.</p>
 	 * 
@@ -122,6 +188,53 @@ public interface SheetResources {
 	 */
 	public void getSheetAsPDF(long id, OutputStream outputStream, PaperSize paperSize) throws SmartsheetException;
 
+	/**
+	 * <p>Get a sheet as a PDF file, written to a channel through a direct buffer.</p>
+	 * 
+	 * <p>It mirrors to the following Smartsheet REST API method:<br />
+	 * GET /sheet/{id} with "application/pdf" Accept HTTP header</p>
+	 *
+	 * @param id the id of the sheet
+	 * @param channel the channel to which the PDF file will be written, which is not closed
+	 * @param paperSize the optional paper size
+	 * @param listener the listener receiving the number of bytes written and the size of the file, or -1 if unknown,
+	 * null for none
+	 * @return the number of bytes written
+	 * @throws IllegalArgumentException if channel is null
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation
+	 */
+	public long getSheetAsPDF(long id, WritableByteChannel channel, PaperSize paperSize, ProgressListener listener)
+			throws SmartsheetException;
+
+	/**
+	 * <p>Get a sheet as a PDF file, written to a local file.</p>
+	 * 
+	 * <p>The download is written to a temporary file in the same directory, which replaces the file once the download
+	 * is complete, so the file is never left partially written.</p>
+	 * 
+	 * <p>It mirrors to the following Smartsheet REST API method:<br />
+	 * GET /sheet/{id} with "application/pdf" Accept HTTP header</p>
+	 *
+	 * @param id the id of the sheet
+	 * @param file the file to which the PDF file will be written
+	 * @param paperSize the optional paper size
+	 * @param listener the listener receiving the number of bytes written and the size of the file, or -1 if unknown,
+	 * null for none
+	 * @return the number of bytes written
+	 * @throws IllegalArgumentException if file is null
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation
+	 */
+	public long getSheetAsPDF(long id, File file, PaperSize paperSize, ProgressListener listener)
+			throws SmartsheetException;
+
 	/**
 	 * <p>Create a sheet in default "Sheets" collection.</p>
 	 * 
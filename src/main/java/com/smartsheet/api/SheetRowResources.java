@@ -22,9 +22,11 @@ package com.smartsheet.api;
 
 
 
+import java.util.Iterator;
 import java.util.List;
 
 import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowChunkResult;
 import com.smartsheet.api.models.RowWrapper;
 
 /**
@@ -51,6 +53,60 @@ public interface SheetRowResources {
 	 */
 	public List<Row> insertRows(long sheetId, RowWrapper rowWrapper) throws SmartsheetException;
 
+	/**
+	 * <p>Insert rows to a sheet in a single request, streaming them from an iterator.</p>
+	 * 
+	 * <p>It mirrors to the following Smartsheet REST API method: POST /sheet/{id}/rows</p>
+	 * 
+	 * <p>Rows are read from the iterator and serialized one at a time while the request body is sent, so they can be
+	 * produced from a database cursor or a file without holding them all in memory.</p>
+	 *
+	 * @param sheetId the sheet id
+	 * @param placement the row wrapper giving the position of the rows, its rows must be null
+	 * @param rows the rows to insert
+	 * @return the list of created rows
+	 * @throws IllegalArgumentException if any argument is null or placement holds rows
+	 * @throws InvalidRequestException if there is any problem with the REST API request
+	 * @throws AuthorizationException if there is any problem with  the REST API authorization (access token)
+	 * @throws ResourceNotFoundException if the resource cannot be found
+	 * @throws ServiceUnavailableException if the REST API service is not available (possibly due to rate limiting)
+	 * @throws SmartsheetException if there is any other error during the operation
+	 */
+	public List<Row> insertRows(long sheetId, RowWrapper placement, Iterator<Row> rows) throws SmartsheetException;
+
+	/**
+	 * <p>Insert any number of rows to a sheet, in chunks of chunkSize rows.</p>
+	 * 
+	 * <p>It mirrors to the following Smartsheet REST API method, once per chunk: POST /sheet/{id}/rows</p>
+	 * 
+	 * <p>When chunks are sent one at a time (maxInFlight is 1), the rows are inserted in iterator order at the
+	 * position given by the placement: the first chunk uses the placement itself and each following chunk is inserted
+	 * as the next sibling of the last row of the previous successful chunk. When more chunks are in flight, only
+	 * toBottom placements are supported and chunks may land in any order relative to each other; each successful
+	 * chunk then reports through RowChunkResult.getInOrder() whether it landed below all previous chunks.</p>
+	 * 
+	 * <p>Chunks rejected because the sheet is being updated by another request, or because the service is unavailable,
+	 * are retried a few times with an exponential delay.</p>
+	 * 
+	 * <p>A failed chunk doesn't stop the insert, except for authorization failures and missing sheets, after which
+	 * no further chunk is read from the iterator.</p>
+	 * 
+	 * <p>Requests in flight are also bounded by the connections of the HTTP client, see
+	 * {@link SmartsheetBuilder#setMaxConnections(int)}.</p>
+	 *
+	 * @param sheetId the sheet id
+	 * @param placement the row wrapper giving the position of the rows, its rows are ignored
+	 * @param rows the rows to insert
+	 * @param chunkSize the maximum number of rows per request
+	 * @param maxInFlight the maximum number of requests sent concurrently
+	 * @return the result of each chunk, in chunk order
+	 * @throws IllegalArgumentException if any argument is null, if chunkSize or maxInFlight is not positive, or if
+	 * maxInFlight is more than 1 for a placement other than toBottom
+	 * @throws SmartsheetException if interrupted while waiting for chunks in flight
+	 */
+	public List<RowChunkResult> insertRows(long sheetId, RowWrapper placement, Iterator<Row> rows, int chunkSize,
+			int maxInFlight) throws SmartsheetException;
+
 	/**
 	 * Get a row.
 	 * 
@@ -22,7 +22,12 @@ package com.smartsheet.api;
 
 
 
+import java.io.File;
+
 import com.smartsheet.api.internal.SmartsheetImpl;
+import com.smartsheet.api.internal.cache.RenditionCache;
+import com.smartsheet.api.internal.cache.SheetSnapshotStore;
+import com.smartsheet.api.internal.cache.TieredSheetCache;
 import com.smartsheet.api.internal.http.DefaultHttpClient;
 import com.smartsheet.api.internal.http.HttpClient;
 import com.smartsheet.api.internal.json.JacksonJsonSerializer;
@@ -70,6 +75,84 @@ public class SmartsheetBuilder {
 	 */
 	private String assumedUser;
 
+	/**
+	 * <p>Represents the budget of the on-heap sheet cache tier in (estimated) bytes.</p>
+	 * 
+	 * <p>It can be set using corresponding setter, sheets are not cached if no tier has a budget.</p>
+	 */
+	private long sheetCacheHeapBytes;
+
+	/**
+	 * <p>Represents the budget of the off-heap (direct memory) sheet cache tier in bytes.</p>
+	 * 
+	 * <p>It can be set using corresponding setter.</p>
+	 */
+	private long sheetCacheOffHeapBytes;
+
+	/**
+	 * <p>Represents the budget of the on-disk sheet cache tier in bytes.</p>
+	 * 
+	 * <p>It can be set using corresponding setter.</p>
+	 */
+	private long sheetCacheDiskBytes;
+
+	/**
+	 * <p>Represents the directory of the on-disk sheet cache tier.</p>
+	 * 
+	 * <p>It can be set using corresponding setter, a temporary directory is used if it's not set.</p>
+	 */
+	private File sheetCacheDirectory;
+
+	/**
+	 * <p>Represents the time in milliseconds a cached sheet is used without validating its version.</p>
+	 * 
+	 * <p>It can be set using corresponding setter.</p>
+	 */
+	private long sheetCacheTimeToLive;
+
+	/**
+	 * <p>Represents the window in milliseconds before expiry within which frequently accessed cached sheets are
+	 * refreshed in the background.</p>
+	 * 
+	 * <p>It can be set using corresponding setter, refresh-ahead is disabled if it's not set.</p>
+	 */
+	private long sheetCacheRefreshAhead;
+
+	/**
+	 * <p>Represents the maximum number of background sheet refreshes per second.</p>
+	 * 
+	 * <p>It can be set using corresponding setter, it defaults to DEFAULT_SHEET_CACHE_MAX_REFRESHES_PER_SECOND.</p>
+	 */
+	private int sheetCacheMaxRefreshesPerSecond = DEFAULT_SHEET_CACHE_MAX_REFRESHES_PER_SECOND;
+
+	/**
+	 * <p>Represents the directory persisting sheet snapshots across restarts.</p>
+	 * 
+	 * <p>It can be set using corresponding setter, snapshots are not persisted if it's not set.</p>
+	 */
+	private File sheetSnapshotDirectory;
+
+	/**
+	 * <p>Represents the directory caching the Excel and PDF renditions of sheets.</p>
+	 * 
+	 * <p>It can be set using corresponding setter, renditions are not cached if it's not set.</p>
+	 */
+	private File renditionCacheDirectory;
+
+	/**
+	 * <p>Represents the maximum total size of the cached sheet renditions in bytes.</p>
+	 * 
+	 * <p>It can be set using corresponding setter, it defaults to DEFAULT_RENDITION_CACHE_BYTES.</p>
+	 */
+	private long renditionCacheBytes = DEFAULT_RENDITION_CACHE_BYTES;
+
+	/**
+	 * <p>Represents the maximum number of connections of the default HttpClient.</p>
+	 * 
+	 * <p>It can be set using corresponding setter, it defaults to DefaultHttpClient.DEFAULT_MAX_CONNECTIONS.</p>
+	 */
+	private int maxConnections = DefaultHttpClient.DEFAULT_MAX_CONNECTIONS;
+
 	/**
 	 * <p>Represents the default base URI of the Smartsheet REST API.</p>
 	 * 
@@ -77,6 +160,16 @@ public class SmartsheetBuilder {
 	 */
 	public static final String DEFAULT_BASE_URI = "https://api.smartsheet.com/1.1/";
 
+	/**
+	 * <p>Represents the default maximum number of background sheet refreshes per second.</p>
+	 */
+	public static final int DEFAULT_SHEET_CACHE_MAX_REFRESHES_PER_SECOND = 2;
+
+	/**
+	 * <p>Represents the default maximum total size of the cached sheet renditions, 256 MB.</p>
+	 */
+	public static final long DEFAULT_RENDITION_CACHE_BYTES = 256L * 1024 * 1024;
+
 	/**
 	 * Constructor.
 	 */
@@ -138,6 +231,134 @@ public class SmartsheetBuilder {
 		return this;
 	}
 
+	/**
+	 * <p>Set the budget of the on-heap sheet cache tier, which holds the most frequently used sheets.</p>
+	 *
+	 * @param sheetCacheHeapBytes the budget in (estimated) bytes, zero to disable the tier
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setSheetCacheHeapBytes(long sheetCacheHeapBytes) {
+		this.sheetCacheHeapBytes = sheetCacheHeapBytes;
+		return this;
+	}
+
+	/**
+	 * <p>Set the budget of the off-heap sheet cache tier, which holds serialized sheets in direct memory.</p>
+	 *
+	 * @param sheetCacheOffHeapBytes the budget in bytes, zero to disable the tier
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setSheetCacheOffHeapBytes(long sheetCacheOffHeapBytes) {
+		this.sheetCacheOffHeapBytes = sheetCacheOffHeapBytes;
+		return this;
+	}
+
+	/**
+	 * <p>Set the budget of the on-disk sheet cache tier, which holds the least frequently used sheets.</p>
+	 *
+	 * @param sheetCacheDiskBytes the budget in bytes, zero to disable the tier
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setSheetCacheDiskBytes(long sheetCacheDiskBytes) {
+		this.sheetCacheDiskBytes = sheetCacheDiskBytes;
+		return this;
+	}
+
+	/**
+	 * <p>Set the directory of the on-disk sheet cache tier.</p>
+	 *
+	 * @param sheetCacheDirectory the directory
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setSheetCacheDirectory(File sheetCacheDirectory) {
+		this.sheetCacheDirectory = sheetCacheDirectory;
+		return this;
+	}
+
+	/**
+	 * <p>Set the time a cached sheet is used without validating its version against the Smartsheet REST API.</p>
+	 *
+	 * @param sheetCacheTimeToLive the time to live in milliseconds
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setSheetCacheTimeToLive(long sheetCacheTimeToLive) {
+		this.sheetCacheTimeToLive = sheetCacheTimeToLive;
+		return this;
+	}
+
+	/**
+	 * <p>Set the window before expiry within which frequently accessed cached sheets are revalidated in the
+	 * background, so that readers keep hitting a warm cache. It must be less than the time to live.</p>
+	 *
+	 * @param sheetCacheRefreshAhead the window in milliseconds, zero to disable refresh-ahead
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setSheetCacheRefreshAhead(long sheetCacheRefreshAhead) {
+		this.sheetCacheRefreshAhead = sheetCacheRefreshAhead;
+		return this;
+	}
+
+	/**
+	 * <p>Set the maximum number of background sheet refreshes per second.</p>
+	 *
+	 * @param sheetCacheMaxRefreshesPerSecond the maximum number of refreshes per second
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setSheetCacheMaxRefreshesPerSecond(int sheetCacheMaxRefreshesPerSecond) {
+		this.sheetCacheMaxRefreshesPerSecond = sheetCacheMaxRefreshesPerSecond;
+		return this;
+	}
+
+	/**
+	 * <p>Set the directory persisting snapshots of retrieved sheets. After a restart, a sheet whose snapshot version
+	 * is still current is read from its snapshot instead of being downloaded again.</p>
+	 *
+	 * @param sheetSnapshotDirectory the directory
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setSheetSnapshotDirectory(File sheetSnapshotDirectory) {
+		this.sheetSnapshotDirectory = sheetSnapshotDirectory;
+		return this;
+	}
+
+	/**
+	 * <p>Set the directory caching the Excel and PDF renditions of sheets. A rendition is only downloaded again once
+	 * the version of its sheet changes.</p>
+	 *
+	 * @param renditionCacheDirectory the directory
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setRenditionCacheDirectory(File renditionCacheDirectory) {
+		this.renditionCacheDirectory = renditionCacheDirectory;
+		return this;
+	}
+
+	/**
+	 * <p>Set the maximum total size of the cached sheet renditions, the least recently used ones being evicted
+	 * first.</p>
+	 *
+	 * @param renditionCacheBytes the maximum size in bytes
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setRenditionCacheBytes(long renditionCacheBytes) {
+		this.renditionCacheBytes = renditionCacheBytes;
+		return this;
+	}
+
+	/**
+	 * <p>Set the maximum number of connections of the default HttpClient, which bounds the number of requests sent
+	 * concurrently: further requests wait for a connection. It should be at least the concurrency used by parallel
+	 * operations, such as the maxInFlight of chunked row insertions and the parallelism of the bulk operations. It's
+	 * ignored when an HttpClient is set.</p>
+	 *
+	 * @param maxConnections the maximum number of connections
+	 * @return the smartsheet builder
+	 */
+	public SmartsheetBuilder setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+		return this;
+	}
+
 	/**
 	 * <p>Gets the http client.</p>
 	 *
@@ -183,6 +404,105 @@ public class SmartsheetBuilder {
 		return assumedUser;
 	}
 
+	/**
+	 * <p>Gets the budget of the on-heap sheet cache tier.</p>
+	 *
+	 * @return the budget in (estimated) bytes
+	 */
+	public long getSheetCacheHeapBytes() {
+		return sheetCacheHeapBytes;
+	}
+
+	/**
+	 * <p>Gets the budget of the off-heap sheet cache tier.</p>
+	 *
+	 * @return the budget in bytes
+	 */
+	public long getSheetCacheOffHeapBytes() {
+		return sheetCacheOffHeapBytes;
+	}
+
+	/**
+	 * <p>Gets the budget of the on-disk sheet cache tier.</p>
+	 *
+	 * @return the budget in bytes
+	 */
+	public long getSheetCacheDiskBytes() {
+		return sheetCacheDiskBytes;
+	}
+
+	/**
+	 * <p>Gets the directory of the on-disk sheet cache tier.</p>
+	 *
+	 * @return the directory
+	 */
+	public File getSheetCacheDirectory() {
+		return sheetCacheDirectory;
+	}
+
+	/**
+	 * <p>Gets the sheet cache time to live.</p>
+	 *
+	 * @return the time to live in milliseconds
+	 */
+	public long getSheetCacheTimeToLive() {
+		return sheetCacheTimeToLive;
+	}
+
+	/**
+	 * <p>Gets the sheet cache refresh-ahead window.</p>
+	 *
+	 * @return the window in milliseconds
+	 */
+	public long getSheetCacheRefreshAhead() {
+		return sheetCacheRefreshAhead;
+	}
+
+	/**
+	 * <p>Gets the maximum number of background sheet refreshes per second.</p>
+	 *
+	 * @return the maximum number of refreshes per second
+	 */
+	public int getSheetCacheMaxRefreshesPerSecond() {
+		return sheetCacheMaxRefreshesPerSecond;
+	}
+
+	/**
+	 * <p>Gets the sheet snapshot directory.</p>
+	 *
+	 * @return the directory
+	 */
+	public File getSheetSnapshotDirectory() {
+		return sheetSnapshotDirectory;
+	}
+
+	/**
+	 * <p>Gets the rendition cache directory.</p>
+	 *
+	 * @return the directory
+	 */
+	public File getRenditionCacheDirectory() {
+		return renditionCacheDirectory;
+	}
+
+	/**
+	 * <p>Gets the maximum total size of the cached sheet renditions.</p>
+	 *
+	 * @return the maximum size in bytes
+	 */
+	public long getRenditionCacheBytes() {
+		return renditionCacheBytes;
+	}
+
+	/**
+	 * <p>Gets the maximum number of connections of the default HttpClient.</p>
+	 *
+	 * @return the maximum number of connections
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
 	/**
 	 * <p>Gets the default base uri.</p>
 	 *
@@ -197,10 +517,13 @@ public class SmartsheetBuilder {
 	 *
 	 * @return the Smartsheet instance
 	 * @throws IllegalStateException if accessToken isn't set yet.
+	 * @throws IllegalArgumentException if a sheet cache budget or time to live is negative, or if the refresh-ahead
+	 * window is not less than the time to live, if the snapshot or rendition cache directory can't be created, or if
+	 * the rendition cache size or the maximum number of connections is not positive.
 	 */
 	public Smartsheet build() {
 		if(httpClient == null){
-			httpClient = new DefaultHttpClient();
+			httpClient = new DefaultHttpClient(maxConnections);
 		}
 		
 		if(jsonSerializer == null){
@@ -215,6 +538,23 @@ public class SmartsheetBuilder {
 		
 		if (assumedUser != null) { smartsheet.setAssumedUser(assumedUser); }
 		
+		if (sheetCacheHeapBytes > 0 || sheetCacheOffHeapBytes > 0 || sheetCacheDiskBytes > 0) {
+			smartsheet.setSheetCache(new TieredSheetCache(sheetCacheHeapBytes, sheetCacheOffHeapBytes, 
+					sheetCacheDiskBytes, sheetCacheDirectory, sheetCacheTimeToLive));
+			if (sheetCacheRefreshAhead > 0) {
+				smartsheet.setSheetRefreshAhead(sheetCacheTimeToLive, sheetCacheRefreshAhead, 
+						sheetCacheMaxRefreshesPerSecond);
+			}
+		}
+		
+		if (sheetSnapshotDirectory != null) {
+			smartsheet.setSheetSnapshotStore(new SheetSnapshotStore(sheetSnapshotDirectory));
+		}
+		
+		if (renditionCacheDirectory != null) {
+			smartsheet.setRenditionCache(new RenditionCache(renditionCacheDirectory, renditionCacheBytes));
+		}
+		
 		return smartsheet;
 	}
 }
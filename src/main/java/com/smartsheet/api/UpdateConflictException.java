@@ -0,0 +1,74 @@
+package com.smartsheet.api;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import com.smartsheet.api.models.Error;
+
+/**
+ * <p>This is the exception to indicate that an update couldn't be applied because of concurrent modifications, either
+ * because the conflict couldn't be merged or because the retries were exhausted.</p>
+ * 
+ * <p>It keeps the error code of the REST API error that exhausted the retries, so that handlers of
+ * SmartsheetRestException still see it. The error code is 0 when the conflict was detected without a REST API
+ * error.</p>
+ * 
+ * <p>Thread safety: Exceptions are not thread safe.</p>
+ */
+public class UpdateConflictException extends SmartsheetRestException {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * <p>Constructor.</p>
+	 *
+	 * @param message the message
+	 */
+	public UpdateConflictException(String message) {
+		this(message, null);
+	}
+
+	/**
+	 * <p>Constructor.</p>
+	 *
+	 * @param message the message
+	 * @param cause the cause, whose error code is kept if it is a SmartsheetRestException
+	 */
+	public UpdateConflictException(String message, Throwable cause) {
+		super(toError(message, cause));
+		initCause(cause);
+	}
+
+	/**
+	 * <p>Create the Error object of a conflict.</p>
+	 *
+	 * @param message the message
+	 * @param cause the cause, may be null
+	 * @return the Error object
+	 */
+	private static Error toError(String message, Throwable cause) {
+		Error error = new Error();
+		error.setMessage(message);
+		error.setErrorCode(cause instanceof SmartsheetRestException ? ((SmartsheetRestException) cause)
+				.getErrorCode() : 0);
+		return error;
+	}
+}
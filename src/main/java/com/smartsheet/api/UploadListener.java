@@ -0,0 +1,48 @@
+package com.smartsheet.api;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+/**
+ * <p>This interface receives the progress of a file upload, along with the digest of the uploaded content, which is
+ * computed while the file is read for the upload rather than in a separate pass.</p>
+ *
+ * <p>Thread Safety: Implementation of this interface must be thread safe, as it may be called from worker threads.</p>
+ */
+public interface UploadListener {
+
+	/**
+	 * <p>Report that more bytes of the file have been sent.</p>
+	 *
+	 * @param sent the number of bytes sent so far
+	 * @param total the size of the file in bytes
+	 * @param bytesPerSecond the average throughput since the upload started
+	 */
+	public void progress(long sent, long total, long bytesPerSecond);
+
+	/**
+	 * <p>Report that the file has been uploaded and the attachment created.</p>
+	 *
+	 * @param size the number of bytes sent
+	 * @param digest the SHA-256 digest of the bytes sent, as lower case hexadecimal
+	 * @param elapsedMillis the time taken by the upload in milliseconds, including the response
+	 */
+	public void uploaded(long size, String digest, long elapsedMillis);
+}
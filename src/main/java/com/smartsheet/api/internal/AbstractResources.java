@@ -24,6 +24,8 @@ package com.smartsheet.api.internal;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -41,12 +43,15 @@ import com.smartsheet.api.ResourceNotFoundException;
 import com.smartsheet.api.ServiceUnavailableException;
 import com.smartsheet.api.SmartsheetException;
 import com.smartsheet.api.SmartsheetRestException;
+import com.smartsheet.api.UploadListener;
+import com.smartsheet.api.internal.http.FileUploadStream;
 import com.smartsheet.api.internal.http.HttpEntity;
 import com.smartsheet.api.internal.http.HttpMethod;
 import com.smartsheet.api.internal.http.HttpRequest;
 import com.smartsheet.api.internal.http.HttpResponse;
 import com.smartsheet.api.internal.util.Util;
 import com.smartsheet.api.models.Attachment;
+import com.smartsheet.api.models.Result;
 
 /**
  * This is the base class of the Smartsheet REST API resources.
@@ -449,6 +454,55 @@ public abstract class AbstractResources {
 		return obj;
 	}
 
+	/**
+	 * Post JSON content of unknown length to Smartsheet REST API and receive a list of objects from response. The
+	 * content is streamed with chunked transfer encoding rather than buffered.
+	 * 
+	 * Exceptions:
+	 *   IllegalArgumentException : if any argument is null, or path is empty string
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param <S> the generic type
+	 * @param path the path
+	 * @param content the JSON content to post
+	 * @param objectClassToReceive the object class to receive
+	 * @return the list
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	protected <S> List<S> postStreamAndReceiveList(String path, InputStream content, Class<S> objectClassToReceive)
+			throws SmartsheetException {
+		Util.throwIfNull(path, content, objectClassToReceive);
+		Util.throwIfEmpty(path);
+		
+		HttpRequest request = createHttpRequest(smartsheet.getBaseURI().resolve(path), HttpMethod.POST);
+		
+		HttpEntity entity = new HttpEntity();
+		entity.setContentType("application/json");
+		entity.setContent(content);
+		entity.setContentLength(-1);
+		request.setEntity(entity);
+		
+		HttpResponse response = this.smartsheet.getHttpClient().request(request);
+		
+		List<S> obj = null;
+		switch (response.getStatusCode()) {
+			case 200:
+				obj = this.smartsheet.getJsonSerializer().deserializeListResult(objectClassToReceive,
+						response.getEntity().getContent()).getResult();
+				break;
+			default:
+				handleError(response);
+		}
+		
+		smartsheet.getHttpClient().releaseConnection();
+		
+		return obj;
+	}
+
 	/**
 	 * Put an object to Smartsheet REST API and receive a list of objects from response.
 	 * 
@@ -470,6 +524,31 @@ public abstract class AbstractResources {
 	 */
 	protected <T, S> List<S> putAndReceiveList(String path, T objectToPut, Class<S> objectClassToReceive) 
 			throws SmartsheetException {
+		return putAndReceiveListResult(path, objectToPut, objectClassToReceive).getResult();
+	}
+
+	/**
+	 * Put an object to Smartsheet REST API and receive the result holding a list of objects from response, along with
+	 * the new version of the sheet when the operation reports it.
+	 * 
+	 * Exceptions:
+	 *   IllegalArgumentException : if any argument is null, or path is empty string
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param <T> the generic type
+	 * @param <S> the generic type
+	 * @param path the relative path of the resource collections
+	 * @param objectToPut the object to put
+	 * @param objectClassToReceive the resource object class to receive
+	 * @return the result
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	protected <T, S> Result<List<S>> putAndReceiveListResult(String path, T objectToPut,
+			Class<S> objectClassToReceive) throws SmartsheetException {
 		Util.throwIfNull(path, objectToPut, objectClassToReceive);
 		Util.throwIfEmpty(path);
 		
@@ -483,11 +562,11 @@ public abstract class AbstractResources {
 		
 		HttpResponse response = this.smartsheet.getHttpClient().request(request);
 		
-		List<S> obj = null;
+		Result<List<S>> obj = null;
 		switch (response.getStatusCode()) { 
 			case 200: 
 				obj = this.smartsheet.getJsonSerializer().deserializeListResult(
-						objectClassToReceive, response.getEntity().getContent()).getResult();
+						objectClassToReceive, response.getEntity().getContent());
 				break;
 			default:
 				handleError(response); 
@@ -548,20 +627,64 @@ public abstract class AbstractResources {
 		HttpResponse response = this.getSmartsheet().getHttpClient().request(request);
 		
 		Attachment attachment = null;
-		switch (response.getStatusCode()) {
-		case 200:
-			attachment = this.getSmartsheet().getJsonSerializer().deserializeResult(Attachment.class, 
-					response.getEntity().getContent()).getResult();
-			break;
-		default:
-			handleError(response);
+		try {
+			switch (response.getStatusCode()) {
+			case 200:
+				attachment = this.getSmartsheet().getJsonSerializer().deserializeResult(Attachment.class, 
+						response.getEntity().getContent()).getResult();
+				break;
+			default:
+				handleError(response);
+			}
+		} finally {
+			this.getSmartsheet().getHttpClient().releaseConnection();
 		}
 		
-		this.getSmartsheet().getHttpClient().releaseConnection();
-		
 		return attachment;
 	}
 
+	/**
+	 * Attach a file, read through a file channel while computing its digest. The file is closed whether or not the
+	 * upload succeeds.
+	 * 
+	 * Exceptions:
+	 *   IllegalArgumentException : if any argument other than listener is null
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ResourceNotFoundException : if the resource can not be found
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param url the URL to which the file is posted
+	 * @param file the file
+	 * @param contentType the content type of the file
+	 * @param listener the listener receiving the progress and digest of the upload, null for none
+	 * @return the created attachment
+	 * @throws FileNotFoundException if the file can't be opened
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	protected Attachment attachFile(String url, File file, String contentType, UploadListener listener)
+			throws FileNotFoundException, SmartsheetException {
+		Util.throwIfNull(url, file, contentType);
+		
+		long start = System.nanoTime();
+		FileUploadStream stream = new FileUploadStream(file, listener);
+		try {
+			Attachment attachment = attachFile(url, stream, contentType, stream.getSize(), file.getName());
+			if (listener != null) {
+				listener.uploaded(stream.getBytesRead(), stream.getDigest(), (System.nanoTime() - start) / 1000000);
+			}
+			return attachment;
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				// Ignore exception, the file has only been read.
+			}
+		}
+	}
+
 	
 	/**
 	 * Handles an error HttpResponse (non-200) returned by Smartsheet REST API.
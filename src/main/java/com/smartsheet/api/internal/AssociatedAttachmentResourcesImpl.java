@@ -23,7 +23,6 @@ package com.smartsheet.api.internal;
 
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -31,6 +30,7 @@ import java.util.List;
 
 import com.smartsheet.api.AssociatedAttachmentResources;
 import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.UploadListener;
 import com.smartsheet.api.internal.util.Util;
 import com.smartsheet.api.models.Attachment;
 
@@ -105,7 +105,39 @@ public class AssociatedAttachmentResourcesImpl extends AbstractAssociatedResourc
 		Util.throwIfNull(objectId, file, contentType);
 		Util.throwIfEmpty(contentType);
 		
-		return attachFile(objectId, new FileInputStream(file), contentType, file.length(), file.getName());
+		return attachFile(objectId, file, contentType, null);
+	}
+
+	/**
+	 * Attach a file to the object, reporting the progress of the upload and the digest of the uploaded content.
+	 * 
+	 * It mirrors to the following Smartsheet REST API method: POST /sheet/{id}/attachments POST /row/{id}/attachments
+	 * POST /comment/{idd}/attachments
+	 * 
+	 * Exceptions:
+	 *   IllegalArgumentException : if any argument other than listener is null or empty string
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token) 
+	 *   ResourceNotFoundException : if the resource can not be found
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param objectId the object id
+	 * @param file the file to attach
+	 * @param contentType the content type of the file
+	 * @param listener the listener receiving the progress and digest of the upload, null for none
+	 * @return the created attachment
+	 * @throws FileNotFoundException the file not found exception
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public Attachment attachFile(long objectId, File file, String contentType, UploadListener listener)
+			throws FileNotFoundException, SmartsheetException {
+		Util.throwIfNull(file, contentType);
+		Util.throwIfEmpty(contentType);
+		
+		return super.attachFile(getMasterResourceType() + "/" + objectId + "/attachments", file, contentType, 
+				listener);
 	}
 	
 	/**
@@ -23,7 +23,6 @@ package com.smartsheet.api.internal;
 
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.util.List;
@@ -112,7 +111,7 @@ public class AttachmentResourcesImpl extends AbstractResources implements Attach
 		Util.throwIfNull(attachmentId, file, contentType);
 		Util.throwIfEmpty(contentType);
 		
-		return attachNewVersion(attachmentId, new FileInputStream(file), contentType, file.length(), file.getName());
+		return super.attachFile("attachment/"+ attachmentId +"/versions", file, contentType, null);
 	}
 
 	@Override
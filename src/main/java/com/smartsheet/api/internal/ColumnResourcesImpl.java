@@ -77,7 +77,13 @@ public class ColumnResourcesImpl extends AbstractResources implements ColumnReso
 	public Column updateColumn(Column column) throws SmartsheetException {
 		Util.throwIfNull(column);
 		
-		return this.updateResource("column/" + column.getId(), Column.class, column);
+		Column updated = this.updateResource("column/" + column.getId(), Column.class, column);
+		if (column.getSheetId() != null) {
+			getSmartsheet().getColumnSchemaCache().invalidate(column.getSheetId());
+		} else if (column.getId() != null) {
+			getSmartsheet().getColumnSchemaCache().invalidateColumn(column.getId());
+		}
+		return updated;
 	}
 
 	/**
@@ -123,5 +129,6 @@ public class ColumnResourcesImpl extends AbstractResources implements ColumnReso
 		
 		this.getSmartsheet().getHttpClient().releaseConnection();
 		
+		getSmartsheet().getColumnSchemaCache().invalidate(sheetId);
 	}
 }
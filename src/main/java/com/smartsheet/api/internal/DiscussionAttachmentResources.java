@@ -25,6 +25,7 @@ package com.smartsheet.api.internal;
 import java.io.File;
 import java.io.InputStream;
 
+import com.smartsheet.api.UploadListener;
 import com.smartsheet.api.models.Attachment;
 
 /**
@@ -70,6 +71,14 @@ public class DiscussionAttachmentResources extends AssociatedAttachmentResources
 		throw new UnsupportedOperationException("Attachments can only be attached to comments, not discussions.");
 	}
 	
+	/**
+	 * Throws an UnsupportedOperationException.
+	 */
+	@Override
+	public Attachment attachFile(long objectId, File file, String contentType, UploadListener listener) {
+		throw new UnsupportedOperationException("Attachments can only be attached to comments, not discussions.");
+	}
+
 	/**
 	 * Throws an UnsupportedOperationException.
 	 */
@@ -27,11 +27,18 @@ import java.util.List;
 
 import com.smartsheet.api.AssociatedAttachmentResources;
 import com.smartsheet.api.AssociatedDiscussionResources;
+import com.smartsheet.api.CellMerger;
 import com.smartsheet.api.RowResources;
 import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.SmartsheetRestException;
+import com.smartsheet.api.UpdateConflictException;
+import com.smartsheet.api.internal.cache.RowValueTracker;
+import com.smartsheet.api.internal.cache.SheetDeltaTracker;
+import com.smartsheet.api.internal.util.Util;
 import com.smartsheet.api.models.Cell;
 import com.smartsheet.api.models.CellHistory;
 import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Result;
 import com.smartsheet.api.models.Row;
 import com.smartsheet.api.models.RowEmail;
 import com.smartsheet.api.models.RowWrapper;
@@ -42,6 +49,16 @@ import com.smartsheet.api.models.RowWrapper;
  * Thread Safety: This class is thread safe because it is immutable and its base class is thread safe.
  */
 public class RowResourcesImpl extends AbstractResources implements RowResources {
+	/**
+	 * The error code returned when the sheet is being updated by another request.
+	 */
+	public static final int SHEET_BUSY_ERROR_CODE = 4004;
+
+	/**
+	 * The delay in milliseconds before the first retry, doubled for each following retry.
+	 */
+	private static final long RETRY_DELAY = 100;
+
 	/**
 	 * Represents the AssociatedAttachmentResources.
 	 * 
@@ -97,7 +114,9 @@ public class RowResourcesImpl extends AbstractResources implements RowResources
 			}
 		}
 		
-		return this.getResource(path, Row.class);
+		Row row = this.getResource(path, Row.class);
+		getSmartsheet().getRowValueTracker().recordRow(id, row);
+		return row;
 	}
 
 	/**
@@ -126,7 +145,45 @@ public class RowResourcesImpl extends AbstractResources implements RowResources
 	 * @throws SmartsheetException the smartsheet exception
 	 */
 	public List<Row> moveRow(long id, RowWrapper rowWrapper) throws SmartsheetException {
-		return this.putAndReceiveList("row/" + id, rowWrapper, Row.class);
+		return moveRow(id, rowWrapper, 0);
+	}
+
+	/**
+	 * Move a row, retrying while the sheet is being updated by another request.
+	 * 
+	 * It mirrors to the following Smartsheet REST API method: PUT /row/{id}
+	 * 
+	 * Retries wait 100 milliseconds, doubled for each following retry.
+	 * 
+	 * Exceptions:
+	 *   IllegalArgumentException : if any argument is null or maxRetries is negative
+	 *   UpdateConflictException : if the sheet is still being updated by another request after the retries, if
+	 *   maxRetries is positive
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ResourceNotFoundException : if the resource can not be found
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param id the id
+	 * @param rowWrapper the RowWrapper giving the new position, see {@link #moveRow(long, RowWrapper)}
+	 * @param maxRetries the maximum number of retries
+	 * @return the rows that have been moved by the operation
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public List<Row> moveRow(long id, RowWrapper rowWrapper, int maxRetries) throws SmartsheetException {
+		if (maxRetries < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		for (int attempt = 0; ; attempt++) {
+			try {
+				return this.putAndReceiveListResult("row/" + id, rowWrapper, Row.class).getResult();
+			} catch (SmartsheetRestException e) {
+				retryOrThrow(e, attempt, maxRetries);
+			}
+		}
 	}
 
 	/**
@@ -196,7 +253,82 @@ public class RowResourcesImpl extends AbstractResources implements RowResources
 	 * @throws SmartsheetException the smartsheet exception
 	 */
 	public List<Cell> updateCells(long rowId, List<Cell> cells) throws SmartsheetException {
-		return this.putAndReceiveList("row/" + rowId + "/cells", cells, Cell.class);
+		Result<List<Cell>> result = this.putAndReceiveListResult("row/" + rowId + "/cells", cells, Cell.class);
+
+		SheetDeltaTracker tracker = getSmartsheet().getSheetDeltaTracker();
+		if (tracker != null) {
+			tracker.recordCellUpdate(rowId);
+		}
+
+		// Remember the values written so that they aren't mistaken for a modification by another writer.
+		getSmartsheet().getRowValueTracker().recordCells(rowId, result.getResult() == null ? cells
+				: result.getResult());
+		return result.getResult();
+	}
+
+	/**
+	 * Update the values of the Cells in a Row, detecting modifications made by other writers.
+	 * 
+	 * It mirrors to the following Smartsheet REST API methods: GET /row/{id} and PUT /row/{id}/cells
+	 * 
+	 * The Smartsheet REST API doesn't reject updates based on a stale version, and only versions whole sheets, so
+	 * conflicts are detected per row on the client: when the row has been read or written before, the row alone is
+	 * fetched and the current values of the cells about to be written are compared with the values last seen, see
+	 * {@link RowValueTracker}. When any of them differs the merger decides which cells to write, based on the current
+	 * row and the intended cells. Edits of other cells or other rows are not conflicts. A row that has never been
+	 * seen, or has been forgotten, is written without check. A small window remains between the check and the write.
+	 * 
+	 * Requests rejected because the sheet is being updated by another request are retried, with the check repeated,
+	 * waiting 100 milliseconds before the first retry and doubling the delay for each following one.
+	 * 
+	 * Exceptions:
+	 *   IllegalArgumentException : if any argument is null or maxRetries is negative
+	 *   UpdateConflictException : if the merger abandons the update, or if the sheet is still being updated by another
+	 *   request after the retries, if maxRetries is positive
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ResourceNotFoundException : if the resource can not be found
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param rowId the row id
+	 * @param cells the cells to update
+	 * @param merger the merger resolving conflicts
+	 * @param maxRetries the maximum number of retries
+	 * @return the updated cells
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public List<Cell> updateCells(long rowId, List<Cell> cells, CellMerger merger, int maxRetries)
+			throws SmartsheetException {
+		Util.throwIfNull(cells, merger);
+		if (maxRetries < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		RowValueTracker values = getSmartsheet().getRowValueTracker();
+		for (int attempt = 0; ; attempt++) {
+			List<Cell> toWrite = cells;
+			if (values.isTracked(rowId)) {
+				// The row is fetched without being recorded, so that it's compared with the values seen before.
+				Row current = this.getResource("row/" + rowId, Row.class);
+				boolean modified = values.isModified(rowId, current, cells);
+				values.recordRow(rowId, current);
+				if (modified) {
+					toWrite = merger.merge(current, cells);
+					if (toWrite == null) {
+						throw new UpdateConflictException("The update of row " + rowId
+								+ " was abandoned after a conflicting modification.");
+					}
+				}
+			}
+
+			try {
+				return updateCells(rowId, toWrite);
+			} catch (SmartsheetRestException e) {
+				retryOrThrow(e, attempt, maxRetries);
+			}
+		}
 	}
 
 	/**
@@ -222,6 +354,36 @@ public class RowResourcesImpl extends AbstractResources implements RowResources
 		return this.listResources("row/" + rowId + "/column/" + columnId + "/history", CellHistory.class);
 	}
 
+	/**
+	 * Wait before retrying a request that failed because the sheet is being updated by another request, or throw the
+	 * failure if it has another cause.
+	 *
+	 * @param e the failure
+	 * @param attempt the number of retries made so far
+	 * @param maxRetries the maximum number of retries
+	 * @throws SmartsheetException the failure, or an UpdateConflictException once at least one retry was made and the
+	 * retries are exhausted
+	 */
+	private static void retryOrThrow(SmartsheetRestException e, int attempt, int maxRetries)
+			throws SmartsheetException {
+		if (e.getErrorCode() != SHEET_BUSY_ERROR_CODE) {
+			throw e;
+		}
+		if (maxRetries == 0) {
+			// Nothing was retried, the caller sees the original error.
+			throw e;
+		}
+		if (attempt >= maxRetries) {
+			throw new UpdateConflictException(e.getMessage(), e);
+		}
+		try {
+			Thread.sleep(RETRY_DELAY << Math.min(attempt, 10));
+		} catch (InterruptedException interrupted) {
+			Thread.currentThread().interrupt();
+			throw new SmartsheetException(interrupted);
+		}
+	}
+
 	/**
 	 * Return the AssociatedAttachmentResources object that provides access to attachment resources associated with Row
 	 * resources.
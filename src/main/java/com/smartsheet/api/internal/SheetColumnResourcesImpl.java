@@ -21,9 +21,11 @@ package com.smartsheet.api.internal;
  */
 
 import java.util.List;
+import java.util.Map;
 
 import com.smartsheet.api.SheetColumnResources;
 import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.cache.ColumnSchemaCache;
 import com.smartsheet.api.models.Column;
 
 /**
@@ -62,7 +64,9 @@ public class SheetColumnResourcesImpl extends AbstractResources implements Sheet
 	 * @throws SmartsheetException the smartsheet exception
 	 */
 	public List<Column> listColumns(long sheetId) throws SmartsheetException  {
-		return this.listResources("sheet/" + sheetId + "/columns", Column.class);
+		List<Column> columns = this.listResources("sheet/" + sheetId + "/columns", Column.class);
+		getSmartsheet().getColumnSchemaCache().put(sheetId, columns);
+		return columns;
 	}
 
 	/**
@@ -88,6 +92,64 @@ public class SheetColumnResourcesImpl extends AbstractResources implements Sheet
 	 */
 	public Column addColumn(long sheetId, Column column) throws SmartsheetException {
 		
-		return this.createResource("sheet/" + sheetId + "/columns", Column.class, column);
+		Column created = this.createResource("sheet/" + sheetId + "/columns", Column.class, column);
+		getSmartsheet().getColumnSchemaCache().invalidate(sheetId);
+		return created;
+	}
+
+	/**
+	 * Get the column IDs of a sheet by column title.
+	 * 
+	 * The columns are cached per sheet, they are only listed through the REST API (GET /sheet/{id}/columns) if they
+	 * haven't been retrieved yet or have been changed through this client since. Call {@link #listColumns(long)} to
+	 * pick up column changes made by other clients.
+	 * 
+	 * Exceptions:
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ResourceNotFoundException : if the resource can not be found
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param sheetId the sheet id
+	 * @return the unmodifiable map of column IDs by title
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public Map<String, Long> getColumnIdsByTitle(long sheetId) throws SmartsheetException {
+		ColumnSchemaCache cache = getSmartsheet().getColumnSchemaCache();
+		Map<String, Long> ids = cache.getColumnIdsByTitle(sheetId);
+		if (ids == null) {
+			listColumns(sheetId);
+			ids = cache.getColumnIdsByTitle(sheetId);
+		}
+		return ids;
+	}
+
+	/**
+	 * Get the column IDs of a sheet by column index.
+	 * 
+	 * The columns are cached per sheet, see {@link #getColumnIdsByTitle(long)}.
+	 * 
+	 * Exceptions:
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ResourceNotFoundException : if the resource can not be found
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param sheetId the sheet id
+	 * @return the unmodifiable map of column IDs by index
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public Map<Integer, Long> getColumnIdsByIndex(long sheetId) throws SmartsheetException {
+		ColumnSchemaCache cache = getSmartsheet().getColumnSchemaCache();
+		Map<Integer, Long> ids = cache.getColumnIdsByIndex(sheetId);
+		if (ids == null) {
+			listColumns(sheetId);
+			ids = cache.getColumnIdsByIndex(sheetId);
+		}
+		return ids;
 	}
 }
@@ -20,24 +20,42 @@ package com.smartsheet.api.internal;
  * %[license]
  */
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.smartsheet.api.AssociatedAttachmentResources;
 import com.smartsheet.api.AssociatedDiscussionResources;
+import com.smartsheet.api.ProgressListener;
+import com.smartsheet.api.ResourceNotFoundException;
 import com.smartsheet.api.ShareResources;
 import com.smartsheet.api.SheetColumnResources;
+import com.smartsheet.api.SheetHandler;
 import com.smartsheet.api.SheetResources;
 import com.smartsheet.api.SheetRowResources;
 import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.cache.RefreshAheadScheduler;
+import com.smartsheet.api.internal.cache.RenditionCache;
+import com.smartsheet.api.internal.cache.SheetCache;
+import com.smartsheet.api.internal.cache.SheetCodec;
+import com.smartsheet.api.internal.cache.SheetDeltaTracker;
+import com.smartsheet.api.internal.cache.SheetSnapshotStore;
 import com.smartsheet.api.internal.http.HttpMethod;
 import com.smartsheet.api.internal.http.HttpRequest;
 import com.smartsheet.api.internal.util.Util;
 import com.smartsheet.api.models.ObjectInclusion;
 import com.smartsheet.api.models.PaperSize;
+import com.smartsheet.api.models.Row;
 import com.smartsheet.api.models.Sheet;
 import com.smartsheet.api.models.SheetEmail;
 import com.smartsheet.api.models.SheetPublish;
@@ -49,8 +67,15 @@ import com.smartsheet.api.models.SheetPublish;
  */
 public class SheetResourcesImpl extends AbstractResources implements SheetResources {
 	
-	/** The Constant BUFFER_SIZE. */
-	private final static int BUFFER_SIZE = 4098;
+	/** The size of the buffer through which files are downloaded. */
+	private final static int BUFFER_SIZE = 256 * 1024;
+
+	/** The download buffer of each thread, reused so that downloads don't allocate a large array each time. */
+	private static final ThreadLocal<byte[]> DOWNLOAD_BUFFER = new ThreadLocal<byte[]>() {
+		protected byte[] initialValue() {
+			return new byte[BUFFER_SIZE];
+		}
+	};
 
 	/**
 	 * Represents the ShareResources.
@@ -150,6 +175,13 @@ public class SheetResourcesImpl extends AbstractResources implements SheetResour
 	 *   - SmartsheetRestException : if there is any other REST API related error occurred during the operation 
 	 *   - SmartsheetException : if there is any other error occurred during the operation
 	 *
+	 * When a sheet cache is configured and no includes are requested, a cached sheet is returned as long as it is
+	 * fresh, or as long as its version is unchanged once it's no longer fresh. When the version has changed only
+	 * because of cell updates made through this client, just the updated rows are re-fetched, see
+	 * {@link SheetDeltaTracker}. When a snapshot store is configured, a sheet that isn't cached is read from its
+	 * snapshot as long as the snapshot version is current. Note that cached sheets are shared and must not be
+	 * modified.
+	 *
 	 * @param id the id
 	 * @param includes used to specify the optional objects to include, currently DISCUSSIONS and
 	 * ATTACHMENTS are supported.
@@ -158,6 +190,193 @@ public class SheetResourcesImpl extends AbstractResources implements SheetResour
 	 * @throws SmartsheetException the smartsheet exception
 	 */
 	public Sheet getSheet(long id, EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+		SheetCache cache = getSmartsheet().getSheetCache();
+		SheetSnapshotStore snapshots = getSmartsheet().getSheetSnapshotStore();
+		if ((cache == null && snapshots == null) || (includes != null && !includes.isEmpty())) {
+			return fetchSheet(id, includes);
+		}
+
+		RefreshAheadScheduler refresher = getSmartsheet().getSheetRefresher();
+		if (refresher != null) {
+			refresher.recordAccess(id);
+		}
+
+		Sheet sheet = cache == null ? null : cache.get(id);
+		if (sheet != null) {
+			if (cache.isFresh(id)) {
+				return sheet;
+			}
+			int version = getSheetVersion(id);
+			if (sheet.getVersion() != null && sheet.getVersion() == version) {
+				cache.touch(id);
+				return sheet;
+			}
+			sheet = refreshSheet(id, sheet, version);
+		} else {
+			sheet = loadSnapshot(id);
+			if (sheet == null) {
+				sheet = fetchSheet(id, null);
+			}
+		}
+
+		cacheSheet(sheet);
+		return sheet;
+	}
+
+	/**
+	 * Load the snapshot of a sheet if it's still current.
+	 *
+	 * @param id the sheet id
+	 * @return the sheet, or null if there is no current snapshot
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	private Sheet loadSnapshot(long id) throws SmartsheetException {
+		SheetSnapshotStore snapshots = getSmartsheet().getSheetSnapshotStore();
+		if (snapshots == null) {
+			return null;
+		}
+
+		Integer version = snapshots.getVersion(id);
+		if (version == null || version != getSheetVersion(id)) {
+			return null;
+		}
+		return snapshots.load(id);
+	}
+
+	/**
+	 * Get the current content of a cached sheet whose version has changed, re-fetching only the changed rows when
+	 * the delta tracker knows them and the delta is small enough, or the whole sheet otherwise.
+	 *
+	 * The changed rows are patched into a copy of the cached sheet, decoded from its serialized form, because the
+	 * cached sheet is shared with readers and with the refresh-ahead threads. The caller stores the result in the
+	 * cache.
+	 *
+	 * @param id the sheet id
+	 * @param cached the cached sheet, which isn't modified
+	 * @param version the current version
+	 * @return the sheet
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	private Sheet refreshSheet(long id, Sheet cached, int version) throws SmartsheetException {
+		SheetDeltaTracker tracker = getSmartsheet().getSheetDeltaTracker();
+		Set<Long> rowIds = null;
+		if (tracker != null && cached.getVersion() != null) {
+			rowIds = tracker.planDelta(id, cached.getVersion(), version);
+		}
+		if (rowIds == null) {
+			return fetchSheet(id, null);
+		}
+
+		Map<Long, Row> rows = new HashMap<Long, Row>();
+		try {
+			for (Long rowId : rowIds) {
+				rows.put(rowId, getSmartsheet().rows().getRow(rowId, null));
+			}
+		} catch (ResourceNotFoundException e) {
+			// The row has been deleted by someone else in the meantime.
+			return fetchSheet(id, null);
+		}
+
+		Sheet sheet = SheetCodec.decode(SheetCodec.encode(cached));
+		if (!SheetDeltaTracker.patchRows(sheet, rows)) {
+			return fetchSheet(id, null);
+		}
+		sheet.setVersion(version);
+		return sheet;
+	}
+
+	/**
+	 * Store a sheet in the sheet cache and start tracking its changes, and save its snapshot.
+	 *
+	 * @param sheet the sheet
+	 */
+	private void cacheSheet(Sheet sheet) {
+		SheetCache cache = getSmartsheet().getSheetCache();
+		if (cache != null) {
+			cache.put(sheet);
+		}
+		SheetDeltaTracker tracker = getSmartsheet().getSheetDeltaTracker();
+		if (tracker != null) {
+			tracker.track(sheet);
+		}
+		SheetSnapshotStore snapshots = getSmartsheet().getSheetSnapshotStore();
+		if (snapshots != null && sheet.getVersion() != null) {
+			// A snapshot that can't be written only costs a download on the next restart.
+			snapshots.save(sheet);
+		}
+	}
+
+	/**
+	 * Create a loader that retrieves sheets for the refresh-ahead scheduler, bypassing the sheet cache.
+	 *
+	 * @return the loader
+	 */
+	RefreshAheadScheduler.SheetLoader sheetLoader() {
+		return new RefreshAheadScheduler.SheetLoader() {
+			public int getSheetVersion(long sheetId) throws SmartsheetException {
+				return SheetResourcesImpl.this.getSheetVersion(sheetId);
+			}
+
+			public Sheet loadSheet(long sheetId, Sheet cached, int version) throws SmartsheetException {
+				return refreshSheet(sheetId, cached, version);
+			}
+
+			public void cacheSheet(Sheet sheet) {
+				SheetResourcesImpl.this.cacheSheet(sheet);
+			}
+		};
+	}
+
+	/**
+	 * Get a sheet from the Smartsheet REST API, bypassing the sheet cache.
+	 *
+	 * @param id the id
+	 * @param includes the optional objects to include
+	 * @return the sheet
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	private Sheet fetchSheet(long id, EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+		String path = "sheet/" + id;
+		if (includes != null) {
+			path += "?include=";
+			for (ObjectInclusion oi : includes) {
+				path += oi.name().toLowerCase() + ",";
+			}
+		}
+
+		Sheet sheet = this.getResource(path, Sheet.class);
+		if (sheet != null && sheet.getColumns() != null) {
+			getSmartsheet().getColumnSchemaCache().put(id, sheet.getColumns());
+		}
+		return sheet;
+	}
+
+	/**
+	 * Get a sheet, passing its rows to a handler one at a time as they are read from the response.
+	 * 
+	 * It mirrors to the following Smartsheet REST API method: GET /sheet/{id}
+	 * 
+	 * Exceptions: 
+	 *   - IllegalArgumentException : if handler is null
+	 *   - InvalidRequestException : if there is any problem with the REST API request 
+	 *   - AuthorizationException : if there is any problem with the REST API authorization(access token) 
+	 *   - ResourceNotFoundException : if the resource can not be found 
+	 *   - ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting) 
+	 *   - SmartsheetRestException : if there is any other REST API related error occurred during the operation 
+	 *   - SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * The sheet cache is bypassed, as the rows are not kept. The columns are stored in the column schema cache once
+	 * they are read. The connection is released even when the handler aborts the parsing.
+	 *
+	 * @param id the id
+	 * @param includes the optional objects to include
+	 * @param handler the handler receiving the sheet
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public void streamSheet(final long id, EnumSet<ObjectInclusion> includes, final SheetHandler handler)
+			throws SmartsheetException {
+		Util.throwIfNull(handler);
+
 		String path = "sheet/" + id;
 		if (includes != null) {
 			path += "?include=";
@@ -166,7 +385,35 @@ public class SheetResourcesImpl extends AbstractResources implements SheetResour
 			}
 		}
 
-		return this.getResource(path, Sheet.class);
+		HttpRequest request = createHttpRequest(this.getSmartsheet().getBaseURI().resolve(path), HttpMethod.GET);
+		com.smartsheet.api.internal.http.HttpResponse response = getSmartsheet().getHttpClient().request(request);
+		try {
+			switch (response.getStatusCode()) {
+			case 200:
+				getSmartsheet().getJsonSerializer().deserializeSheet(response.getEntity().getContent(),
+						new SheetHandler() {
+							public void start(Sheet sheet) throws SmartsheetException {
+								if (sheet.getColumns() != null) {
+									getSmartsheet().getColumnSchemaCache().put(id, sheet.getColumns());
+								}
+								handler.start(sheet);
+							}
+
+							public void row(Row row) throws SmartsheetException {
+								handler.row(row);
+							}
+
+							public void end(Sheet sheet) throws SmartsheetException {
+								handler.end(sheet);
+							}
+						});
+				break;
+			default:
+				handleError(response);
+			}
+		} finally {
+			getSmartsheet().getHttpClient().releaseConnection();
+		}
 	}
 
 	/**
@@ -190,7 +437,60 @@ public class SheetResourcesImpl extends AbstractResources implements SheetResour
 	 * @throws SmartsheetException the smartsheet exception
 	 */
 	public void getSheetAsExcel(long id, OutputStream outputStream) throws SmartsheetException {
-		getSheetAsFile(id, null, outputStream, "application/vnd.ms-excel");
+		Util.throwIfNull(outputStream);
+		getSheetAsFile(id, null, new OutputStreamChannel(outputStream), "application/vnd.ms-excel", null);
+	}
+
+	/**
+	 * Get a sheet as an Excel file, written to a channel.
+	 * 
+	 * It mirrors to the following Smartsheet REST API method: GET /sheet/{id} with "application/vnd.ms-excel" Accept
+	 * HTTP header 
+	 * 
+	 * Exceptions:
+	 *   IllegalArgumentException : if channel is null
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ResourceNotFoundException : if the resource can not be found
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param id the id
+	 * @param channel the channel to which the Excel file will be written, which is not closed
+	 * @param listener the listener receiving the number of bytes written, null for none
+	 * @return the number of bytes written
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public long getSheetAsExcel(long id, WritableByteChannel channel, ProgressListener listener)
+			throws SmartsheetException {
+		Util.throwIfNull(channel);
+		return getSheetAsFile(id, null, channel, "application/vnd.ms-excel", listener);
+	}
+
+	/**
+	 * Get a sheet as an Excel file, written to a local file.
+	 * 
+	 * It mirrors to the following Smartsheet REST API method: GET /sheet/{id} with "application/vnd.ms-excel" Accept
+	 * HTTP header 
+	 * 
+	 * Exceptions:
+	 *   IllegalArgumentException : if file is null
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ResourceNotFoundException : if the resource can not be found
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param id the id
+	 * @param file the file to which the Excel file will be written, replaced only once the download is complete
+	 * @param listener the listener receiving the number of bytes written, null for none
+	 * @return the number of bytes written
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public long getSheetAsExcel(long id, File file, ProgressListener listener) throws SmartsheetException {
+		return getSheetAsFile(id, null, file, "application/vnd.ms-excel", listener);
 	}
 
 	/**
@@ -215,7 +515,63 @@ public class SheetResourcesImpl extends AbstractResources implements SheetResour
 	 * @throws SmartsheetException the smartsheet exception
 	 */
 	public void getSheetAsPDF(long id, OutputStream outputStream, PaperSize paperSize) throws SmartsheetException {
-		getSheetAsFile(id, paperSize, outputStream, "application/pdf");
+		Util.throwIfNull(outputStream);
+		getSheetAsFile(id, paperSize, new OutputStreamChannel(outputStream), "application/pdf", null);
+	}
+
+	/**
+	 * Get a sheet as a PDF file, written to a channel.
+	 * 
+	 * It mirrors to the following Smartsheet REST API method: GET /sheet/{id} with "application/pdf" Accept HTTP 
+	 * header
+	 * 
+	 * Exceptions:
+	 *   IllegalArgumentException : if channel is null
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ResourceNotFoundException : if the resource can not be found
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param id the id
+	 * @param channel the channel to which the PDF file will be written, which is not closed
+	 * @param paperSize the optional paper size
+	 * @param listener the listener receiving the number of bytes written, null for none
+	 * @return the number of bytes written
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public long getSheetAsPDF(long id, WritableByteChannel channel, PaperSize paperSize, ProgressListener listener)
+			throws SmartsheetException {
+		Util.throwIfNull(channel);
+		return getSheetAsFile(id, paperSize, channel, "application/pdf", listener);
+	}
+
+	/**
+	 * Get a sheet as a PDF file, written to a local file.
+	 * 
+	 * It mirrors to the following Smartsheet REST API method: GET /sheet/{id} with "application/pdf" Accept HTTP 
+	 * header
+	 * 
+	 * Exceptions:
+	 *   IllegalArgumentException : if file is null
+	 *   InvalidRequestException : if there is any problem with the REST API request
+	 *   AuthorizationException : if there is any problem with the REST API authorization(access token)
+	 *   ResourceNotFoundException : if the resource can not be found
+	 *   ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting)
+	 *   SmartsheetRestException : if there is any other REST API related error occurred during the operation
+	 *   SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param id the id
+	 * @param file the file to which the PDF file will be written, replaced only once the download is complete
+	 * @param paperSize the optional paper size
+	 * @param listener the listener receiving the number of bytes written, null for none
+	 * @return the number of bytes written
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public long getSheetAsPDF(long id, File file, PaperSize paperSize, ProgressListener listener)
+			throws SmartsheetException {
+		return getSheetAsFile(id, paperSize, file, "application/pdf", listener);
 	}
 
 	/**
@@ -405,6 +761,7 @@ public class SheetResourcesImpl extends AbstractResources implements SheetResour
 	 * @throws SmartsheetException the smartsheet exception
 	 */
 	public void deleteSheet(long id) throws SmartsheetException {
+		invalidateCachedSheet(id);
 		this.deleteResource("sheet/" + id, Sheet.class);
 	}
 
@@ -428,6 +785,8 @@ public class SheetResourcesImpl extends AbstractResources implements SheetResour
 	 * @throws SmartsheetException the smartsheet exception
 	 */
 	public Sheet updateSheet(Sheet sheet) throws SmartsheetException {
+		Util.throwIfNull(sheet);
+		invalidateCachedSheet(sheet.getId());
 		return this.updateResource("sheet/" + sheet.getId(), Sheet.class, sheet);
 	}
 
@@ -571,7 +930,11 @@ public class SheetResourcesImpl extends AbstractResources implements SheetResour
 	}
 
 	/**
-	 * Get a sheet as a file.
+	 * Get a sheet in a file format, written to a channel. When a rendition cache is configured, the rendition cached
+	 * for the current sheet version is served instead of downloading it again.
+	 * 
+	 * It mirrors to the following Smartsheet REST API method: GET /sheet/{id} with the content type as Accept HTTP
+	 * header
 	 * 
 	 * Exceptions: 
 	 *   - InvalidRequestException : if there is any problem with the REST API request 
@@ -583,15 +946,43 @@ public class SheetResourcesImpl extends AbstractResources implements SheetResour
 	 * 
 	 * @param id the id
 	 * @param paperSize the paper size
-	 * @param outputStream the OutputStream to which the Excel file will be written
+	 * @param channel the channel to which the file will be written
 	 * @param contentType the content type
-	 * @return the sheet as file
+	 * @param listener the listener receiving the number of bytes written, null for none
+	 * @return the number of bytes written
 	 * @throws SmartsheetException the smartsheet exception
 	 */
-	private void getSheetAsFile(long id, PaperSize paperSize, OutputStream outputStream, String contentType)
-			throws SmartsheetException {
-		Util.throwIfNull(outputStream, contentType);
-		
+	private long getSheetAsFile(final long id, final PaperSize paperSize, WritableByteChannel channel,
+			final String contentType, ProgressListener listener) throws SmartsheetException {
+		RenditionCache renditions = getSmartsheet().getRenditionCache();
+		if (renditions == null) {
+			return downloadSheetAsFile(id, paperSize, channel, contentType, listener);
+		}
+
+		String format = "application/pdf".equals(contentType) ? "pdf" : "xls";
+		return renditions.get(id, getSheetVersion(id), format, paperSize, channel, listener,
+				new RenditionCache.Loader() {
+					public long load(WritableByteChannel channel, ProgressListener listener)
+							throws SmartsheetException {
+						return downloadSheetAsFile(id, paperSize, channel, contentType, listener);
+					}
+				});
+	}
+
+	/**
+	 * Download a sheet in a file format, bypassing the rendition cache. The response is read into a heap array which
+	 * is written to the channel through a wrapping buffer, so that the bytes aren't copied again on the way.
+	 * 
+	 * @param id the id
+	 * @param paperSize the paper size
+	 * @param channel the channel to which the file will be written
+	 * @param contentType the content type
+	 * @param listener the listener receiving the number of bytes written, null for none
+	 * @return the number of bytes written
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	private long downloadSheetAsFile(long id, PaperSize paperSize, WritableByteChannel channel, String contentType,
+			ProgressListener listener) throws SmartsheetException {
 		String path = "sheet/" + id;
 		if (paperSize != null) {
 			path += "?paperSize=" + paperSize;
@@ -603,42 +994,161 @@ public class SheetResourcesImpl extends AbstractResources implements SheetResour
 
 		com.smartsheet.api.internal.http.HttpResponse response = getSmartsheet().getHttpClient().request(request);
 
-		switch (response.getStatusCode()) {
-		case 200:
-			try {
-				copyStream(response.getEntity().getContent(), outputStream);
-			} catch (IOException e) {
-				throw new SmartsheetException(e);
+		long count = 0;
+		try {
+			switch (response.getStatusCode()) {
+			case 200:
+				long total = response.getEntity().getContentLength() < 0 ? -1 : response.getEntity().getContentLength();
+				byte[] buffer = DOWNLOAD_BUFFER.get();
+				try {
+					InputStream input = response.getEntity().getContent();
+					int length;
+					while ((length = input.read(buffer)) != -1) {
+						ByteBuffer wrapped = ByteBuffer.wrap(buffer, 0, length);
+						while (wrapped.hasRemaining()) {
+							channel.write(wrapped);
+						}
+						count += length;
+						if (listener != null) {
+							listener.progress(count, total);
+						}
+					}
+				} catch (IOException e) {
+					throw new SmartsheetException(e);
+				}
+				break;
+			default:
+				handleError(response);
 			}
-			break;
-		default:
-			handleError(response);
+		} finally {
+			getSmartsheet().getHttpClient().releaseConnection();
 		}
-		
-		getSmartsheet().getHttpClient().releaseConnection();
+		return count;
 	}
 
-	/*
-	 * Copy an input stream to an output stream.
-	 * 
-	 * @param input The input stream to copy.
-	 * 
-	 * @param output the output stream to write to.
+	/**
+	 * Download a sheet in a file format to a temporary file next to the target file, which is then renamed to the
+	 * target file, so that the target file is either the previous one or the complete download.
+	 *
+	 * Exceptions: - IllegalArgumentException : if file is null
 	 * 
-	 * @throws IOException if there is trouble reading or writing to the streams.
+	 * @param id the id
+	 * @param paperSize the paper size
+	 * @param file the target file
+	 * @param contentType the content type
+	 * @param listener the listener receiving the number of bytes written, null for none
+	 * @return the number of bytes written
+	 * @throws SmartsheetException the smartsheet exception
 	 */
+	private long getSheetAsFile(long id, PaperSize paperSize, File file, String contentType,
+			ProgressListener listener) throws SmartsheetException {
+		Util.throwIfNull(file);
+
+		File temp = null;
+		FileOutputStream output = null;
+		boolean done = false;
+		try {
+			temp = File.createTempFile("smartsheet-", ".tmp", file.getAbsoluteFile().getParentFile());
+			output = new FileOutputStream(temp);
+			long count = getSheetAsFile(id, paperSize, output.getChannel(), contentType, listener);
+			output.getChannel().force(false);
+			output.close();
+			output = null;
+
+			// Renaming over an existing file fails on some platforms.
+			if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+				throw new SmartsheetException("Unable to write " + file);
+			}
+			done = true;
+			return count;
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		} finally {
+			if (output != null) {
+				try {
+					output.close();
+				} catch (IOException e) {
+					// Ignore exception, the download has already failed.
+				}
+			}
+			if (!done && temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
 	/**
-	 * Copy stream.
+	 * Remove a sheet from the sheet cache, snapshot store and rendition cache, if configured.
 	 *
-	 * @param input the input
-	 * @param output the output
-	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @param id the sheet id
+	 */
+	private void invalidateCachedSheet(Long id) {
+		SheetCache cache = getSmartsheet().getSheetCache();
+		if (cache != null && id != null) {
+			cache.invalidate(id);
+		}
+		SheetDeltaTracker tracker = getSmartsheet().getSheetDeltaTracker();
+		if (tracker != null && id != null) {
+			tracker.forget(id);
+		}
+		SheetSnapshotStore snapshots = getSmartsheet().getSheetSnapshotStore();
+		if (snapshots != null && id != null) {
+			snapshots.delete(id);
+		}
+
+		RenditionCache renditions = getSmartsheet().getRenditionCache();
+		if (renditions != null && id != null) {
+			renditions.invalidate(id);
+		}
+	}
+
+	/**
+	 * A channel writing to an output stream. Unlike the channel of {@link Channels#newChannel(OutputStream)}, it
+	 * writes buffers backed by an array straight from that array rather than copying them through its own array. The
+	 * output stream is not closed.
 	 */
-	private static void copyStream(InputStream input, OutputStream output) throws IOException {
-		byte[] buffer = new byte[BUFFER_SIZE];
-		int len;
-		while ((len = input.read(buffer)) != -1) {
-			output.write(buffer, 0, len);
+	private static class OutputStreamChannel implements WritableByteChannel {
+
+		/** The size of the array through which buffers without array are copied. */
+		private static final int COPY_SIZE = 8192;
+
+		/** The output stream. */
+		private final OutputStream output;
+
+		/** Whether the channel is open. */
+		private boolean open = true;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param output the output stream
+		 */
+		OutputStreamChannel(OutputStream output) {
+			this.output = output;
+		}
+
+		public int write(ByteBuffer source) throws IOException {
+			int length = source.remaining();
+			if (source.hasArray()) {
+				output.write(source.array(), source.arrayOffset() + source.position(), length);
+				source.position(source.limit());
+			} else {
+				byte[] bytes = new byte[Math.min(length, COPY_SIZE)];
+				while (source.hasRemaining()) {
+					int chunk = Math.min(source.remaining(), bytes.length);
+					source.get(bytes, 0, chunk);
+					output.write(bytes, 0, chunk);
+				}
+			}
+			return length;
+		}
+
+		public boolean isOpen() {
+			return open;
+		}
+
+		public void close() {
+			open = false;
 		}
 	}
 }
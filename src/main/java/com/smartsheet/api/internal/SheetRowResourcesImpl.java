@@ -22,11 +22,28 @@ package com.smartsheet.api.internal;
 
 
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.smartsheet.api.AuthorizationException;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.ServiceUnavailableException;
 import com.smartsheet.api.SheetRowResources;
 import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.SmartsheetRestException;
+import com.smartsheet.api.internal.json.JsonListInputStream;
+import com.smartsheet.api.internal.util.DaemonThreadFactory;
+import com.smartsheet.api.internal.util.Util;
 import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowChunkResult;
 import com.smartsheet.api.models.RowWrapper;
 
 /**
@@ -35,6 +52,12 @@ import com.smartsheet.api.models.RowWrapper;
  * Thread Safety: This class is thread safe because it is immutable and its base class is thread safe.
  */
 public class SheetRowResourcesImpl extends AbstractResources implements SheetRowResources {
+
+	/** The number of times a chunk rejected because the sheet is busy or the service unavailable is retried. */
+	static final int MAX_CHUNK_RETRIES = 3;
+
+	/** The delay in milliseconds before the first retry of a chunk, doubled for each following retry. */
+	private static final long RETRY_DELAY = 100;
 	
 	/**
 	 * Constructor.
@@ -76,6 +99,143 @@ public class SheetRowResourcesImpl extends AbstractResources implements SheetRow
 		return this.postAndReceiveList("sheet/" + sheetId + "/rows", rowWrapper, Row.class);
 	}
 
+	/**
+	 * Insert rows to a sheet in a single request, streaming them from an iterator.
+	 * 
+	 * It mirrors to the following Smartsheet REST API method: POST /sheet/{id}/rows
+	 * 
+	 * The request body is produced while it's sent, with chunked transfer encoding: the placement is serialized first
+	 * and the rows are then pulled from the iterator and serialized one at a time, so memory use doesn't depend on the
+	 * number of rows. An exception thrown by the iterator aborts the request.
+	 * 
+	 * Exceptions: 
+	 *   - IllegalArgumentException : if any argument is null or placement holds rows 
+	 *   - InvalidRequestException : if there is any problem with the REST API request 
+	 *   - AuthorizationException : if there is any problem with the REST API authorization(access token) 
+	 *   - ResourceNotFoundException : if the resource can not be found 
+	 *   - ServiceUnavailableException : if the REST API service is not available (possibly due to rate limiting) 
+	 *   - SmartsheetRestException : if there is any other REST API related error occurred during the operation 
+	 *   - SmartsheetException : if there is any other error occurred during the operation
+	 *
+	 * @param sheetId the sheet id
+	 * @param placement the row wrapper giving the position of the rows, its rows must be null
+	 * @param rows the rows to insert
+	 * @return the created rows
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public List<Row> insertRows(long sheetId, RowWrapper placement, Iterator<Row> rows) throws SmartsheetException {
+		Util.throwIfNull(placement, rows);
+		if (placement.getRows() != null) {
+			throw new IllegalArgumentException();
+		}
+
+		JsonListInputStream content = new JsonListInputStream(getSmartsheet().getJsonSerializer(), placement, "rows",
+				rows);
+		return this.postStreamAndReceiveList("sheet/" + sheetId + "/rows", content, Row.class);
+	}
+
+	/**
+	 * Insert any number of rows to a sheet, in chunks of chunkSize rows.
+	 * 
+	 * It mirrors to the following Smartsheet REST API method, once per chunk: POST /sheet/{id}/rows
+	 * 
+	 * When chunks are sent one at a time, the rows keep their iterator order: the first chunk uses the placement and,
+	 * unless the placement is toBottom, each following chunk is inserted as the next sibling of the last row of the
+	 * previous successful chunk. When more chunks are in flight, only toBottom placements are accepted since other
+	 * placements can't be chained without waiting for the previous chunk, and the order is lost: a chunk may land
+	 * above a chunk sent before it. Each successful chunk reports through RowChunkResult.getInOrder() whether it
+	 * landed below all previous chunks, from the row numbers returned. Either way the next chunk is read from the
+	 * iterator while the previous ones are in flight, and at most maxInFlight + 1 chunks are held in memory.
+	 * 
+	 * A chunk rejected because the sheet is being updated by another request, as concurrent chunks commonly are, or
+	 * because the service is unavailable, is retried up to MAX_CHUNK_RETRIES times with an exponential delay.
+	 * 
+	 * Exceptions: 
+	 *   - IllegalArgumentException : if any argument is null, if chunkSize or maxInFlight is not positive, or if
+	 *   maxInFlight is more than 1 for a placement other than toBottom 
+	 *   - SmartsheetException : if interrupted while waiting for chunks in flight
+	 *
+	 * @param sheetId the sheet id
+	 * @param placement the row wrapper giving the position of the rows, its rows are ignored
+	 * @param rows the rows to insert
+	 * @param chunkSize the maximum number of rows per request
+	 * @param maxInFlight the maximum number of requests sent concurrently
+	 * @return the result of each chunk, in chunk order, failed chunks hold the exception
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	public List<RowChunkResult> insertRows(final long sheetId, final RowWrapper placement, Iterator<Row> rows,
+			int chunkSize, int maxInFlight) throws SmartsheetException {
+		Util.throwIfNull(placement, rows);
+		boolean toBottom = Boolean.TRUE.equals(placement.getToBottom()) && placement.getSiblingId() == null
+				&& !Boolean.TRUE.equals(placement.getToTop());
+		if (chunkSize <= 0 || maxInFlight <= 0 || (maxInFlight > 1 && !toBottom)) {
+			throw new IllegalArgumentException();
+		}
+
+		List<RowChunkResult> results = new ArrayList<RowChunkResult>();
+		if (maxInFlight == 1) {
+			RowWrapper next = placement;
+			while (rows.hasNext()) {
+				RowChunkResult result = insertChunk(sheetId, next, nextChunk(rows, chunkSize), results.size());
+				if (result.getFailure() == null) {
+					result.setInOrder(true);
+				}
+				results.add(result);
+				if (isFatal(result.getFailure())) {
+					break;
+				}
+				List<Row> inserted = result.getInsertedRows();
+				if (!toBottom && inserted != null && !inserted.isEmpty()
+						&& inserted.get(inserted.size() - 1).getId() != null) {
+					next = new RowWrapper.InsertRowsBuilder().setSiblingId(inserted.get(inserted.size() - 1).getId())
+							.build();
+				}
+			}
+			return results;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(maxInFlight,
+				new DaemonThreadFactory("smartsheet-row-inserter"));
+		final Semaphore permits = new Semaphore(maxInFlight);
+		final AtomicBoolean stopped = new AtomicBoolean();
+		List<Future<RowChunkResult>> futures = new ArrayList<Future<RowChunkResult>>();
+		try {
+			while (rows.hasNext() && !stopped.get()) {
+				final List<Row> chunk = nextChunk(rows, chunkSize);
+				final int index = futures.size();
+				permits.acquire();
+				futures.add(executor.submit(new Callable<RowChunkResult>() {
+					public RowChunkResult call() {
+						try {
+							RowChunkResult result = insertChunk(sheetId, placement, chunk, index);
+							if (isFatal(result.getFailure())) {
+								stopped.set(true);
+							}
+							return result;
+						} finally {
+							permits.release();
+						}
+					}
+				}));
+			}
+			for (Future<RowChunkResult> future : futures) {
+				results.add(future.get());
+			}
+			checkOrder(results);
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SmartsheetException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new SmartsheetException(e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	/**
 	 * Get a row.
 	 * 
@@ -98,4 +258,108 @@ public class SheetRowResourcesImpl extends AbstractResources implements SheetRow
 	public Row getRow(long id, int rowNumber) throws SmartsheetException {
 		return this.getResource("sheet/" + id + "/row/" + rowNumber, Row.class);
 	}
+
+	/**
+	 * Insert one chunk of rows, retrying while the sheet is busy or the service unavailable, and capturing its
+	 * failure.
+	 *
+	 * @param sheetId the sheet id
+	 * @param placement the row wrapper giving the position of the rows
+	 * @param chunk the rows
+	 * @param index the chunk index
+	 * @return the result
+	 */
+	private RowChunkResult insertChunk(long sheetId, RowWrapper placement, List<Row> chunk, int index) {
+		RowWrapper rowWrapper = new RowWrapper.InsertRowsBuilder().setToTop(placement.getToTop())
+				.setToBottom(placement.getToBottom()).setParentId(placement.getParentId())
+				.setSiblingId(placement.getSiblingId()).setRows(chunk).build();
+
+		RowChunkResult result = new RowChunkResult();
+		result.setChunkIndex(index);
+		result.setRows(chunk);
+		for (int attempt = 0; ; attempt++) {
+			try {
+				result.setInsertedRows(insertRows(sheetId, rowWrapper));
+				result.setFailure(null);
+				return result;
+			} catch (SmartsheetException e) {
+				result.setFailure(e);
+				if (attempt >= MAX_CHUNK_RETRIES || !isTransient(e)) {
+					return result;
+				}
+			}
+			try {
+				Thread.sleep(RETRY_DELAY << attempt);
+			} catch (InterruptedException e) {
+				// Keep the interrupt status, the caller stops at its next wait.
+				Thread.currentThread().interrupt();
+				return result;
+			}
+		}
+	}
+
+	/**
+	 * Record whether each successful chunk landed below the rows of every previous successful chunk, from the row
+	 * numbers of the inserted rows. Rows inserted at the bottom don't move when more rows are inserted below them.
+	 *
+	 * @param results the results, in chunk order
+	 */
+	private static void checkOrder(List<RowChunkResult> results) {
+		int highest = 0;
+		boolean known = true;
+		for (RowChunkResult result : results) {
+			List<Row> inserted = result.getInsertedRows();
+			if (result.getFailure() != null || inserted == null || inserted.isEmpty()) {
+				continue;
+			}
+			Integer first = inserted.get(0).getRowNumber();
+			Integer last = inserted.get(inserted.size() - 1).getRowNumber();
+			if (first == null || last == null) {
+				known = false;
+				continue;
+			}
+			if (known) {
+				result.setInOrder(first > highest);
+			}
+			highest = Math.max(highest, last);
+		}
+	}
+
+	/**
+	 * Check whether a failure may not repeat if the chunk is sent again.
+	 *
+	 * @param failure the failure
+	 * @return true if the chunk should be retried
+	 */
+	private static boolean isTransient(SmartsheetException failure) {
+		return failure instanceof ServiceUnavailableException || (failure instanceof SmartsheetRestException
+				&& ((SmartsheetRestException) failure).getErrorCode() == RowResourcesImpl.SHEET_BUSY_ERROR_CODE);
+	}
+
+	/**
+	 * Read the next chunk of rows.
+	 *
+	 * @param rows the rows
+	 * @param chunkSize the maximum number of rows
+	 * @return the chunk
+	 */
+	private static List<Row> nextChunk(Iterator<Row> rows, int chunkSize) {
+		List<Row> chunk = new ArrayList<Row>(chunkSize);
+		while (chunk.size() < chunkSize && rows.hasNext()) {
+			Row row = rows.next();
+			Util.throwIfNull(row);
+			chunk.add(row);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Check whether a failure will repeat for every following chunk.
+	 *
+	 * @param failure the failure, may be null
+	 * @return true if no further chunk should be sent
+	 */
+	private static boolean isFatal(SmartsheetException failure) {
+		return failure instanceof AuthorizationException || failure instanceof ResourceNotFoundException;
+	}
 }
@@ -40,6 +40,13 @@ import com.smartsheet.api.Smartsheet;
 import com.smartsheet.api.TemplateResources;
 import com.smartsheet.api.UserResources;
 import com.smartsheet.api.WorkspaceResources;
+import com.smartsheet.api.internal.cache.ColumnSchemaCache;
+import com.smartsheet.api.internal.cache.RefreshAheadScheduler;
+import com.smartsheet.api.internal.cache.RenditionCache;
+import com.smartsheet.api.internal.cache.RowValueTracker;
+import com.smartsheet.api.internal.cache.SheetCache;
+import com.smartsheet.api.internal.cache.SheetDeltaTracker;
+import com.smartsheet.api.internal.cache.SheetSnapshotStore;
 import com.smartsheet.api.internal.http.DefaultHttpClient;
 import com.smartsheet.api.internal.http.HttpClient;
 import com.smartsheet.api.internal.json.JacksonJsonSerializer;
@@ -209,6 +216,60 @@ public class SmartsheetImpl implements Smartsheet {
 	 */
 	private final AtomicReference<String> accessToken;
 
+	/**
+	 * Represents the AtomicReference for the sheet cache.
+	 * 
+	 * It will be initialized in constructor and will not change afterwards. The underlying value will be initially set
+	 * as null (no caching), and can be set via corresponding setter.
+	 */
+	private final AtomicReference<SheetCache> sheetCache;
+
+	/**
+	 * Represents the AtomicReference for the refresh-ahead scheduler of the sheet cache.
+	 * 
+	 * It will be initialized in constructor and will not change afterwards. The underlying value will be initially set
+	 * as null (no refresh-ahead), and can be set via corresponding setter.
+	 */
+	private final AtomicReference<RefreshAheadScheduler> sheetRefresher;
+
+	/**
+	 * Represents the AtomicReference for the tracker of rows changed in cached sheets.
+	 * 
+	 * It will be initialized in constructor and will not change afterwards. The underlying value is set along with the
+	 * sheet cache.
+	 */
+	private final AtomicReference<SheetDeltaTracker> sheetDeltaTracker;
+
+	/**
+	 * Represents the AtomicReference for the sheet snapshot store.
+	 * 
+	 * It will be initialized in constructor and will not change afterwards. The underlying value will be initially set
+	 * as null (no snapshots), and can be set via corresponding setter.
+	 */
+	private final AtomicReference<SheetSnapshotStore> sheetSnapshotStore;
+
+	/**
+	 * Represents the AtomicReference for the cache of sheet renditions.
+	 * 
+	 * It will be initialized in constructor and will not change afterwards. The underlying value will be initially set
+	 * as null (no rendition cache), and can be set via corresponding setter.
+	 */
+	private final AtomicReference<RenditionCache> renditionCache;
+
+	/**
+	 * Represents the cache of sheet columns used to resolve column titles.
+	 * 
+	 * It will be initialized in constructor and will not change afterwards.
+	 */
+	private final ColumnSchemaCache columnSchemaCache;
+
+	/**
+	 * Represents the last seen cell values of rows used to detect conflicting updates.
+	 * 
+	 * It will be initialized in constructor and will not change afterwards.
+	 */
+	private final RowValueTracker rowValueTracker;
+
 	/**
 	 * Create an instance with given server URI, HttpClient (optional) and JsonSerializer (optional)
 	 * 
@@ -241,6 +302,13 @@ public class SmartsheetImpl implements Smartsheet {
 		this.search = new AtomicReference<SearchResources>();
 		this.assumedUser = new AtomicReference<String>();
 		this.accessToken = new AtomicReference<String>(accessToken);
+		this.sheetCache = new AtomicReference<SheetCache>();
+		this.sheetRefresher = new AtomicReference<RefreshAheadScheduler>();
+		this.sheetDeltaTracker = new AtomicReference<SheetDeltaTracker>();
+		this.sheetSnapshotStore = new AtomicReference<SheetSnapshotStore>();
+		this.renditionCache = new AtomicReference<RenditionCache>();
+		this.columnSchemaCache = new ColumnSchemaCache();
+		this.rowValueTracker = new RowValueTracker(RowValueTracker.DEFAULT_MAX_ROWS);
 	}
 
 	/**
@@ -249,6 +317,7 @@ public class SmartsheetImpl implements Smartsheet {
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
 	protected void finalize() throws IOException {
+		setSheetRefreshAhead(0, 0, 0);
 		this.httpClient.close();
 	}
 
@@ -299,6 +368,129 @@ public class SmartsheetImpl implements Smartsheet {
 		return accessToken.get();
 	}
 
+	/**
+	 * Return the sheet cache.
+	 * 
+	 * @return the sheet cache, or null if sheets are not cached
+	 */
+	SheetCache getSheetCache() {
+		return sheetCache.get();
+	}
+
+	/**
+	 * Set the cache used for sheets retrieved through {@link #sheets()}.
+	 * 
+	 * @param sheetCache the sheet cache, null to disable caching
+	 */
+	public void setSheetCache(SheetCache sheetCache) {
+		this.sheetCache.set(sheetCache);
+		this.sheetDeltaTracker.set(sheetCache == null ? null : new SheetDeltaTracker());
+		setSheetRefreshAhead(0, 0, 0);
+	}
+
+	/**
+	 * Return the cache of sheet columns.
+	 * 
+	 * @return the column schema cache
+	 */
+	ColumnSchemaCache getColumnSchemaCache() {
+		return columnSchemaCache;
+	}
+
+	/**
+	 * Return the last seen cell values of rows.
+	 * 
+	 * @return the row value tracker
+	 */
+	RowValueTracker getRowValueTracker() {
+		return rowValueTracker;
+	}
+
+	/**
+	 * Return the sheet snapshot store.
+	 * 
+	 * @return the snapshot store, or null if sheet snapshots are not persisted
+	 */
+	SheetSnapshotStore getSheetSnapshotStore() {
+		return sheetSnapshotStore.get();
+	}
+
+	/**
+	 * Set the store persisting snapshots of sheets retrieved through {@link #sheets()}, so that they don't need to be
+	 * downloaded again after a restart as long as their version is unchanged.
+	 * 
+	 * @param sheetSnapshotStore the snapshot store, null to disable snapshots
+	 */
+	public void setSheetSnapshotStore(SheetSnapshotStore sheetSnapshotStore) {
+		this.sheetSnapshotStore.set(sheetSnapshotStore);
+	}
+
+	/**
+	 * Return the cache of sheet renditions.
+	 * 
+	 * @return the rendition cache, or null if renditions are not cached
+	 */
+	RenditionCache getRenditionCache() {
+		return renditionCache.get();
+	}
+
+	/**
+	 * Set the cache of the Excel and PDF renditions of sheets retrieved through {@link #sheets()}, so that they are
+	 * only downloaded again once the sheet version changes.
+	 * 
+	 * @param renditionCache the rendition cache, null to disable caching of renditions
+	 */
+	public void setRenditionCache(RenditionCache renditionCache) {
+		this.renditionCache.set(renditionCache);
+	}
+
+	/**
+	 * Return the tracker of rows changed in cached sheets.
+	 * 
+	 * @return the tracker, or null if sheets are not cached
+	 */
+	SheetDeltaTracker getSheetDeltaTracker() {
+		return sheetDeltaTracker.get();
+	}
+
+	/**
+	 * Return the refresh-ahead scheduler of the sheet cache.
+	 * 
+	 * @return the scheduler, or null if refresh-ahead is disabled
+	 */
+	RefreshAheadScheduler getSheetRefresher() {
+		return sheetRefresher.get();
+	}
+
+	/**
+	 * Enable or disable refresh-ahead of frequently accessed sheets held by the sheet cache. When enabled, background
+	 * daemon threads revalidate hot sheets shortly before they expire, see {@link RefreshAheadScheduler}. Any previous
+	 * scheduler is shut down.
+	 * 
+	 * Exceptions: - IllegalStateException : if refresh-ahead is enabled while no sheet cache is set
+	 * 
+	 * @param timeToLive the time to live of the sheet cache in milliseconds
+	 * @param refreshAhead the window before expiry in milliseconds within which a hot sheet is refreshed, zero to
+	 * disable refresh-ahead
+	 * @param maxRefreshesPerSecond the maximum number of refreshes per second
+	 */
+	public void setSheetRefreshAhead(long timeToLive, long refreshAhead, int maxRefreshesPerSecond) {
+		RefreshAheadScheduler refresher = null;
+		if (refreshAhead > 0) {
+			SheetCache cache = sheetCache.get();
+			if (cache == null) {
+				throw new IllegalStateException("A sheet cache is required for refresh-ahead.");
+			}
+			refresher = new RefreshAheadScheduler(cache, ((SheetResourcesImpl) sheets()).sheetLoader(), timeToLive, 
+					refreshAhead, maxRefreshesPerSecond);
+		}
+
+		RefreshAheadScheduler previous = sheetRefresher.getAndSet(refresher);
+		if (previous != null) {
+			previous.shutdown();
+		}
+	}
+
 	/**
 	 * Returns the HomeResources instance that provides access to Home resources.
 	 * 
@@ -0,0 +1,309 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.smartsheet.api.AssociatedAttachmentResources;
+import com.smartsheet.api.ProgressListener;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.UploadListener;
+import com.smartsheet.api.internal.http.HttpClientException;
+import com.smartsheet.api.internal.util.DaemonThreadFactory;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Attachment;
+import com.smartsheet.api.models.AttachmentParentType;
+import com.smartsheet.api.models.AttachmentUpload;
+import com.smartsheet.api.models.AttachmentUploadResult;
+
+/**
+ * This class attaches many files to sheets, rows and comments concurrently.
+ *
+ * The files are uploaded largest first, so that a large file started last doesn't keep the whole batch waiting once
+ * the small files are done. Each upload first takes a permit from a {@link RequestRateLimiter}. Transient failures are
+ * retried with an exponential delay: when the API reports that it is rate limited all requests back off, and when the
+ * connection fails before any byte of the file was sent only the failed upload waits. A connection failure after part
+ * of the file was sent is not retried, since the attachment may have been created anyway and a retry could attach the
+ * file twice. Other failures, such as a missing file or parent, are not retried either.
+ * An upload interrupted while waiting fails with the interruption as cause.
+ *
+ * The bytes sent by all uploads together can be capped. The cap is enforced as the files are read, a chunk at a time,
+ * which slows down the stream handed to the HTTP client.
+ *
+ * Thread Safety: This class is thread safe, several batches may run at once and share the byte rate cap.
+ */
+public class BulkAttachmentUploader {
+
+	/** The attachment resources of sheets, null if not used. */
+	private final AssociatedAttachmentResources sheetAttachments;
+
+	/** The attachment resources of rows, null if not used. */
+	private final AssociatedAttachmentResources rowAttachments;
+
+	/** The attachment resources of comments, null if not used. */
+	private final AssociatedAttachmentResources commentAttachments;
+
+	/** The request budget. */
+	private final RequestRateLimiter limiter;
+
+	/** The maximum number of files uploaded at once. */
+	private final int parallelism;
+
+	/** The number of nanoseconds per byte sent, 0 if the byte rate is not capped. */
+	private final double nanosPerByte;
+
+	/** The time at which the byte budget is next available, in nanoseconds. */
+	private long nextAvailable = System.nanoTime();
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if limiter is null, if all attachment resources are null, if
+	 * parallelism is not positive, or if maxBytesPerSecond is negative
+	 *
+	 * @param sheetAttachments the attachment resources of sheets, null if no file is attached to a sheet
+	 * @param rowAttachments the attachment resources of rows, null if no file is attached to a row
+	 * @param commentAttachments the attachment resources of comments, null if no file is attached to a comment
+	 * @param limiter the request budget
+	 * @param parallelism the maximum number of files uploaded at once
+	 * @param maxBytesPerSecond the maximum number of bytes sent per second by all uploads, 0 for no cap
+	 */
+	public BulkAttachmentUploader(AssociatedAttachmentResources sheetAttachments,
+			AssociatedAttachmentResources rowAttachments, AssociatedAttachmentResources commentAttachments,
+			RequestRateLimiter limiter, int parallelism, long maxBytesPerSecond) {
+		Util.throwIfNull(limiter);
+		if ((sheetAttachments == null && rowAttachments == null && commentAttachments == null) || parallelism <= 0
+				|| maxBytesPerSecond < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		this.sheetAttachments = sheetAttachments;
+		this.rowAttachments = rowAttachments;
+		this.commentAttachments = commentAttachments;
+		this.limiter = limiter;
+		this.parallelism = parallelism;
+		this.nanosPerByte = maxBytesPerSecond == 0 ? 0 : 1e9 / maxBytesPerSecond;
+	}
+
+	/**
+	 * Upload files and wait until all uploads are done.
+	 *
+	 * Exceptions: - IllegalArgumentException : if uploads is null, or if any upload is null, lacks its parent type,
+	 * parent ID, file or content type, or has a parent type whose attachment resources were not provided
+	 *
+	 * @param uploads the uploads
+	 * @param listener the listener receiving the number of files processed, null for none
+	 * @return the result of each upload, in the order of the uploads
+	 * @throws InterruptedException if interrupted while waiting, the uploads in progress are abandoned
+	 */
+	public List<AttachmentUploadResult> upload(List<AttachmentUpload> uploads, final ProgressListener listener)
+			throws InterruptedException {
+		Util.throwIfNull(uploads);
+		for (AttachmentUpload upload : uploads) {
+			Util.throwIfNull(upload);
+			Util.throwIfNull(upload.getParentType(), upload.getParentId(), upload.getFile(), upload.getContentType());
+			if (getResources(upload.getParentType()) == null) {
+				throw new IllegalArgumentException("No attachment resources for " + upload.getParentType());
+			}
+		}
+
+		final List<AttachmentUploadResult> results = new ArrayList<AttachmentUploadResult>();
+		for (AttachmentUpload upload : uploads) {
+			AttachmentUploadResult result = new AttachmentUploadResult();
+			result.setUpload(upload);
+			result.setAttempts(0);
+			results.add(result);
+		}
+
+		// The sizes are read once, a file may change while the batch runs.
+		final List<Long> sizes = new ArrayList<Long>();
+		List<Integer> order = new ArrayList<Integer>();
+		for (int i = 0; i < uploads.size(); i++) {
+			sizes.add(uploads.get(i).getFile().length());
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			public int compare(Integer index1, Integer index2) {
+				return sizes.get(index2).compareTo(sizes.get(index1));
+			}
+		});
+
+		final long total = uploads.size();
+		final AtomicLong completed = new AtomicLong();
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("smartsheet-attachment-uploader"));
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (final Integer index : order) {
+				futures.add(pool.submit(new Callable<Void>() {
+					public Void call() {
+						try {
+							upload(results.get(index));
+						} catch (InterruptedException e) {
+							results.get(index).setFailure(new SmartsheetException(e));
+							Thread.currentThread().interrupt();
+						} finally {
+							if (listener != null) {
+								listener.progress(completed.incrementAndGet(), total);
+							}
+						}
+						return null;
+					}
+				}));
+			}
+
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					// The uploads don't throw checked exceptions.
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					}
+					throw (Error) e.getCause();
+				}
+			}
+		} finally {
+			// Interrupt the uploads in progress if the wait was interrupted, the pool is idle otherwise.
+			pool.shutdownNow();
+		}
+		return results;
+	}
+
+	/**
+	 * Upload a file within the request budget, retrying transient failures, and record the outcome in its result.
+	 *
+	 * @param result the result of the upload
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private void upload(final AttachmentUploadResult result) throws InterruptedException {
+		final AttachmentUpload upload = result.getUpload();
+		final AssociatedAttachmentResources resources = getResources(upload.getParentType());
+		final AtomicBoolean started = new AtomicBoolean();
+		Callable<Attachment> request = new Callable<Attachment>() {
+			public Attachment call() throws FileNotFoundException, SmartsheetException {
+				result.setAttempts(result.getAttempts() + 1);
+				started.set(false);
+				// A new listener for each attempt, which counts bytes from the start of the file.
+				return resources.attachFile(upload.getParentId(), upload.getFile(), upload.getContentType(),
+						newThrottle(result, started));
+			}
+		};
+		for (int attempt = 0; ; attempt++) {
+			try {
+				result.setAttachment(limiter.call(request));
+				result.setFailure(null);
+				return;
+			} catch (HttpClientException e) {
+				result.setFailure(e);
+				// Once part of the file was sent, the attachment may exist and a retry could duplicate it.
+				if (attempt >= RequestRateLimiter.MAX_RETRIES || started.get()) {
+					return;
+				}
+				Thread.sleep(RequestRateLimiter.RETRY_DELAY << attempt);
+			} catch (SmartsheetException e) {
+				result.setFailure(e);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Create the listener throttling an upload and recording its digest.
+	 *
+	 * @param result the result of the upload
+	 * @param started the flag set once part of the file is sent
+	 * @return the listener
+	 */
+	private UploadListener newThrottle(final AttachmentUploadResult result, final AtomicBoolean started) {
+		return new UploadListener() {
+			private long previous;
+
+			public void progress(long sent, long total, long bytesPerSecond) {
+				if (sent > 0) {
+					started.set(true);
+				}
+				throttle(sent - previous);
+				previous = sent;
+			}
+
+			public void uploaded(long size, String digest, long elapsedMillis) {
+				result.setDigest(digest);
+			}
+		};
+	}
+
+	/**
+	 * Wait until the byte budget allows sending more bytes. An interrupted wait keeps the interrupt status and lets
+	 * the upload proceed, which is then abandoned by the HTTP client or the next request.
+	 *
+	 * @param bytes the number of bytes about to be sent
+	 */
+	private void throttle(long bytes) {
+		if (nanosPerByte == 0 || bytes <= 0) {
+			return;
+		}
+
+		long wait;
+		synchronized (this) {
+			long now = System.nanoTime();
+			long start = now - nextAvailable > 0 ? now : nextAvailable;
+			nextAvailable = start + (long) (bytes * nanosPerByte);
+			wait = start - now;
+		}
+		if (wait > 0) {
+			try {
+				Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Get the attachment resources of a parent type.
+	 *
+	 * @param parentType the parent type
+	 * @return the resources, null if not provided
+	 */
+	private AssociatedAttachmentResources getResources(AttachmentParentType parentType) {
+		switch (parentType) {
+		case SHEET:
+			return sheetAttachments;
+		case ROW:
+			return rowAttachments;
+		default:
+			return commentAttachments;
+		}
+	}
+}
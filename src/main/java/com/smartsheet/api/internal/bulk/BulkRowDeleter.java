@@ -0,0 +1,175 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.smartsheet.api.ProgressListener;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.RowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.Util;
+
+/**
+ * This class deletes many rows across many sheets concurrently, within a shared request budget.
+ *
+ * The deletions are run by a {@link SheetWriteExecutor}, so the rows of a sheet are deleted one at a time in the given
+ * order while different sheets are processed in parallel; the executor can be shared with other writers so that
+ * writes to the same sheet never overlap. Deletions are submitted round-robin across sheets, so that a large sheet
+ * doesn't hold back the others. Each request first takes a permit from a {@link RequestRateLimiter}, and when the API
+ * reports that it is rate limited all requests back off before the deletion is retried.
+ *
+ * A row that no longer exists counts as deleted, since deleting a parent row also deletes its children. Other
+ * failures don't stop the other deletions, they are reported by row ID once all deletions are done. A deletion whose
+ * worker is interrupted while waiting for the request budget is reported as a failure too.
+ *
+ * The Smartsheet REST API deletes one row per request, so each row costs one request.
+ *
+ * Thread Safety: This class is thread safe, several bulk deletions may run at once.
+ */
+public class BulkRowDeleter {
+
+	/** The row resources. */
+	private final RowResources rows;
+
+	/** The executor ordering writes per sheet. */
+	private final SheetWriteExecutor executor;
+
+	/** The request budget. */
+	private final RequestRateLimiter limiter;
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null
+	 *
+	 * @param rows the row resources
+	 * @param executor the executor ordering writes per sheet
+	 * @param limiter the request budget
+	 */
+	public BulkRowDeleter(RowResources rows, SheetWriteExecutor executor, RequestRateLimiter limiter) {
+		Util.throwIfNull(rows, executor, limiter);
+
+		this.rows = rows;
+		this.executor = executor;
+		this.limiter = limiter;
+	}
+
+	/**
+	 * Delete rows and wait until all deletions are done.
+	 *
+	 * Exceptions: - IllegalArgumentException : if rowIdsBySheet, any of its lists or any row ID is null
+	 *
+	 * @param rowIdsBySheet the row IDs to delete by sheet ID, each list in the order its rows must be deleted
+	 * @param listener the listener receiving the number of rows processed, null for none
+	 * @return the failures by row ID, including interrupted deletions, empty if all rows were deleted
+	 * @throws InterruptedException if interrupted while waiting, the deletions already submitted go on
+	 */
+	public Map<Long, SmartsheetException> deleteRows(Map<Long, List<Long>> rowIdsBySheet,
+			final ProgressListener listener) throws InterruptedException {
+		Util.throwIfNull(rowIdsBySheet);
+		long count = 0;
+		Map<Long, Iterator<Long>> iterators = new LinkedHashMap<Long, Iterator<Long>>();
+		for (Map.Entry<Long, List<Long>> sheet : rowIdsBySheet.entrySet()) {
+			Util.throwIfNull(sheet.getValue());
+			for (Long rowId : sheet.getValue()) {
+				Util.throwIfNull(rowId);
+			}
+			count += sheet.getValue().size();
+			iterators.put(sheet.getKey(), sheet.getValue().iterator());
+		}
+
+		final long total = count;
+		final AtomicLong completed = new AtomicLong();
+		final Map<Long, SmartsheetException> failures = new ConcurrentHashMap<Long, SmartsheetException>();
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		while (!iterators.isEmpty()) {
+			Iterator<Map.Entry<Long, Iterator<Long>>> sheets = iterators.entrySet().iterator();
+			while (sheets.hasNext()) {
+				Map.Entry<Long, Iterator<Long>> sheet = sheets.next();
+				if (!sheet.getValue().hasNext()) {
+					sheets.remove();
+					continue;
+				}
+				final long rowId = sheet.getValue().next();
+				futures.add(executor.submit(sheet.getKey(), new Callable<Void>() {
+					public Void call() {
+						try {
+							delete(rowId);
+						} catch (SmartsheetException e) {
+							failures.put(rowId, e);
+						} catch (InterruptedException e) {
+							failures.put(rowId, new SmartsheetException(e));
+							Thread.currentThread().interrupt();
+						} finally {
+							if (listener != null) {
+								listener.progress(completed.incrementAndGet(), total);
+							}
+						}
+						return null;
+					}
+				}));
+			}
+		}
+
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				// The deletions don't throw checked exceptions.
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw (Error) e.getCause();
+			}
+		}
+		return failures;
+	}
+
+	/**
+	 * Delete a row within the request budget, retrying while the API is rate limited.
+	 *
+	 * @param rowId the row id
+	 * @throws SmartsheetException the failure
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private void delete(final long rowId) throws SmartsheetException, InterruptedException {
+		try {
+			limiter.call(new Callable<Void>() {
+				public Void call() throws SmartsheetException {
+					rows.deleteRow(rowId);
+					return null;
+				}
+			});
+		} catch (ResourceNotFoundException e) {
+			// Ignore exception, the row is already deleted.
+		}
+	}
+}
@@ -0,0 +1,399 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.smartsheet.api.RowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.DaemonThreadFactory;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Cell;
+
+/**
+ * This class buffers cell updates and writes them behind the caller, so that many small updates of the same row are
+ * sent as a single request.
+ *
+ * Updates are collected per row, keyed by column ID, so repeated updates of the same cell collapse to the last value.
+ * The pending updates of a row are sent through {@link RowResources#updateCells(long, List)} once they reach
+ * maxCellsPerRow distinct cells, or once the oldest of them has waited maxDelay milliseconds, whichever comes first.
+ * Requests are sent by a single background thread in the order the rows became due, so the updates of a row are
+ * always applied in the order they were made.
+ *
+ * Memory is bounded by maxBufferedCells: once that many cells are pending or being sent, callers block until enough
+ * of them have been sent, and all pending rows are flushed immediately to make room.
+ *
+ * Each update returns the future of the request that will carry it, callers that need to know the update is durable
+ * wait for it. Failures are only reported through these futures.
+ *
+ * When a {@link MutationJournal} is given, each update is recorded in it before being buffered and acknowledged once
+ * the request carrying it succeeds or fails permanently, so that updates lost in a crash can be replayed on restart.
+ *
+ * The background thread is a daemon thread, call {@link #close()} to flush the pending updates and stop it.
+ *
+ * Thread Safety: This class is thread safe because all access to its mutable state is synchronized.
+ */
+public class CellUpdateBuffer {
+
+	/** The row resources. */
+	private final RowResources rows;
+
+	/** The number of distinct cells that triggers the flush of a row. */
+	private final int maxCellsPerRow;
+
+	/** The maximum time in milliseconds an update waits before its row is flushed. */
+	private final long maxDelay;
+
+	/** The maximum number of cells pending or being sent. */
+	private final int maxBufferedCells;
+
+	/** The journal recording the updates, null for none. */
+	private final MutationJournal journal;
+
+	/** The pending batches, by row ID. */
+	private final Map<Long, Batch> pending = new HashMap<Long, Batch>();
+
+	/** The executor sending the batches. */
+	private final ScheduledThreadPoolExecutor executor;
+
+	/** The number of cells pending or being sent. */
+	private int bufferedCells;
+
+	/** The number of updates requested. */
+	private long requestedUpdates;
+
+	/** The number of requests started, one per batch. */
+	private long batches;
+
+	/** The number of cell updates replaced by a later update of the same cell before being sent. */
+	private long coalescedCells;
+
+	/** Whether the buffer is closed. */
+	private boolean closed;
+
+	/**
+	 * Constructor, the background thread starts immediately.
+	 *
+	 * Exceptions: - IllegalArgumentException : if rows is null, or if any threshold is not positive
+	 *
+	 * @param rows the row resources
+	 * @param maxCellsPerRow the number of distinct cells that triggers the flush of a row
+	 * @param maxDelay the maximum time in milliseconds an update waits before its row is flushed
+	 * @param maxBufferedCells the maximum number of cells pending or being sent
+	 */
+	public CellUpdateBuffer(RowResources rows, int maxCellsPerRow, long maxDelay, int maxBufferedCells) {
+		this(rows, maxCellsPerRow, maxDelay, maxBufferedCells, null);
+	}
+
+	/**
+	 * Constructor, the background thread starts immediately.
+	 *
+	 * Exceptions: - IllegalArgumentException : if rows is null, or if any threshold is not positive
+	 *
+	 * @param rows the row resources
+	 * @param maxCellsPerRow the number of distinct cells that triggers the flush of a row
+	 * @param maxDelay the maximum time in milliseconds an update waits before its row is flushed
+	 * @param maxBufferedCells the maximum number of cells pending or being sent
+	 * @param journal the journal recording the updates, null for none
+	 */
+	public CellUpdateBuffer(RowResources rows, int maxCellsPerRow, long maxDelay, int maxBufferedCells,
+			MutationJournal journal) {
+		Util.throwIfNull(rows);
+		if (maxCellsPerRow <= 0 || maxDelay <= 0 || maxBufferedCells <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.rows = rows;
+		this.maxCellsPerRow = maxCellsPerRow;
+		this.maxDelay = maxDelay;
+		this.maxBufferedCells = maxBufferedCells;
+		this.journal = journal;
+
+		this.executor = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("smartsheet-cell-update-buffer"));
+	}
+
+	/**
+	 * Buffer updates of the cells of a row.
+	 *
+	 * Exceptions: - IllegalArgumentException : if cells, any cell or its column ID is null
+	 * - IllegalStateException : if the buffer is closed
+	 *
+	 * @param rowId the row id
+	 * @param cells the cells to update
+	 * @return the future of the request carrying the updates, giving the updated cells of that request
+	 * @throws InterruptedException if interrupted while waiting for buffer space
+	 * @throws SmartsheetException if the updates can't be recorded in the journal
+	 */
+	public Future<List<Cell>> updateCells(long rowId, List<Cell> cells) throws InterruptedException,
+			SmartsheetException {
+		Util.throwIfNull(cells);
+		for (Cell cell : cells) {
+			Util.throwIfNull(cell);
+			Util.throwIfNull(cell.getColumnId());
+		}
+
+		// The updates are recorded before being accepted, and forgotten if they are rejected.
+		long sequence = journal == null ? 0 : journal.appendUpdateCells(rowId, cells);
+		synchronized (this) {
+			try {
+				while (!closed && bufferedCells > 0 && bufferedCells + cells.size() > maxBufferedCells) {
+					flush();
+					wait();
+				}
+			} catch (InterruptedException e) {
+				if (journal != null) {
+					journal.acknowledge(sequence);
+				}
+				throw e;
+			}
+			if (closed) {
+				if (journal != null) {
+					journal.acknowledge(sequence);
+				}
+				throw new IllegalStateException("The buffer is closed.");
+			}
+
+			requestedUpdates++;
+			Batch batch = pending.get(rowId);
+			if (batch == null) {
+				batch = new Batch(rowId);
+				pending.put(rowId, batch);
+				batches++;
+				final Batch scheduled = batch;
+				batch.timer = executor.schedule(new Runnable() {
+					public void run() {
+						if (detach(scheduled)) {
+							send(scheduled);
+						}
+					}
+				}, maxDelay, TimeUnit.MILLISECONDS);
+			}
+
+			if (journal != null) {
+				batch.sequences.add(sequence);
+			}
+			for (Cell cell : cells) {
+				if (batch.cells.put(cell.getColumnId(), cell) == null) {
+					bufferedCells++;
+				} else {
+					coalescedCells++;
+				}
+			}
+
+			Future<List<Cell>> future = batch.future;
+			if (batch.cells.size() >= maxCellsPerRow) {
+				submit(batch);
+			}
+			return future;
+		}
+	}
+
+	/**
+	 * Send the pending updates of a row now.
+	 *
+	 * @param rowId the row id
+	 * @return the future of the request, or null if no update of the row is pending
+	 */
+	public synchronized Future<List<Cell>> flush(long rowId) {
+		Batch batch = pending.get(rowId);
+		if (batch == null) {
+			return null;
+		}
+		submit(batch);
+		return batch.future;
+	}
+
+	/**
+	 * Send all pending updates now.
+	 *
+	 * @return the futures of the requests
+	 */
+	public synchronized List<Future<List<Cell>>> flush() {
+		List<Future<List<Cell>>> futures = new ArrayList<Future<List<Cell>>>(pending.size());
+		for (Batch batch : new ArrayList<Batch>(pending.values())) {
+			submit(batch);
+			futures.add(batch.future);
+		}
+		return futures;
+	}
+
+	/**
+	 * Flush all pending updates and stop the background thread once they are sent. Further updates are rejected.
+	 */
+	public synchronized void close() {
+		if (!closed) {
+			flush();
+			closed = true;
+			executor.shutdown();
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Get the number of updates requested through {@link #updateCells(long, List)}.
+	 *
+	 * @return the number of updates
+	 */
+	public synchronized long getRequestedUpdates() {
+		return requestedUpdates;
+	}
+
+	/**
+	 * Get the number of requests sent or pending.
+	 *
+	 * @return the number of requests
+	 */
+	public synchronized long getRequests() {
+		return batches;
+	}
+
+	/**
+	 * Get the number of REST API calls saved by merging updates of the same row into one request.
+	 *
+	 * @return the number of calls saved
+	 */
+	public synchronized long getSavedCalls() {
+		return requestedUpdates - batches;
+	}
+
+	/**
+	 * Get the number of cell updates that were replaced by a later update of the same cell before being sent.
+	 *
+	 * @return the number of cell updates
+	 */
+	public synchronized long getCoalescedCells() {
+		return coalescedCells;
+	}
+
+	/**
+	 * Get the number of cells pending or being sent.
+	 *
+	 * @return the number of cells
+	 */
+	public synchronized int getBufferedCells() {
+		return bufferedCells;
+	}
+
+	/**
+	 * Detach a pending batch and queue it for sending.
+	 *
+	 * @param batch the batch
+	 */
+	private void submit(final Batch batch) {
+		if (detach(batch)) {
+			batch.timer.cancel(false);
+			executor.execute(new Runnable() {
+				public void run() {
+					send(batch);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Remove a batch from the pending batches, after which its cells don't change anymore.
+	 *
+	 * @param batch the batch
+	 * @return true if the batch was pending, false if it has been detached already
+	 */
+	private synchronized boolean detach(Batch batch) {
+		if (pending.get(batch.rowId) != batch) {
+			return false;
+		}
+		pending.remove(batch.rowId);
+		return true;
+	}
+
+	/**
+	 * Send a detached batch.
+	 *
+	 * @param batch the batch
+	 */
+	private void send(Batch batch) {
+		batch.future.run();
+	}
+
+	/**
+	 * Release the buffer space of a batch that has been sent.
+	 *
+	 * @param batch the batch
+	 */
+	private synchronized void release(Batch batch) {
+		bufferedCells -= batch.cells.size();
+		notifyAll();
+	}
+
+	/**
+	 * The pending updates of a row.
+	 */
+	private class Batch {
+		private final long rowId;
+		private final Map<Long, Cell> cells = new LinkedHashMap<Long, Cell>();
+		private final List<Long> sequences = new ArrayList<Long>();
+		private final FutureTask<List<Cell>> future;
+		private ScheduledFuture<?> timer;
+
+		Batch(long rowId) {
+			this.rowId = rowId;
+			this.future = new FutureTask<List<Cell>>(new Callable<List<Cell>>() {
+				public List<Cell> call() throws Exception {
+					// The space is released before the future completes, so waiters see it.
+					try {
+						List<Cell> updated;
+						try {
+							updated = rows.updateCells(Batch.this.rowId, new ArrayList<Cell>(cells.values()));
+						} catch (SmartsheetException e) {
+							// A permanent failure is reported through the future, it would fail again on replay.
+							if (!MutationJournal.isTransient(e)) {
+								acknowledge();
+							}
+							throw e;
+						}
+						acknowledge();
+						return updated;
+					} finally {
+						release(Batch.this);
+					}
+				}
+			});
+		}
+
+		/**
+		 * Acknowledge the updates of the batch in the journal.
+		 *
+		 * @throws SmartsheetException if an acknowledgement can't be written
+		 */
+		private void acknowledge() throws SmartsheetException {
+			for (Long sequence : sequences) {
+				journal.acknowledge(sequence);
+			}
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.smartsheet.api.FolderResources;
+import com.smartsheet.api.HomeResources;
+import com.smartsheet.api.Smartsheet;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.WorkspaceResources;
+import com.smartsheet.api.internal.util.DaemonThreadFactory;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Folder;
+import com.smartsheet.api.models.Home;
+import com.smartsheet.api.models.Sheet;
+import com.smartsheet.api.models.Template;
+import com.smartsheet.api.models.Workspace;
+
+/**
+ * This class crawls the Home, workspaces and folders of a user to inventory the sheets, folders and templates they
+ * hold, fetching many containers in parallel.
+ *
+ * The crawl starts with {@link HomeResources#getHome(java.util.EnumSet)}, then fetches each workspace with
+ * {@link WorkspaceResources#getWorkspace(long)} and each folder with {@link FolderResources#getFolder(long)}, each of
+ * which lists the content of its container, so one request per container is made. Containers are fetched by a bounded
+ * pool of worker threads as they are discovered, and each container and sheet is visited once even when it is listed
+ * in several places. Entries are streamed to a {@link ContainerVisitor} as they are found, so the caller can process
+ * them while the crawl goes on.
+ *
+ * The first failure stops the crawl: no further container is fetched and the failure is thrown once the fetches in
+ * progress are done.
+ *
+ * Thread Safety: This class is thread safe, each crawl uses its own worker threads.
+ */
+public class ContainerCrawler {
+
+	/** The home resources. */
+	private final HomeResources home;
+
+	/** The workspace resources. */
+	private final WorkspaceResources workspaces;
+
+	/** The folder resources. */
+	private final FolderResources folders;
+
+	/** The maximum number of containers fetched at once. */
+	private final int parallelism;
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if smartsheet is null, or if parallelism is not positive
+	 *
+	 * @param smartsheet the smartsheet client
+	 * @param parallelism the maximum number of containers fetched at once
+	 */
+	public ContainerCrawler(Smartsheet smartsheet, int parallelism) {
+		this(smartsheet == null ? null : smartsheet.home(), smartsheet == null ? null : smartsheet.workspaces(),
+				smartsheet == null ? null : smartsheet.folders(), parallelism);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any resources is null, or if parallelism is not positive
+	 *
+	 * @param home the home resources
+	 * @param workspaces the workspace resources
+	 * @param folders the folder resources
+	 * @param parallelism the maximum number of containers fetched at once
+	 */
+	public ContainerCrawler(HomeResources home, WorkspaceResources workspaces, FolderResources folders,
+			int parallelism) {
+		Util.throwIfNull(home, workspaces, folders);
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.home = home;
+		this.workspaces = workspaces;
+		this.folders = folders;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Crawl all containers, returning once every container has been fetched and its content visited.
+	 *
+	 * Exceptions: - IllegalArgumentException : if visitor is null
+	 *
+	 * @param visitor the visitor receiving the entries
+	 * @throws SmartsheetException the first failure to fetch a container
+	 * @throws InterruptedException if interrupted while waiting, the crawl is then stopped
+	 */
+	public void crawl(ContainerVisitor visitor) throws SmartsheetException, InterruptedException {
+		Util.throwIfNull(visitor);
+
+		Crawl crawl = new Crawl(visitor);
+		try {
+			Home root = home.getHome(null);
+			crawl.visitContent(root.getSheets(), root.getFolders(), root.getTemplates(), null);
+			if (root.getWorkspaces() != null) {
+				for (Workspace workspace : root.getWorkspaces()) {
+					if (crawl.firstVisit("workspace", workspace.getId())) {
+						visitor.workspace(workspace);
+						crawl.fetch(workspace, true);
+					}
+				}
+			}
+			crawl.await();
+		} finally {
+			crawl.pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * The state of a crawl.
+	 */
+	private class Crawl {
+		private final ContainerVisitor visitor;
+		private final ThreadPoolExecutor pool;
+		private final Set<String> visited = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		private int outstanding;
+		private SmartsheetException failure;
+
+		Crawl(ContainerVisitor visitor) {
+			this.visitor = visitor;
+			this.pool = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+					new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("smartsheet-crawler"));
+		}
+
+		/**
+		 * Record a visit, entries without an ID are always visited.
+		 */
+		boolean firstVisit(String type, Long id) {
+			return id == null || visited.add(type + ":" + id);
+		}
+
+		/**
+		 * Report the content of a container and fetch its folders.
+		 */
+		void visitContent(List<Sheet> sheets, List<Folder> children, List<Template> templates, Folder container) {
+			if (sheets != null) {
+				for (Sheet sheet : sheets) {
+					if (firstVisit("sheet", sheet.getId())) {
+						visitor.sheet(sheet, container);
+					}
+				}
+			}
+			if (templates != null) {
+				for (Template template : templates) {
+					if (firstVisit("template", template.getId())) {
+						visitor.template(template, container);
+					}
+				}
+			}
+			if (children != null) {
+				for (Folder folder : children) {
+					if (firstVisit("folder", folder.getId())) {
+						visitor.folder(folder, container);
+						fetch(folder, false);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Fetch a container in the background, unless the crawl has failed.
+		 */
+		synchronized void fetch(final Folder container, final boolean workspace) {
+			if (failure != null || container.getId() == null) {
+				return;
+			}
+			outstanding++;
+			pool.execute(new Runnable() {
+				public void run() {
+					try {
+						Folder fetched = workspace ? workspaces.getWorkspace(container.getId()) : folders.getFolder(
+								container.getId());
+						visitContent(fetched.getSheets(), fetched.getFolders(), fetched.getTemplates(), container);
+						done(null);
+					} catch (SmartsheetException e) {
+						done(e);
+					} catch (RuntimeException e) {
+						done(new SmartsheetException(e));
+					}
+				}
+			});
+		}
+
+		/**
+		 * Record the end of a fetch.
+		 */
+		synchronized void done(SmartsheetException e) {
+			if (e != null && failure == null) {
+				failure = e;
+			}
+			outstanding--;
+			notifyAll();
+		}
+
+		/**
+		 * Wait until all fetches are done, then throw the first failure if any.
+		 */
+		synchronized void await() throws SmartsheetException, InterruptedException {
+			while (outstanding > 0) {
+				wait();
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import com.smartsheet.api.models.Folder;
+import com.smartsheet.api.models.Sheet;
+import com.smartsheet.api.models.Template;
+import com.smartsheet.api.models.Workspace;
+
+/**
+ * This interface receives the entries discovered by a {@link ContainerCrawler}, as they are discovered.
+ *
+ * Each entry is reported once, along with the container it was found in: null for the Home, a {@link Workspace} or a
+ * {@link Folder}. Entries are reported from the crawler's worker threads, in no particular order except that a
+ * container is reported before its content.
+ *
+ * Thread Safety: Implementation of this interface must be thread safe.
+ */
+public interface ContainerVisitor {
+
+	/**
+	 * Receive a workspace.
+	 *
+	 * @param workspace the workspace
+	 */
+	public void workspace(Workspace workspace);
+
+	/**
+	 * Receive a folder.
+	 *
+	 * @param folder the folder, as listed in its container
+	 * @param container the container, null for the Home
+	 */
+	public void folder(Folder folder, Folder container);
+
+	/**
+	 * Receive a sheet.
+	 *
+	 * @param sheet the sheet, as listed in its container
+	 * @param container the container, null for the Home
+	 */
+	public void sheet(Sheet sheet, Folder container);
+
+	/**
+	 * Receive a template.
+	 *
+	 * @param template the template, as listed in its container
+	 * @param container the container, null for the Home
+	 */
+	public void template(Template template, Folder container);
+}
@@ -0,0 +1,53 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.List;
+
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.models.Row;
+
+/**
+ * This interface receives the outcome of each batch of rows inserted by a {@link CsvImporter}, along with the lines of
+ * the source the batch was read from.
+ *
+ * Thread Safety: Implementation of this interface must be thread safe, as it is called from worker threads.
+ */
+public interface CsvImportListener {
+
+	/**
+	 * Receive the rows inserted from a batch of records.
+	 *
+	 * @param firstLine the first line of the batch in the source, starting at 1
+	 * @param lastLine the last line of the batch in the source
+	 * @param rows the inserted rows
+	 */
+	public void inserted(long firstLine, long lastLine, List<Row> rows);
+
+	/**
+	 * Receive the failure of a batch of records, none of which has been inserted.
+	 *
+	 * @param firstLine the first line of the batch in the source, starting at 1
+	 * @param lastLine the last line of the batch in the source
+	 * @param failure the failure
+	 */
+	public void failed(long firstLine, long lastLine, SmartsheetException failure);
+}
@@ -0,0 +1,366 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.smartsheet.api.AuthorizationException;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.SheetColumnResources;
+import com.smartsheet.api.SheetRowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.DaemonThreadFactory;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Column;
+import com.smartsheet.api.models.ColumnType;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowWrapper;
+
+/**
+ * This class imports comma separated values into a sheet, reading the input one record at a time and inserting the
+ * rows in batches, so that inputs of any size can be imported.
+ *
+ * The first record holds the column titles, which are matched to the columns of the sheet, exactly or else ignoring
+ * case and surrounding spaces. Each following record becomes a row at the bottom of the sheet. Empty values are left
+ * out, values of system columns, which can't be written, are ignored, and the other values are converted by column
+ * type: numbers in TEXT_NUMBER columns become numbers, except those with leading zeros, and yes/no values in CHECKBOX
+ * columns become booleans. Other values are sent as text.
+ *
+ * Batches are sent on a pool of maxInFlight worker threads. Once maxInFlight batches are in flight, reading blocks
+ * until one of them is done, so that memory use is bounded by the batch size whatever the size of the input. With a
+ * single batch in flight, the rows are inserted in input order; otherwise batches may land in any order relative to
+ * each other. Each request first takes a permit from a {@link RequestRateLimiter}, and when the API reports that it is
+ * rate limited all requests back off before the batch is retried.
+ *
+ * The outcome of each batch is reported to a {@link CsvImportListener} with the lines of the input it was read from. A
+ * failed batch doesn't stop the import, except for authorization failures and missing sheets, after which no further
+ * record is read.
+ *
+ * Thread Safety: This class is thread safe, several imports may run at once.
+ */
+public class CsvImporter {
+
+	/** The numbers converted in TEXT_NUMBER columns, which excludes numbers with leading zeros. */
+	private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?");
+
+	/** The longest whole number converted to a long rather than a double. */
+	private static final int MAX_LONG_DIGITS = 18;
+
+	/** The column resources. */
+	private final SheetColumnResources columns;
+
+	/** The row resources. */
+	private final SheetRowResources rows;
+
+	/** The request budget. */
+	private final RequestRateLimiter limiter;
+
+	/** The maximum number of rows per request. */
+	private final int batchSize;
+
+	/** The maximum number of requests in flight. */
+	private final int maxInFlight;
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null, or if batchSize or maxInFlight is not positive
+	 *
+	 * @param columns the column resources
+	 * @param rows the row resources
+	 * @param limiter the request budget
+	 * @param batchSize the maximum number of rows per request
+	 * @param maxInFlight the maximum number of requests in flight
+	 */
+	public CsvImporter(SheetColumnResources columns, SheetRowResources rows, RequestRateLimiter limiter,
+			int batchSize, int maxInFlight) {
+		Util.throwIfNull(columns, rows, limiter);
+		if (batchSize <= 0 || maxInFlight <= 0) {
+			throw new IllegalArgumentException();
+		}
+
+		this.columns = columns;
+		this.rows = rows;
+		this.limiter = limiter;
+		this.batchSize = batchSize;
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Import comma separated values into a sheet and wait until all batches are done.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null
+	 *
+	 * @param sheetId the sheet id
+	 * @param reader the input, which is not closed
+	 * @param listener the listener receiving the outcome of each batch
+	 * @return the number of rows inserted
+	 * @throws SmartsheetException if the columns can't be listed, if a title matches no column, or if the input can't
+	 * be read, the batches already read are still sent and reported
+	 * @throws InterruptedException if interrupted while waiting, the batches in flight go on
+	 */
+	public long importCsv(final long sheetId, Reader reader, final CsvImportListener listener)
+			throws SmartsheetException, InterruptedException {
+		Util.throwIfNull(reader, listener);
+
+		CsvReader csv = new CsvReader(reader);
+		List<String> titles = read(csv);
+		if (titles == null) {
+			return 0;
+		}
+		limiter.acquire();
+		Column[] mapped = mapColumns(columns.listColumns(sheetId), titles);
+
+		final Semaphore permits = new Semaphore(maxInFlight);
+		final AtomicLong inserted = new AtomicLong();
+		final AtomicBoolean stopped = new AtomicBoolean();
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(maxInFlight, maxInFlight, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("smartsheet-csv-importer"));
+		List<Row> batch = new ArrayList<Row>();
+		long firstLine = 0;
+		long lastLine = 0;
+		boolean interrupted = false;
+		try {
+			List<String> record;
+			while (!stopped.get() && (record = read(csv)) != null) {
+				if (record.size() == 1 && record.get(0).length() == 0) {
+					// Skip blank lines.
+					continue;
+				}
+				if (batch.isEmpty()) {
+					firstLine = csv.getFirstLine();
+				}
+				batch.add(toRow(mapped, record));
+				lastLine = csv.getLastLine();
+				if (batch.size() == batchSize) {
+					permits.acquire();
+					pool.execute(new Batch(sheetId, batch, firstLine, lastLine, listener, permits, inserted, stopped));
+					batch = new ArrayList<Row>();
+				}
+			}
+		} catch (InterruptedException e) {
+			interrupted = true;
+			throw e;
+		} finally {
+			try {
+				// The rows already read are sent and reported even if the rest of the input can't be read.
+				if (!interrupted && !batch.isEmpty() && !stopped.get()) {
+					permits.acquire();
+					pool.execute(new Batch(sheetId, batch, firstLine, lastLine, listener, permits, inserted, stopped));
+				}
+			} finally {
+				pool.shutdown();
+			}
+			if (!interrupted) {
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			}
+		}
+		return inserted.get();
+	}
+
+	/**
+	 * Read the next record.
+	 *
+	 * @param csv the input
+	 * @return the fields, or null at the end of the input
+	 * @throws SmartsheetException if the input can't be read
+	 */
+	private static List<String> read(CsvReader csv) throws SmartsheetException {
+		try {
+			return csv.readRecord();
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		}
+	}
+
+	/**
+	 * Match the titles of the input to the columns of the sheet.
+	 *
+	 * @param columns the columns of the sheet
+	 * @param titles the titles
+	 * @return the column of each title, null for system columns
+	 * @throws SmartsheetException if a title matches no column, or the same column as another title
+	 */
+	private static Column[] mapColumns(List<Column> columns, List<String> titles) throws SmartsheetException {
+		Map<String, Column> byTitle = new HashMap<String, Column>();
+		Map<String, Column> byKey = new HashMap<String, Column>();
+		for (Column column : columns) {
+			if (column.getTitle() != null) {
+				byTitle.put(column.getTitle(), column);
+				byKey.put(column.getTitle().trim().toLowerCase(), column);
+			}
+		}
+
+		Column[] mapped = new Column[titles.size()];
+		List<Column> used = new ArrayList<Column>();
+		for (int i = 0; i < mapped.length; i++) {
+			// A byte order mark may precede the first title.
+			String title = i == 0 && titles.get(i).startsWith("\uFEFF") ? titles.get(i).substring(1) : titles.get(i);
+			Column column = byTitle.get(title);
+			if (column == null) {
+				column = byKey.get(title.trim().toLowerCase());
+			}
+			if (column == null || used.contains(column)) {
+				throw new SmartsheetException("No column, or a duplicate column, for the title \"" + title + "\"");
+			}
+			used.add(column);
+			mapped[i] = column.getSystemColumnType() == null ? column : null;
+		}
+		return mapped;
+	}
+
+	/**
+	 * Convert a record to a row.
+	 *
+	 * @param mapped the column of each field
+	 * @param record the fields
+	 * @return the row
+	 */
+	private static Row toRow(Column[] mapped, List<String> record) {
+		List<Cell> cells = new ArrayList<Cell>();
+		for (int i = 0; i < mapped.length && i < record.size(); i++) {
+			if (mapped[i] != null && record.get(i).length() > 0) {
+				Cell cell = new Cell();
+				cell.setColumnId(mapped[i].getId());
+				cell.setValue(convert(mapped[i].getType(), record.get(i)));
+				cells.add(cell);
+			}
+		}
+		Row row = new Row();
+		row.setCells(cells);
+		return row;
+	}
+
+	/**
+	 * Convert a value by column type.
+	 *
+	 * @param type the column type, may be null
+	 * @param text the value
+	 * @return the converted value
+	 */
+	static Object convert(ColumnType type, String text) {
+		if (type == ColumnType.TEXT_NUMBER) {
+			String trimmed = text.trim();
+			if (NUMBER.matcher(trimmed).matches()) {
+				if (trimmed.indexOf('.') < 0 && trimmed.length() <= MAX_LONG_DIGITS) {
+					return Long.valueOf(trimmed);
+				}
+				return Double.valueOf(trimmed);
+			}
+		} else if (type == ColumnType.CHECKBOX) {
+			String key = text.trim().toLowerCase();
+			if (key.equals("true") || key.equals("yes") || key.equals("1") || key.equals("x")
+					|| key.equals("checked")) {
+				return Boolean.TRUE;
+			}
+			if (key.equals("false") || key.equals("no") || key.equals("0") || key.equals("unchecked")) {
+				return Boolean.FALSE;
+			}
+		} else if (type == ColumnType.DATE) {
+			return text.trim();
+		}
+		return text;
+	}
+
+	/**
+	 * Check whether a failure will repeat for every following batch.
+	 *
+	 * @param failure the failure
+	 * @return true if no further batch should be sent
+	 */
+	private static boolean isFatal(SmartsheetException failure) {
+		return failure instanceof AuthorizationException || failure instanceof ResourceNotFoundException;
+	}
+
+	/**
+	 * A batch of rows, inserted and reported by a worker thread.
+	 */
+	private class Batch implements Runnable {
+		private final long sheetId;
+		private final List<Row> batch;
+		private final long firstLine;
+		private final long lastLine;
+		private final CsvImportListener listener;
+		private final Semaphore permits;
+		private final AtomicLong inserted;
+		private final AtomicBoolean stopped;
+
+		Batch(long sheetId, List<Row> batch, long firstLine, long lastLine, CsvImportListener listener,
+				Semaphore permits, AtomicLong inserted, AtomicBoolean stopped) {
+			this.sheetId = sheetId;
+			this.batch = batch;
+			this.firstLine = firstLine;
+			this.lastLine = lastLine;
+			this.listener = listener;
+			this.permits = permits;
+			this.inserted = inserted;
+			this.stopped = stopped;
+		}
+
+		public void run() {
+			try {
+				List<Row> result = insert();
+				inserted.addAndGet(result.size());
+				listener.inserted(firstLine, lastLine, result);
+			} catch (SmartsheetException e) {
+				if (isFatal(e)) {
+					stopped.set(true);
+				}
+				listener.failed(firstLine, lastLine, e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				listener.failed(firstLine, lastLine, new SmartsheetException(e));
+			} finally {
+				permits.release();
+			}
+		}
+
+		/**
+		 * Insert the batch within the request budget, retrying while the API is rate limited.
+		 *
+		 * @return the inserted rows
+		 * @throws SmartsheetException the failure
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		private List<Row> insert() throws SmartsheetException, InterruptedException {
+			final RowWrapper wrapper = new RowWrapper.InsertRowsBuilder().setToBottom(true).setRows(batch).build();
+			return limiter.call(new Callable<List<Row>>() {
+				public List<Row> call() throws SmartsheetException {
+					return rows.insertRows(sheetId, wrapper);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.smartsheet.api.internal.util.Util;
+
+/**
+ * This class reads comma separated values one record at a time, see RFC 4180.
+ *
+ * Fields may be quoted, a quoted field holding separators, line breaks and doubled quotes. Records end with CRLF, LF
+ * or CR. The lines of each record are tracked so that errors can be traced back to the source.
+ *
+ * Thread Safety: This class is not thread safe.
+ */
+class CsvReader {
+
+	/** The value of next when no character has been read ahead. */
+	private static final int NONE = -2;
+
+	/** The reader. */
+	private final Reader reader;
+
+	/** The character read ahead, or NONE. */
+	private int next = NONE;
+
+	/** The current line, starting at 1. */
+	private long line = 1;
+
+	/** The first line of the last record read. */
+	private long firstLine;
+
+	/** The last line of the last record read. */
+	private long lastLine;
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if reader is null
+	 *
+	 * @param reader the reader, buffered if needed
+	 */
+	CsvReader(Reader reader) {
+		Util.throwIfNull(reader);
+
+		this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+	}
+
+	/**
+	 * Read the next record.
+	 *
+	 * @return the fields of the record, or null at the end of the input
+	 * @throws IOException if the input can't be read or ends within a quoted field
+	 */
+	List<String> readRecord() throws IOException {
+		int c = read();
+		if (c == -1) {
+			return null;
+		}
+
+		firstLine = line;
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		while (true) {
+			if (quoted) {
+				if (c == -1) {
+					throw new IOException("Unterminated quoted field at line " + firstLine);
+				}
+				if (c == '"') {
+					c = read();
+					if (c != '"') {
+						quoted = false;
+						continue;
+					}
+				} else if (c == '\r' || c == '\n') {
+					field.append((char) c);
+					if (c == '\r' && peek() == '\n') {
+						field.append((char) read());
+					}
+					line++;
+					c = read();
+					continue;
+				}
+				field.append((char) c);
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == '"' && field.length() == 0) {
+				quoted = true;
+			} else if (c == '\r' || c == '\n' || c == -1) {
+				lastLine = line;
+				if (c == '\r' && peek() == '\n') {
+					read();
+				}
+				if (c != -1) {
+					line++;
+				}
+				fields.add(field.toString());
+				return fields;
+			} else {
+				field.append((char) c);
+			}
+			c = read();
+		}
+	}
+
+	/**
+	 * Get the first line of the last record read.
+	 *
+	 * @return the line, starting at 1
+	 */
+	long getFirstLine() {
+		return firstLine;
+	}
+
+	/**
+	 * Get the last line of the last record read, which differs from the first line when a quoted field holds line
+	 * breaks.
+	 *
+	 * @return the line, starting at 1
+	 */
+	long getLastLine() {
+		return lastLine;
+	}
+
+	/**
+	 * Read the next character.
+	 *
+	 * @return the character, or -1 at the end of the input
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private int read() throws IOException {
+		if (next != NONE) {
+			int c = next;
+			next = NONE;
+			return c;
+		}
+		return reader.read();
+	}
+
+	/**
+	 * Read ahead the next character without consuming it.
+	 *
+	 * @return the character, or -1 at the end of the input
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private int peek() throws IOException {
+		if (next == NONE) {
+			next = reader.read();
+		}
+		return next;
+	}
+}
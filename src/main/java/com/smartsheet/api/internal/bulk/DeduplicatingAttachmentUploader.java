@@ -0,0 +1,257 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.smartsheet.api.AssociatedAttachmentResources;
+import com.smartsheet.api.AttachmentResources;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.UploadListener;
+import com.smartsheet.api.internal.cache.AttachmentIndex;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Attachment;
+import com.smartsheet.api.models.AttachmentParentType;
+import com.smartsheet.api.models.AttachmentType;
+
+/**
+ * This class attaches files and new attachment versions without uploading content that is already in place, using an
+ * {@link AttachmentIndex} of the content previously attached.
+ *
+ * The digest of a file is computed before anything is sent. An attachment that already holds the content on the same
+ * object, or a latest version that already holds it, is checked to still exist and returned instead of uploading the
+ * file again. Content registered in the index with a durable URL is attached as a link to that URL. Anything else is
+ * uploaded and recorded in the index.
+ *
+ * Thread Safety: This class is thread safe, provided the attachment resources are.
+ */
+public class DeduplicatingAttachmentUploader {
+
+	/** The attachment resources of sheets, null if not used. */
+	private final AssociatedAttachmentResources sheetAttachments;
+
+	/** The attachment resources of rows, null if not used. */
+	private final AssociatedAttachmentResources rowAttachments;
+
+	/** The attachment resources of comments, null if not used. */
+	private final AssociatedAttachmentResources commentAttachments;
+
+	/** The attachment resources, null if new versions are not used. */
+	private final AttachmentResources attachments;
+
+	/** The index of attached content. */
+	private final AttachmentIndex index;
+
+	/** The number of files not uploaded because the content was already attached. */
+	private final AtomicLong skipCount = new AtomicLong();
+
+	/** The number of files attached as a link to a durable URL. */
+	private final AtomicLong linkCount = new AtomicLong();
+
+	/** The number of files uploaded. */
+	private final AtomicLong uploadCount = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if index is null, or if all attachment resources are null
+	 *
+	 * @param sheetAttachments the attachment resources of sheets, null if no file is attached to a sheet
+	 * @param rowAttachments the attachment resources of rows, null if no file is attached to a row
+	 * @param commentAttachments the attachment resources of comments, null if no file is attached to a comment
+	 * @param attachments the attachment resources, used to check that indexed attachments still exist and to upload
+	 * new versions
+	 * @param index the index of attached content
+	 */
+	public DeduplicatingAttachmentUploader(AssociatedAttachmentResources sheetAttachments,
+			AssociatedAttachmentResources rowAttachments, AssociatedAttachmentResources commentAttachments,
+			AttachmentResources attachments, AttachmentIndex index) {
+		Util.throwIfNull(attachments, index);
+		if (sheetAttachments == null && rowAttachments == null && commentAttachments == null) {
+			throw new IllegalArgumentException();
+		}
+
+		this.sheetAttachments = sheetAttachments;
+		this.rowAttachments = rowAttachments;
+		this.commentAttachments = commentAttachments;
+		this.attachments = attachments;
+		this.index = index;
+	}
+
+	/**
+	 * Attach a file to an object, unless the object already has an attachment with the same content.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null, or if parentType has no attachment resources
+	 *
+	 * @param parentType the type of the object
+	 * @param parentId the ID of the object
+	 * @param file the file
+	 * @param contentType the content type of the file
+	 * @return the existing attachment, limited to its ID, name, type and parent, or the attachment created
+	 * @throws FileNotFoundException if the file can't be opened
+	 * @throws SmartsheetException if there is any other error
+	 */
+	public Attachment attachFile(AttachmentParentType parentType, long parentId, File file, String contentType)
+			throws FileNotFoundException, SmartsheetException {
+		Util.throwIfNull(parentType, file, contentType);
+		AssociatedAttachmentResources resources = getResources(parentType);
+		if (resources == null) {
+			throw new IllegalArgumentException("No attachment resources for " + parentType);
+		}
+
+		String digest = AttachmentIndex.digest(file);
+		Attachment existing = index.find(digest, parentType, parentId);
+		if (existing != null && exists(existing.getId())) {
+			skipCount.incrementAndGet();
+			return existing;
+		}
+
+		Attachment attachment;
+		String url = index.getUrl(digest);
+		if (url != null) {
+			Attachment link = new Attachment();
+			link.setName(file.getName());
+			link.setUrl(url);
+			link.setAttachmentType(AttachmentType.LINK);
+			attachment = resources.attachURL(parentId, link);
+			linkCount.incrementAndGet();
+		} else {
+			final String[] uploaded = new String[1];
+			attachment = resources.attachFile(parentId, file, contentType, new UploadListener() {
+				public void progress(long sent, long total, long bytesPerSecond) {
+				}
+
+				public void uploaded(long size, String digest, long elapsedMillis) {
+					uploaded[0] = digest;
+				}
+			});
+			uploadCount.incrementAndGet();
+			// The file may have changed since it was hashed, the index keeps what was actually sent.
+			if (uploaded[0] != null) {
+				digest = uploaded[0];
+			}
+		}
+
+		if (attachment != null && attachment.getId() != null) {
+			attachment.setParentType(parentType);
+			attachment.setParentId(parentId);
+			index.put(digest, attachment);
+		}
+		return attachment;
+	}
+
+	/**
+	 * Upload a file as a new version of an attachment, unless its latest version already has the same content.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null
+	 *
+	 * @param attachmentId the ID of the attachment
+	 * @param file the file
+	 * @param contentType the content type of the file
+	 * @return the existing latest version, limited to its ID, name, type and parent, or the version created
+	 * @throws FileNotFoundException if the file can't be opened
+	 * @throws SmartsheetException if there is any other error
+	 */
+	public Attachment attachNewVersion(long attachmentId, File file, String contentType) throws FileNotFoundException,
+			SmartsheetException {
+		Util.throwIfNull(file, contentType);
+
+		String digest = AttachmentIndex.digest(file);
+		Attachment existing = index.findVersion(attachmentId, digest);
+		if (existing != null && exists(existing.getId())) {
+			skipCount.incrementAndGet();
+			return existing;
+		}
+
+		Attachment version = attachments.attachNewVersion(attachmentId, file, contentType);
+		uploadCount.incrementAndGet();
+		if (version != null && version.getId() != null) {
+			index.putVersion(attachmentId, digest, version);
+		}
+		return version;
+	}
+
+	/**
+	 * Check that an indexed attachment still exists, forgetting it otherwise.
+	 *
+	 * @param attachmentId the attachment ID
+	 * @return true if the attachment exists
+	 * @throws SmartsheetException if the attachment can't be checked
+	 */
+	private boolean exists(long attachmentId) throws SmartsheetException {
+		try {
+			if (attachments.getAttachment(attachmentId) != null) {
+				return true;
+			}
+		} catch (ResourceNotFoundException e) {
+			// Ignore exception, the attachment was deleted and is forgotten below.
+		}
+		index.remove(attachmentId);
+		return false;
+	}
+
+	/**
+	 * Get the number of files not uploaded because the content was already attached.
+	 *
+	 * @return the number of files skipped
+	 */
+	public long getSkipCount() {
+		return skipCount.get();
+	}
+
+	/**
+	 * Get the number of files attached as a link to a durable URL rather than uploaded.
+	 *
+	 * @return the number of files linked
+	 */
+	public long getLinkCount() {
+		return linkCount.get();
+	}
+
+	/**
+	 * Get the number of files uploaded.
+	 *
+	 * @return the number of files uploaded
+	 */
+	public long getUploadCount() {
+		return uploadCount.get();
+	}
+
+	/**
+	 * Get the attachment resources of a parent type.
+	 *
+	 * @param parentType the parent type
+	 * @return the resources, null if not provided
+	 */
+	private AssociatedAttachmentResources getResources(AttachmentParentType parentType) {
+		switch (parentType) {
+		case SHEET:
+			return sheetAttachments;
+		case ROW:
+			return rowAttachments;
+		default:
+			return commentAttachments;
+		}
+	}
+}
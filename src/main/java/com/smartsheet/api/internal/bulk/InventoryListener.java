@@ -0,0 +1,53 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This interface receives the changes detected by an {@link InventorySync}.
+ *
+ * Thread Safety: Implementation of this interface is called from the thread running the synchronization only.
+ */
+public interface InventoryListener {
+
+	/**
+	 * Receive a sheet that wasn't known at the previous synchronization.
+	 *
+	 * @param sheet the sheet, with its content if content is fetched
+	 */
+	public void added(Sheet sheet);
+
+	/**
+	 * Receive a sheet that changed since the previous synchronization.
+	 *
+	 * @param sheet the sheet, with its content if content is fetched
+	 */
+	public void changed(Sheet sheet);
+
+	/**
+	 * Receive the ID of a sheet that has been deleted, or can no longer be accessed, since the previous
+	 * synchronization.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public void deleted(long sheetId);
+}
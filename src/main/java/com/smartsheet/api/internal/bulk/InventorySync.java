@@ -0,0 +1,260 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.SheetResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This class synchronizes an inventory of sheets incrementally: each run lists the sheets, which is a single cheap
+ * request, and only fetches the content of the sheets that are new or changed since the previous run.
+ *
+ * The last seen modification date and version of each sheet are kept in a local state file. A listed sheet is new if
+ * it isn't in the state, and changed if its version or modification date differs from the state; a listing that holds
+ * neither makes the sheet count as changed. A sheet in the state but no longer listed has been deleted, or is no
+ * longer accessible. A sheet that disappears between the listing and the fetch of its content is reported as deleted.
+ *
+ * The state is saved after each run, and also when a run fails, so that the changes already reported are not
+ * reported again. The state file is written to a temporary file that is renamed once complete.
+ *
+ * Thread Safety: This class is thread safe because runs are synchronized.
+ */
+public class InventorySync {
+
+	/** The format identifier of the state file. */
+	private static final int MAGIC = 0x53534953;
+
+	/** The sheet resources. */
+	private final SheetResources sheets;
+
+	/** The state file. */
+	private final File stateFile;
+
+	/** The last seen state, by sheet ID. */
+	private final Map<Long, SheetState> states = new HashMap<Long, SheetState>();
+
+	/**
+	 * Constructor, loading the state of the previous run if any. A state file that can't be read is ignored, so the
+	 * next run reports all sheets as new.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null
+	 *
+	 * @param sheets the sheet resources
+	 * @param stateFile the state file
+	 */
+	public InventorySync(SheetResources sheets, File stateFile) {
+		Util.throwIfNull(sheets, stateFile);
+
+		this.sheets = sheets;
+		this.stateFile = stateFile;
+		load();
+	}
+
+	/**
+	 * Detect the changes since the previous run and report them.
+	 *
+	 * Exceptions: - IllegalArgumentException : if listener is null
+	 *
+	 * @param listener the listener receiving the changes
+	 * @param organization whether to list all sheets of the organization, which requires an administrator, instead of
+	 * the sheets of the user
+	 * @param includes the elements to include when fetching sheet content, or null to report the listed sheets without
+	 * fetching their content
+	 * @return the number of changes reported
+	 * @throws SmartsheetException the first failure, the changes reported before it are saved
+	 */
+	public synchronized int sync(InventoryListener listener, boolean organization, EnumSet<ObjectInclusion> includes)
+			throws SmartsheetException {
+		Util.throwIfNull(listener);
+
+		List<Sheet> listed = organization ? sheets.listOrganizationSheets() : sheets.listSheets();
+		Map<Long, SheetState> remaining = new HashMap<Long, SheetState>(states);
+		int changes = 0;
+		try {
+			for (Sheet sheet : listed) {
+				if (sheet.getId() == null) {
+					continue;
+				}
+				SheetState previous = remaining.remove(sheet.getId());
+				SheetState current = new SheetState(sheet.getModifiedAt(), sheet.getVersion());
+				if (previous != null && !previous.isChangedBy(current)) {
+					continue;
+				}
+
+				Sheet reported = sheet;
+				if (includes != null) {
+					try {
+						reported = sheets.getSheet(sheet.getId(), includes);
+					} catch (ResourceNotFoundException e) {
+						if (previous != null) {
+							remaining.put(sheet.getId(), previous);
+						}
+						continue;
+					}
+					current = new SheetState(reported.getModifiedAt() == null ? sheet.getModifiedAt()
+							: reported.getModifiedAt(), reported.getVersion() == null ? sheet.getVersion()
+							: reported.getVersion());
+				}
+				if (previous == null) {
+					listener.added(reported);
+				} else {
+					listener.changed(reported);
+				}
+				states.put(sheet.getId(), current);
+				changes++;
+			}
+
+			for (Long sheetId : remaining.keySet()) {
+				listener.deleted(sheetId);
+				states.remove(sheetId);
+				changes++;
+			}
+		} finally {
+			save();
+		}
+		return changes;
+	}
+
+	/**
+	 * Get the number of sheets known from the previous runs.
+	 *
+	 * @return the number of sheets
+	 */
+	public synchronized int getSheetCount() {
+		return states.size();
+	}
+
+	/**
+	 * Load the state file.
+	 */
+	private void load() {
+		if (!stateFile.isFile()) {
+			return;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)));
+			if (in.readInt() != MAGIC) {
+				return;
+			}
+			int count = in.readInt();
+			Map<Long, SheetState> loaded = new HashMap<Long, SheetState>();
+			for (int i = 0; i < count; i++) {
+				long sheetId = in.readLong();
+				long modifiedAt = in.readLong();
+				int version = in.readInt();
+				loaded.put(sheetId, new SheetState(modifiedAt < 0 ? null : new Date(modifiedAt), version < 0 ? null
+						: version));
+			}
+			states.putAll(loaded);
+		} catch (IOException e) {
+			// Ignore exception, the state is lost and all sheets will be reported as new.
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Save the state file.
+	 *
+	 * @throws SmartsheetException if the state file can't be written
+	 */
+	private void save() throws SmartsheetException {
+		File temp = new File(stateFile.getPath() + ".tmp");
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.writeInt(MAGIC);
+			out.writeInt(states.size());
+			for (Map.Entry<Long, SheetState> entry : states.entrySet()) {
+				out.writeLong(entry.getKey());
+				out.writeLong(entry.getValue().modifiedAt == null ? -1 : entry.getValue().modifiedAt.getTime());
+				out.writeInt(entry.getValue().version == null ? -1 : entry.getValue().version);
+			}
+			out.close();
+			out = null;
+		} catch (IOException e) {
+			close(out);
+			temp.delete();
+			throw new SmartsheetException(e);
+		}
+
+		// Renaming over an existing file fails on some platforms.
+		if (!temp.renameTo(stateFile) && !(stateFile.delete() && temp.renameTo(stateFile))) {
+			temp.delete();
+			throw new SmartsheetException("Unable to write inventory state " + stateFile);
+		}
+	}
+
+	/**
+	 * Close a stream, ignoring failures.
+	 *
+	 * @param closeable the stream, may be null
+	 */
+	private static void close(java.io.Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// Ignore exception, nothing more can be done.
+			}
+		}
+	}
+
+	/**
+	 * The last seen state of a sheet.
+	 */
+	private static class SheetState {
+		private final Date modifiedAt;
+		private final Integer version;
+
+		SheetState(Date modifiedAt, Integer version) {
+			this.modifiedAt = modifiedAt;
+			this.version = version;
+		}
+
+		boolean isChangedBy(SheetState current) {
+			if (current.modifiedAt == null && current.version == null) {
+				return true;
+			}
+			return (current.version != null && !current.version.equals(version))
+					|| (current.modifiedAt != null && !current.modifiedAt.equals(modifiedAt));
+		}
+	}
+}
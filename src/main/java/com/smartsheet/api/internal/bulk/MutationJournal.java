@@ -0,0 +1,516 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import com.smartsheet.api.AuthorizationException;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.RowResources;
+import com.smartsheet.api.ServiceUnavailableException;
+import com.smartsheet.api.SheetRowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.SmartsheetRestException;
+import com.smartsheet.api.internal.RowResourcesImpl;
+import com.smartsheet.api.internal.json.JSONSerializerException;
+import com.smartsheet.api.internal.json.JsonSerializer;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.RowWrapper;
+
+/**
+ * This class is an append-only write-ahead journal of row mutations, so that mutations buffered in memory survive a
+ * crash of the process and can be replayed on restart.
+ *
+ * Each mutation is appended to a memory mapped segment file and forced to disk before its sequence number is
+ * returned; once the mutation has been applied through the Smartsheet REST API, the caller acknowledges the sequence
+ * number, which appends an acknowledgement record. A mutation that failed permanently is acknowledged too, see
+ * {@link #isTransient(SmartsheetException)}, so that it doesn't stay pending forever. On open, all segments are
+ * scanned and the mutations without acknowledgement are kept for
+ * {@link #replay(RowResources, SheetRowResources, Map)}.
+ *
+ * Each record holds its length, a CRC32 checksum, its type, its sequence number and its payload. A record with a zero
+ * length marks the end of a segment, and a record whose checksum doesn't match is treated as the torn end of the last
+ * write. Segments are deleted oldest first, once every mutation they and the segments before them hold has been
+ * acknowledged.
+ *
+ * Replay gives at-least-once semantics: a mutation applied just before a crash, but not yet acknowledged, is applied
+ * again. Row and cell payloads are stored as JSON, the form in which they're sent.
+ *
+ * Thread Safety: This class is thread safe because all access to its mutable state is synchronized.
+ */
+public class MutationJournal {
+
+	/** The default size of a segment. */
+	public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+	/** The record type of a row insertion. */
+	static final byte INSERT_ROWS = 1;
+
+	/** The record type of a cell update. */
+	static final byte UPDATE_CELLS = 2;
+
+	/** The record type of a row deletion. */
+	static final byte DELETE_ROW = 3;
+
+	/** The record type of an acknowledgement. */
+	static final byte ACKNOWLEDGE = 4;
+
+	/** The size of the record header: length, checksum, type and sequence number. */
+	private static final int HEADER_SIZE = 4 + 4 + 1 + 8;
+
+	/** The prefix of the segment files. */
+	private static final String PREFIX = "journal-";
+
+	/** The suffix of the segment files. */
+	private static final String SUFFIX = ".seg";
+
+	/** The directory. */
+	private final File directory;
+
+	/** The minimum size of a segment. */
+	private final int segmentSize;
+
+	/** The serializer of the payloads. */
+	private final JsonSerializer serializer;
+
+	/** The mutations without acknowledgement, by sequence number. */
+	private final TreeMap<Long, Mutation> pending = new TreeMap<Long, Mutation>();
+
+	/** The segments, oldest first, with the highest sequence number of a mutation each of them holds. */
+	private final TreeMap<Integer, Long> segments = new TreeMap<Integer, Long>();
+
+	/** The segment being written. */
+	private MappedByteBuffer current;
+
+	/** The number of the segment being written. */
+	private int currentNumber;
+
+	/** The next sequence number. */
+	private long nextSequence = 1;
+
+	/**
+	 * Constructor, recovering the mutations without acknowledgement from the segments in the directory.
+	 *
+	 * Exceptions: - IllegalArgumentException : if directory or serializer is null, if segmentSize is too small, or if
+	 * the directory can't be created
+	 *
+	 * @param directory the directory, created if it does not exist
+	 * @param segmentSize the minimum size of a segment
+	 * @param serializer the serializer of the payloads
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public MutationJournal(File directory, int segmentSize, JsonSerializer serializer) throws IOException {
+		Util.throwIfNull(directory, serializer);
+		if (segmentSize < HEADER_SIZE * 2) {
+			throw new IllegalArgumentException();
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IllegalArgumentException("Unable to create journal directory " + directory);
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.serializer = serializer;
+
+		File[] files = directory.listFiles();
+		List<Integer> numbers = new ArrayList<Integer>();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+					try {
+						numbers.add(Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+					} catch (NumberFormatException e) {
+						// Ignore exception, the file isn't a segment.
+					}
+				}
+			}
+		}
+		Integer[] sorted = numbers.toArray(new Integer[numbers.size()]);
+		Arrays.sort(sorted);
+		for (Integer number : sorted) {
+			recover(number);
+			currentNumber = number;
+		}
+		deleteAcknowledgedSegments();
+		startSegment(HEADER_SIZE);
+	}
+
+	/**
+	 * Record an insertion of rows.
+	 *
+	 * Exceptions: - IllegalArgumentException : if rowWrapper is null
+	 *
+	 * @param sheetId the sheet id
+	 * @param rowWrapper the row wrapper holding the rows and their position
+	 * @return the sequence number to acknowledge once the rows are inserted
+	 * @throws SmartsheetException if the mutation can't be serialized or written
+	 */
+	public long appendInsertRows(long sheetId, RowWrapper rowWrapper) throws SmartsheetException {
+		Util.throwIfNull(rowWrapper);
+		return append(INSERT_ROWS, sheetId, rowWrapper);
+	}
+
+	/**
+	 * Record an update of the cells of a row.
+	 *
+	 * Exceptions: - IllegalArgumentException : if cells is null
+	 *
+	 * @param rowId the row id
+	 * @param cells the cells
+	 * @return the sequence number to acknowledge once the cells are updated
+	 * @throws SmartsheetException if the mutation can't be serialized or written
+	 */
+	public long appendUpdateCells(long rowId, List<Cell> cells) throws SmartsheetException {
+		Util.throwIfNull(cells);
+		return append(UPDATE_CELLS, rowId, cells);
+	}
+
+	/**
+	 * Record a deletion of a row.
+	 *
+	 * @param rowId the row id
+	 * @return the sequence number to acknowledge once the row is deleted
+	 * @throws SmartsheetException if the mutation can't be written
+	 */
+	public long appendDeleteRow(long rowId) throws SmartsheetException {
+		return append(DELETE_ROW, rowId, null);
+	}
+
+	/**
+	 * Acknowledge that a mutation has been applied, so that it isn't replayed. Unknown sequence numbers are ignored.
+	 *
+	 * @param sequence the sequence number
+	 * @throws SmartsheetException if the acknowledgement can't be written
+	 */
+	public synchronized void acknowledge(long sequence) throws SmartsheetException {
+		if (pending.remove(sequence) == null) {
+			return;
+		}
+		try {
+			write(ACKNOWLEDGE, sequence, new byte[0]);
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		}
+		deleteAcknowledgedSegments();
+	}
+
+	/**
+	 * Get the number of mutations without acknowledgement.
+	 *
+	 * @return the number of mutations
+	 */
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Apply the mutations without acknowledgement in the order they were recorded, acknowledging each of them.
+	 *
+	 * A mutation that fails permanently, because the Smartsheet REST API rejected it or its payload can't be read, is
+	 * acknowledged as well and its failure is put in failures, so that it isn't replayed again on every restart.
+	 * Replay stops at the first transient failure, see {@link #isTransient(SmartsheetException)}, leaving that mutation
+	 * and the following ones pending. Deletions of rows that no longer exist count as applied.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null
+	 *
+	 * @param rows the row resources applying cell updates and deletions
+	 * @param sheetRows the sheet row resources applying insertions
+	 * @param failures the map receiving the permanent failures, by sequence number
+	 * @return the number of mutations applied
+	 * @throws SmartsheetException the first transient failure, or if an acknowledgement can't be written
+	 */
+	public int replay(RowResources rows, SheetRowResources sheetRows, Map<Long, SmartsheetException> failures)
+			throws SmartsheetException {
+		Util.throwIfNull(rows, sheetRows, failures);
+
+		List<Mutation> mutations;
+		synchronized (this) {
+			mutations = new ArrayList<Mutation>(pending.values());
+		}
+
+		int applied = 0;
+		for (Mutation mutation : mutations) {
+			try {
+				apply(mutation, rows, sheetRows);
+				applied++;
+			} catch (SmartsheetException e) {
+				if (isTransient(e)) {
+					throw e;
+				}
+				failures.put(mutation.sequence, e);
+			}
+			acknowledge(mutation.sequence);
+		}
+		return applied;
+	}
+
+	/**
+	 * Check whether a failure to apply a mutation is transient, in which case the mutation should be kept and applied
+	 * again later: the service is unavailable, the sheet is busy, the request is not authorized (the credentials can
+	 * be renewed), or the request didn't get a response from the Smartsheet REST API. Failures to serialize or
+	 * deserialize a payload are permanent.
+	 *
+	 * @param failure the failure
+	 * @return true if the failure is transient
+	 */
+	public static boolean isTransient(SmartsheetException failure) {
+		if (!(failure instanceof SmartsheetRestException)) {
+			return !(failure instanceof JSONSerializerException);
+		}
+		return failure instanceof ServiceUnavailableException || failure instanceof AuthorizationException
+				|| ((SmartsheetRestException) failure).getErrorCode() == RowResourcesImpl.SHEET_BUSY_ERROR_CODE;
+	}
+
+	/**
+	 * Apply a mutation.
+	 *
+	 * @param mutation the mutation
+	 * @param rows the row resources applying cell updates and deletions
+	 * @param sheetRows the sheet row resources applying insertions
+	 * @throws SmartsheetException if the mutation can't be applied
+	 */
+	private void apply(Mutation mutation, RowResources rows, SheetRowResources sheetRows) throws SmartsheetException {
+		switch (mutation.type) {
+		case INSERT_ROWS:
+			RowWrapper rowWrapper;
+			try {
+				rowWrapper = serializer.deserialize(RowWrapper.class, new ByteArrayInputStream(mutation.payload));
+			} catch (IOException e) {
+				throw new JSONSerializerException(e);
+			}
+			sheetRows.insertRows(mutation.target, rowWrapper);
+			break;
+		case UPDATE_CELLS:
+			rows.updateCells(mutation.target, serializer.deserializeList(Cell.class,
+					new ByteArrayInputStream(mutation.payload)));
+			break;
+		default:
+			try {
+				rows.deleteRow(mutation.target);
+			} catch (ResourceNotFoundException e) {
+				// Ignore exception, the row was deleted before the crash.
+			}
+		}
+	}
+
+	/**
+	 * Force the segment being written to disk and release it. The journal can't be used afterwards.
+	 */
+	public synchronized void close() {
+		if (current != null) {
+			current.force();
+			current = null;
+		}
+	}
+
+	/**
+	 * Serialize and append a mutation.
+	 *
+	 * @param type the record type
+	 * @param target the sheet or row ID
+	 * @param object the object to serialize, null for none
+	 * @return the sequence number
+	 * @throws SmartsheetException if the mutation can't be serialized or written
+	 */
+	private long append(byte type, long target, Object object) throws SmartsheetException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ByteBuffer prefix = ByteBuffer.allocate(8).putLong(target);
+		bytes.write(prefix.array(), 0, 8);
+		if (object != null) {
+			serializer.serialize(object, bytes);
+		}
+		byte[] payload = bytes.toByteArray();
+
+		synchronized (this) {
+			long sequence = nextSequence++;
+			try {
+				write(type, sequence, payload);
+			} catch (IOException e) {
+				throw new SmartsheetException(e);
+			}
+			Mutation mutation = new Mutation(type, sequence, payload);
+			pending.put(sequence, mutation);
+			segments.put(currentNumber, sequence);
+			return sequence;
+		}
+	}
+
+	/**
+	 * Write a record to the segment being written and force it to disk, starting a new segment if it doesn't fit.
+	 * The length is written last so that a partial record reads as the end of the segment.
+	 *
+	 * @param type the record type
+	 * @param sequence the sequence number
+	 * @param payload the payload
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void write(byte type, long sequence, byte[] payload) throws IOException {
+		if (current == null) {
+			throw new IllegalStateException("The journal is closed.");
+		}
+		// Keep room for the end marker.
+		int size = HEADER_SIZE + payload.length;
+		if (current.remaining() < size + 4) {
+			startSegment(size + 4);
+		}
+
+		ByteBuffer body = ByteBuffer.allocate(1 + 8 + payload.length);
+		body.put(type).putLong(sequence).put(payload);
+		CRC32 crc = new CRC32();
+		crc.update(body.array());
+
+		int start = current.position();
+		current.position(start + 4);
+		current.putInt((int) crc.getValue());
+		current.put(body.array());
+		current.putInt(start, body.capacity());
+		current.force();
+	}
+
+	/**
+	 * Start a new segment.
+	 *
+	 * @param minSize the minimum size of the segment
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void startSegment(int minSize) throws IOException {
+		if (current != null) {
+			current.force();
+		}
+		currentNumber++;
+		RandomAccessFile raf = new RandomAccessFile(segmentFile(currentNumber), "rw");
+		try {
+			int size = Math.max(segmentSize, minSize);
+			raf.setLength(size);
+			// The mapping stays valid after the file is closed.
+			current = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} finally {
+			raf.close();
+		}
+		segments.put(currentNumber, 0L);
+	}
+
+	/**
+	 * Read the records of a segment.
+	 *
+	 * @param number the segment number
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void recover(int number) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(segmentFile(number), "r");
+		ByteBuffer buffer;
+		try {
+			buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+		} finally {
+			raf.close();
+		}
+
+		long highest = 0;
+		CRC32 crc = new CRC32();
+		while (buffer.remaining() >= HEADER_SIZE) {
+			int length = buffer.getInt();
+			if (length < 9 || length > buffer.remaining() - 4) {
+				break;
+			}
+			int checksum = buffer.getInt();
+			byte[] body = new byte[length];
+			buffer.get(body);
+			crc.reset();
+			crc.update(body);
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+
+			ByteBuffer record = ByteBuffer.wrap(body);
+			byte type = record.get();
+			long sequence = record.getLong();
+			nextSequence = Math.max(nextSequence, sequence + 1);
+			if (type == ACKNOWLEDGE) {
+				pending.remove(sequence);
+			} else {
+				byte[] payload = new byte[record.remaining()];
+				record.get(payload);
+				pending.put(sequence, new Mutation(type, sequence, payload));
+				highest = sequence;
+			}
+		}
+		segments.put(number, highest);
+	}
+
+	/**
+	 * Delete the oldest segments, other than the one being written, as long as all their mutations are acknowledged.
+	 */
+	private void deleteAcknowledgedSegments() {
+		long oldestPending = pending.isEmpty() ? Long.MAX_VALUE : pending.firstKey();
+		Iterator<Map.Entry<Integer, Long>> iterator = segments.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Integer, Long> segment = iterator.next();
+			if ((current != null && segment.getKey() == currentNumber) || segment.getValue() >= oldestPending) {
+				break;
+			}
+			segmentFile(segment.getKey()).delete();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Get the file of a segment.
+	 *
+	 * @param number the segment number
+	 * @return the file
+	 */
+	private File segmentFile(int number) {
+		return new File(directory, PREFIX + number + SUFFIX);
+	}
+
+	/**
+	 * A recorded mutation.
+	 */
+	private static class Mutation {
+		private final byte type;
+		private final long sequence;
+		private final long target;
+		private final byte[] payload;
+
+		Mutation(byte type, long sequence, byte[] payload) {
+			this.type = type;
+			this.sequence = sequence;
+			ByteBuffer buffer = ByteBuffer.wrap(payload);
+			this.target = buffer.getLong();
+			this.payload = Arrays.copyOfRange(payload, 8, payload.length);
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.concurrent.Callable;
+
+import com.smartsheet.api.ServiceUnavailableException;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.Util;
+
+/**
+ * This class is a request budget shared by the threads calling the Smartsheet REST API, so that bulk operations run
+ * in parallel without exceeding the rate limit of the API.
+ *
+ * It is a token bucket: permits are refilled continuously at requestsPerMinute, up to a burst of burstSize, and each
+ * request takes one. When the API reports that it is rate limited anyway, because other clients share the same
+ * limit, {@link #backOff(long)} suspends all requests for a while. {@link #call(Callable)} does both for a request,
+ * retrying it while the API is rate limited.
+ *
+ * Thread Safety: This class is thread safe because all access to its mutable state is synchronized.
+ */
+public class RequestRateLimiter {
+
+	/** The number of times a rate limited request is retried. */
+	public static final int MAX_RETRIES = 3;
+
+	/** The initial back off delay in milliseconds after a rate limited request, doubled for each retry. */
+	public static final long RETRY_DELAY = 1000;
+
+	/** The number of nanoseconds between two permits. */
+	private final long interval;
+
+	/** The maximum number of permits accumulated while idle. */
+	private final int burstSize;
+
+	/** The number of permits available at lastRefill. */
+	private double permits;
+
+	/** The time of the last refill, in nanoseconds. */
+	private long lastRefill;
+
+	/** The time until which requests are suspended, in nanoseconds. */
+	private long suspendedUntil;
+
+	/**
+	 * Constructor, starting with a full burst.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is not positive
+	 *
+	 * @param requestsPerMinute the sustained number of requests per minute
+	 * @param burstSize the maximum number of requests made at once after being idle
+	 */
+	public RequestRateLimiter(int requestsPerMinute, int burstSize) {
+		if (requestsPerMinute <= 0 || burstSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.interval = 60000000000L / requestsPerMinute;
+		this.burstSize = burstSize;
+		this.permits = burstSize;
+		this.lastRefill = System.nanoTime();
+		this.suspendedUntil = lastRefill;
+	}
+
+	/**
+	 * Take a permit for one request, waiting until one is available.
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public synchronized void acquire() throws InterruptedException {
+		while (true) {
+			long now = System.nanoTime();
+			permits = Math.min(burstSize, permits + (double) (now - lastRefill) / interval);
+			lastRefill = now;
+
+			long wait;
+			if (now - suspendedUntil < 0) {
+				wait = suspendedUntil - now;
+			} else if (permits >= 1) {
+				permits--;
+				return;
+			} else {
+				wait = (long) ((1 - permits) * interval);
+			}
+			// Wait in milliseconds, rounded up so that the permit is available on wake up.
+			wait(Math.max(1, (wait + 999999) / 1000000));
+		}
+	}
+
+	/**
+	 * Suspend all requests, after the API reported that it is rate limited. The permits are dropped as well, so
+	 * requests resume at the sustained rate.
+	 *
+	 * @param delay the delay in milliseconds
+	 */
+	public synchronized void backOff(long delay) {
+		long until = System.nanoTime() + delay * 1000000;
+		if (until - suspendedUntil > 0) {
+			suspendedUntil = until;
+		}
+		permits = 0;
+	}
+
+	/**
+	 * Make a request within the budget, taking a permit for each attempt. While the API reports that it is rate
+	 * limited, all requests back off for RETRY_DELAY milliseconds, doubled for each retry, and the request is retried
+	 * up to MAX_RETRIES times.
+	 *
+	 * Exceptions: - IllegalArgumentException : if request is null
+	 *
+	 * @param request the request, called once per attempt
+	 * @return the result of the request
+	 * @throws SmartsheetException the failure of the last attempt, other checked exceptions of the request are wrapped
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public <T> T call(Callable<T> request) throws SmartsheetException, InterruptedException {
+		Util.throwIfNull(request);
+		for (int attempt = 0; ; attempt++) {
+			acquire();
+			try {
+				return request.call();
+			} catch (ServiceUnavailableException e) {
+				if (attempt >= MAX_RETRIES) {
+					throw e;
+				}
+				backOff(RETRY_DELAY << attempt);
+			} catch (SmartsheetException e) {
+				throw e;
+			} catch (InterruptedException e) {
+				throw e;
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new SmartsheetException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowWrapper;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This class plans the row moves that turn the hierarchy of a sheet into a target outline, moving as few subtrees as
+ * possible.
+ *
+ * A move carries the children of the moved row along, so only rows whose parent changes, or whose position among
+ * unchanged siblings must change, are moved. The children of each parent are planned like a flat list with
+ * {@link RowReorderPlanner}: among the rows that already are children of that parent, the longest run already in
+ * target order stays in place, and every other child is moved. Rows whose parent changes are always moved, their own
+ * children staying with them when their parent is unchanged.
+ *
+ * The moves are grouped by parent, parents in outline order and children in target order. Each row is placed as the
+ * first child of its parent, at the top of the sheet, or after its preceding sibling, which is already in its final
+ * position by then. Processing parents before their children also guarantees that no row is ever moved into its own
+ * subtree. The Smartsheet REST API moves one row per request, so each move is one request, see
+ * {@link RowReorderPlanner#apply(com.smartsheet.api.RowResources, Map)}.
+ *
+ * Thread Safety: This class is stateless and thus thread safe.
+ */
+public class RowHierarchyPlanner {
+
+	/**
+	 * Make the constructor private since this is a utility class that should not be instantiated.
+	 */
+	private RowHierarchyPlanner() {
+	}
+
+	/**
+	 * Plan the moves turning the hierarchy of a sheet into a target outline.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null, if a row of the sheet has no ID or row number,
+	 * if the target order doesn't hold each row of the sheet exactly once, or if a row comes before its target parent
+	 *
+	 * @param current the sheet, whose rows hold their row number and parent row number
+	 * @param targetOrder the row IDs in target outline order, each parent before its children
+	 * @param targetParents the target parent ID of each row, rows without one are top level rows
+	 * @return the positions to move rows to, by row ID, in the order the moves must be applied
+	 */
+	public static Map<Long, RowWrapper> plan(Sheet current, List<Long> targetOrder, Map<Long, Long> targetParents) {
+		Util.throwIfNull(current, targetOrder, targetParents);
+		Util.throwIfNull(current.getRows());
+
+		// The current parent of each row and the current children of each parent, null being the top level.
+		Map<Integer, Long> idsByNumber = new HashMap<Integer, Long>();
+		for (Row row : current.getRows()) {
+			Util.throwIfNull(row.getId(), row.getRowNumber());
+			idsByNumber.put(row.getRowNumber(), row.getId());
+		}
+		Map<Long, Long> currentParents = new HashMap<Long, Long>();
+		Map<Long, List<Long>> currentChildren = new HashMap<Long, List<Long>>();
+		for (Row row : current.getRows()) {
+			Integer parentNumber = row.getParentRowNumber();
+			Long parentId = parentNumber == null || parentNumber == 0 ? null : idsByNumber.get(parentNumber);
+			currentParents.put(row.getId(), parentId);
+			children(currentChildren, parentId).add(row.getId());
+		}
+
+		// The target children of each parent, in target order.
+		Map<Long, List<Long>> targetChildren = new LinkedHashMap<Long, List<Long>>();
+		targetChildren.put(null, new ArrayList<Long>());
+		Set<Long> placed = new HashSet<Long>();
+		for (Long rowId : targetOrder) {
+			Long parentId = targetParents.get(rowId);
+			if (!currentParents.containsKey(rowId) || !placed.add(rowId)
+					|| (parentId != null && !placed.contains(parentId))) {
+				throw new IllegalArgumentException("Invalid target outline at row " + rowId);
+			}
+			children(targetChildren, parentId).add(rowId);
+			targetChildren.put(rowId, new ArrayList<Long>());
+		}
+		if (placed.size() != currentParents.size()) {
+			throw new IllegalArgumentException("The target outline misses rows of the sheet.");
+		}
+
+		Map<Long, RowWrapper> moves = new LinkedHashMap<Long, RowWrapper>();
+		for (Map.Entry<Long, List<Long>> entry : targetChildren.entrySet()) {
+			Long parentId = entry.getKey();
+			List<Long> children = entry.getValue();
+			if (children.isEmpty()) {
+				continue;
+			}
+
+			// Only the children already under this parent can stay in place.
+			Set<Long> targetSet = new HashSet<Long>(children);
+			Map<Long, Integer> targetPositions = new HashMap<Long, Integer>();
+			for (int i = 0; i < children.size(); i++) {
+				targetPositions.put(children.get(i), i);
+			}
+			List<Long> kept = new ArrayList<Long>();
+			List<Long> currentOrder = currentChildren.get(parentId);
+			if (currentOrder != null) {
+				for (Long rowId : currentOrder) {
+					if (targetSet.contains(rowId)) {
+						kept.add(rowId);
+					}
+				}
+			}
+			int[] positions = new int[kept.size()];
+			for (int i = 0; i < positions.length; i++) {
+				positions[i] = targetPositions.get(kept.get(i));
+			}
+			Set<Long> stay = new HashSet<Long>();
+			for (int i : RowReorderPlanner.longestIncreasingSubsequence(positions)) {
+				stay.add(kept.get(i));
+			}
+
+			Long sibling = null;
+			for (Long rowId : children) {
+				if (!stay.contains(rowId)) {
+					RowWrapper.MoveRowBuilder builder = new RowWrapper.MoveRowBuilder();
+					if (sibling != null) {
+						builder.setSiblingId(sibling);
+					} else if (parentId != null) {
+						builder.setParentId(parentId);
+					} else {
+						builder.setToTop(true);
+					}
+					moves.put(rowId, builder.build());
+				}
+				sibling = rowId;
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * Get the children of a parent, creating the list if needed.
+	 *
+	 * @param children the children by parent ID
+	 * @param parentId the parent ID, null for the top level
+	 * @return the children
+	 */
+	private static List<Long> children(Map<Long, List<Long>> children, Long parentId) {
+		List<Long> list = children.get(parentId);
+		if (list == null) {
+			list = new ArrayList<Long>();
+			children.put(parentId, list);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,177 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.smartsheet.api.RowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.RowWrapper;
+
+/**
+ * This class plans the row moves that put the rows of a sheet in a target order, moving as few rows as possible.
+ *
+ * The rows that already appear in the target order relative to each other form an increasing subsequence of their
+ * target positions taken in current order. The longest such subsequence stays in place and every other row is moved,
+ * which is the minimum number of single row moves. A near-sorted sheet thus needs about as many moves as it has
+ * displaced rows, whatever its size.
+ *
+ * Moved rows are processed in target order and each is placed with {@link RowWrapper.MoveRowBuilder} right after its
+ * target predecessor, or at the top for the first row. A contiguous run of moved rows is thus a chain in which each
+ * row follows the one moved before it. The Smartsheet REST API moves one row per request, so a run still costs one
+ * request per row.
+ *
+ * Rows are treated as a flat list: moving a parent row also moves its children, so the rows of a hierarchy should be
+ * planned with their parents only.
+ *
+ * Thread Safety: This class is stateless and thus thread safe.
+ */
+public class RowReorderPlanner {
+
+	/**
+	 * Make the constructor private since this is a utility class that should not be instantiated.
+	 */
+	private RowReorderPlanner() {
+	}
+
+	/**
+	 * Plan the moves putting rows in a target order. Rows missing from either list are ignored, and end up wherever
+	 * the moves of the other rows leave them.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null, or if a list holds a row ID twice
+	 *
+	 * @param currentOrder the row IDs in their current order
+	 * @param targetOrder the row IDs in the target order
+	 * @return the positions to move rows to, by row ID, in the order the moves must be applied
+	 */
+	public static Map<Long, RowWrapper> plan(List<Long> currentOrder, List<Long> targetOrder) {
+		Util.throwIfNull(currentOrder, targetOrder);
+
+		Map<Long, Integer> targetPositions = new HashMap<Long, Integer>();
+		for (int i = 0; i < targetOrder.size(); i++) {
+			if (targetPositions.put(targetOrder.get(i), i) != null) {
+				throw new IllegalArgumentException("Duplicate row ID " + targetOrder.get(i));
+			}
+		}
+		List<Long> rows = new ArrayList<Long>();
+		Set<Long> seen = new HashSet<Long>();
+		for (Long rowId : currentOrder) {
+			if (!seen.add(rowId)) {
+				throw new IllegalArgumentException("Duplicate row ID " + rowId);
+			}
+			if (targetPositions.containsKey(rowId)) {
+				rows.add(rowId);
+			}
+		}
+
+		int[] positions = new int[rows.size()];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = targetPositions.get(rows.get(i));
+		}
+		Set<Long> stay = new HashSet<Long>();
+		for (int i : longestIncreasingSubsequence(positions)) {
+			stay.add(rows.get(i));
+		}
+
+		Map<Long, RowWrapper> moves = new LinkedHashMap<Long, RowWrapper>();
+		Long predecessor = null;
+		for (Long rowId : targetOrder) {
+			if (!seen.contains(rowId)) {
+				continue;
+			}
+			if (!stay.contains(rowId)) {
+				RowWrapper.MoveRowBuilder builder = new RowWrapper.MoveRowBuilder();
+				if (predecessor == null) {
+					builder.setToTop(true);
+				} else {
+					builder.setSiblingId(predecessor);
+				}
+				moves.put(rowId, builder.build());
+			}
+			predecessor = rowId;
+		}
+		return moves;
+	}
+
+	/**
+	 * Apply planned moves, one request per row.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null
+	 *
+	 * @param rows the row resources
+	 * @param moves the moves, see {@link #plan(List, List)}
+	 * @return the number of requests made
+	 * @throws SmartsheetException the first failure, leaving the moves before it applied
+	 */
+	public static int apply(RowResources rows, Map<Long, RowWrapper> moves) throws SmartsheetException {
+		Util.throwIfNull(rows, moves);
+
+		int requests = 0;
+		for (Map.Entry<Long, RowWrapper> move : moves.entrySet()) {
+			rows.moveRow(move.getKey(), move.getValue());
+			requests++;
+		}
+		return requests;
+	}
+
+	/**
+	 * Find a longest strictly increasing subsequence in O(n log n).
+	 *
+	 * @param values the values
+	 * @return the indexes of the subsequence, in increasing order
+	 */
+	static int[] longestIncreasingSubsequence(int[] values) {
+		// tails[k] is the index of the smallest tail of an increasing subsequence of length k + 1.
+		int[] tails = new int[values.length];
+		int[] previous = new int[values.length];
+		int length = 0;
+		for (int i = 0; i < values.length; i++) {
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (values[tails[middle]] < values[i]) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			previous[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if (low == length) {
+				length++;
+			}
+		}
+
+		int[] indexes = new int[length];
+		for (int k = length - 1, i = length > 0 ? tails[length - 1] : -1; k >= 0; k--, i = previous[i]) {
+			indexes[k] = i;
+		}
+		return indexes;
+	}
+}
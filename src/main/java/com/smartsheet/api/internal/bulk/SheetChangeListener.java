@@ -0,0 +1,50 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This interface receives the changes detected by a {@link SheetChangeWatcher}.
+ *
+ * Thread Safety: Implementation of this interface must be thread safe, as it is called from the watcher's worker
+ * threads.
+ */
+public interface SheetChangeListener {
+
+	/**
+	 * Receive a change of a watched sheet.
+	 *
+	 * @param sheetId the sheet id
+	 * @param previousVersion the version seen at the previous poll
+	 * @param version the new version
+	 * @param sheet the new content of the sheet if the watcher fetches it, null otherwise
+	 */
+	public void changed(long sheetId, int previousVersion, int version, Sheet sheet);
+
+	/**
+	 * Receive the ID of a watched sheet that has been deleted or can no longer be accessed. The sheet is no longer
+	 * watched.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public void removed(long sheetId);
+}
@@ -0,0 +1,288 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.ServiceUnavailableException;
+import com.smartsheet.api.SheetResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.DaemonThreadFactory;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This class watches many sheets for changes by polling their versions, spending the request budget on the sheets
+ * that change rather than on idle ones.
+ *
+ * Each watched sheet has its own polling interval. A poll that finds a new version resets the interval to
+ * minInterval, and each poll that finds no change doubles it, up to maxInterval, so active sheets are polled often
+ * and idle sheets back off exponentially. Polls are made with {@link SheetResources#getSheetVersion(long)}, each
+ * taking a permit from a {@link RequestRateLimiter} that may be shared with other components, as does each fetch of
+ * a changed sheet, so the watcher stays within a global request budget however many sheets it watches.
+ *
+ * Changes are delivered to the registered {@link SheetChangeListener}s, along with the new content of the sheet when
+ * fetchIncludes is given. The first poll of a sheet only records its version, unless a known version is given when
+ * the sheet is watched. A sheet that no longer exists is reported as removed and unwatched; other failures count as
+ * polls without change, and rate limiting makes all polls back off. Exceptions thrown by listeners are ignored.
+ *
+ * The worker threads are daemon threads, call {@link #shutdown()} to stop them.
+ *
+ * Thread Safety: This class is thread safe because the watches and listeners are concurrent collections and each
+ * watch is polled by one thread at a time.
+ */
+public class SheetChangeWatcher {
+
+	/** The back off delay in milliseconds after a rate limited poll. */
+	public static final long RATE_LIMIT_DELAY = 1000;
+
+	/** The sheet resources. */
+	private final SheetResources sheets;
+
+	/** The request budget. */
+	private final RequestRateLimiter limiter;
+
+	/** The polling interval of active sheets in milliseconds. */
+	private final long minInterval;
+
+	/** The polling interval of idle sheets in milliseconds. */
+	private final long maxInterval;
+
+	/** The elements to include when fetching a changed sheet, null to not fetch it. */
+	private final EnumSet<ObjectInclusion> fetchIncludes;
+
+	/** The watches, by sheet ID. */
+	private final ConcurrentHashMap<Long, Watch> watches = new ConcurrentHashMap<Long, Watch>();
+
+	/** The listeners. */
+	private final List<SheetChangeListener> listeners = new CopyOnWriteArrayList<SheetChangeListener>();
+
+	/** The executor running the polls. */
+	private final ScheduledThreadPoolExecutor executor;
+
+	/**
+	 * Constructor, the worker threads are started as needed.
+	 *
+	 * Exceptions: - IllegalArgumentException : if sheets or limiter is null, if minInterval or workerThreads is not
+	 * positive, or if maxInterval is less than minInterval
+	 *
+	 * @param sheets the sheet resources
+	 * @param limiter the request budget
+	 * @param minInterval the polling interval of active sheets in milliseconds
+	 * @param maxInterval the polling interval of idle sheets in milliseconds
+	 * @param fetchIncludes the elements to include when fetching a changed sheet, null to not fetch changed sheets
+	 * @param workerThreads the number of polls made at once
+	 */
+	public SheetChangeWatcher(SheetResources sheets, RequestRateLimiter limiter, long minInterval, long maxInterval,
+			EnumSet<ObjectInclusion> fetchIncludes, int workerThreads) {
+		Util.throwIfNull(sheets, limiter);
+		if (minInterval <= 0 || maxInterval < minInterval || workerThreads <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.sheets = sheets;
+		this.limiter = limiter;
+		this.minInterval = minInterval;
+		this.maxInterval = maxInterval;
+		this.fetchIncludes = fetchIncludes;
+
+		this.executor = new ScheduledThreadPoolExecutor(workerThreads,
+				new DaemonThreadFactory("smartsheet-change-watcher"));
+	}
+
+	/**
+	 * Add a listener.
+	 *
+	 * Exceptions: - IllegalArgumentException : if listener is null
+	 *
+	 * @param listener the listener
+	 */
+	public void addListener(SheetChangeListener listener) {
+		Util.throwIfNull(listener);
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove a listener.
+	 *
+	 * @param listener the listener
+	 */
+	public void removeListener(SheetChangeListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Start watching a sheet, polling it at once. Does nothing if the sheet is already watched.
+	 *
+	 * @param sheetId the sheet id
+	 * @param knownVersion the version the caller already has, changes from which are reported by the first poll, or
+	 * null to only record the version at the first poll
+	 */
+	public void watch(long sheetId, Integer knownVersion) {
+		Watch watch = new Watch(sheetId, knownVersion);
+		synchronized (watch) {
+			if (watches.putIfAbsent(sheetId, watch) == null) {
+				watch.schedule(0);
+			}
+		}
+	}
+
+	/**
+	 * Stop watching a sheet.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public void unwatch(long sheetId) {
+		Watch watch = watches.remove(sheetId);
+		if (watch != null) {
+			watch.cancel();
+		}
+	}
+
+	/**
+	 * Get the current polling interval of a sheet.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the interval in milliseconds, or -1 if the sheet is not watched
+	 */
+	public long getInterval(long sheetId) {
+		Watch watch = watches.get(sheetId);
+		return watch == null ? -1 : watch.getInterval();
+	}
+
+	/**
+	 * Stop polling.
+	 */
+	public void shutdown() {
+		watches.clear();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Poll a sheet and schedule its next poll. The next poll is scheduled whatever happens, unless the sheet is no
+	 * longer watched, since the executor would otherwise silently drop the watch.
+	 *
+	 * @param watch the watch
+	 */
+	private void poll(Watch watch) {
+		long interval = Math.min(maxInterval, watch.getInterval() * 2);
+		try {
+			limiter.acquire();
+			if (watches.get(watch.sheetId) != watch) {
+				return;
+			}
+			int version = sheets.getSheetVersion(watch.sheetId);
+			Integer previous = watch.version;
+			if (previous != null && previous != version) {
+				Sheet sheet = null;
+				if (fetchIncludes != null) {
+					limiter.acquire();
+					sheet = sheets.getSheet(watch.sheetId, fetchIncludes);
+				}
+				// The version is only recorded once the sheet is fetched, so that a failed fetch is retried.
+				watch.version = version;
+				interval = minInterval;
+				// Listeners see the new interval.
+				watch.setInterval(interval);
+				for (SheetChangeListener listener : listeners) {
+					try {
+						listener.changed(watch.sheetId, previous, version, sheet);
+					} catch (RuntimeException e) {
+						// Ignore exception, a failing listener doesn't stop the other listeners or the polling.
+					}
+				}
+			} else {
+				watch.version = version;
+			}
+		} catch (ResourceNotFoundException e) {
+			if (watches.remove(watch.sheetId) == watch) {
+				for (SheetChangeListener listener : listeners) {
+					try {
+						listener.removed(watch.sheetId);
+					} catch (RuntimeException listenerFailure) {
+						// Ignore exception, a failing listener doesn't stop the other listeners.
+					}
+				}
+			}
+		} catch (ServiceUnavailableException e) {
+			limiter.backOff(RATE_LIMIT_DELAY);
+		} catch (SmartsheetException e) {
+			// Ignore exception, the failure counts as a poll without change.
+		} catch (RuntimeException e) {
+			// Ignore exception, the failure counts as a poll without change.
+		} catch (InterruptedException e) {
+			// The watcher is shut down, which the scheduling below checks.
+			Thread.currentThread().interrupt();
+		} finally {
+			synchronized (watch) {
+				if (watches.get(watch.sheetId) == watch && !executor.isShutdown()) {
+					watch.interval = interval;
+					watch.schedule(interval);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The polling state of a sheet.
+	 */
+	private class Watch implements Runnable {
+		private final long sheetId;
+		private volatile Integer version;
+		private long interval;
+		private ScheduledFuture<?> future;
+
+		Watch(long sheetId, Integer version) {
+			this.sheetId = sheetId;
+			this.version = version;
+			this.interval = minInterval;
+		}
+
+		synchronized long getInterval() {
+			return interval;
+		}
+
+		synchronized void setInterval(long interval) {
+			this.interval = interval;
+		}
+
+		synchronized void schedule(long delay) {
+			future = executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+		}
+
+		synchronized void cancel() {
+			if (future != null) {
+				future.cancel(false);
+			}
+		}
+
+		public void run() {
+			poll(this);
+		}
+	}
+}
@@ -0,0 +1,295 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.smartsheet.api.RowResources;
+import com.smartsheet.api.SheetRowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowWrapper;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This class is the difference between the rows of a sheet and a desired dataset, as the operations that turn the
+ * former into the latter, so that syncing an external system costs requests in proportion to what changed rather
+ * than to the size of the sheet.
+ *
+ * Rows are matched by the value of a key column. A desired row matching no current row is inserted; a matched row is
+ * updated with only the cells whose value differs; a current row matching no desired row is deleted if requested,
+ * otherwise left where it is. Matched rows are moved so that they appear in the desired order relative to each other,
+ * moving as few rows as possible, see {@link RowReorderPlanner}. Inserted rows are appended at the bottom in the
+ * desired order. Rows are treated as a flat list, the hierarchy is not compared.
+ *
+ * Key values are compared by their string form, with whole numbers written without a fraction so that 1 and 1.0
+ * match. Cell values are compared the same way, except that null and an empty string are the same value.
+ *
+ * Thread Safety: This class is immutable and thus thread safe.
+ */
+public class SheetDiff {
+
+	/** The rows to insert, in the desired order. */
+	private final List<Row> inserts;
+
+	/** The changed cells to update, by row ID. */
+	private final Map<Long, List<Cell>> updates;
+
+	/** The IDs of the rows to delete. */
+	private final List<Long> deletes;
+
+	/** The positions to move rows to, by row ID, in the order the moves must be applied. */
+	private final Map<Long, RowWrapper> moves;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param inserts the rows to insert
+	 * @param updates the cells to update
+	 * @param deletes the rows to delete
+	 * @param moves the moves
+	 */
+	private SheetDiff(List<Row> inserts, Map<Long, List<Cell>> updates, List<Long> deletes,
+			Map<Long, RowWrapper> moves) {
+		this.inserts = Collections.unmodifiableList(inserts);
+		this.updates = Collections.unmodifiableMap(updates);
+		this.deletes = Collections.unmodifiableList(deletes);
+		this.moves = Collections.unmodifiableMap(moves);
+	}
+
+	/**
+	 * Compute the difference between the rows of a sheet and the desired rows.
+	 *
+	 * Exceptions: - IllegalArgumentException : if current, its rows or desired is null, if a current row has no ID,
+	 * or if a desired row has no value in the key column or the same key as another desired row
+	 *
+	 * @param current the sheet, including its rows and their cells
+	 * @param keyColumnId the ID of the column identifying rows
+	 * @param desired the desired rows in the desired order, whose cells hold column IDs and values
+	 * @param deleteMissing whether to delete the current rows that match no desired row
+	 * @return the difference
+	 */
+	public static SheetDiff compute(Sheet current, long keyColumnId, List<Row> desired, boolean deleteMissing) {
+		Util.throwIfNull(current, desired);
+		Util.throwIfNull(current.getRows());
+
+		Map<String, Row> currentByKey = new HashMap<String, Row>();
+		List<Long> deletes = new ArrayList<Long>();
+		for (Row row : current.getRows()) {
+			Util.throwIfNull(row.getId());
+			String key = keyOf(cellValue(row, keyColumnId));
+			if (key == null || currentByKey.containsKey(key)) {
+				if (deleteMissing) {
+					deletes.add(row.getId());
+				}
+			} else {
+				currentByKey.put(key, row);
+			}
+		}
+
+		List<Row> inserts = new ArrayList<Row>();
+		Map<Long, List<Cell>> updates = new LinkedHashMap<Long, List<Cell>>();
+		List<Long> matched = new ArrayList<Long>();
+		Set<String> seen = new HashSet<String>();
+		for (Row row : desired) {
+			Util.throwIfNull(row);
+			String key = keyOf(cellValue(row, keyColumnId));
+			if (key == null || !seen.add(key)) {
+				throw new IllegalArgumentException("Desired rows need unique values in the key column.");
+			}
+
+			Row currentRow = currentByKey.remove(key);
+			if (currentRow == null) {
+				inserts.add(row);
+				continue;
+			}
+			matched.add(currentRow.getId());
+			List<Cell> changed = new ArrayList<Cell>();
+			if (row.getCells() != null) {
+				for (Cell cell : row.getCells()) {
+					if (cell.getColumnId() != null && !sameValue(cell.getValue(),
+							cellValue(currentRow, cell.getColumnId()))) {
+						changed.add(cell);
+					}
+				}
+			}
+			if (!changed.isEmpty()) {
+				updates.put(currentRow.getId(), changed);
+			}
+		}
+		if (deleteMissing) {
+			for (Row row : currentByKey.values()) {
+				deletes.add(row.getId());
+			}
+		}
+
+		List<Long> order = new ArrayList<Long>();
+		Set<Long> matchedIds = new HashSet<Long>(matched);
+		for (Row row : current.getRows()) {
+			if (matchedIds.contains(row.getId())) {
+				order.add(row.getId());
+			}
+		}
+		return new SheetDiff(inserts, updates, deletes, RowReorderPlanner.plan(order, matched));
+	}
+
+	/**
+	 * Get the rows to insert, in the desired order.
+	 *
+	 * @return the unmodifiable list of rows
+	 */
+	public List<Row> getInserts() {
+		return inserts;
+	}
+
+	/**
+	 * Get the changed cells to update, by row ID.
+	 *
+	 * @return the unmodifiable map of cells
+	 */
+	public Map<Long, List<Cell>> getUpdates() {
+		return updates;
+	}
+
+	/**
+	 * Get the IDs of the rows to delete.
+	 *
+	 * @return the unmodifiable list of row IDs
+	 */
+	public List<Long> getDeletes() {
+		return deletes;
+	}
+
+	/**
+	 * Get the positions to move rows to, by row ID, in the order the moves must be applied.
+	 *
+	 * @return the unmodifiable map of positions
+	 */
+	public Map<Long, RowWrapper> getMoves() {
+		return moves;
+	}
+
+	/**
+	 * Check whether the sheet already matches the desired rows.
+	 *
+	 * @return true if there is nothing to do
+	 */
+	public boolean isEmpty() {
+		return inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty() && moves.isEmpty();
+	}
+
+	/**
+	 * Apply the difference: deletions first, then cell updates, moves and finally insertions at the bottom of the
+	 * sheet in batches. Each deletion, update and move is one request, as is each batch of insertions.
+	 *
+	 * The operations are not atomic, a failure leaves the operations before it applied.
+	 *
+	 * Exceptions: - IllegalArgumentException : if rows or sheetRows is null, or if insertBatchSize is not positive
+	 *
+	 * @param sheetId the sheet id
+	 * @param rows the row resources
+	 * @param sheetRows the sheet row resources
+	 * @param insertBatchSize the maximum number of rows inserted per request
+	 * @return the number of requests made
+	 * @throws SmartsheetException the first failure
+	 */
+	public int apply(long sheetId, RowResources rows, SheetRowResources sheetRows, int insertBatchSize)
+			throws SmartsheetException {
+		Util.throwIfNull(rows, sheetRows);
+		if (insertBatchSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+
+		int requests = 0;
+		for (Long rowId : deletes) {
+			rows.deleteRow(rowId);
+			requests++;
+		}
+		for (Map.Entry<Long, List<Cell>> update : updates.entrySet()) {
+			rows.updateCells(update.getKey(), update.getValue());
+			requests++;
+		}
+		requests += RowReorderPlanner.apply(rows, moves);
+		for (int start = 0; start < inserts.size(); start += insertBatchSize) {
+			List<Row> batch = new ArrayList<Row>(inserts.subList(start, Math.min(start + insertBatchSize,
+					inserts.size())));
+			sheetRows.insertRows(sheetId, new RowWrapper.InsertRowsBuilder().setToBottom(true).setRows(batch).build());
+			requests++;
+		}
+		return requests;
+	}
+
+	/**
+	 * Get the value of the cell of a row in a column.
+	 *
+	 * @param row the row
+	 * @param columnId the column id
+	 * @return the value, or null if the row has no such cell
+	 */
+	private static Object cellValue(Row row, long columnId) {
+		if (row.getCells() != null) {
+			for (Cell cell : row.getCells()) {
+				if (cell.getColumnId() != null && cell.getColumnId() == columnId) {
+					return cell.getValue();
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the string form of a value used for comparisons.
+	 *
+	 * @param value the value
+	 * @return the string form, or null for null or an empty string
+	 */
+	private static String keyOf(Object value) {
+		if (value instanceof Number) {
+			double number = ((Number) value).doubleValue();
+			if (number == Math.rint(number) && !Double.isInfinite(number)) {
+				return Long.toString((long) number);
+			}
+		}
+		String key = value == null ? null : value.toString();
+		return key == null || key.length() == 0 ? null : key;
+	}
+
+	/**
+	 * Compare two cell values.
+	 *
+	 * @param desired the desired value
+	 * @param current the current value
+	 * @return true if the values are the same
+	 */
+	private static boolean sameValue(Object desired, Object current) {
+		String desiredKey = keyOf(desired);
+		return desiredKey == null ? keyOf(current) == null : desiredKey.equals(keyOf(current));
+	}
+}
@@ -0,0 +1,441 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.smartsheet.api.ProgressListener;
+import com.smartsheet.api.SheetHandler;
+import com.smartsheet.api.SheetResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.cache.ColumnarSheetWriter;
+import com.smartsheet.api.internal.util.DaemonThreadFactory;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Column;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This class exports sheets to local files concurrently, one file per sheet, such as all the sheets of an
+ * organization for archiving.
+ *
+ * Each sheet is streamed with {@link SheetResources#streamSheet(long, java.util.EnumSet, SheetHandler)} and its rows
+ * are written as they are parsed, either as CSV or in the columnar format of {@link ColumnarSheetWriter}, which
+ * {@link com.smartsheet.api.internal.cache.ColumnarSheetReader} reads back. CSV is encoded to UTF-8 into a fixed size
+ * buffer that is written to the file channel whenever it's full. A columnar file holds one row group in memory at a
+ * time. The memory used by an export is thus bounded by the number of sheets exported at once, whatever the size of
+ * the sheets.
+ *
+ * A file is written under a temporary name and renamed once complete, so a file that exists is always a complete
+ * export. Each request first takes a permit from a {@link RequestRateLimiter}, and when the API reports that it is
+ * rate limited all requests back off before the sheet is exported again from the start. Other failures don't stop the
+ * other sheets, they are reported by sheet ID once all sheets are done, including exports interrupted while waiting
+ * for the request budget.
+ *
+ * Thread Safety: This class is thread safe, several exports may run at once as long as they write different sheets.
+ */
+public class SheetExporter {
+
+	/**
+	 * The file formats.
+	 */
+	public enum Format {
+		/** Comma separated values with a header line holding the column titles, see RFC 4180. */
+		CSV(".csv"),
+		/** The columnar format of {@link ColumnarSheetWriter}. */
+		COLUMNAR(".columnar");
+
+		/** The file name suffix. */
+		private final String suffix;
+
+		Format(String suffix) {
+			this.suffix = suffix;
+		}
+	}
+
+	/** The size of the buffer of each CSV file. */
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	/** The number of rows per row group of a columnar file. */
+	public static final int ROW_GROUP_SIZE = 256;
+
+	/** The suffix of the files being written. */
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	/** The line separator of CSV files. */
+	private static final String LINE_SEPARATOR = "\r\n";
+
+	/** The sheet resources. */
+	private final SheetResources sheets;
+
+	/** The directory of the exported files. */
+	private final File directory;
+
+	/** The file format. */
+	private final Format format;
+
+	/** The maximum number of sheets exported at once. */
+	private final int parallelism;
+
+	/** The request budget. */
+	private final RequestRateLimiter limiter;
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null, if directory isn't a directory, or if
+	 * parallelism is not positive
+	 *
+	 * @param sheets the sheet resources
+	 * @param directory the existing directory of the exported files
+	 * @param format the file format
+	 * @param parallelism the maximum number of sheets exported at once
+	 * @param limiter the request budget
+	 */
+	public SheetExporter(SheetResources sheets, File directory, Format format, int parallelism,
+			RequestRateLimiter limiter) {
+		Util.throwIfNull(sheets, directory, format, limiter);
+		if (!directory.isDirectory() || parallelism <= 0) {
+			throw new IllegalArgumentException();
+		}
+
+		this.sheets = sheets;
+		this.directory = directory;
+		this.format = format;
+		this.parallelism = parallelism;
+		this.limiter = limiter;
+	}
+
+	/**
+	 * Export all the sheets of the organization and wait until all exports are done.
+	 *
+	 * @param listener the listener receiving the number of sheets processed, null for none
+	 * @return the failures by sheet ID, empty if all sheets were exported
+	 * @throws SmartsheetException if the sheets of the organization can't be listed
+	 * @throws InterruptedException if interrupted while waiting, the exports in progress are abandoned
+	 */
+	public Map<Long, SmartsheetException> exportOrganization(ProgressListener listener) throws SmartsheetException,
+			InterruptedException {
+		limiter.acquire();
+		List<Long> sheetIds = new ArrayList<Long>();
+		for (Sheet sheet : sheets.listOrganizationSheets()) {
+			sheetIds.add(sheet.getId());
+		}
+		return export(sheetIds, listener);
+	}
+
+	/**
+	 * Export sheets and wait until all exports are done.
+	 *
+	 * Exceptions: - IllegalArgumentException : if sheetIds or any of its IDs is null
+	 *
+	 * @param sheetIds the IDs of the sheets
+	 * @param listener the listener receiving the number of sheets processed, null for none
+	 * @return the failures by sheet ID, empty if all sheets were exported
+	 * @throws InterruptedException if interrupted while waiting, the exports in progress are abandoned
+	 */
+	public Map<Long, SmartsheetException> export(List<Long> sheetIds, final ProgressListener listener)
+			throws InterruptedException {
+		Util.throwIfNull(sheetIds);
+		for (Long sheetId : sheetIds) {
+			Util.throwIfNull(sheetId);
+		}
+
+		final long total = sheetIds.size();
+		final AtomicLong completed = new AtomicLong();
+		final Map<Long, SmartsheetException> failures = new ConcurrentHashMap<Long, SmartsheetException>();
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("smartsheet-sheet-exporter"));
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (final Long sheetId : sheetIds) {
+				futures.add(pool.submit(new Callable<Void>() {
+					public Void call() {
+						try {
+							exportSheet(sheetId);
+						} catch (SmartsheetException e) {
+							failures.put(sheetId, e);
+						} catch (InterruptedException e) {
+							failures.put(sheetId, new SmartsheetException(e));
+							Thread.currentThread().interrupt();
+						} finally {
+							if (listener != null) {
+								listener.progress(completed.incrementAndGet(), total);
+							}
+						}
+						return null;
+					}
+				}));
+			}
+
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					// The exports don't throw checked exceptions.
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					}
+					throw (Error) e.getCause();
+				}
+			}
+		} finally {
+			// Interrupt the exports in progress if the wait was interrupted, the pool is idle otherwise.
+			pool.shutdownNow();
+		}
+		return failures;
+	}
+
+	/**
+	 * Get the file a sheet is exported to.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the file
+	 */
+	public File getFile(long sheetId) {
+		return new File(directory, "sheet-" + sheetId + format.suffix);
+	}
+
+	/**
+	 * Export a sheet within the request budget, retrying while the API is rate limited.
+	 *
+	 * @param sheetId the sheet id
+	 * @throws SmartsheetException the failure
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private void exportSheet(final long sheetId) throws SmartsheetException, InterruptedException {
+		File file = getFile(sheetId);
+		final File temp = new File(file.getPath() + TEMP_SUFFIX);
+		boolean written = false;
+		try {
+			limiter.call(new Callable<Void>() {
+				public Void call() throws SmartsheetException {
+					write(sheetId, temp);
+					return null;
+				}
+			});
+			written = true;
+		} finally {
+			if (!written) {
+				temp.delete();
+			}
+		}
+
+		// Renaming over an existing file fails on some platforms.
+		if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+			temp.delete();
+			throw new SmartsheetException("Unable to write export " + file);
+		}
+	}
+
+	/**
+	 * Stream a sheet into a file, replacing its content.
+	 *
+	 * @param sheetId the sheet id
+	 * @param file the file
+	 * @throws SmartsheetException the failure
+	 */
+	private void write(long sheetId, File file) throws SmartsheetException {
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "rw");
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			sheets.streamSheet(sheetId, null, format == Format.CSV ? new CsvHandler(channel)
+					: new ColumnarHandler(sheetId, channel));
+			channel.force(false);
+			raf.close();
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		} finally {
+			if (raf != null) {
+				try {
+					raf.close();
+				} catch (IOException e) {
+					// Ignore exception, a file that can't be written has already failed.
+				}
+			}
+		}
+	}
+
+	/**
+	 * The handler writing a sheet as CSV through a fixed size buffer.
+	 */
+	private static class CsvHandler implements SheetHandler {
+		private final FileChannel channel;
+		private final CharsetEncoder encoder = Charset.forName("UTF-8").newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private final StringBuilder line = new StringBuilder();
+		private final Map<Long, Integer> columnIndexes = new HashMap<Long, Integer>();
+		private Object[] values = new Object[0];
+
+		CsvHandler(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		public void start(Sheet sheet) throws SmartsheetException {
+			List<Column> columns = sheet.getColumns() == null ? new ArrayList<Column>() : sheet.getColumns();
+			values = new Object[columns.size()];
+			for (int i = 0; i < columns.size(); i++) {
+				values[i] = columns.get(i).getTitle();
+				if (columns.get(i).getId() != null) {
+					columnIndexes.put(columns.get(i).getId(), i);
+				}
+			}
+			writeLine();
+		}
+
+		public void row(Row row) throws SmartsheetException {
+			for (int i = 0; i < values.length; i++) {
+				values[i] = null;
+			}
+			if (row.getCells() != null) {
+				for (Cell cell : row.getCells()) {
+					Integer index = cell.getColumnId() == null ? null : columnIndexes.get(cell.getColumnId());
+					if (index != null) {
+						values[index] = cell.getValue();
+					}
+				}
+			}
+			writeLine();
+		}
+
+		public void end(Sheet sheet) throws SmartsheetException {
+			try {
+				encoder.encode(CharBuffer.allocate(0), buffer, true);
+				encoder.flush(buffer);
+				flush();
+			} catch (IOException e) {
+				throw new SmartsheetException(e);
+			}
+		}
+
+		/**
+		 * Encode the current values as a line, quoting the values that hold a separator or a quote.
+		 *
+		 * @throws SmartsheetException the smartsheet exception
+		 */
+		private void writeLine() throws SmartsheetException {
+			line.setLength(0);
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					line.append(',');
+				}
+				String value = values[i] == null ? "" : values[i].toString();
+				if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\r') >= 0
+						|| value.indexOf('\n') >= 0) {
+					line.append('"').append(value.replace("\"", "\"\"")).append('"');
+				} else {
+					line.append(value);
+				}
+			}
+			line.append(LINE_SEPARATOR);
+
+			try {
+				CharBuffer chars = CharBuffer.wrap(line);
+				while (encoder.encode(chars, buffer, false) == CoderResult.OVERFLOW) {
+					flush();
+				}
+			} catch (IOException e) {
+				throw new SmartsheetException(e);
+			}
+		}
+
+		/**
+		 * Write the buffer to the channel.
+		 *
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * The handler writing a sheet in the columnar format.
+	 */
+	private static class ColumnarHandler implements SheetHandler {
+		private final long sheetId;
+		private final FileChannel channel;
+		private ColumnarSheetWriter writer;
+
+		ColumnarHandler(long sheetId, FileChannel channel) {
+			this.sheetId = sheetId;
+			this.channel = channel;
+		}
+
+		public void start(Sheet sheet) throws SmartsheetException {
+			if (sheet.getId() == null) {
+				sheet.setId(sheetId);
+			}
+			try {
+				writer = new ColumnarSheetWriter(channel, sheet, ROW_GROUP_SIZE);
+			} catch (IOException e) {
+				throw new SmartsheetException(e);
+			}
+		}
+
+		public void row(Row row) throws SmartsheetException {
+			try {
+				writer.addRow(row);
+			} catch (IOException e) {
+				throw new SmartsheetException(e);
+			}
+		}
+
+		public void end(Sheet sheet) throws SmartsheetException {
+			// The version usually follows the rows in the response.
+			writer.setVersion(sheet.getVersion());
+			try {
+				writer.finish();
+			} catch (IOException e) {
+				throw new SmartsheetException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.smartsheet.api.internal.util.DaemonThreadFactory;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Row;
+
+/**
+ * This class runs writes partitioned by sheet: writes to the same sheet run one at a time in submission order, while
+ * writes to different sheets run in parallel on a shared pool of worker threads.
+ *
+ * Each sheet with pending writes has a FIFO lane. A lane is scheduled on the pool whenever it has writes and isn't
+ * already running; it runs one write and is then scheduled again behind the other lanes, so that a busy sheet can't
+ * starve the others. Row writes are assigned to the lane of the row's sheet.
+ *
+ * Lanes are bounded: once a lane holds maxLaneDepth pending writes, submitting another write to it blocks until the
+ * next one starts, which pushes back on producers that outpace the Smartsheet REST API.
+ *
+ * The worker threads are daemon threads, call {@link #shutdown()} to stop them once the submitted writes are done.
+ *
+ * Thread Safety: This class is thread safe because all access to the lanes is synchronized.
+ */
+public class SheetWriteExecutor {
+
+	/** The worker pool. */
+	private final ThreadPoolExecutor pool;
+
+	/** The maximum number of pending writes per lane. */
+	private final int maxLaneDepth;
+
+	/** The lanes with pending or running writes, by sheet ID. */
+	private final Map<Long, Lane> lanes = new HashMap<Long, Lane>();
+
+	/** Whether further writes are rejected. */
+	private boolean closed;
+
+	/**
+	 * Constructor, the worker threads are started as needed.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is not positive
+	 *
+	 * @param workerThreads the number of worker threads, which is the maximum number of sheets written concurrently
+	 * @param maxLaneDepth the maximum number of pending writes per sheet
+	 */
+	public SheetWriteExecutor(int workerThreads, int maxLaneDepth) {
+		if (workerThreads <= 0 || maxLaneDepth <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.maxLaneDepth = maxLaneDepth;
+		this.pool = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("smartsheet-sheet-writer"));
+	}
+
+	/**
+	 * Submit a write to a sheet, blocking while the lane of the sheet is full.
+	 *
+	 * Exceptions: - IllegalArgumentException : if write is null
+	 * - IllegalStateException : if the executor is shut down
+	 *
+	 * @param <T> the result type
+	 * @param sheetId the sheet id
+	 * @param write the write
+	 * @return the future of the write
+	 * @throws InterruptedException if interrupted while waiting for space in the lane
+	 */
+	public <T> Future<T> submit(long sheetId, Callable<T> write) throws InterruptedException {
+		Util.throwIfNull(write);
+
+		FutureTask<T> task = new FutureTask<T>(write);
+		synchronized (this) {
+			Lane lane = lanes.get(sheetId);
+			while (lane != null && lane.pending.size() >= maxLaneDepth && !closed) {
+				wait();
+				lane = lanes.get(sheetId);
+			}
+			if (closed) {
+				throw new IllegalStateException("The executor is shut down.");
+			}
+
+			if (lane == null) {
+				lane = new Lane(sheetId);
+				lanes.put(sheetId, lane);
+			}
+			lane.pending.add(task);
+			if (!lane.scheduled) {
+				lane.scheduled = true;
+				pool.execute(lane);
+			}
+		}
+		return task;
+	}
+
+	/**
+	 * Submit a write to a row, in the lane of the row's sheet, blocking while the lane is full.
+	 *
+	 * Exceptions: - IllegalArgumentException : if row, its sheet ID or write is null
+	 * - IllegalStateException : if the executor is shut down
+	 *
+	 * @param <T> the result type
+	 * @param row the row, whose sheet ID must be set
+	 * @param write the write
+	 * @return the future of the write
+	 * @throws InterruptedException if interrupted while waiting for space in the lane
+	 */
+	public <T> Future<T> submit(Row row, Callable<T> write) throws InterruptedException {
+		Util.throwIfNull(row);
+		Util.throwIfNull(row.getSheetId());
+
+		return submit(row.getSheetId(), write);
+	}
+
+	/**
+	 * Get the number of pending writes of a sheet, not counting a running write.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the number of pending writes
+	 */
+	public synchronized int getLaneDepth(long sheetId) {
+		Lane lane = lanes.get(sheetId);
+		return lane == null ? 0 : lane.pending.size();
+	}
+
+	/**
+	 * Reject further writes and stop the worker threads once the submitted writes are done.
+	 */
+	public synchronized void shutdown() {
+		closed = true;
+		if (lanes.isEmpty()) {
+			pool.shutdown();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Wait until the submitted writes are done, after {@link #shutdown()}.
+	 *
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return true if the writes are done, false if the timeout elapsed
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean awaitTermination(long timeout) throws InterruptedException {
+		return pool.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Run the next write of a lane, then schedule the lane again if it has more writes.
+	 *
+	 * @param lane the lane
+	 */
+	private void runNext(Lane lane) {
+		FutureTask<?> task;
+		synchronized (this) {
+			task = lane.pending.poll();
+			// Space has been freed in the lane.
+			notifyAll();
+		}
+
+		// The task captures its own failure.
+		task.run();
+
+		synchronized (this) {
+			if (lane.pending.isEmpty()) {
+				lane.scheduled = false;
+				lanes.remove(lane.sheetId);
+				// The pool is only shut down once idle, as lanes reschedule themselves.
+				if (closed && lanes.isEmpty()) {
+					pool.shutdown();
+				}
+			} else {
+				pool.execute(lane);
+			}
+		}
+	}
+
+	/**
+	 * The FIFO lane of a sheet.
+	 */
+	private class Lane implements Runnable {
+		private final long sheetId;
+		private final LinkedList<FutureTask<?>> pending = new LinkedList<FutureTask<?>>();
+		private boolean scheduled;
+
+		Lane(long sheetId) {
+			this.sheetId = sheetId;
+		}
+
+		public void run() {
+			runNext(this);
+		}
+	}
+}
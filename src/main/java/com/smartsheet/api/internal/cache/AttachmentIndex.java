@@ -0,0 +1,596 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.http.FileUploadStream;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Attachment;
+import com.smartsheet.api.models.AttachmentParentType;
+import com.smartsheet.api.models.AttachmentType;
+
+/**
+ * This class is a persistent index of uploaded attachments by the SHA-256 digest of their content, so that content
+ * already attached somewhere is not uploaded again.
+ *
+ * For each digest the index holds the attachments created with that content and the objects they are attached to,
+ * and optionally a durable URL serving the same content, which can be attached as a link instead of uploading a copy.
+ * It also holds, for each attachment a new version was uploaded to, the digest and attachment of its latest version.
+ *
+ * The index file is a log: each change appends one record, so recording an upload costs the same however large the
+ * index is. The log is replayed on construction and compacted into a snapshot of the live records, through a
+ * temporary file that is renamed once complete, when it has grown to more than twice their number. Enumerations are
+ * stored by name. A file that can't be read is ignored and a truncated last record is dropped, which only costs
+ * uploads that could have been avoided.
+ *
+ * Thread Safety: This class is thread safe because all access to its mutable state is synchronized.
+ */
+public class AttachmentIndex {
+
+	/** The format identifier of the index file. */
+	private static final int MAGIC = 0x53534932;
+
+	/** The record of an attachment holding some content. */
+	private static final byte PUT = 1;
+
+	/** The record of the latest version of an attachment. */
+	private static final byte PUT_VERSION = 2;
+
+	/** The record of an attachment that no longer exists. */
+	private static final byte REMOVE = 3;
+
+	/** The record of a durable URL. */
+	private static final byte PUT_URL = 4;
+
+	/** The number of records the log may hold beyond twice the live records before it's compacted. */
+	private static final int COMPACTION_SLACK = 1000;
+
+	/** The index file. */
+	private final File indexFile;
+
+	/** The attachments by digest. */
+	private final Map<String, List<Entry>> attachments = new HashMap<String, List<Entry>>();
+
+	/** The attachments by attachment ID. */
+	private final Map<Long, Entry> attachmentsById = new HashMap<Long, Entry>();
+
+	/** The latest version by the ID of the attachment it was uploaded to. */
+	private final Map<Long, Entry> versions = new HashMap<Long, Entry>();
+
+	/** The durable URLs by digest. */
+	private final Map<String, String> urls = new HashMap<String, String>();
+
+	/** The number of records in the index file. */
+	private int logRecords;
+
+	/**
+	 * Constructor, loading the index file if any.
+	 *
+	 * Exceptions: - IllegalArgumentException : if indexFile is null
+	 *
+	 * @param indexFile the index file
+	 */
+	public AttachmentIndex(File indexFile) {
+		Util.throwIfNull(indexFile);
+
+		this.indexFile = indexFile;
+		load();
+	}
+
+	/**
+	 * Compute the digest of a file, in the form reported by {@link com.smartsheet.api.UploadListener}.
+	 *
+	 * Exceptions: - IllegalArgumentException : if file is null
+	 *
+	 * @param file the file
+	 * @return the SHA-256 digest as lower case hexadecimal
+	 * @throws FileNotFoundException if the file can't be opened
+	 * @throws SmartsheetException if the file can't be read
+	 */
+	public static String digest(File file) throws FileNotFoundException, SmartsheetException {
+		FileUploadStream stream = new FileUploadStream(file, null);
+		try {
+			byte[] buffer = new byte[64 * 1024];
+			while (stream.read(buffer, 0, buffer.length) != -1) {
+				// Only the digest is needed.
+			}
+			return stream.getDigest();
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				// Ignore exception, the file has only been read.
+			}
+		}
+	}
+
+	/**
+	 * Find an attachment holding some content on an object.
+	 *
+	 * Exceptions: - IllegalArgumentException : if digest or parentType is null
+	 *
+	 * @param digest the digest of the content
+	 * @param parentType the type of the object
+	 * @param parentId the ID of the object
+	 * @return the attachment, limited to its ID, name, type and parent, or null if there is none
+	 */
+	public synchronized Attachment find(String digest, AttachmentParentType parentType, long parentId) {
+		Util.throwIfNull(digest, parentType);
+
+		List<Entry> entries = attachments.get(digest);
+		if (entries != null) {
+			for (Entry entry : entries) {
+				if (entry.parentType == parentType && entry.parentId == parentId) {
+					return entry.toAttachment();
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find the latest version of an attachment if it holds some content.
+	 *
+	 * Exceptions: - IllegalArgumentException : if digest is null
+	 *
+	 * @param attachmentId the ID of the attachment new versions are uploaded to
+	 * @param digest the digest of the content
+	 * @return the latest version, limited to its ID, name, type and parent, or null if it holds other content or is
+	 * unknown
+	 */
+	public synchronized Attachment findVersion(long attachmentId, String digest) {
+		Util.throwIfNull(digest);
+
+		Entry entry = versions.get(attachmentId);
+		return entry != null && entry.digest.equals(digest) ? entry.toAttachment() : null;
+	}
+
+	/**
+	 * Get the durable URL serving some content.
+	 *
+	 * Exceptions: - IllegalArgumentException : if digest is null
+	 *
+	 * @param digest the digest of the content
+	 * @return the URL, or null if there is none
+	 */
+	public synchronized String getUrl(String digest) {
+		Util.throwIfNull(digest);
+
+		return urls.get(digest);
+	}
+
+	/**
+	 * Register a durable URL serving some content, such as a document management system link, so that the content is
+	 * attached as a link rather than uploaded again. The URLs of file attachments expire and must not be registered.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null
+	 *
+	 * @param digest the digest of the content
+	 * @param url the URL
+	 * @throws SmartsheetException if the index can't be saved
+	 */
+	public synchronized void putUrl(String digest, String url) throws SmartsheetException {
+		Util.throwIfNull(digest, url);
+
+		urls.put(digest, url);
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(record);
+		try {
+			out.writeByte(PUT_URL);
+			out.writeUTF(digest);
+			out.writeUTF(url);
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		}
+		append(record);
+	}
+
+	/**
+	 * Record an attachment holding some content, replacing any attachment of the same ID.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null, or if the attachment lacks its ID, parent type
+	 * or parent ID
+	 *
+	 * @param digest the digest of the content
+	 * @param attachment the attachment
+	 * @throws SmartsheetException if the index can't be saved
+	 */
+	public synchronized void put(String digest, Attachment attachment) throws SmartsheetException {
+		Util.throwIfNull(digest, attachment);
+		Util.throwIfNull(attachment.getId(), attachment.getParentType(), attachment.getParentId());
+
+		Entry entry = new Entry(digest, attachment);
+		add(entry);
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(record);
+		try {
+			out.writeByte(PUT);
+			entry.write(out);
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		}
+		append(record);
+	}
+
+	/**
+	 * Record the latest version uploaded to an attachment, which is also recorded as an attachment holding its content
+	 * if its parent is known.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null, or if the version lacks its ID
+	 *
+	 * @param attachmentId the ID of the attachment the version was uploaded to
+	 * @param digest the digest of the content
+	 * @param version the new version
+	 * @throws SmartsheetException if the index can't be saved
+	 */
+	public synchronized void putVersion(long attachmentId, String digest, Attachment version)
+			throws SmartsheetException {
+		Util.throwIfNull(digest, version);
+		Util.throwIfNull(version.getId());
+
+		Entry entry = new Entry(digest, version);
+		addVersion(attachmentId, entry);
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(record);
+		try {
+			out.writeByte(PUT_VERSION);
+			out.writeLong(attachmentId);
+			entry.write(out);
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		}
+		append(record);
+	}
+
+	/**
+	 * Forget an attachment that no longer exists.
+	 *
+	 * @param attachmentId the attachment ID
+	 * @throws SmartsheetException if the index can't be saved
+	 */
+	public synchronized void remove(long attachmentId) throws SmartsheetException {
+		removeAll(attachmentId);
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(record);
+		try {
+			out.writeByte(REMOVE);
+			out.writeLong(attachmentId);
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		}
+		append(record);
+	}
+
+	/**
+	 * Get the number of attachments in the index.
+	 *
+	 * @return the number of attachments
+	 */
+	public synchronized int getAttachmentCount() {
+		return attachmentsById.size();
+	}
+
+	/**
+	 * Add an attachment holding some content, replacing any attachment of the same ID.
+	 *
+	 * @param entry the attachment, which must have a parent
+	 */
+	private void add(Entry entry) {
+		removeEntry(entry.attachmentId);
+		List<Entry> entries = attachments.get(entry.digest);
+		if (entries == null) {
+			entries = new ArrayList<Entry>();
+			attachments.put(entry.digest, entries);
+		}
+		entries.add(entry);
+		attachmentsById.put(entry.attachmentId, entry);
+	}
+
+	/**
+	 * Add the latest version of an attachment, which replaces the attachment, and which is also added as an
+	 * attachment holding its content if its parent is known.
+	 *
+	 * @param attachmentId the ID of the attachment the version was uploaded to
+	 * @param entry the version
+	 */
+	private void addVersion(long attachmentId, Entry entry) {
+		versions.put(attachmentId, entry);
+		versions.put(entry.attachmentId, entry);
+		removeEntry(attachmentId);
+		if (entry.parentType != null) {
+			add(entry);
+		}
+	}
+
+	/**
+	 * Remove the attachment of an ID from the attachments by digest.
+	 *
+	 * @param attachmentId the attachment ID
+	 */
+	private void removeEntry(long attachmentId) {
+		Entry entry = attachmentsById.remove(attachmentId);
+		if (entry != null) {
+			List<Entry> entries = attachments.get(entry.digest);
+			entries.remove(entry);
+			if (entries.isEmpty()) {
+				attachments.remove(entry.digest);
+			}
+		}
+	}
+
+	/**
+	 * Remove an attachment from the attachments by digest and from the versions.
+	 *
+	 * @param attachmentId the attachment ID
+	 */
+	private void removeAll(long attachmentId) {
+		removeEntry(attachmentId);
+		Iterator<Entry> entries = versions.values().iterator();
+		while (entries.hasNext()) {
+			if (entries.next().attachmentId == attachmentId) {
+				entries.remove();
+			}
+		}
+		versions.remove(attachmentId);
+	}
+
+	/**
+	 * Get the number of records a compacted index file holds.
+	 *
+	 * @return the number of live records
+	 */
+	private int getLiveRecords() {
+		return attachmentsById.size() + versions.size() + urls.size();
+	}
+
+	/**
+	 * Load the index file, replaying its records. A truncated or unreadable last record is dropped and the file is
+	 * compacted so that later records are not appended after it.
+	 */
+	private void load() {
+		if (!indexFile.isFile()) {
+			return;
+		}
+		DataInputStream in = null;
+		boolean complete = false;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			// A file of another format is replaced.
+			if (in.readInt() == MAGIC) {
+				int type;
+				while ((type = in.read()) != -1 && replay(type, in)) {
+					logRecords++;
+				}
+				complete = type == -1;
+			}
+		} catch (EOFException e) {
+			// Ignore exception, the last record was cut short by a crash and is dropped.
+		} catch (IOException e) {
+			// Ignore exception, the records read so far are kept and the others will be uploaded again.
+		} finally {
+			close(in);
+		}
+
+		if (!complete || logRecords > 2 * getLiveRecords() + COMPACTION_SLACK) {
+			try {
+				compact();
+			} catch (SmartsheetException e) {
+				// Ignore exception, the log is compacted on the next change.
+				logRecords = Integer.MAX_VALUE;
+			}
+		}
+	}
+
+	/**
+	 * Apply a record of the index file.
+	 *
+	 * @param type the record type
+	 * @param in the stream positioned after the record type
+	 * @return false if the record type is unknown
+	 * @throws IOException if the record can't be read
+	 */
+	private boolean replay(int type, DataInputStream in) throws IOException {
+		if (type == PUT) {
+			Entry entry = Entry.read(in);
+			if (entry.parentType != null) {
+				add(entry);
+			}
+		} else if (type == PUT_VERSION) {
+			long attachmentId = in.readLong();
+			addVersion(attachmentId, Entry.read(in));
+		} else if (type == REMOVE) {
+			removeAll(in.readLong());
+		} else if (type == PUT_URL) {
+			String digest = in.readUTF();
+			urls.put(digest, in.readUTF());
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Append a record to the index file, compacting the file instead once it holds too many dead records.
+	 *
+	 * @param record the record
+	 * @throws SmartsheetException if the index file can't be written
+	 */
+	private void append(ByteArrayOutputStream record) throws SmartsheetException {
+		if (logRecords >= 2 * getLiveRecords() + COMPACTION_SLACK || !indexFile.isFile()) {
+			compact();
+			return;
+		}
+
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(indexFile, true);
+			record.writeTo(out);
+			out.close();
+			out = null;
+			logRecords++;
+		} catch (IOException e) {
+			close(out);
+			// The file may end with part of the record, rewrite it from the index.
+			compact();
+		}
+	}
+
+	/**
+	 * Rewrite the index file with the live records only.
+	 *
+	 * @throws SmartsheetException if the index file can't be written
+	 */
+	private void compact() throws SmartsheetException {
+		File temp = new File(indexFile.getPath() + ".tmp");
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.writeInt(MAGIC);
+			for (Entry entry : attachmentsById.values()) {
+				out.writeByte(PUT);
+				entry.write(out);
+			}
+			for (Map.Entry<Long, Entry> version : versions.entrySet()) {
+				out.writeByte(PUT_VERSION);
+				out.writeLong(version.getKey());
+				version.getValue().write(out);
+			}
+			for (Map.Entry<String, String> url : urls.entrySet()) {
+				out.writeByte(PUT_URL);
+				out.writeUTF(url.getKey());
+				out.writeUTF(url.getValue());
+			}
+			out.close();
+			out = null;
+		} catch (IOException e) {
+			close(out);
+			temp.delete();
+			throw new SmartsheetException(e);
+		}
+
+		// Renaming over an existing file fails on some platforms.
+		if (!temp.renameTo(indexFile) && !(indexFile.delete() && temp.renameTo(indexFile))) {
+			temp.delete();
+			throw new SmartsheetException("Unable to write attachment index " + indexFile);
+		}
+		logRecords = getLiveRecords();
+	}
+
+	/**
+	 * Close a stream, ignoring failures.
+	 *
+	 * @param closeable the stream, may be null
+	 */
+	private static void close(java.io.Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// Ignore exception, nothing more can be done.
+			}
+		}
+	}
+
+	/**
+	 * An attachment holding some content.
+	 */
+	private static class Entry {
+		private final String digest;
+		private final long attachmentId;
+		private final String name;
+		private final AttachmentType attachmentType;
+		private final AttachmentParentType parentType;
+		private final long parentId;
+
+		Entry(String digest, long attachmentId, String name, AttachmentType attachmentType,
+				AttachmentParentType parentType, long parentId) {
+			this.digest = digest;
+			this.attachmentId = attachmentId;
+			this.name = name;
+			this.attachmentType = attachmentType;
+			this.parentType = parentType;
+			this.parentId = parentId;
+		}
+
+		Entry(String digest, Attachment attachment) {
+			this(digest, attachment.getId(), attachment.getName(), attachment.getAttachmentType(),
+					attachment.getParentType(), attachment.getParentId() == null ? -1 : attachment.getParentId());
+		}
+
+		Attachment toAttachment() {
+			Attachment attachment = new Attachment();
+			attachment.setId(attachmentId);
+			attachment.setName(name);
+			attachment.setAttachmentType(attachmentType);
+			attachment.setParentType(parentType);
+			attachment.setParentId(parentType == null ? null : parentId);
+			return attachment;
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeUTF(digest);
+			out.writeLong(attachmentId);
+			out.writeUTF(name == null ? "" : name);
+			out.writeUTF(attachmentType == null ? "" : attachmentType.name());
+			out.writeUTF(parentType == null ? "" : parentType.name());
+			out.writeLong(parentId);
+		}
+
+		// Unknown enumeration names are read as null, an entry without parent type only serves as a version.
+		static Entry read(DataInputStream in) throws IOException {
+			String digest = in.readUTF();
+			long attachmentId = in.readLong();
+			String name = in.readUTF();
+			String attachmentType = in.readUTF();
+			String parentType = in.readUTF();
+			long parentId = in.readLong();
+			return new Entry(digest, attachmentId, name, valueOf(AttachmentType.class, attachmentType), valueOf(
+					AttachmentParentType.class, parentType), parentId);
+		}
+
+		private static <T extends Enum<T>> T valueOf(Class<T> type, String name) {
+			try {
+				return name.length() == 0 ? null : Enum.valueOf(type, name);
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Column;
+
+/**
+ * This class caches the columns of sheets along with lookup maps from column title and column index to column ID,
+ * so that cell updates can be built from column titles without listing the columns of the sheet first.
+ *
+ * Entries are replaced whenever the columns of a sheet are retrieved and are invalidated when a column is added,
+ * updated or deleted through the same client. Column changes made by other clients are not detected. The number of
+ * cached sheets is bounded, the least recently used sheet being evicted first.
+ *
+ * Thread Safety: This class is thread safe because all access to its mutable state is synchronized and the cached
+ * maps are immutable.
+ */
+public class ColumnSchemaCache {
+
+	/** The default maximum number of cached sheets. */
+	public static final int DEFAULT_MAX_SHEETS = 1000;
+
+	/** The schemas by sheet ID, in access order. */
+	private final Map<Long, Schema> schemas;
+
+	/**
+	 * Constructor, caching at most DEFAULT_MAX_SHEETS sheets.
+	 */
+	public ColumnSchemaCache() {
+		this(DEFAULT_MAX_SHEETS);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if maxSheets is not positive
+	 *
+	 * @param maxSheets the maximum number of cached sheets
+	 */
+	public ColumnSchemaCache(final int maxSheets) {
+		if (maxSheets <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.schemas = new LinkedHashMap<Long, Schema>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Schema> eldest) {
+				return size() > maxSheets;
+			}
+		};
+	}
+
+	/**
+	 * Store the columns of a sheet, replacing any previous entry.
+	 *
+	 * Exceptions: - IllegalArgumentException : if columns is null
+	 *
+	 * @param sheetId the sheet id
+	 * @param columns the columns
+	 */
+	public void put(long sheetId, List<Column> columns) {
+		Util.throwIfNull(columns);
+
+		Schema schema = new Schema(columns);
+		synchronized (this) {
+			schemas.put(sheetId, schema);
+		}
+	}
+
+	/**
+	 * Get the cached columns of a sheet.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the unmodifiable list of columns, or null if the sheet is not cached
+	 */
+	public synchronized List<Column> getColumns(long sheetId) {
+		Schema schema = schemas.get(sheetId);
+		return schema == null ? null : schema.columns;
+	}
+
+	/**
+	 * Get the column IDs of a cached sheet by column title. When several columns share a title, the first one wins.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the unmodifiable map, or null if the sheet is not cached
+	 */
+	public synchronized Map<String, Long> getColumnIdsByTitle(long sheetId) {
+		Schema schema = schemas.get(sheetId);
+		return schema == null ? null : schema.idsByTitle;
+	}
+
+	/**
+	 * Get the column IDs of a cached sheet by column index.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the unmodifiable map, or null if the sheet is not cached
+	 */
+	public synchronized Map<Integer, Long> getColumnIdsByIndex(long sheetId) {
+		Schema schema = schemas.get(sheetId);
+		return schema == null ? null : schema.idsByIndex;
+	}
+
+	/**
+	 * Remove the columns of a sheet.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public synchronized void invalidate(long sheetId) {
+		schemas.remove(sheetId);
+	}
+
+	/**
+	 * Remove the columns of the sheet holding a column, for changes that don't identify the sheet.
+	 *
+	 * @param columnId the column id
+	 */
+	public synchronized void invalidateColumn(long columnId) {
+		Iterator<Schema> iterator = schemas.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().ids.contains(columnId)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove all sheets.
+	 */
+	public synchronized void clear() {
+		schemas.clear();
+	}
+
+	/**
+	 * The cached columns of a sheet.
+	 */
+	private static class Schema {
+		private final List<Column> columns;
+		private final Map<String, Long> idsByTitle;
+		private final Map<Integer, Long> idsByIndex;
+		private final Set<Long> ids = new HashSet<Long>();
+
+		Schema(List<Column> columns) {
+			Map<String, Long> idsByTitle = new HashMap<String, Long>();
+			Map<Integer, Long> idsByIndex = new HashMap<Integer, Long>();
+			for (Column column : columns) {
+				if (column.getId() == null) {
+					continue;
+				}
+				ids.add(column.getId());
+				if (column.getTitle() != null && !idsByTitle.containsKey(column.getTitle())) {
+					idsByTitle.put(column.getTitle(), column.getId());
+				}
+				if (column.getIndex() != null) {
+					idsByIndex.put(column.getIndex(), column.getId());
+				}
+			}
+			this.columns = Collections.unmodifiableList(new ArrayList<Column>(columns));
+			this.idsByTitle = Collections.unmodifiableMap(idsByTitle);
+			this.idsByIndex = Collections.unmodifiableMap(idsByIndex);
+		}
+	}
+}
@@ -0,0 +1,328 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This class reads a sheet written by {@link ColumnarSheetWriter}, typically from a memory mapped file.
+ *
+ * Only the header and the row group offsets are read on construction. The sheet properties, individual row groups
+ * and individual columns are decoded on demand, so callers that only need the version, the row count or a few
+ * columns never deserialize the rest of the sheet. Within a row group, the cells of each row are returned in column
+ * order, followed by any cells that didn't belong to a known column.
+ *
+ * Thread Safety: This class is thread safe because it is immutable, each read works on its own view of the buffer.
+ */
+public class ColumnarSheetReader {
+
+	/** The buffer holding the file, positioned at the header. */
+	private final ByteBuffer buffer;
+
+	/** The sheet ID. */
+	private final long sheetId;
+
+	/** The sheet version, null if the sheet had none. */
+	private final Integer version;
+
+	/** The number of rows. */
+	private final int rowCount;
+
+	/** The number of columns. */
+	private final int columnCount;
+
+	/** The offsets of the row groups, followed by the footer offset. */
+	private final long[] rowGroupOffsets;
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if buffer is null or doesn't hold a complete file of the supported
+	 * format version
+	 *
+	 * @param buffer the buffer holding the file from its position, the buffer position is not changed
+	 */
+	public ColumnarSheetReader(ByteBuffer buffer) {
+		Util.throwIfNull(buffer);
+
+		this.buffer = buffer.slice();
+		ByteBuffer header = this.buffer.duplicate();
+		if (header.remaining() < ColumnarSheetWriter.HEADER_SIZE || header.getInt() != ColumnarSheetWriter.MAGIC
+				|| header.getInt() != ColumnarSheetWriter.FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unsupported or incomplete sheet file.");
+		}
+		this.sheetId = header.getLong();
+		int version = header.getInt();
+		this.version = version == ColumnarSheetWriter.NO_VERSION ? null : version;
+		this.rowCount = header.getInt();
+		this.columnCount = header.getInt();
+		int rowGroupCount = header.getInt();
+		long footerOffset = header.getLong();
+		long length = header.getLong();
+		if (rowGroupCount < 0 || length > this.buffer.remaining() || footerOffset + 8L * rowGroupCount != length) {
+			throw new IllegalArgumentException("Unsupported or incomplete sheet file.");
+		}
+
+		this.rowGroupOffsets = new long[rowGroupCount + 1];
+		ByteBuffer footer = this.buffer.duplicate();
+		footer.position((int) footerOffset);
+		for (int i = 0; i < rowGroupCount; i++) {
+			rowGroupOffsets[i] = footer.getLong();
+		}
+		rowGroupOffsets[rowGroupCount] = footerOffset;
+	}
+
+	/**
+	 * Open a file through memory mapping.
+	 *
+	 * Exceptions: - IllegalArgumentException : if file is null or doesn't hold a complete file of the supported format
+	 * version
+	 *
+	 * @param file the file
+	 * @return the reader
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static ColumnarSheetReader open(File file) throws IOException {
+		Util.throwIfNull(file);
+
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			// The mapping stays valid after the file is closed.
+			return new ColumnarSheetReader(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Get the sheet ID.
+	 *
+	 * @return the sheet ID
+	 */
+	public long getSheetId() {
+		return sheetId;
+	}
+
+	/**
+	 * Get the sheet version.
+	 *
+	 * @return the sheet version, null if the sheet had none
+	 */
+	public Integer getVersion() {
+		return version;
+	}
+
+	/**
+	 * Get the number of rows.
+	 *
+	 * @return the number of rows
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Get the number of columns.
+	 *
+	 * @return the number of columns
+	 */
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	/**
+	 * Get the number of row groups.
+	 *
+	 * @return the number of row groups
+	 */
+	public int getRowGroupCount() {
+		return rowGroupOffsets.length - 1;
+	}
+
+	/**
+	 * Read the sheet properties and columns.
+	 *
+	 * Exceptions: - IllegalArgumentException : if the file is corrupt
+	 *
+	 * @return the sheet, without rows
+	 */
+	public Sheet readSheetProperties() {
+		try {
+			ByteBuffer properties = view(ColumnarSheetWriter.HEADER_SIZE);
+			int length = properties.getInt();
+			properties.limit(properties.position() + length);
+			return SheetCodec.readSheetProperties(input(properties));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Corrupt sheet file.", e);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Corrupt sheet file.", e);
+		}
+	}
+
+	/**
+	 * Read the rows of a row group, with their cells.
+	 *
+	 * Exceptions: - IllegalArgumentException : if group is out of range or the file is corrupt
+	 *
+	 * @param group the row group index
+	 * @return the rows
+	 */
+	public List<Row> readRowGroup(int group) {
+		checkGroup(group);
+		try {
+			int rows = rowGroupRows(group);
+			DataInputStream properties = input(block(group, 0));
+			DataInputStream[] columns = new DataInputStream[columnCount];
+			for (int i = 0; i < columnCount; i++) {
+				columns[i] = input(block(group, i + 1));
+			}
+			DataInputStream other = input(block(group, columnCount + 1));
+
+			List<Row> result = new ArrayList<Row>(rows);
+			for (int r = 0; r < rows; r++) {
+				Row row = SheetCodec.readRowProperties(properties);
+				int cellCount = properties.readInt();
+				List<Cell> cells = new ArrayList<Cell>(Math.max(0, cellCount));
+				for (DataInputStream column : columns) {
+					if (column.readBoolean()) {
+						cells.add(SheetCodec.readCell(column));
+					}
+				}
+				int unmapped = other.readInt();
+				for (int i = 0; i < unmapped; i++) {
+					cells.add(SheetCodec.readCell(other));
+				}
+				row.setCells(cellCount < 0 ? null : cells);
+				result.add(row);
+			}
+			return result;
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Corrupt sheet file.", e);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Corrupt sheet file.", e);
+		}
+	}
+
+	/**
+	 * Read the cells of one column across all rows, without decoding the other columns.
+	 *
+	 * Exceptions: - IllegalArgumentException : if columnIndex is out of range or the file is corrupt
+	 *
+	 * @param columnIndex the column index
+	 * @return the cells in row order, null for rows without a cell in the column
+	 */
+	public List<Cell> readColumn(int columnIndex) {
+		if (columnIndex < 0 || columnIndex >= columnCount) {
+			throw new IllegalArgumentException();
+		}
+		try {
+			List<Cell> cells = new ArrayList<Cell>(rowCount);
+			for (int group = 0; group < getRowGroupCount(); group++) {
+				int rows = rowGroupRows(group);
+				DataInputStream column = input(block(group, columnIndex + 1));
+				for (int r = 0; r < rows; r++) {
+					cells.add(column.readBoolean() ? SheetCodec.readCell(column) : null);
+				}
+			}
+			return cells;
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Corrupt sheet file.", e);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Corrupt sheet file.", e);
+		}
+	}
+
+	/**
+	 * Read the whole sheet.
+	 *
+	 * Exceptions: - IllegalArgumentException : if the file is corrupt
+	 *
+	 * @return the sheet
+	 */
+	public Sheet toSheet() {
+		Sheet sheet = readSheetProperties();
+		List<Row> rows = new ArrayList<Row>(rowCount);
+		for (int group = 0; group < getRowGroupCount(); group++) {
+			rows.addAll(readRowGroup(group));
+		}
+		sheet.setRows(rows);
+		return sheet;
+	}
+
+	private void checkGroup(int group) {
+		if (group < 0 || group >= getRowGroupCount()) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+	private int rowGroupRows(int group) {
+		return view(rowGroupOffsets[group]).getInt();
+	}
+
+	/**
+	 * Get a view of a block of a row group.
+	 *
+	 * @param group the row group index
+	 * @param block the block index, 0 for the row properties, 1 to columnCount for the columns, and columnCount + 1
+	 * for the unmapped cells
+	 * @return the view, limited to the block
+	 */
+	private ByteBuffer block(int group, int block) {
+		ByteBuffer lengths = view(rowGroupOffsets[group] + 4);
+		int blockCount = lengths.getInt();
+		if (blockCount != columnCount + 2) {
+			throw new IllegalArgumentException("Corrupt sheet file.");
+		}
+		long offset = rowGroupOffsets[group] + 8 + 4L * blockCount;
+		for (int i = 0; i < block; i++) {
+			offset += lengths.getInt();
+		}
+		int length = lengths.getInt();
+		if (offset + length > rowGroupOffsets[group + 1]) {
+			throw new IllegalArgumentException("Corrupt sheet file.");
+		}
+		ByteBuffer view = view(offset);
+		view.limit((int) offset + length);
+		return view;
+	}
+
+	private ByteBuffer view(long offset) {
+		ByteBuffer view = buffer.duplicate();
+		view.position((int) offset);
+		return view;
+	}
+
+	private static DataInputStream input(ByteBuffer buffer) {
+		return new DataInputStream(new SheetCodec.ByteBufferInputStream(buffer));
+	}
+}
@@ -0,0 +1,302 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Column;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This class writes a sheet to a file in a binary columnar format that {@link ColumnarSheetReader} can read through
+ * memory mapping, without deserializing the parts of the sheet that aren't needed.
+ *
+ * The file starts with a fixed size header holding the sheet ID, version, row and column counts and the offsets of
+ * the other sections, followed by the sheet properties and columns. Rows are then written in row groups of a fixed
+ * number of rows. Each row group holds a block with the row properties, one block per column holding the cells of that
+ * column, and a block holding the cells that don't belong to a known column. The blocks are length prefixed so that a
+ * reader can skip to the column it needs. A footer lists the offsets of the row groups. Values are not compressed so
+ * that they can be read straight from the mapped file.
+ *
+ * Rows are added one at a time and only one row group is held in memory, so sheets of any size can be written. The
+ * header is written last, a file that wasn't finished is therefore rejected by the reader.
+ *
+ * Thread Safety: This class is not thread safe.
+ */
+public class ColumnarSheetWriter {
+
+	/** The magic number at the start of the file. */
+	static final int MAGIC = 0x53534E50;
+
+	/** The format version. */
+	static final int FORMAT_VERSION = 1;
+
+	/** The size of the header. */
+	static final int HEADER_SIZE = 48;
+
+	/** The version written for a sheet without version. */
+	static final int NO_VERSION = Integer.MIN_VALUE;
+
+	/** The default number of rows per row group. */
+	public static final int DEFAULT_ROW_GROUP_SIZE = 1024;
+
+	/** The channel. */
+	private final FileChannel channel;
+
+	/** The sheet ID. */
+	private final long sheetId;
+
+	/** The sheet version. */
+	private Integer version;
+
+	/** The number of columns. */
+	private final int columnCount;
+
+	/** The column index of each column ID. */
+	private final Map<Long, Integer> columnIndexes = new HashMap<Long, Integer>();
+
+	/** The number of rows per row group. */
+	private final int rowGroupSize;
+
+	/** The rows of the current row group. */
+	private final List<Row> rows = new ArrayList<Row>();
+
+	/** The offsets of the row groups written so far. */
+	private final List<Long> rowGroupOffsets = new ArrayList<Long>();
+
+	/** The number of rows written so far. */
+	private int rowCount;
+
+	/** The position of the header, offsets in the file are relative to it. */
+	private final long start;
+
+	/** The position of the next write. */
+	private long position;
+
+	/**
+	 * Constructor, the sheet properties and columns are written immediately while its rows are ignored.
+	 *
+	 * Exceptions: - IllegalArgumentException : if channel, sheet or its ID is null, or if rowGroupSize is not positive
+	 *
+	 * @param channel the channel, written from its current position
+	 * @param sheet the sheet
+	 * @param rowGroupSize the number of rows per row group
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public ColumnarSheetWriter(FileChannel channel, Sheet sheet, int rowGroupSize) throws IOException {
+		Util.throwIfNull(channel, sheet);
+		Util.throwIfNull(sheet.getId());
+		if (rowGroupSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+
+		this.channel = channel;
+		this.sheetId = sheet.getId();
+		this.version = sheet.getVersion();
+		this.rowGroupSize = rowGroupSize;
+		this.columnCount = sheet.getColumns() == null ? 0 : sheet.getColumns().size();
+		for (int i = 0; i < columnCount; i++) {
+			Column column = sheet.getColumns().get(i);
+			if (column.getId() != null) {
+				columnIndexes.put(column.getId(), i);
+			}
+		}
+
+		this.start = channel.position();
+		this.position = start;
+		write(ByteBuffer.allocate(HEADER_SIZE));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		SheetCodec.writeSheetProperties(out, sheet);
+		out.flush();
+		write(lengthPrefixed(bytes));
+	}
+
+	/**
+	 * Write a whole sheet with the default row group size.
+	 *
+	 * Exceptions: - IllegalArgumentException : if sheet, its ID or channel is null
+	 *
+	 * @param sheet the sheet
+	 * @param channel the channel, written from its current position
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void write(Sheet sheet, FileChannel channel) throws IOException {
+		ColumnarSheetWriter writer = new ColumnarSheetWriter(channel, sheet, DEFAULT_ROW_GROUP_SIZE);
+		if (sheet.getRows() != null) {
+			for (Row row : sheet.getRows()) {
+				writer.addRow(row);
+			}
+		}
+		writer.finish();
+	}
+
+	/**
+	 * Set the version written in the header, for a sheet whose version is only known once its rows are read, such as
+	 * a sheet streamed from a response.
+	 *
+	 * @param version the version, null for none
+	 */
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
+	/**
+	 * Add a row, writing the current row group once it's full.
+	 *
+	 * Exceptions: - IllegalArgumentException : if row is null
+	 *
+	 * @param row the row
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void addRow(Row row) throws IOException {
+		Util.throwIfNull(row);
+
+		rows.add(row);
+		if (rows.size() == rowGroupSize) {
+			writeRowGroup();
+		}
+	}
+
+	/**
+	 * Write the last row group, the footer and the header, leaving the channel positioned at the end of the written
+	 * data. The channel is not closed.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void finish() throws IOException {
+		if (!rows.isEmpty()) {
+			writeRowGroup();
+		}
+
+		long footerOffset = position - start;
+		ByteBuffer footer = ByteBuffer.allocate(8 * rowGroupOffsets.size());
+		for (Long offset : rowGroupOffsets) {
+			footer.putLong(offset);
+		}
+		footer.flip();
+		write(footer);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putInt(FORMAT_VERSION);
+		header.putLong(sheetId);
+		header.putInt(version == null ? NO_VERSION : version);
+		header.putInt(rowCount);
+		header.putInt(columnCount);
+		header.putInt(rowGroupOffsets.size());
+		header.putLong(footerOffset);
+		header.putLong(position - start);
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header, start + header.position());
+		}
+		channel.position(position);
+	}
+
+	/**
+	 * Write the current row group.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void writeRowGroup() throws IOException {
+		ByteArrayOutputStream[] blocks = new ByteArrayOutputStream[columnCount + 2];
+		DataOutputStream[] outs = new DataOutputStream[blocks.length];
+		for (int i = 0; i < blocks.length; i++) {
+			blocks[i] = new ByteArrayOutputStream();
+			outs[i] = new DataOutputStream(blocks[i]);
+		}
+
+		DataOutputStream other = outs[columnCount + 1];
+		for (Row row : rows) {
+			SheetCodec.writeRowProperties(outs[0], row);
+			List<Cell> cells = row.getCells();
+			outs[0].writeInt(cells == null ? -1 : cells.size());
+
+			Cell[] byColumn = new Cell[columnCount];
+			List<Cell> unmapped = new ArrayList<Cell>();
+			if (cells != null) {
+				for (Cell cell : cells) {
+					Integer index = cell.getColumnId() == null ? null : columnIndexes.get(cell.getColumnId());
+					if (index != null && byColumn[index] == null) {
+						byColumn[index] = cell;
+					} else {
+						unmapped.add(cell);
+					}
+				}
+			}
+			for (int i = 0; i < columnCount; i++) {
+				DataOutputStream out = outs[i + 1];
+				out.writeBoolean(byColumn[i] != null);
+				if (byColumn[i] != null) {
+					SheetCodec.writeCell(out, byColumn[i]);
+				}
+			}
+			other.writeInt(unmapped.size());
+			for (Cell cell : unmapped) {
+				SheetCodec.writeCell(other, cell);
+			}
+		}
+
+		ByteBuffer lengths = ByteBuffer.allocate(8 + 4 * blocks.length);
+		lengths.putInt(rows.size());
+		lengths.putInt(blocks.length);
+		for (int i = 0; i < blocks.length; i++) {
+			outs[i].flush();
+			lengths.putInt(blocks[i].size());
+		}
+		lengths.flip();
+
+		rowGroupOffsets.add(position - start);
+		write(lengths);
+		for (ByteArrayOutputStream block : blocks) {
+			write(ByteBuffer.wrap(block.toByteArray()));
+		}
+		rowCount += rows.size();
+		rows.clear();
+	}
+
+	private static ByteBuffer lengthPrefixed(ByteArrayOutputStream bytes) {
+		ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.size());
+		buffer.putInt(bytes.size());
+		buffer.put(bytes.toByteArray());
+		buffer.flip();
+		return buffer;
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.smartsheet.api.internal.util.Util;
+
+/**
+ * This class spills byte arrays to one file per entry in a directory and reads them back through memory mapping.
+ *
+ * Files left in the directory by a previous process are deleted on construction since their keys can't be trusted. A
+ * temporary store registers its directory and files for deletion when the virtual machine exits.
+ *
+ * Thread Safety: This class is not thread safe, it is guarded by the owning {@link TieredSheetCache}.
+ */
+class DiskSpillStore {
+
+	/** The suffix of the spill files. */
+	private static final String SUFFIX = ".spill";
+
+	/** The directory holding the spill files. */
+	private final File directory;
+
+	/** The capacity in bytes. */
+	private final long capacity;
+
+	/** The number of bytes held by spill files. */
+	private long usedBytes;
+
+	/** Whether the directory and files are deleted when the virtual machine exits. */
+	private final boolean temporary;
+
+	/** The entries, mapping a key to the length of its file. */
+	private final Map<Long, Integer> entries = new HashMap<Long, Integer>();
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if directory is null, or capacity is not positive
+	 *
+	 * @param directory the directory, created if it does not exist
+	 * @param capacity the capacity in bytes
+	 * @param temporary whether the directory and files are deleted when the virtual machine exits
+	 */
+	DiskSpillStore(File directory, long capacity, boolean temporary) {
+		Util.throwIfNull(directory);
+		if (capacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.directory = directory;
+		this.capacity = capacity;
+		this.temporary = temporary;
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IllegalArgumentException("Unable to create cache directory " + directory);
+		}
+		if (temporary) {
+			// Registered first so that it is deleted last, once its files are gone.
+			directory.deleteOnExit();
+		}
+		File[] stale = directory.listFiles();
+		if (stale != null) {
+			for (File file : stale) {
+				if (file.getName().endsWith(SUFFIX)) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Store bytes under a key, replacing any previous entry.
+	 *
+	 * @param key the key
+	 * @param bytes the bytes
+	 * @return true if stored, false if there isn't enough free space or the file can't be written
+	 */
+	boolean store(long key, byte[] bytes) {
+		Util.throwIfNull(bytes);
+		remove(key);
+
+		if (!fits(bytes.length)) {
+			return false;
+		}
+
+		File file = file(key);
+		if (temporary) {
+			// Registered after the directory, so deleted before it on exit. Registering a file again has no effect.
+			file.deleteOnExit();
+		}
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(file);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				out.getChannel().write(buffer);
+			}
+		} catch (IOException e) {
+			close(out);
+			file.delete();
+			return false;
+		}
+		if (!close(out)) {
+			file.delete();
+			return false;
+		}
+
+		entries.put(key, bytes.length);
+		usedBytes += bytes.length;
+		return true;
+	}
+
+	/**
+	 * Map the file stored under a key into memory.
+	 *
+	 * @param key the key
+	 * @return the mapped buffer, or null if there is no such entry or it can't be read
+	 */
+	ByteBuffer load(long key) {
+		if (!entries.containsKey(key)) {
+			return null;
+		}
+
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(file(key), "r");
+			MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+			return buffer;
+		} catch (IOException e) {
+			remove(key);
+			return null;
+		} finally {
+			// The mapping stays valid after the channel is closed.
+			if (file != null) {
+				try {
+					file.close();
+				} catch (IOException e) {
+					// Ignore exception as there isn't anything else that can be done.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove the entry stored under a key and delete its file.
+	 *
+	 * @param key the key
+	 */
+	void remove(long key) {
+		Integer length = entries.remove(key);
+		if (length != null) {
+			usedBytes -= length;
+			file(key).delete();
+		}
+	}
+
+	/**
+	 * Check if an entry of the given size would fit into the remaining capacity.
+	 *
+	 * @param length the entry length in bytes
+	 * @return true if it fits
+	 */
+	boolean fits(int length) {
+		return usedBytes + length <= capacity;
+	}
+
+	/**
+	 * Check if an entry of the given size could ever fit into this store.
+	 *
+	 * @param length the entry length in bytes
+	 * @return true if it could fit into an empty store
+	 */
+	boolean canHold(int length) {
+		return length <= capacity;
+	}
+
+	/**
+	 * Get the number of bytes held by spill files.
+	 *
+	 * @return the used bytes
+	 */
+	long getUsedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	void clear() {
+		for (Long key : entries.keySet().toArray(new Long[entries.size()])) {
+			remove(key);
+		}
+	}
+
+	private File file(long key) {
+		return new File(directory, key + SUFFIX);
+	}
+
+	private static boolean close(FileOutputStream out) {
+		if (out == null) {
+			return true;
+		}
+		try {
+			out.close();
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+}
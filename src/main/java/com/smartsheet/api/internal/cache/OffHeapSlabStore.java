@@ -0,0 +1,229 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.smartsheet.api.internal.util.Util;
+
+/**
+ * This class stores byte arrays outside of the Java heap, in direct ByteBuffer slabs divided into fixed size pages.
+ *
+ * Slabs are allocated lazily up to the configured capacity and are never released, pages freed by removed entries are
+ * reused by later entries. An entry occupies as many pages as needed to hold it, the pages don't need to be contiguous.
+ *
+ * Thread Safety: This class is not thread safe, it is guarded by the owning {@link TieredSheetCache}.
+ */
+class OffHeapSlabStore {
+
+	/** The default page size. */
+	static final int DEFAULT_PAGE_SIZE = 16 * 1024;
+
+	/** The maximum slab size. */
+	private static final int MAX_SLAB_SIZE = 4 * 1024 * 1024;
+
+	/** The page size. */
+	private final int pageSize;
+
+	/** The number of pages held by each slab. */
+	private final int pagesPerSlab;
+
+	/** The slabs, allocated lazily. */
+	private final ByteBuffer[] slabs;
+
+	/** The stack of free page numbers. */
+	private final int[] freePages;
+
+	/** The number of free page numbers in the stack. */
+	private int freeCount;
+
+	/** The number of pages handed out so far, pages beyond this number have never been used. */
+	private int allocatedPages;
+
+	/** The total number of pages. */
+	private final int pageCount;
+
+	/** The entries, mapping a key to its pages. */
+	private final Map<Long, Slot> entries = new HashMap<Long, Slot>();
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if capacity or pageSize is not positive
+	 *
+	 * @param capacity the capacity in bytes
+	 * @param pageSize the page size in bytes
+	 */
+	OffHeapSlabStore(long capacity, int pageSize) {
+		if (capacity <= 0 || pageSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.pageSize = pageSize;
+		this.pageCount = (int) Math.min(Integer.MAX_VALUE, capacity / pageSize);
+		this.pagesPerSlab = Math.max(1, Math.min(pageCount, MAX_SLAB_SIZE / pageSize));
+		this.slabs = new ByteBuffer[(pageCount + pagesPerSlab - 1) / pagesPerSlab];
+		this.freePages = new int[pageCount];
+	}
+
+	/**
+	 * Store bytes under a key, replacing any previous entry.
+	 *
+	 * @param key the key
+	 * @param bytes the bytes
+	 * @return true if stored, false if there isn't enough free space
+	 */
+	boolean store(long key, byte[] bytes) {
+		Util.throwIfNull(bytes);
+		remove(key);
+
+		int needed = (bytes.length + pageSize - 1) / pageSize;
+		if (needed > freePageCount()) {
+			return false;
+		}
+
+		int[] pages = new int[needed];
+		for (int i = 0; i < needed; i++) {
+			pages[i] = allocatePage();
+			int offset = i * pageSize;
+			ByteBuffer page = page(pages[i]);
+			page.put(bytes, offset, Math.min(pageSize, bytes.length - offset));
+		}
+		entries.put(key, new Slot(pages, bytes.length));
+		return true;
+	}
+
+	/**
+	 * Load the bytes stored under a key.
+	 *
+	 * @param key the key
+	 * @return the bytes, or null if there is no such entry
+	 */
+	byte[] load(long key) {
+		Slot slot = entries.get(key);
+		if (slot == null) {
+			return null;
+		}
+
+		byte[] bytes = new byte[slot.length];
+		for (int i = 0; i < slot.pages.length; i++) {
+			int offset = i * pageSize;
+			page(slot.pages[i]).get(bytes, offset, Math.min(pageSize, bytes.length - offset));
+		}
+		return bytes;
+	}
+
+	/**
+	 * Remove the entry stored under a key and release its pages.
+	 *
+	 * @param key the key
+	 */
+	void remove(long key) {
+		Slot slot = entries.remove(key);
+		if (slot != null) {
+			for (int page : slot.pages) {
+				freePages[freeCount++] = page;
+			}
+		}
+	}
+
+	/**
+	 * Check if an entry of the given size would fit into the free pages.
+	 *
+	 * @param length the entry length in bytes
+	 * @return true if it fits
+	 */
+	boolean fits(int length) {
+		return (length + pageSize - 1) / pageSize <= freePageCount();
+	}
+
+	/**
+	 * Check if an entry of the given size could ever fit into this store.
+	 *
+	 * @param length the entry length in bytes
+	 * @return true if it could fit into an empty store
+	 */
+	boolean canHold(int length) {
+		return (length + pageSize - 1) / pageSize <= pageCount;
+	}
+
+	/**
+	 * Get the number of bytes occupied by entries, rounded up to whole pages.
+	 *
+	 * @return the used bytes
+	 */
+	long getUsedBytes() {
+		return (long) (pageCount - freePageCount()) * pageSize;
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	void clear() {
+		entries.clear();
+		freeCount = 0;
+		allocatedPages = 0;
+	}
+
+	private int freePageCount() {
+		return freeCount + (pageCount - allocatedPages);
+	}
+
+	private int allocatePage() {
+		if (freeCount > 0) {
+			return freePages[--freeCount];
+		}
+		return allocatedPages++;
+	}
+
+	/**
+	 * Get a buffer positioned at the start of a page and limited to its end, allocating the slab if needed.
+	 *
+	 * @param page the page number
+	 * @return the page buffer
+	 */
+	private ByteBuffer page(int page) {
+		int slabIndex = page / pagesPerSlab;
+		if (slabs[slabIndex] == null) {
+			int pages = Math.min(pagesPerSlab, pageCount - slabIndex * pagesPerSlab);
+			slabs[slabIndex] = ByteBuffer.allocateDirect(pages * pageSize);
+		}
+		ByteBuffer buffer = slabs[slabIndex].duplicate();
+		int offset = (page % pagesPerSlab) * pageSize;
+		buffer.limit(offset + pageSize);
+		buffer.position(offset);
+		return buffer;
+	}
+
+	/**
+	 * The pages and length of an entry.
+	 */
+	private static class Slot {
+		private final int[] pages;
+		private final int length;
+
+		Slot(int[] pages, int length) {
+			this.pages = pages;
+			this.length = length;
+		}
+	}
+}
@@ -0,0 +1,361 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.DaemonThreadFactory;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This class keeps frequently accessed sheets of a {@link SheetCache} warm by revalidating them in the background
+ * shortly before they expire.
+ *
+ * Each read of a cached sheet is recorded through {@link #recordAccess(long)}. Sheets read at least
+ * {@link #MIN_ACCESSES} times within a time to live period are considered hot. A periodic scan picks the hot sheets
+ * that will expire within the refresh-ahead window, hottest first, and hands them to a small pool of worker threads,
+ * which compare the cached version with the version reported by the Smartsheet REST API and either mark the cached
+ * sheet as validated or fetch and cache the new content. The number of refreshes is capped per second across all
+ * sheets so that refresh-ahead never consumes more than its share of the API rate limit.
+ *
+ * The worker threads are daemon threads, call {@link #shutdown()} to stop them.
+ *
+ * Thread Safety: This class is thread safe because the access counters and in-flight set are concurrent collections
+ * and the cache itself is thread safe.
+ */
+public class RefreshAheadScheduler {
+
+	/** The number of reads within a time to live period that makes a sheet hot. */
+	public static final int MIN_ACCESSES = 2;
+
+	/** The number of worker threads. */
+	private static final int WORKER_THREADS = 2;
+
+	/** The minimum interval between scans in milliseconds. */
+	private static final long MIN_SCAN_INTERVAL = 100;
+
+	/**
+	 * This interface loads sheets, bypassing the cache.
+	 */
+	public interface SheetLoader {
+
+		/**
+		 * Get the current version of a sheet.
+		 *
+		 * @param sheetId the sheet id
+		 * @return the version
+		 * @throws SmartsheetException the smartsheet exception
+		 */
+		public int getSheetVersion(long sheetId) throws SmartsheetException;
+
+		/**
+		 * Get the current content of a sheet whose version has changed.
+		 *
+		 * @param sheetId the sheet id
+		 * @param cached the cached sheet, which may be patched and returned
+		 * @param version the current version
+		 * @return the sheet
+		 * @throws SmartsheetException the smartsheet exception
+		 */
+		public Sheet loadSheet(long sheetId, Sheet cached, int version) throws SmartsheetException;
+
+		/**
+		 * Store a loaded sheet in the cache.
+		 *
+		 * @param sheet the sheet
+		 */
+		public void cacheSheet(Sheet sheet);
+	}
+
+	/**
+	 * This interface provides the current time to the scans.
+	 */
+	interface Clock {
+
+		/**
+		 * Get the current time.
+		 *
+		 * @return the time in milliseconds since the epoch
+		 */
+		long currentTimeMillis();
+	}
+
+	/** The clock of the system. */
+	private static final Clock SYSTEM_CLOCK = new Clock() {
+		public long currentTimeMillis() {
+			return System.currentTimeMillis();
+		}
+	};
+
+	/** The cache. */
+	private final SheetCache cache;
+
+	/** The loader. */
+	private final SheetLoader loader;
+
+	/** The clock. */
+	private final Clock clock;
+
+	/** The cache time to live in milliseconds. */
+	private final long timeToLive;
+
+	/** The window before expiry in milliseconds within which a hot sheet is refreshed. */
+	private final long refreshAhead;
+
+	/** The interval between scans in milliseconds. */
+	private final long scanInterval;
+
+	/** The number of refreshes allowed per millisecond. */
+	private final double refreshesPerMilli;
+
+	/** The maximum number of refreshes that can be saved up, one second's worth. */
+	private final double maxRefreshBudget;
+
+	/** The number of refreshes currently allowed, fractions carry over from one scan to the next. */
+	private double refreshBudget;
+
+	/** The time the refresh budget was last replenished. */
+	private long budgetUpdatedAt;
+
+	/** The access counters, by sheet ID. */
+	private final ConcurrentHashMap<Long, AtomicInteger> accesses = new ConcurrentHashMap<Long, AtomicInteger>();
+
+	/** The IDs of the sheets being refreshed. */
+	private final Set<Long> inFlight = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+	/** The time the current access counting period started. */
+	private volatile long periodStart;
+
+	/** The executor running the scans and refreshes. */
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * Constructor, the background scans start immediately.
+	 *
+	 * Exceptions: - IllegalArgumentException : if cache or loader is null, if refreshAhead is not positive or not less
+	 * than timeToLive, or if maxRefreshesPerSecond is not positive
+	 *
+	 * @param cache the cache
+	 * @param loader the loader
+	 * @param timeToLive the cache time to live in milliseconds
+	 * @param refreshAhead the window before expiry in milliseconds within which a hot sheet is refreshed
+	 * @param maxRefreshesPerSecond the maximum number of refreshes per second
+	 */
+	public RefreshAheadScheduler(SheetCache cache, SheetLoader loader, long timeToLive, long refreshAhead,
+			int maxRefreshesPerSecond) {
+		this(cache, loader, timeToLive, refreshAhead, maxRefreshesPerSecond, SYSTEM_CLOCK);
+	}
+
+	/**
+	 * Constructor with a clock, the background scans start immediately.
+	 *
+	 * Exceptions: - IllegalArgumentException : if cache, loader or clock is null, if refreshAhead is not positive or
+	 * not less than timeToLive, or if maxRefreshesPerSecond is not positive
+	 *
+	 * @param cache the cache
+	 * @param loader the loader
+	 * @param timeToLive the cache time to live in milliseconds
+	 * @param refreshAhead the window before expiry in milliseconds within which a hot sheet is refreshed
+	 * @param maxRefreshesPerSecond the maximum number of refreshes per second
+	 * @param clock the clock of the scans
+	 */
+	RefreshAheadScheduler(SheetCache cache, SheetLoader loader, long timeToLive, long refreshAhead,
+			int maxRefreshesPerSecond, Clock clock) {
+		Util.throwIfNull(cache, loader, clock);
+		if (refreshAhead <= 0 || refreshAhead >= timeToLive || maxRefreshesPerSecond <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.cache = cache;
+		this.loader = loader;
+		this.clock = clock;
+		this.timeToLive = timeToLive;
+		this.refreshAhead = refreshAhead;
+		this.scanInterval = Math.max(MIN_SCAN_INTERVAL, Math.min(1000, refreshAhead / 2));
+		this.refreshesPerMilli = maxRefreshesPerSecond / 1000.0;
+		this.maxRefreshBudget = maxRefreshesPerSecond;
+		this.refreshBudget = maxRefreshesPerSecond;
+		this.periodStart = clock.currentTimeMillis();
+		this.budgetUpdatedAt = periodStart;
+
+		this.executor = new ScheduledThreadPoolExecutor(WORKER_THREADS,
+				new DaemonThreadFactory("smartsheet-refresh-ahead"));
+		this.executor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				scan();
+			}
+		}, scanInterval, scanInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Record a read of a cached sheet.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public void recordAccess(long sheetId) {
+		AtomicInteger counter = accesses.get(sheetId);
+		if (counter == null) {
+			AtomicInteger created = new AtomicInteger();
+			counter = accesses.putIfAbsent(sheetId, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		counter.incrementAndGet();
+	}
+
+	/**
+	 * Stop the background scans and refreshes.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Start refreshing the sheets that are due.
+	 */
+	void scan() {
+		for (final Long sheetId : selectDue(clock.currentTimeMillis())) {
+			if (inFlight.add(sheetId)) {
+				executor.execute(new Runnable() {
+					public void run() {
+						try {
+							refresh(sheetId);
+						} finally {
+							inFlight.remove(sheetId);
+						}
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Select the hot sheets that expire within the refresh-ahead window, hottest first and no more than the refresh
+	 * budget allows. The budget grows by maxRefreshesPerSecond per second, up to one second's worth, and each selected
+	 * sheet spends one refresh of it, so short scan intervals don't raise the rate. Access counters are halved at the
+	 * end of each time to live period so that sheets which are no longer read cool down, and counters of sheets that
+	 * are no longer cached are dropped.
+	 *
+	 * @param now the current time in milliseconds
+	 * @return the sheet IDs
+	 */
+	List<Long> selectDue(long now) {
+		boolean decay = now - periodStart >= timeToLive;
+		if (decay) {
+			periodStart = now;
+		}
+
+		final Map<Long, Integer> due = new HashMap<Long, Integer>();
+		Iterator<Map.Entry<Long, AtomicInteger>> iterator = accesses.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Long, AtomicInteger> entry = iterator.next();
+			long validatedAt = cache.getValidatedAt(entry.getKey());
+			if (validatedAt < 0) {
+				iterator.remove();
+				continue;
+			}
+
+			int count = entry.getValue().get();
+			if (count >= MIN_ACCESSES && now - validatedAt >= timeToLive - refreshAhead
+					&& !inFlight.contains(entry.getKey())) {
+				due.put(entry.getKey(), count);
+			}
+			if (decay && entry.getValue().addAndGet(-(count + 1) / 2) <= 0) {
+				iterator.remove();
+			}
+		}
+
+		List<Long> sheetIds = new ArrayList<Long>(due.keySet());
+		Collections.sort(sheetIds, new Comparator<Long>() {
+			public int compare(Long first, Long second) {
+				return due.get(second).compareTo(due.get(first));
+			}
+		});
+		int allowed = takeRefreshes(now, sheetIds.size());
+		return sheetIds.size() > allowed ? sheetIds.subList(0, allowed) : sheetIds;
+	}
+
+	/**
+	 * Replenish the refresh budget and take refreshes from it.
+	 *
+	 * @param now the current time in milliseconds
+	 * @param wanted the number of refreshes wanted
+	 * @return the number of refreshes allowed, at most wanted
+	 */
+	private synchronized int takeRefreshes(long now, int wanted) {
+		if (now > budgetUpdatedAt) {
+			refreshBudget = Math.min(maxRefreshBudget, refreshBudget + (now - budgetUpdatedAt) * refreshesPerMilli);
+			budgetUpdatedAt = now;
+		}
+		int allowed = (int) Math.min(wanted, Math.floor(refreshBudget));
+		refreshBudget -= allowed;
+		return allowed;
+	}
+
+	/**
+	 * Revalidate a cached sheet, fetching its new content if its version has changed. The new content is only cached
+	 * if the entry hasn't been replaced or invalidated in the meantime, so that a local update is never overwritten
+	 * by content fetched before it. The cached sheet is peeked at, a refresh doesn't count as a read.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	void refresh(long sheetId) {
+		long validatedAt = cache.getValidatedAt(sheetId);
+		Sheet cached = cache.peek(sheetId);
+		if (validatedAt < 0 || cached == null) {
+			return;
+		}
+
+		try {
+			int version = loader.getSheetVersion(sheetId);
+			if (cached.getVersion() != null && cached.getVersion() == version) {
+				cache.touch(sheetId);
+				return;
+			}
+
+			Sheet sheet = loader.loadSheet(sheetId, cached, version);
+			if (cache.getValidatedAt(sheetId) == validatedAt) {
+				loader.cacheSheet(sheet);
+			}
+		} catch (ResourceNotFoundException e) {
+			cache.invalidate(sheetId);
+		} catch (SmartsheetException e) {
+			// Ignore exception, the sheet will be validated by the next reader once it expires.
+		} catch (RuntimeException e) {
+			// Ignore exception, the sheet will be validated by the next reader once it expires.
+		}
+	}
+}
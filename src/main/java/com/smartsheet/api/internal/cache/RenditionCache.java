@@ -0,0 +1,472 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import com.smartsheet.api.ProgressListener;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.PaperSize;
+
+/**
+ * This class caches sheet renditions, such as Excel and PDF files, in a directory, one file per sheet version, format
+ * and paper size.
+ *
+ * A rendition is only ever served for the version it was downloaded at, so a caller validates a cached rendition by
+ * passing the version currently reported by the Smartsheet REST API; renditions of other versions of the same sheet
+ * are deleted when a new one is stored. Hits are copied to the target channel with {@link FileChannel#transferTo},
+ * which lets the operating system move the bytes without copying them through the heap.
+ *
+ * The total size of the renditions is bounded, the least recently used ones being evicted first. Concurrent misses for
+ * the same rendition are coalesced into a single download, the other callers waiting for it and then reading the
+ * cached file. A rendition larger than the bound is not kept: the callers that waited for its download read it from
+ * the temporary file, which is deleted once the last of them is done.
+ *
+ * Renditions are written to a temporary file that is renamed once complete, so a crash never leaves a partial
+ * rendition behind. The files already in the directory are indexed on construction, the most recently modified ones
+ * being considered the most recently used.
+ *
+ * Thread Safety: This class is thread safe because all access to its index is synchronized, and files are only read
+ * or written once they are indexed or reserved by a single in-flight download.
+ */
+public class RenditionCache {
+
+	/** The suffix of the rendition files. */
+	private static final String SUFFIX = ".rendition";
+
+	/** The suffix of rendition files being written. */
+	private static final String TEMP_SUFFIX = ".rendition.tmp";
+
+	/** The paper size part of the name of renditions without paper size. */
+	private static final String DEFAULT_PAPER_SIZE = "DEFAULT";
+
+	/**
+	 * This interface downloads a rendition on a cache miss.
+	 */
+	public interface Loader {
+
+		/**
+		 * Download the rendition.
+		 *
+		 * @param channel the channel to which the rendition is written, which must not be closed
+		 * @param listener the listener receiving the number of bytes downloaded, null for none
+		 * @return the number of bytes written
+		 * @throws SmartsheetException the smartsheet exception
+		 */
+		public long load(WritableByteChannel channel, ProgressListener listener) throws SmartsheetException;
+	}
+
+	/** The directory. */
+	private final File directory;
+
+	/** The maximum total size of the renditions in bytes. */
+	private final long maxBytes;
+
+	/** The size of each rendition by file name, in access order. */
+	private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+	/** The downloads in flight by file name. */
+	private final Map<String, Download> loading = new HashMap<String, Download>();
+
+	/** The total size of the renditions in bytes. */
+	private long totalBytes;
+
+	/** The number of requests served from the cache. */
+	private long hitCount;
+
+	/** The number of requests that downloaded the rendition. */
+	private long missCount;
+
+	/**
+	 * Constructor, indexing the renditions already in the directory and evicting them down to the maximum size.
+	 *
+	 * Exceptions: - IllegalArgumentException : if directory is null or can't be created, or if maxBytes is not
+	 * positive
+	 *
+	 * @param directory the directory, created if it does not exist
+	 * @param maxBytes the maximum total size of the renditions in bytes
+	 */
+	public RenditionCache(File directory, long maxBytes) {
+		Util.throwIfNull(directory);
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException();
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IllegalArgumentException("Unable to create rendition directory " + directory);
+		}
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+
+		File[] files = directory.listFiles();
+		if (files != null) {
+			List<File> renditions = new ArrayList<File>();
+			for (File file : files) {
+				if (file.getName().endsWith(TEMP_SUFFIX)) {
+					file.delete();
+				} else if (file.getName().endsWith(SUFFIX)) {
+					renditions.add(file);
+				}
+			}
+			Collections.sort(renditions, new Comparator<File>() {
+				public int compare(File file1, File file2) {
+					long modified1 = file1.lastModified();
+					long modified2 = file2.lastModified();
+					return modified1 < modified2 ? -1 : modified1 == modified2 ? 0 : 1;
+				}
+			});
+			for (File file : renditions) {
+				sizes.put(file.getName(), file.length());
+				totalBytes += file.length();
+			}
+			evict(null);
+		}
+	}
+
+	/**
+	 * Write a rendition to a channel, from the cache if it holds the rendition of the given version, or else from the
+	 * loader, caching the result. A caller finding a download of the same rendition in flight waits for it instead of
+	 * starting another one. The caller that downloads the rendition receives the progress of the download, the others
+	 * the progress of the copy to their channel.
+	 *
+	 * Exceptions: - IllegalArgumentException : if format, channel or loader is null, or if format is not made of
+	 * letters and digits
+	 *
+	 * @param sheetId the sheet id
+	 * @param version the current version of the sheet
+	 * @param format the format, such as a file extension, made of letters and digits
+	 * @param paperSize the paper size, null for none
+	 * @param channel the channel to which the rendition is written, which is not closed
+	 * @param listener the listener receiving the number of bytes written to the channel, null for none
+	 * @param loader the loader downloading the rendition on a miss
+	 * @return the number of bytes written
+	 * @throws SmartsheetException the exception thrown by the loader, or if the rendition can't be written
+	 */
+	public long get(long sheetId, int version, String format, PaperSize paperSize, WritableByteChannel channel,
+			final ProgressListener listener, final Loader loader) throws SmartsheetException {
+		Util.throwIfNull(format, channel, loader);
+		for (int i = 0; i < format.length(); i++) {
+			if (!Character.isLetterOrDigit(format.charAt(i))) {
+				throw new IllegalArgumentException();
+			}
+		}
+
+		final String name = sheetId + "-" + version + "-" + (paperSize == null ? DEFAULT_PAPER_SIZE : paperSize) + "."
+				+ format + SUFFIX;
+		boolean loaded = false;
+		while (true) {
+			FileInputStream input = null;
+			Download task = null;
+			boolean owner = false;
+			synchronized (this) {
+				if (sizes.get(name) != null) {
+					try {
+						// Opened while holding the lock so that the file can't be evicted in between.
+						input = new FileInputStream(new File(directory, name));
+						if (!loaded) {
+							hitCount++;
+						}
+					} catch (IOException e) {
+						// The file has been deleted behind the cache's back, download it again.
+						totalBytes -= sizes.remove(name);
+					}
+				}
+				if (input == null) {
+					task = loading.get(name);
+					if (task == null) {
+						task = new Download(new Callable<File>() {
+							public File call() throws SmartsheetException {
+								return download(name, loader, listener);
+							}
+						});
+						loading.put(name, task);
+						owner = true;
+						missCount++;
+					}
+					task.readers++;
+				}
+			}
+
+			if (input != null) {
+				try {
+					// The caller that downloaded the rendition has already received its progress.
+					return transfer(input.getChannel(), channel, loaded ? null : listener);
+				} finally {
+					close(input);
+				}
+			}
+
+			if (owner) {
+				try {
+					task.run();
+				} finally {
+					synchronized (this) {
+						loading.remove(name);
+					}
+				}
+			}
+
+			File uncached = null;
+			try {
+				try {
+					uncached = task.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SmartsheetException(e);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					} else if (e.getCause() instanceof Error) {
+						throw (Error) e.getCause();
+					}
+					// The download only throws SmartsheetException otherwise.
+					throw (SmartsheetException) e.getCause();
+				}
+
+				if (uncached != null) {
+					// Too large to be kept, every waiting caller is served from the temporary file.
+					try {
+						input = new FileInputStream(uncached);
+						return transfer(input.getChannel(), channel, owner ? null : listener);
+					} catch (IOException e) {
+						throw new SmartsheetException(e);
+					} finally {
+						close(input);
+					}
+				}
+			} finally {
+				release(task, uncached);
+			}
+			// Read the rendition from the cache, or download it again if it has already been evicted.
+			loaded = owner;
+		}
+	}
+
+	/**
+	 * Delete the renditions of all versions of a sheet.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public synchronized void invalidate(long sheetId) {
+		String prefix = sheetId + "-";
+		Iterator<Map.Entry<String, Long>> entries = sizes.entrySet().iterator();
+		while (entries.hasNext()) {
+			Map.Entry<String, Long> entry = entries.next();
+			if (entry.getKey().startsWith(prefix)) {
+				entries.remove();
+				new File(directory, entry.getKey()).delete();
+				totalBytes -= entry.getValue();
+			}
+		}
+	}
+
+	/**
+	 * Get the total size of the cached renditions.
+	 *
+	 * @return the size in bytes
+	 */
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Get the number of requests served from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Get the number of requests that downloaded their rendition, excluding those that waited for a concurrent
+	 * download.
+	 *
+	 * @return the miss count
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Download a rendition to a temporary file, and index it under its final name if it fits in the cache.
+	 *
+	 * @param name the file name
+	 * @param loader the loader
+	 * @param listener the listener receiving the number of bytes downloaded, null for none
+	 * @return null if the rendition is cached, or else the temporary file holding it
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	private File download(String name, Loader loader, ProgressListener listener) throws SmartsheetException {
+		File temp = null;
+		FileOutputStream output = null;
+		boolean done = false;
+		try {
+			temp = File.createTempFile(name.substring(0, name.length() - SUFFIX.length()) + "-", TEMP_SUFFIX,
+					directory);
+			output = new FileOutputStream(temp);
+			long size = loader.load(output.getChannel(), listener);
+			output.getChannel().force(false);
+			output.close();
+			output = null;
+
+			if (size > maxBytes) {
+				done = true;
+				return temp;
+			}
+
+			File file = new File(directory, name);
+			// Renaming over an existing file fails on some platforms.
+			if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+				throw new SmartsheetException("Unable to write " + file);
+			}
+			synchronized (this) {
+				sizes.put(name, size);
+				totalBytes += size;
+				evict(name);
+			}
+			done = true;
+			return null;
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		} finally {
+			close(output);
+			if (!done && temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Delete the renditions of other versions of the sheet of a new rendition, and then the least recently used
+	 * renditions until the total size is within bounds. Must be called while holding the lock.
+	 *
+	 * @param added the file name of the new rendition, which is not evicted, null for none
+	 */
+	private void evict(String added) {
+		if (added != null) {
+			String prefix = added.substring(0, added.indexOf('-') + 1);
+			String version = added.substring(0, added.indexOf('-', prefix.length()) + 1);
+			Iterator<Map.Entry<String, Long>> entries = sizes.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry<String, Long> entry = entries.next();
+				if (entry.getKey().startsWith(prefix) && !entry.getKey().startsWith(version)) {
+					entries.remove();
+					new File(directory, entry.getKey()).delete();
+					totalBytes -= entry.getValue();
+				}
+			}
+		}
+
+		Iterator<Map.Entry<String, Long>> entries = sizes.entrySet().iterator();
+		while (totalBytes > maxBytes && entries.hasNext()) {
+			Map.Entry<String, Long> entry = entries.next();
+			if (!entry.getKey().equals(added)) {
+				entries.remove();
+				new File(directory, entry.getKey()).delete();
+				totalBytes -= entry.getValue();
+			}
+		}
+	}
+
+	/**
+	 * Release a caller's hold on a download, deleting the temporary file of an uncached rendition once every caller
+	 * that waited for it is done. No caller can join the download by then, since it's no longer in flight once its
+	 * owner releases it.
+	 *
+	 * @param task the download
+	 * @param uncached the temporary file of the rendition, null if it was cached or the download failed
+	 */
+	private synchronized void release(Download task, File uncached) {
+		if (--task.readers == 0 && uncached != null) {
+			uncached.delete();
+		}
+	}
+
+	/**
+	 * Copy a file to a channel, letting the operating system move the bytes directly when it can.
+	 *
+	 * @param source the source file
+	 * @param target the target channel
+	 * @param listener the listener receiving the number of bytes written, null for none
+	 * @return the number of bytes written
+	 * @throws SmartsheetException the smartsheet exception
+	 */
+	private static long transfer(FileChannel source, WritableByteChannel target, ProgressListener listener)
+			throws SmartsheetException {
+		try {
+			long size = source.size();
+			long position = 0;
+			while (position < size) {
+				position += source.transferTo(position, size - position, target);
+				if (listener != null) {
+					listener.progress(position, size);
+				}
+			}
+			return size;
+		} catch (IOException e) {
+			throw new SmartsheetException(e);
+		}
+	}
+
+	/**
+	 * Close a stream, ignoring failures.
+	 *
+	 * @param closeable the stream, may be null
+	 */
+	private static void close(java.io.Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// Ignore exception, the rendition has been read or written already.
+			}
+		}
+	}
+
+	/**
+	 * A download in flight, along with the number of callers that will read its result.
+	 */
+	private static class Download extends FutureTask<File> {
+		/** The number of callers holding the download, guarded by the cache lock. */
+		private int readers;
+
+		Download(Callable<File> callable) {
+			super(callable);
+		}
+	}
+}
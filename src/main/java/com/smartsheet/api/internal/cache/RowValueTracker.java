@@ -0,0 +1,166 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Row;
+
+/**
+ * This class remembers the last cell values seen for recently read or written rows, so that a later update can tell
+ * whether the cells it is about to write have been modified by another writer in the meantime.
+ *
+ * The Smartsheet REST API only reports the version of the whole sheet, which changes with any edit of any row, so
+ * conflicts are detected per row by comparing cell values instead: an update conflicts when the current value of a
+ * cell it writes differs from the value last seen for that cell. Cells whose value hasn't been seen are not checked.
+ *
+ * The number of rows is bounded, the least recently seen rows are forgotten first. A forgotten row is simply written
+ * without a conflict check.
+ *
+ * Thread Safety: This class is thread safe because all access to its mutable state is synchronized.
+ */
+public class RowValueTracker {
+
+	/** The default maximum number of rows remembered. */
+	public static final int DEFAULT_MAX_ROWS = 10000;
+
+	/** The cell values by column ID, by row ID, in access order. */
+	private final Map<Long, Map<Long, Object>> rows;
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if maxRows is not positive
+	 *
+	 * @param maxRows the maximum number of rows remembered
+	 */
+	public RowValueTracker(final int maxRows) {
+		if (maxRows <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.rows = new LinkedHashMap<Long, Map<Long, Object>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Map<Long, Object>> eldest) {
+				return size() > maxRows;
+			}
+		};
+	}
+
+	/**
+	 * Record the content of a row that has just been read, replacing the values previously seen. Rows without cells
+	 * are ignored.
+	 *
+	 * @param rowId the row id
+	 * @param row the row
+	 */
+	public synchronized void recordRow(long rowId, Row row) {
+		if (row.getCells() != null) {
+			rows.remove(rowId);
+			recordCells(rowId, row.getCells());
+		}
+	}
+
+	/**
+	 * Record the values of cells that have just been read or written, keeping the values seen for other cells. Cells
+	 * without column ID are ignored.
+	 *
+	 * @param rowId the row id
+	 * @param cells the cells
+	 */
+	public synchronized void recordCells(long rowId, List<Cell> cells) {
+		Map<Long, Object> values = rows.get(rowId);
+		if (values == null) {
+			values = new HashMap<Long, Object>();
+			rows.put(rowId, values);
+		}
+		for (Cell cell : cells) {
+			if (cell != null && cell.getColumnId() != null) {
+				values.put(cell.getColumnId(), cell.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Check whether a row is remembered, in which case an update of it should be checked for conflicts.
+	 *
+	 * @param rowId the row id
+	 * @return true if the row is remembered
+	 */
+	public synchronized boolean isTracked(long rowId) {
+		return rows.get(rowId) != null;
+	}
+
+	/**
+	 * Check whether any of the cells about to be written has been modified by another writer, that is whether its
+	 * current value differs from the value last seen.
+	 *
+	 * @param rowId the row id
+	 * @param current the current row, with its cells
+	 * @param cells the cells about to be written
+	 * @return true if a cell has been modified, false if none has or the row isn't remembered
+	 */
+	public synchronized boolean isModified(long rowId, Row current, List<Cell> cells) {
+		Map<Long, Object> seen = rows.get(rowId);
+		if (seen == null) {
+			return false;
+		}
+
+		Map<Long, Object> values = new HashMap<Long, Object>();
+		if (current.getCells() != null) {
+			for (Cell cell : current.getCells()) {
+				values.put(cell.getColumnId(), cell.getValue());
+			}
+		}
+		for (Cell cell : cells) {
+			Long columnId = cell.getColumnId();
+			if (seen.containsKey(columnId) && !equal(seen.get(columnId), values.get(columnId))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Forget a row.
+	 *
+	 * @param rowId the row id
+	 */
+	public synchronized void forget(long rowId) {
+		rows.remove(rowId);
+	}
+
+	/**
+	 * Compare two cell values, either of which can be null.
+	 *
+	 * @param a the first value
+	 * @param b the second value
+	 * @return true if the values are equal
+	 */
+	private static boolean equal(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+}
@@ -0,0 +1,99 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This interface defines methods to cache {@link Sheet} objects retrieved from the Smartsheet REST API.
+ *
+ * Cached sheets are keyed by the sheet ID. A cached entry is considered fresh for a configurable time after it was
+ * stored or last validated against the sheet version, after which callers are expected to revalidate it.
+ *
+ * Thread Safety: Implementation of this interface must be thread safe.
+ */
+public interface SheetCache {
+
+	/**
+	 * Get a cached sheet.
+	 *
+	 * Note that the returned sheet may be shared with other callers and must not be modified.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the cached sheet, or null if the sheet is not cached
+	 */
+	public Sheet get(long sheetId);
+
+	/**
+	 * Get a cached sheet without counting it as a read, so that background work doesn't change which sheets are kept
+	 * or where.
+	 *
+	 * Note that the returned sheet may be shared with other callers and must not be modified.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the cached sheet, or null if the sheet is not cached
+	 */
+	public Sheet peek(long sheetId);
+
+	/**
+	 * Put a sheet into the cache, replacing any entry with the same ID and marking it as freshly validated.
+	 *
+	 * Exceptions: - IllegalArgumentException : if sheet or its ID is null
+	 *
+	 * @param sheet the sheet
+	 */
+	public void put(Sheet sheet);
+
+	/**
+	 * Check if a cached sheet was stored or validated within the configured time to live.
+	 *
+	 * @param sheetId the sheet id
+	 * @return true if the sheet is cached and fresh, false otherwise
+	 */
+	public boolean isFresh(long sheetId);
+
+	/**
+	 * Get the time a cached sheet was last stored or validated.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the time in milliseconds since the epoch, or -1 if the sheet is not cached
+	 */
+	public long getValidatedAt(long sheetId);
+
+	/**
+	 * Mark a cached sheet as validated now, typically after its version has been confirmed unchanged.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public void touch(long sheetId);
+
+	/**
+	 * Remove a sheet from the cache.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public void invalidate(long sheetId);
+
+	/**
+	 * Remove all sheets from the cache.
+	 */
+	public void clear();
+}
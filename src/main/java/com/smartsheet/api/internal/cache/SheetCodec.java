@@ -0,0 +1,647 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.AccessLevel;
+import com.smartsheet.api.models.AutoNumberFormat;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Column;
+import com.smartsheet.api.models.ColumnTag;
+import com.smartsheet.api.models.ColumnType;
+import com.smartsheet.api.models.Link;
+import com.smartsheet.api.models.LinkType;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+import com.smartsheet.api.models.Symbol;
+import com.smartsheet.api.models.SystemColumnType;
+import com.smartsheet.api.models.Workspace;
+
+/**
+ * This class encodes a {@link Sheet} into a compact, deflated binary form and decodes it back.
+ *
+ * The JSON serializer can't be used for this purpose because it deliberately drops the "id" field of every
+ * IdentifiableModel. The encoding covers the attributes returned by "GET /sheet/{id}" without includes: the sheet
+ * attributes, its columns, and its rows with their cells. Discussions, attachments and formats are not encoded.
+ *
+ * Thread Safety: This class is thread safe because it is stateless.
+ */
+public final class SheetCodec {
+
+	/** The format version written at the start of every encoded sheet. */
+	private static final int FORMAT_VERSION = 1;
+
+	/** The value tags used to encode cell values. */
+	private static final byte VALUE_NULL = 0;
+	private static final byte VALUE_STRING = 1;
+	private static final byte VALUE_INTEGER = 2;
+	private static final byte VALUE_LONG = 3;
+	private static final byte VALUE_DOUBLE = 4;
+	private static final byte VALUE_BOOLEAN = 5;
+	private static final byte VALUE_OTHER = 6;
+
+	/**
+	 * Constructor.
+	 */
+	private SheetCodec() {
+	}
+
+	/**
+	 * Encode a sheet.
+	 *
+	 * Exceptions: - IllegalArgumentException : if sheet is null
+	 *
+	 * @param sheet the sheet
+	 * @return the encoded bytes
+	 */
+	public static byte[] encode(Sheet sheet) {
+		Util.throwIfNull(sheet);
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(baos, deflater));
+			out.writeInt(FORMAT_VERSION);
+			writeSheet(out, sheet);
+			out.close();
+		} catch (IOException e) {
+			// Can't happen with an in-memory stream.
+			throw new IllegalStateException(e);
+		} finally {
+			deflater.end();
+		}
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Decode a sheet.
+	 *
+	 * Exceptions: - IllegalArgumentException : if bytes is null or not a valid encoding
+	 *
+	 * @param bytes the encoded bytes
+	 * @return the sheet
+	 */
+	public static Sheet decode(byte[] bytes) {
+		Util.throwIfNull(bytes);
+
+		return decode(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Decode a sheet from the remaining bytes of a buffer, the buffer position is not changed.
+	 *
+	 * Exceptions: - IllegalArgumentException : if buffer is null or does not hold a valid encoding
+	 *
+	 * @param buffer the buffer holding the encoded bytes
+	 * @return the sheet
+	 */
+	public static Sheet decode(ByteBuffer buffer) {
+		Util.throwIfNull(buffer);
+
+		try {
+			DataInputStream in = new DataInputStream(new InflaterInputStream(
+					new ByteBufferInputStream(buffer.duplicate())));
+			try {
+				if (in.readInt() != FORMAT_VERSION) {
+					throw new IllegalArgumentException("Unsupported sheet encoding.");
+				}
+				return readSheet(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid sheet encoding.", e);
+		}
+	}
+
+	private static void writeSheet(DataOutputStream out, Sheet sheet) throws IOException {
+		writeSheetProperties(out, sheet);
+
+		List<Row> rows = sheet.getRows();
+		out.writeInt(rows == null ? -1 : rows.size());
+		if (rows != null) {
+			for (Row row : rows) {
+				writeRow(out, row);
+			}
+		}
+	}
+
+	private static Sheet readSheet(DataInputStream in) throws IOException {
+		Sheet sheet = readSheetProperties(in);
+
+		int rowCount = in.readInt();
+		if (rowCount >= 0) {
+			List<Row> rows = new ArrayList<Row>(rowCount);
+			for (int i = 0; i < rowCount; i++) {
+				rows.add(readRow(in));
+			}
+			sheet.setRows(rows);
+		}
+		return sheet;
+	}
+
+	/**
+	 * Write the properties and columns of a sheet, without its rows.
+	 *
+	 * @param out the output
+	 * @param sheet the sheet
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static void writeSheetProperties(DataOutputStream out, Sheet sheet) throws IOException {
+		writeLong(out, sheet.getId());
+		writeString(out, sheet.getName());
+		writeInteger(out, sheet.getVersion());
+		writeEnum(out, sheet.getAccessLevel());
+		writeBoolean(out, sheet.getReadOnly());
+		writeDate(out, sheet.getCreatedAt());
+		writeDate(out, sheet.getModifiedAt());
+		writeString(out, sheet.getPermalink());
+		writeBoolean(out, sheet.getGanttEnabled());
+		writeBoolean(out, sheet.getDependenciesEnabled());
+		writeBoolean(out, sheet.getResourceManagementEnabled());
+		writeLong(out, sheet.getFromId());
+
+		Workspace workspace = sheet.getWorkspace();
+		out.writeBoolean(workspace != null);
+		if (workspace != null) {
+			writeLong(out, workspace.getId());
+			writeString(out, workspace.getName());
+			writeEnum(out, workspace.getAccessLevel());
+			writeString(out, workspace.getPermalink());
+		}
+
+		List<Column> columns = sheet.getColumns();
+		out.writeInt(columns == null ? -1 : columns.size());
+		if (columns != null) {
+			for (Column column : columns) {
+				writeColumn(out, column);
+			}
+		}
+	}
+
+	/**
+	 * Read the properties and columns of a sheet written by {@link #writeSheetProperties}.
+	 *
+	 * @param in the input
+	 * @return the sheet, without rows
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static Sheet readSheetProperties(DataInputStream in) throws IOException {
+		Sheet sheet = new Sheet();
+		sheet.setId(readLong(in));
+		sheet.setName(readString(in));
+		sheet.setVersion(readInteger(in));
+		sheet.setAccessLevel(readEnum(in, AccessLevel.class));
+		sheet.setReadOnly(readBoolean(in));
+		sheet.setCreatedAt(readDate(in));
+		sheet.setModifiedAt(readDate(in));
+		sheet.setPermalink(readString(in));
+		sheet.setGanttEnabled(readBoolean(in));
+		sheet.setDependenciesEnabled(readBoolean(in));
+		sheet.setResourceManagementEnabled(readBoolean(in));
+		sheet.setFromId(readLong(in));
+
+		if (in.readBoolean()) {
+			Workspace workspace = new Workspace();
+			workspace.setId(readLong(in));
+			workspace.setName(readString(in));
+			workspace.setAccessLevel(readEnum(in, AccessLevel.class));
+			workspace.setPermalink(readString(in));
+			sheet.setWorkspace(workspace);
+		}
+
+		int columnCount = in.readInt();
+		if (columnCount >= 0) {
+			List<Column> columns = new ArrayList<Column>(columnCount);
+			for (int i = 0; i < columnCount; i++) {
+				columns.add(readColumn(in));
+			}
+			sheet.setColumns(columns);
+		}
+		return sheet;
+	}
+
+	private static void writeColumn(DataOutputStream out, Column column) throws IOException {
+		writeLong(out, column.getId());
+		writeInteger(out, column.getIndex());
+		writeString(out, column.getTitle());
+		writeBoolean(out, column.getPrimary());
+		writeEnum(out, column.getType());
+		List<String> options = column.getOptions();
+		out.writeInt(options == null ? -1 : options.size());
+		if (options != null) {
+			for (String option : options) {
+				writeString(out, option);
+			}
+		}
+		writeBoolean(out, column.getHidden());
+		writeEnum(out, column.getSymbol());
+		writeEnum(out, column.getSystemColumnType());
+		AutoNumberFormat autoNumberFormat = column.getAutoNumberFormat();
+		out.writeBoolean(autoNumberFormat != null);
+		if (autoNumberFormat != null) {
+			writeString(out, autoNumberFormat.getPrefix());
+			writeString(out, autoNumberFormat.getSuffix());
+			writeString(out, autoNumberFormat.getFill());
+			writeLong(out, autoNumberFormat.getStartingNumber());
+		}
+		List<ColumnTag> tags = column.getTags();
+		out.writeInt(tags == null ? -1 : tags.size());
+		if (tags != null) {
+			for (ColumnTag tag : tags) {
+				writeEnum(out, tag);
+			}
+		}
+		writeLong(out, column.getSheetId());
+		writeBoolean(out, column.isLocked());
+		writeBoolean(out, column.isLockedForUser());
+		writeInteger(out, column.getWidth());
+	}
+
+	private static Column readColumn(DataInputStream in) throws IOException {
+		Column column = new Column();
+		column.setId(readLong(in));
+		column.setIndex(readInteger(in));
+		column.setTitle(readString(in));
+		column.setPrimary(readBoolean(in));
+		column.setType(readEnum(in, ColumnType.class));
+		int optionCount = in.readInt();
+		if (optionCount >= 0) {
+			List<String> options = new ArrayList<String>(optionCount);
+			for (int i = 0; i < optionCount; i++) {
+				options.add(readString(in));
+			}
+			column.setOptions(options);
+		}
+		column.setHidden(readBoolean(in));
+		column.setSymbol(readEnum(in, Symbol.class));
+		column.setSystemColumnType(readEnum(in, SystemColumnType.class));
+		if (in.readBoolean()) {
+			AutoNumberFormat autoNumberFormat = new AutoNumberFormat();
+			autoNumberFormat.setPrefix(readString(in));
+			autoNumberFormat.setSuffix(readString(in));
+			autoNumberFormat.setFill(readString(in));
+			autoNumberFormat.setStartingNumber(readLong(in));
+			column.setAutoNumberFormat(autoNumberFormat);
+		}
+		int tagCount = in.readInt();
+		if (tagCount >= 0) {
+			List<ColumnTag> tags = new ArrayList<ColumnTag>(tagCount);
+			for (int i = 0; i < tagCount; i++) {
+				tags.add(readEnum(in, ColumnTag.class));
+			}
+			column.setTags(tags);
+		}
+		column.setSheetId(readLong(in));
+		column.setLocked(readBoolean(in));
+		column.setLockedForUser(readBoolean(in));
+		column.setWidth(readInteger(in));
+		return column;
+	}
+
+	private static void writeRow(DataOutputStream out, Row row) throws IOException {
+		writeRowProperties(out, row);
+		List<Cell> cells = row.getCells();
+		out.writeInt(cells == null ? -1 : cells.size());
+		if (cells != null) {
+			for (Cell cell : cells) {
+				writeCell(out, cell);
+			}
+		}
+	}
+
+	private static Row readRow(DataInputStream in) throws IOException {
+		Row row = readRowProperties(in);
+		int cellCount = in.readInt();
+		if (cellCount >= 0) {
+			List<Cell> cells = new ArrayList<Cell>(cellCount);
+			for (int i = 0; i < cellCount; i++) {
+				cells.add(readCell(in));
+			}
+			row.setCells(cells);
+		}
+		return row;
+	}
+
+	/**
+	 * Write the properties of a row, without its cells.
+	 *
+	 * @param out the output
+	 * @param row the row
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static void writeRowProperties(DataOutputStream out, Row row) throws IOException {
+		writeLong(out, row.getId());
+		writeLong(out, row.getSheetId());
+		writeInteger(out, row.getRowNumber());
+		writeInteger(out, row.getParentRowNumber());
+		writeDate(out, row.getCreatedAt());
+		writeDate(out, row.getModifiedAt());
+		writeBoolean(out, row.isExpanded());
+		writeInteger(out, row.getVersion());
+		writeEnum(out, row.getAccessLevel());
+		writeBoolean(out, row.isLocked());
+		writeBoolean(out, row.isLockedForUser());
+	}
+
+	/**
+	 * Read the properties of a row written by {@link #writeRowProperties}.
+	 *
+	 * @param in the input
+	 * @return the row, without cells
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static Row readRowProperties(DataInputStream in) throws IOException {
+		Row row = new Row();
+		row.setId(readLong(in));
+		row.setSheetId(readLong(in));
+		row.setRowNumber(readInteger(in));
+		row.setParentRowNumber(readInteger(in));
+		row.setCreatedAt(readDate(in));
+		row.setModifiedAt(readDate(in));
+		row.setExpanded(readBoolean(in));
+		row.setVersion(readInteger(in));
+		row.setAccessLevel(readEnum(in, AccessLevel.class));
+		row.setLocked(readBoolean(in));
+		row.setLockedForUser(readBoolean(in));
+		return row;
+	}
+
+	/**
+	 * Write a cell.
+	 *
+	 * @param out the output
+	 * @param cell the cell
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static void writeCell(DataOutputStream out, Cell cell) throws IOException {
+		writeEnum(out, cell.getType());
+		writeValue(out, cell.getValue());
+		writeString(out, cell.getDisplayValue());
+		writeLong(out, cell.getColumnId());
+		writeLong(out, cell.getRowId());
+		Link link = cell.getLink();
+		out.writeBoolean(link != null);
+		if (link != null) {
+			writeEnum(out, link.getType());
+			writeString(out, link.getUrl());
+			writeLong(out, link.getSheetId());
+			writeLong(out, link.getColumnId());
+			writeLong(out, link.getRowId());
+		}
+		writeString(out, cell.getFormula());
+		writeBoolean(out, cell.getStrict());
+	}
+
+	/**
+	 * Read a cell written by {@link #writeCell}.
+	 *
+	 * @param in the input
+	 * @return the cell
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static Cell readCell(DataInputStream in) throws IOException {
+		Cell cell = new Cell();
+		cell.setType(readEnum(in, ColumnType.class));
+		cell.setValue(readValue(in));
+		cell.setDisplayValue(readString(in));
+		cell.setColumnId(readLong(in));
+		cell.setRowId(readLong(in));
+		if (in.readBoolean()) {
+			Link link = new Link();
+			link.setType(readEnum(in, LinkType.class));
+			link.setUrl(readString(in));
+			link.setSheetId(readLong(in));
+			link.setColumnId(readLong(in));
+			link.setRowId(readLong(in));
+			cell.setLink(link);
+		}
+		cell.setFormula(readString(in));
+		cell.setStrict(readBoolean(in));
+		return cell;
+	}
+
+	/**
+	 * Write a cell value, values of unknown types are written as their string representation.
+	 *
+	 * @param out the output
+	 * @param value the value
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(VALUE_NULL);
+		} else if (value instanceof String) {
+			out.writeByte(VALUE_STRING);
+			writeUtf8(out, (String) value);
+		} else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			out.writeByte(VALUE_INTEGER);
+			out.writeInt(((Number) value).intValue());
+		} else if (value instanceof Long) {
+			out.writeByte(VALUE_LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Double || value instanceof Float) {
+			out.writeByte(VALUE_DOUBLE);
+			out.writeDouble(((Number) value).doubleValue());
+		} else if (value instanceof Boolean) {
+			out.writeByte(VALUE_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else {
+			out.writeByte(VALUE_OTHER);
+			writeUtf8(out, value.toString());
+		}
+	}
+
+	/**
+	 * Read a cell value.
+	 *
+	 * @param in the input
+	 * @return the value
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static Object readValue(DataInputStream in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+			case VALUE_NULL:
+				return null;
+			case VALUE_STRING:
+			case VALUE_OTHER:
+				return readUtf8(in);
+			case VALUE_INTEGER:
+				return in.readInt();
+			case VALUE_LONG:
+				return in.readLong();
+			case VALUE_DOUBLE:
+				return in.readDouble();
+			case VALUE_BOOLEAN:
+				return in.readBoolean();
+			default:
+				throw new IOException("Unknown value tag " + tag);
+		}
+	}
+
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			writeUtf8(out, value);
+		}
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? readUtf8(in) : null;
+	}
+
+	/**
+	 * Write a string as length-prefixed UTF-8, DataOutputStream.writeUTF can't be used as it's limited to 64KB.
+	 *
+	 * @param out the output
+	 * @param value the value
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeUtf8(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readUtf8(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	static void writeLong(DataOutputStream out, Long value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeLong(value);
+		}
+	}
+
+	static Long readLong(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readLong() : null;
+	}
+
+	static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeInt(value);
+		}
+	}
+
+	static Integer readInteger(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readInt() : null;
+	}
+
+	/**
+	 * Write a nullable boolean as a single byte: -1 for null, 0 for false and 1 for true.
+	 *
+	 * @param out the output
+	 * @param value the value
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+		out.writeByte(value == null ? -1 : (value ? 1 : 0));
+	}
+
+	static Boolean readBoolean(DataInputStream in) throws IOException {
+		byte value = in.readByte();
+		return value < 0 ? null : Boolean.valueOf(value == 1);
+	}
+
+	static void writeDate(DataOutputStream out, Date value) throws IOException {
+		writeLong(out, value == null ? null : value.getTime());
+	}
+
+	static Date readDate(DataInputStream in) throws IOException {
+		Long time = readLong(in);
+		return time == null ? null : new Date(time);
+	}
+
+	static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+		writeString(out, value == null ? null : value.name());
+	}
+
+	/**
+	 * Read an enum constant by name, unknown names are read as null to match the lenient JSON deserialization.
+	 *
+	 * @param <E> the enum type
+	 * @param in the input
+	 * @param enumClass the enum class
+	 * @return the enum constant
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static <E extends Enum<E>> E readEnum(DataInputStream in, Class<E> enumClass) throws IOException {
+		String name = readString(in);
+		if (name == null) {
+			return null;
+		}
+		try {
+			return Enum.valueOf(enumClass, name);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * An InputStream reading the remaining bytes of a ByteBuffer, which allows direct and memory mapped buffers to
+	 * be decoded without copying them to the heap first.
+	 */
+	static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This class tracks the rows of cached sheets changed through this client so that a cached sheet whose version has
+ * moved on can be refreshed by re-fetching only those rows instead of the whole sheet.
+ *
+ * The Smartsheet REST API doesn't report which rows changed between two sheet versions, but every successful write
+ * increments the sheet version by one. So when the version of a sheet advanced by exactly the number of cell updates
+ * made through this client since it was cached, these updates are the only changes and the rows they touched are the
+ * delta. Any other difference, including writes made by other clients or structural changes such as inserted, moved
+ * or deleted rows, requires a full fetch.
+ *
+ * Even a known delta is only worth it when it is small: each changed row costs one round trip, which is weighed
+ * against a single request transferring the whole sheet, see {@link #planDelta(long, int, int)}.
+ *
+ * The number of tracked rows is bounded, the least recently used sheets are forgotten first. A forgotten sheet is
+ * simply refreshed with a full fetch.
+ *
+ * Thread Safety: This class is thread safe because all access to its mutable state is synchronized.
+ */
+public class SheetDeltaTracker {
+
+	/** The maximum number of rows re-fetched individually, more changed rows always use a full fetch. */
+	public static final int MAX_DELTA_ROWS = 50;
+
+	/** The estimated cost of a round trip expressed as the number of rows a full fetch transfers in the same time. */
+	public static final int ROUND_TRIP_ROWS = 200;
+
+	/** The default maximum number of tracked rows. */
+	public static final int DEFAULT_MAX_ROWS = 100000;
+
+	/** The maximum number of tracked rows. */
+	private final int maxRows;
+
+	/** The ID of the cached sheet holding each tracked row. */
+	private final Map<Long, Long> rowSheets = new HashMap<Long, Long>();
+
+	/** The changes of each tracked sheet, in access order. */
+	private final Map<Long, Changes> sheets = new LinkedHashMap<Long, Changes>(16, 0.75f, true);
+
+	/**
+	 * Constructor, tracking at most DEFAULT_MAX_ROWS rows.
+	 */
+	public SheetDeltaTracker() {
+		this(DEFAULT_MAX_ROWS);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if maxRows is not positive
+	 *
+	 * @param maxRows the maximum number of tracked rows
+	 */
+	public SheetDeltaTracker(int maxRows) {
+		if (maxRows <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.maxRows = maxRows;
+	}
+
+	/**
+	 * Start tracking a sheet that has just been cached, discarding changes recorded for a previous version. The least
+	 * recently used sheets are forgotten until at most maxRows rows are tracked, which can include this sheet.
+	 *
+	 * Exceptions: - IllegalArgumentException : if sheet or its ID is null
+	 *
+	 * @param sheet the sheet
+	 */
+	public synchronized void track(Sheet sheet) {
+		Util.throwIfNull(sheet);
+		Util.throwIfNull(sheet.getId());
+
+		forget(sheet.getId());
+		Changes changes = new Changes(sheet.getVersion(), sheet.getRows() == null ? 0 : sheet.getRows().size());
+		if (sheet.getRows() != null) {
+			changes.rowIds = new long[sheet.getRows().size()];
+			int i = 0;
+			for (Row row : sheet.getRows()) {
+				if (row.getId() != null) {
+					rowSheets.put(row.getId(), sheet.getId());
+					changes.rowIds[i++] = row.getId();
+				}
+			}
+		}
+		sheets.put(sheet.getId(), changes);
+
+		Iterator<Map.Entry<Long, Changes>> iterator = sheets.entrySet().iterator();
+		while (rowSheets.size() > maxRows && iterator.hasNext()) {
+			Map.Entry<Long, Changes> eldest = iterator.next();
+			iterator.remove();
+			forgetRows(eldest.getKey(), eldest.getValue());
+		}
+	}
+
+	/**
+	 * Stop tracking a sheet.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public synchronized void forget(long sheetId) {
+		Changes changes = sheets.remove(sheetId);
+		if (changes != null) {
+			forgetRows(sheetId, changes);
+		}
+	}
+
+	/**
+	 * Get the number of tracked rows.
+	 *
+	 * @return the number of rows
+	 */
+	public synchronized int getTrackedRows() {
+		return rowSheets.size();
+	}
+
+	/**
+	 * Stop tracking the rows of a sheet that is no longer tracked.
+	 *
+	 * @param sheetId the sheet id
+	 * @param changes the changes of the sheet
+	 */
+	private void forgetRows(long sheetId, Changes changes) {
+		if (changes.rowIds != null) {
+			for (long rowId : changes.rowIds) {
+				// A row moved to another tracked sheet belongs to that sheet now.
+				Long owner = rowSheets.get(rowId);
+				if (owner != null && owner == sheetId) {
+					rowSheets.remove(rowId);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Record a successful update of the cells of a row. Rows that don't belong to a tracked sheet are ignored.
+	 *
+	 * @param rowId the row id
+	 */
+	public synchronized void recordCellUpdate(long rowId) {
+		Long sheetId = rowSheets.get(rowId);
+		if (sheetId != null) {
+			Changes changes = sheets.get(sheetId);
+			changes.writes++;
+			changes.dirtyRows.add(rowId);
+		}
+	}
+
+	/**
+	 * Plan the refresh of a tracked sheet to a new version. Re-fetching the changed rows is chosen when they account
+	 * for the whole version difference, there are at most {@link #MAX_DELTA_ROWS} of them, and their round trips are
+	 * estimated to be cheaper than a full fetch, costing one round trip plus the transfer of every row.
+	 *
+	 * @param sheetId the sheet id
+	 * @param cachedVersion the version of the cached sheet
+	 * @param version the current version of the sheet
+	 * @return the IDs of the rows to re-fetch, or null if the sheet should be fetched in full
+	 */
+	public synchronized Set<Long> planDelta(long sheetId, int cachedVersion, int version) {
+		Changes changes = sheets.get(sheetId);
+		if (changes == null || changes.version == null || changes.version != cachedVersion
+				|| version - cachedVersion != changes.writes || changes.dirtyRows.isEmpty()) {
+			return null;
+		}
+
+		int rows = changes.dirtyRows.size();
+		if (rows > MAX_DELTA_ROWS || (long) rows * ROUND_TRIP_ROWS >= ROUND_TRIP_ROWS + changes.rowCount) {
+			return null;
+		}
+		return new LinkedHashSet<Long>(changes.dirtyRows);
+	}
+
+	/**
+	 * Replace the given rows of a sheet, returning false without modifying the sheet if any of them is missing.
+	 * The row list is replaced rather than modified so that readers iterating the previous list are not affected.
+	 *
+	 * @param sheet the sheet
+	 * @param rows the new rows, by ID
+	 * @return true if all rows were replaced
+	 */
+	public static boolean patchRows(Sheet sheet, Map<Long, Row> rows) {
+		List<Row> current = sheet.getRows();
+		if (current == null) {
+			return rows.isEmpty();
+		}
+
+		List<Row> patched = new ArrayList<Row>(current);
+		int replaced = 0;
+		for (int i = 0; i < patched.size(); i++) {
+			Row row = rows.get(patched.get(i).getId());
+			if (row != null) {
+				patched.set(i, row);
+				replaced++;
+			}
+		}
+		if (replaced != rows.size()) {
+			return false;
+		}
+		sheet.setRows(patched);
+		return true;
+	}
+
+	/**
+	 * The changes recorded for a tracked sheet.
+	 */
+	private static class Changes {
+		private final Integer version;
+		private final int rowCount;
+		private long[] rowIds;
+		private int writes;
+		private final Set<Long> dirtyRows = new LinkedHashSet<Long>();
+
+		Changes(Integer version, int rowCount) {
+			this.version = version;
+			this.rowCount = rowCount;
+		}
+	}
+}
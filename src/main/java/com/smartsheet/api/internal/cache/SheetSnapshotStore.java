@@ -0,0 +1,243 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This class persists sheet snapshots in a directory so that they survive restarts, one file per sheet in the format
+ * written by {@link ColumnarSheetWriter}.
+ *
+ * Files are named after the sheet ID and version, so the versions of all snapshots are known from a single directory
+ * listing on construction, without opening any file. A caller can therefore compare a snapshot version with the
+ * version reported by the Smartsheet REST API and only read the snapshot, through memory mapping, when it's current.
+ *
+ * Snapshots are written to a temporary file that is renamed once complete, so a crash of the process never leaves a
+ * partial snapshot behind. The file is not forced to disk, since snapshots are saved while a sheet is being read: a
+ * snapshot lost or left unreadable by a system crash is deleted when it's opened, and the sheet is fetched again.
+ * Files that don't match the naming scheme are left alone.
+ *
+ * Thread Safety: This class is thread safe because all access to its mutable state is synchronized.
+ */
+public class SheetSnapshotStore {
+
+	/** The suffix of the snapshot files. */
+	private static final String SUFFIX = ".snapshot";
+
+	/** The suffix of snapshot files being written. */
+	private static final String TEMP_SUFFIX = ".snapshot.tmp";
+
+	/** The directory. */
+	private final File directory;
+
+	/** The version of each snapshot, by sheet ID. */
+	private final Map<Long, Integer> versions = new HashMap<Long, Integer>();
+
+	/**
+	 * Constructor, indexing the snapshots already in the directory.
+	 *
+	 * Exceptions: - IllegalArgumentException : if directory is null or can't be created
+	 *
+	 * @param directory the directory, created if it does not exist
+	 */
+	public SheetSnapshotStore(File directory) {
+		Util.throwIfNull(directory);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IllegalArgumentException("Unable to create snapshot directory " + directory);
+		}
+		this.directory = directory;
+
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.endsWith(TEMP_SUFFIX)) {
+					file.delete();
+				} else if (name.endsWith(SUFFIX)) {
+					index(file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the version of the snapshot of a sheet.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the version, or null if there is no snapshot
+	 */
+	public synchronized Integer getVersion(long sheetId) {
+		return versions.get(sheetId);
+	}
+
+	/**
+	 * Save a snapshot of a sheet, replacing any snapshot of another version. Nothing is written if a snapshot of the
+	 * same version exists already.
+	 *
+	 * Exceptions: - IllegalArgumentException : if sheet, its ID or its version is null
+	 *
+	 * @param sheet the sheet
+	 * @return true if the snapshot is saved, false if it can't be written
+	 */
+	public synchronized boolean save(Sheet sheet) {
+		Util.throwIfNull(sheet);
+		Util.throwIfNull(sheet.getId(), sheet.getVersion());
+
+		Integer previous = versions.get(sheet.getId());
+		if (sheet.getVersion().equals(previous)) {
+			return true;
+		}
+
+		File temp = new File(directory, sheet.getId() + "-" + sheet.getVersion() + TEMP_SUFFIX);
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(temp, "rw");
+			raf.setLength(0);
+			ColumnarSheetWriter.write(sheet, raf.getChannel());
+		} catch (IOException e) {
+			close(raf);
+			temp.delete();
+			return false;
+		}
+		if (!close(raf) || !temp.renameTo(file(sheet.getId(), sheet.getVersion()))) {
+			temp.delete();
+			return false;
+		}
+
+		if (previous != null) {
+			file(sheet.getId(), previous).delete();
+		}
+		versions.put(sheet.getId(), sheet.getVersion());
+		return true;
+	}
+
+	/**
+	 * Open the snapshot of a sheet through memory mapping. A snapshot that can't be read is deleted.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the reader, or null if there is no readable snapshot
+	 */
+	public synchronized ColumnarSheetReader open(long sheetId) {
+		Integer version = versions.get(sheetId);
+		if (version == null) {
+			return null;
+		}
+
+		try {
+			ColumnarSheetReader reader = ColumnarSheetReader.open(file(sheetId, version));
+			if (reader.getSheetId() == sheetId && version.equals(reader.getVersion())) {
+				return reader;
+			}
+		} catch (IOException e) {
+			// Fall through, the snapshot is unusable.
+		} catch (IllegalArgumentException e) {
+			// Fall through, the snapshot is unusable.
+		}
+		delete(sheetId);
+		return null;
+	}
+
+	/**
+	 * Load the snapshot of a sheet.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the sheet, or null if there is no readable snapshot
+	 */
+	public Sheet load(long sheetId) {
+		ColumnarSheetReader reader = open(sheetId);
+		if (reader == null) {
+			return null;
+		}
+		try {
+			return reader.toSheet();
+		} catch (IllegalArgumentException e) {
+			delete(sheetId);
+			return null;
+		}
+	}
+
+	/**
+	 * Delete the snapshot of a sheet.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public synchronized void delete(long sheetId) {
+		Integer version = versions.remove(sheetId);
+		if (version != null) {
+			file(sheetId, version).delete();
+		}
+	}
+
+	/**
+	 * Index a snapshot file named after its sheet ID and version, deleting older versions of the same sheet.
+	 *
+	 * @param file the file
+	 */
+	private void index(File file) {
+		String name = file.getName().substring(0, file.getName().length() - SUFFIX.length());
+		int separator = name.lastIndexOf('-');
+		if (separator <= 0) {
+			return;
+		}
+
+		long sheetId;
+		int version;
+		try {
+			sheetId = Long.parseLong(name.substring(0, separator));
+			version = Integer.parseInt(name.substring(separator + 1));
+		} catch (NumberFormatException e) {
+			return;
+		}
+
+		Integer existing = versions.get(sheetId);
+		if (existing != null && existing > version) {
+			file.delete();
+			return;
+		}
+		if (existing != null) {
+			file(sheetId, existing).delete();
+		}
+		versions.put(sheetId, version);
+	}
+
+	private File file(long sheetId, int version) {
+		return new File(directory, sheetId + "-" + version + SUFFIX);
+	}
+
+	private static boolean close(RandomAccessFile raf) {
+		if (raf == null) {
+			return true;
+		}
+		try {
+			raf.close();
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+}
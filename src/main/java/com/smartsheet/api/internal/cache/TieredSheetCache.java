@@ -0,0 +1,465 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.smartsheet.api.internal.util.Util;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Column;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+
+/**
+ * This is a SheetCache implementation that keeps sheets in up to three tiers, each with its own byte budget:
+ * <ul>
+ * <li>the heap tier keeps hot sheets as Sheet objects</li>
+ * <li>the off-heap tier keeps warm sheets encoded by {@link SheetCodec} in direct ByteBuffer slabs</li>
+ * <li>the disk tier spills cold encoded sheets to files which are read back through memory mapping</li>
+ * </ul>
+ *
+ * New sheets enter the heap tier. When a tier exceeds its budget its least recently used sheets are demoted to the
+ * next tier, and sheets leaving the last tier are dropped. A sheet found in a lower tier is promoted back to the heap
+ * tier once it has been read {@link #PROMOTION_HITS} times since its demotion. A tier with a budget of zero is skipped.
+ *
+ * Thread Safety: This class is thread safe because all access to its mutable state is synchronized.
+ */
+public class TieredSheetCache implements SheetCache {
+
+	/** The number of reads from a lower tier after which a sheet is promoted to the heap tier. */
+	public static final int PROMOTION_HITS = 2;
+
+	/** The tiers. */
+	private enum Tier { HEAP, OFF_HEAP, DISK }
+
+	/** The heap tier budget in (estimated) bytes. */
+	private final long heapBytes;
+
+	/** The time to live in milliseconds, after which a sheet needs to be validated. */
+	private final long timeToLive;
+
+	/** The off-heap tier store, null if the tier is disabled. */
+	private final OffHeapSlabStore offHeap;
+
+	/** The disk tier store, null if the tier is disabled. */
+	private final DiskSpillStore disk;
+
+	/** The estimated bytes held by the heap tier. */
+	private long heapUsed;
+
+	/** All entries, by sheet ID. */
+	private final Map<Long, Entry> index = new HashMap<Long, Entry>();
+
+	/** The entries of each tier in least recently used order. */
+	private final Map<Tier, LinkedHashMap<Long, Entry>> tiers = new HashMap<Tier, LinkedHashMap<Long, Entry>>();
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any budget or the time to live is negative
+	 *
+	 * @param heapBytes the heap tier budget in estimated bytes, zero to disable the tier
+	 * @param offHeapBytes the off-heap tier budget in bytes, zero to disable the tier
+	 * @param diskBytes the disk tier budget in bytes, zero to disable the tier
+	 * @param directory the directory for the disk tier (optional, a temporary directory is used if null)
+	 * @param timeToLive the time in milliseconds a sheet is fresh after being stored or validated
+	 */
+	public TieredSheetCache(long heapBytes, long offHeapBytes, long diskBytes, File directory, long timeToLive) {
+		if (heapBytes < 0 || offHeapBytes < 0 || diskBytes < 0 || timeToLive < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.heapBytes = heapBytes;
+		this.timeToLive = timeToLive;
+		this.offHeap = offHeapBytes > 0 ? new OffHeapSlabStore(offHeapBytes, OffHeapSlabStore.DEFAULT_PAGE_SIZE) : null;
+		if (diskBytes > 0) {
+			boolean temporary = directory == null;
+			if (temporary) {
+				directory = new File(System.getProperty("java.io.tmpdir"), "smartsheet-cache-" + System.nanoTime());
+			}
+			this.disk = new DiskSpillStore(directory, diskBytes, temporary);
+		} else {
+			this.disk = null;
+		}
+		for (Tier tier : Tier.values()) {
+			tiers.put(tier, new LinkedHashMap<Long, Entry>(16, 0.75f, true));
+		}
+	}
+
+	/**
+	 * Get a cached sheet, promoting it to the heap tier if it has been read often enough from a lower tier.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the cached sheet, or null if the sheet is not cached
+	 */
+	public synchronized Sheet get(long sheetId) {
+		Entry entry = find(sheetId);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.tier == Tier.HEAP) {
+			return entry.sheet;
+		}
+
+		Sheet sheet = load(entry);
+		if (sheet == null) {
+			invalidate(sheetId);
+			return null;
+		}
+
+		entry.hits++;
+		if (entry.hits >= PROMOTION_HITS && heapBytes > 0) {
+			removeFromStore(entry);
+			tiers.get(entry.tier).remove(sheetId);
+			entry.sheet = sheet;
+			entry.hits = 0;
+			admitToHeap(entry);
+		}
+		return sheet;
+	}
+
+	/**
+	 * Get a cached sheet without promoting it or updating the recently used order of its tier.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the cached sheet, or null if the sheet is not cached
+	 */
+	public synchronized Sheet peek(long sheetId) {
+		Entry entry = peekEntry(sheetId);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.tier == Tier.HEAP) {
+			return entry.sheet;
+		}
+
+		Sheet sheet = load(entry);
+		if (sheet == null) {
+			invalidate(sheetId);
+		}
+		return sheet;
+	}
+
+	/**
+	 * Put a sheet into the heap tier, or the first lower tier that can hold it.
+	 *
+	 * Exceptions: - IllegalArgumentException : if sheet or its ID is null
+	 *
+	 * @param sheet the sheet
+	 */
+	public synchronized void put(Sheet sheet) {
+		Util.throwIfNull(sheet);
+		Util.throwIfNull(sheet.getId());
+
+		invalidate(sheet.getId());
+
+		Entry entry = new Entry(sheet.getId());
+		entry.sheet = sheet;
+		entry.heapSize = estimateHeapBytes(sheet);
+		entry.validatedAt = System.currentTimeMillis();
+		index.put(entry.sheetId, entry);
+		admitToHeap(entry);
+	}
+
+	/**
+	 * Check if a cached sheet was stored or validated within the time to live.
+	 *
+	 * @param sheetId the sheet id
+	 * @return true if the sheet is cached and fresh, false otherwise
+	 */
+	public synchronized boolean isFresh(long sheetId) {
+		Entry entry = peekEntry(sheetId);
+		return entry != null && System.currentTimeMillis() - entry.validatedAt < timeToLive;
+	}
+
+	/**
+	 * Get the time a cached sheet was last stored or validated.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the time in milliseconds since the epoch, or -1 if the sheet is not cached
+	 */
+	public synchronized long getValidatedAt(long sheetId) {
+		Entry entry = peekEntry(sheetId);
+		return entry == null ? -1 : entry.validatedAt;
+	}
+
+	/**
+	 * Mark a cached sheet as validated now.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public synchronized void touch(long sheetId) {
+		Entry entry = peekEntry(sheetId);
+		if (entry != null) {
+			entry.validatedAt = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Remove a sheet from the cache.
+	 *
+	 * @param sheetId the sheet id
+	 */
+	public synchronized void invalidate(long sheetId) {
+		Entry entry = index.remove(sheetId);
+		if (entry != null) {
+			tiers.get(entry.tier).remove(sheetId);
+			removeFromStore(entry);
+		}
+	}
+
+	/**
+	 * Remove all sheets from the cache.
+	 */
+	public synchronized void clear() {
+		index.clear();
+		for (LinkedHashMap<Long, Entry> entries : tiers.values()) {
+			entries.clear();
+		}
+		heapUsed = 0;
+		if (offHeap != null) {
+			offHeap.clear();
+		}
+		if (disk != null) {
+			disk.clear();
+		}
+	}
+
+	/**
+	 * Get the estimated bytes held by the heap tier.
+	 *
+	 * @return the estimated bytes
+	 */
+	public synchronized long getHeapBytesUsed() {
+		return heapUsed;
+	}
+
+	/**
+	 * Get the bytes held by the off-heap tier, rounded up to whole pages.
+	 *
+	 * @return the bytes
+	 */
+	public synchronized long getOffHeapBytesUsed() {
+		return offHeap == null ? 0 : offHeap.getUsedBytes();
+	}
+
+	/**
+	 * Get the bytes held by the disk tier.
+	 *
+	 * @return the bytes
+	 */
+	public synchronized long getDiskBytesUsed() {
+		return disk == null ? 0 : disk.getUsedBytes();
+	}
+
+	/**
+	 * Find an entry in any tier, updating the recently used order of its tier.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the entry, or null if not found
+	 */
+	private Entry find(long sheetId) {
+		Entry entry = index.get(sheetId);
+		if (entry != null) {
+			tiers.get(entry.tier).get(sheetId);
+		}
+		return entry;
+	}
+
+	/**
+	 * Find an entry in any tier without updating the recently used order.
+	 *
+	 * @param sheetId the sheet id
+	 * @return the entry, or null if not found
+	 */
+	private Entry peekEntry(long sheetId) {
+		return index.get(sheetId);
+	}
+
+	/**
+	 * Admit an entry holding a Sheet object to the heap tier, demoting least recently used entries if the tier is
+	 * over budget. An entry too large for the heap tier is demoted straight away.
+	 *
+	 * @param entry the entry
+	 */
+	private void admitToHeap(Entry entry) {
+		if (entry.heapSize > heapBytes) {
+			demote(entry, Tier.HEAP);
+			return;
+		}
+
+		entry.tier = Tier.HEAP;
+		tiers.get(Tier.HEAP).put(entry.sheetId, entry);
+		heapUsed += entry.heapSize;
+
+		Iterator<Entry> eldest = tiers.get(Tier.HEAP).values().iterator();
+		while (heapUsed > heapBytes && eldest.hasNext()) {
+			Entry victim = eldest.next();
+			eldest.remove();
+			heapUsed -= victim.heapSize;
+			demote(victim, Tier.HEAP);
+		}
+	}
+
+	/**
+	 * Demote an entry that was removed from the given tier into the next enabled tier that can hold it.
+	 *
+	 * @param entry the entry
+	 * @param from the tier the entry was removed from
+	 */
+	private void demote(Entry entry, Tier from) {
+		byte[] bytes;
+		if (from == Tier.HEAP) {
+			bytes = SheetCodec.encode(entry.sheet);
+		} else if (from == Tier.OFF_HEAP) {
+			bytes = offHeap.load(entry.sheetId);
+			offHeap.remove(entry.sheetId);
+		} else {
+			disk.remove(entry.sheetId);
+			index.remove(entry.sheetId);
+			return;
+		}
+		entry.sheet = null;
+		entry.hits = 0;
+
+		if (from == Tier.HEAP && offHeap != null && offHeap.canHold(bytes.length)) {
+			makeRoom(Tier.OFF_HEAP, bytes.length);
+			if (offHeap.store(entry.sheetId, bytes)) {
+				entry.tier = Tier.OFF_HEAP;
+				tiers.get(Tier.OFF_HEAP).put(entry.sheetId, entry);
+				return;
+			}
+		}
+		if (bytes != null && disk != null && disk.canHold(bytes.length)) {
+			makeRoom(Tier.DISK, bytes.length);
+			if (disk.store(entry.sheetId, bytes)) {
+				entry.tier = Tier.DISK;
+				tiers.get(Tier.DISK).put(entry.sheetId, entry);
+				return;
+			}
+		}
+		index.remove(entry.sheetId);
+	}
+
+	/**
+	 * Demote least recently used entries of a lower tier until an entry of the given size fits.
+	 *
+	 * @param tier the tier
+	 * @param length the entry length in bytes
+	 */
+	private void makeRoom(Tier tier, int length) {
+		Iterator<Entry> eldest = tiers.get(tier).values().iterator();
+		while (!(tier == Tier.OFF_HEAP ? offHeap.fits(length) : disk.fits(length)) && eldest.hasNext()) {
+			Entry victim = eldest.next();
+			eldest.remove();
+			demote(victim, tier);
+		}
+	}
+
+	/**
+	 * Decode the sheet of an entry held by a lower tier.
+	 *
+	 * @param entry the entry
+	 * @return the sheet, or null if it can't be read
+	 */
+	private Sheet load(Entry entry) {
+		try {
+			if (entry.tier == Tier.OFF_HEAP) {
+				byte[] bytes = offHeap.load(entry.sheetId);
+				return bytes == null ? null : SheetCodec.decode(bytes);
+			}
+			ByteBuffer buffer = disk.load(entry.sheetId);
+			return buffer == null ? null : SheetCodec.decode(buffer);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Release the space held by an entry in its tier.
+	 *
+	 * @param entry the entry
+	 */
+	private void removeFromStore(Entry entry) {
+		if (entry.tier == Tier.HEAP) {
+			heapUsed -= entry.heapSize;
+		} else if (entry.tier == Tier.OFF_HEAP) {
+			offHeap.remove(entry.sheetId);
+		} else if (entry.tier == Tier.DISK) {
+			disk.remove(entry.sheetId);
+		}
+	}
+
+	/**
+	 * Estimate the heap bytes held by a Sheet object graph. The estimate is deliberately rough, it only needs to keep
+	 * the heap tier budget proportional to the sheet sizes.
+	 *
+	 * @param sheet the sheet
+	 * @return the estimated bytes
+	 */
+	static long estimateHeapBytes(Sheet sheet) {
+		long bytes = 256 + length(sheet.getName());
+		List<Column> columns = sheet.getColumns();
+		if (columns != null) {
+			for (Column column : columns) {
+				bytes += 160 + length(column.getTitle());
+			}
+		}
+		List<Row> rows = sheet.getRows();
+		if (rows != null) {
+			for (Row row : rows) {
+				bytes += 136;
+				if (row.getCells() != null) {
+					for (Cell cell : row.getCells()) {
+						bytes += 96 + length(cell.getDisplayValue()) + length(cell.getFormula())
+								+ (cell.getValue() instanceof String ? length((String) cell.getValue()) : 16);
+					}
+				}
+			}
+		}
+		return bytes;
+	}
+
+	private static long length(String value) {
+		return value == null ? 0 : 40 + 2L * value.length();
+	}
+
+	/**
+	 * A cache entry.
+	 */
+	private static class Entry {
+		private final long sheetId;
+		private Tier tier;
+		private Sheet sheet;
+		private long heapSize;
+		private int hits;
+		private long validatedAt;
+
+		Entry(long sheetId) {
+			this.sheetId = sheetId;
+		}
+	}
+}
@@ -36,6 +36,7 @@ import org.apache.http.client.methods.HttpPut;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 import com.smartsheet.api.internal.util.Util;
 
@@ -43,8 +44,8 @@ import com.smartsheet.api.internal.util.Util;
  * This is the Apache HttpClient (http://hc.apache.org/httpcomponents-client-ga/index.html) based HttpClient
  * implementation.
  * 
- * Thread Safety: This class is thread safe because it is immutable and the underlying Apache CloseableHttpClient is
- * thread safe.
+ * Thread Safety: This class is thread safe because the underlying Apache CloseableHttpClient is thread safe and the
+ * response awaiting {@link #releaseConnection()} is tracked per thread.
  */
 public class DefaultHttpClient implements HttpClient {
 	/**
@@ -54,20 +55,33 @@ public class DefaultHttpClient implements HttpClient {
 	 */
 	private final CloseableHttpClient httpClient;
 	
-	/** The apache http request. */
-	private org.apache.http.client.methods.HttpRequestBase apacheHttpRequest;
-	
-	/** The apache http response. */
-	private CloseableHttpResponse apacheHttpResponse;
+	/** The apache http response of the last request made by each thread, closed by releaseConnection. */
+	private final ThreadLocal<CloseableHttpResponse> apacheHttpResponse = new ThreadLocal<CloseableHttpResponse>();
 	
 
 	public static final String USER_AGENT = "Mozilla/5.0 Firefox/26.0";
+
+	/** The default maximum number of connections, which bounds the number of requests sent concurrently. */
+	public static final int DEFAULT_MAX_CONNECTIONS = 20;
 	
 	/**
-	 * Constructor.
+	 * Constructor, pooling at most DEFAULT_MAX_CONNECTIONS connections.
 	 */
 	public DefaultHttpClient() {
-		this(HttpClients.createDefault());
+		this(DEFAULT_MAX_CONNECTIONS);
+	}
+
+	/**
+	 * Constructor, pooling at most maxConnections connections. Since all requests go to the same host, this is the
+	 * maximum number of requests sent concurrently, further requests wait for a connection to be released. The
+	 * default Apache client only allows 2 connections per host.
+	 * 
+	 * Exceptions: - IllegalArgumentException : if maxConnections is not positive
+	 *
+	 * @param maxConnections the maximum number of connections
+	 */
+	public DefaultHttpClient(int maxConnections) {
+		this(createHttpClient(maxConnections));
 	}
 
 	/**
@@ -85,6 +99,24 @@ public class DefaultHttpClient implements HttpClient {
 		this.httpClient = httpClient;
 	}
 
+	/**
+	 * Create an Apache CloseableHttpClient whose connection pool allows maxConnections connections to the same host.
+	 * 
+	 * Exceptions: - IllegalArgumentException : if maxConnections is not positive
+	 *
+	 * @param maxConnections the maximum number of connections
+	 * @return the http client
+	 */
+	private static CloseableHttpClient createHttpClient(int maxConnections) {
+		if (maxConnections <= 0) {
+			throw new IllegalArgumentException();
+		}
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnections);
+		return HttpClients.custom().setConnectionManager(connectionManager).build();
+	}
+
 	/**
 	 * Make an HTTP request and return the response.
 	 * 
@@ -99,6 +131,7 @@ public class DefaultHttpClient implements HttpClient {
 		}
 		
 		HttpResponse smartsheetResponse = new HttpResponse();
+		org.apache.http.client.methods.HttpRequestBase apacheHttpRequest;
 
 		// Create Apache HTTP request based on the smartsheetRequest request type
 		if (HttpMethod.GET == smartsheetRequest.getMethod()) {
@@ -146,13 +179,15 @@ public class DefaultHttpClient implements HttpClient {
 		if (apacheHttpRequest instanceof HttpEntityEnclosingRequestBase && smartsheetRequest.getEntity() != null && 
 				smartsheetRequest.getEntity().getContent() != null) {
 			InputStreamEntity entity = new InputStreamEntity(smartsheetRequest.getEntity().getContent(), smartsheetRequest.getEntity().getContentLength());
-			entity.setChunked(false);
+			// Content of unknown length is streamed with chunked transfer encoding.
+			entity.setChunked(smartsheetRequest.getEntity().getContentLength() < 0);
 			((HttpEntityEnclosingRequestBase) apacheHttpRequest).setEntity(entity);
 		}
 		
 		// Make the HTTP request
 		try {
-			apacheHttpResponse = this.httpClient.execute(apacheHttpRequest);
+			CloseableHttpResponse apacheHttpResponse = this.httpClient.execute(apacheHttpRequest);
+			this.apacheHttpResponse.set(apacheHttpResponse);
 			
 			// Set returned headers
 			smartsheetResponse.setHeaders(new HashMap<String, String>());
@@ -194,7 +229,9 @@ public class DefaultHttpClient implements HttpClient {
 	 * @see com.smartsheet.api.internal.http.HttpClient#releaseConnection()
 	 */
 	public void releaseConnection() {
+		CloseableHttpResponse apacheHttpResponse = this.apacheHttpResponse.get();
 		if(apacheHttpResponse != null){
+			this.apacheHttpResponse.remove();
 			try {
 				apacheHttpResponse.close();
 			} catch (IOException e) {
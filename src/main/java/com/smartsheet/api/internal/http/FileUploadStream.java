@@ -0,0 +1,268 @@
+package com.smartsheet.api.internal.http;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.smartsheet.api.UploadListener;
+import com.smartsheet.api.internal.util.Util;
+
+/**
+ * This class streams a file to be uploaded, reading it through a file channel into a direct buffer and computing the
+ * digest of the content as it is read, so that the file is read once for both.
+ *
+ * The size of the file is fixed on construction; a file that ends early fails the upload instead of sending
+ * truncated content. The file is read with positional reads rather than memory mapped, since a mapped file truncated
+ * during the upload makes the JVM fail with an InternalError.
+ *
+ * Thread Safety: This class is not thread safe.
+ */
+public class FileUploadStream extends InputStream {
+
+	/** The digest algorithm. */
+	public static final String DIGEST_ALGORITHM = "SHA-256";
+
+	/** The size of the direct buffer the file is read into. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** The hexadecimal digits. */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/** The file. */
+	private final RandomAccessFile file;
+
+	/** The channel of the file. */
+	private final FileChannel channel;
+
+	/** The size of the file. */
+	private final long size;
+
+	/** The direct buffer holding the bytes read from the file and not yet consumed. */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/** The digest of the bytes consumed. */
+	private final MessageDigest digest;
+
+	/** The listener, null for none. */
+	private final UploadListener listener;
+
+	/** The time the first byte was read, in nanoseconds. */
+	private long startTime;
+
+	/** The number of bytes read from the file. */
+	private long position;
+
+	/** The number of bytes consumed. */
+	private long consumed;
+
+	/** The digest of the content, once fully consumed. */
+	private String hexDigest;
+
+	/** Whether the stream is closed. */
+	private boolean closed;
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if file is null
+	 *
+	 * @param file the file
+	 * @param listener the listener receiving the progress of the upload, null for none
+	 * @throws FileNotFoundException if the file can't be opened
+	 */
+	public FileUploadStream(File file, UploadListener listener) throws FileNotFoundException {
+		Util.throwIfNull(file);
+
+		try {
+			this.digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(DIGEST_ALGORITHM + " is required by the Java platform", e);
+		}
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+		long size;
+		try {
+			size = channel.size();
+		} catch (IOException e) {
+			size = file.length();
+		}
+		this.size = size;
+		this.listener = listener;
+		buffer.limit(0);
+	}
+
+	/**
+	 * Read the next byte.
+	 *
+	 * @return the byte, or -1 at the end of the file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+	}
+
+	/**
+	 * Read bytes, updating the digest with them.
+	 *
+	 * @param b the array receiving the bytes
+	 * @param off the offset in the array
+	 * @param len the maximum number of bytes to read
+	 * @return the number of bytes read, or -1 at the end of the file
+	 * @throws IOException if the stream is closed, the file can't be read or it ends before its initial size
+	 */
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (!buffer.hasRemaining() && !fill()) {
+			if (hexDigest == null) {
+				// An empty file.
+				hexDigest = toHex(digest.digest());
+			}
+			return -1;
+		}
+
+		int count = Math.min(len, buffer.remaining());
+		buffer.get(b, off, count);
+		digest.update(b, off, count);
+		consumed += count;
+		if (consumed == size) {
+			hexDigest = toHex(digest.digest());
+		}
+		return count;
+	}
+
+	/**
+	 * Get the number of bytes that can be read without blocking.
+	 *
+	 * @return the number of bytes in the buffer
+	 */
+	public int available() {
+		return closed ? 0 : buffer.remaining();
+	}
+
+	/**
+	 * Close the file. Closing an already closed stream has no effect.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			file.close();
+		}
+	}
+
+	/**
+	 * Get the size of the file when the stream was opened.
+	 *
+	 * @return the size in bytes
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Get the number of bytes read so far.
+	 *
+	 * @return the number of bytes
+	 */
+	public long getBytesRead() {
+		return consumed;
+	}
+
+	/**
+	 * Get the digest of the content.
+	 *
+	 * @return the digest as lower case hexadecimal, or null if the content hasn't been fully read
+	 */
+	public String getDigest() {
+		return hexDigest;
+	}
+
+	/**
+	 * Get the time elapsed since the first byte was read.
+	 *
+	 * @return the time in milliseconds, 0 if nothing has been read
+	 */
+	public long getElapsedMillis() {
+		return startTime == 0 ? 0 : (System.nanoTime() - startTime) / 1000000;
+	}
+
+	/**
+	 * Refill the buffer from the file and report the progress.
+	 *
+	 * @return false at the end of the file
+	 * @throws IOException if the file can't be read or it ends before its initial size
+	 */
+	private boolean fill() throws IOException {
+		if (position == size) {
+			return false;
+		}
+		if (startTime == 0) {
+			startTime = System.nanoTime();
+		}
+
+		buffer.clear();
+		buffer.limit((int) Math.min(BUFFER_SIZE, size - position));
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) == -1) {
+				throw new IOException("File ended after " + (position + buffer.position()) + " of " + size
+						+ " bytes");
+			}
+		}
+		buffer.flip();
+		position += buffer.remaining();
+
+		if (listener != null) {
+			long elapsed = System.nanoTime() - startTime;
+			listener.progress(position, size, elapsed <= 0 ? 0 : (long) (position * 1e9 / elapsed));
+		}
+		return true;
+	}
+
+	/**
+	 * Format bytes as lower case hexadecimal.
+	 *
+	 * @param bytes the bytes
+	 * @return the hexadecimal string
+	 */
+	static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+			chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+		}
+		return new String(chars);
+	}
+}
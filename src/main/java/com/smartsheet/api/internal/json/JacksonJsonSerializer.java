@@ -28,15 +28,23 @@ import java.util.Map;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.smartsheet.api.SheetHandler;
+import com.smartsheet.api.SmartsheetException;
 import com.smartsheet.api.internal.util.Util;
 import com.smartsheet.api.models.IdentifiableModel;
 import com.smartsheet.api.models.Result;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
 import com.smartsheet.api.models.format.Format;
 
 /**
@@ -294,4 +302,63 @@ public class JacksonJsonSerializer implements JsonSerializer {
 		}
 		return result;
 	}
+
+	/**
+	 * De-serialize a sheet from JSON, passing its rows to a handler one at a time.
+	 * 
+	 * The sheet object is read field by field with a streaming parser. The fields other than the rows are collected
+	 * in a tree, which is converted to a sheet when the rows start and again at the end. Each row is converted and
+	 * passed to the handler as soon as it is read. The columns precede the rows in the responses of the Smartsheet
+	 * REST API, fields that follow the rows are only part of the sheet passed at the end.
+	 * 
+	 * Exceptions: 
+	 *   - IllegalArgumentException : if any argument is null 
+	 *   - JSONSerializerException : if there is any other error occurred during the operation
+	 * 
+	 * @param inputStream the input stream from which the JSON will be read
+	 * @param handler the handler receiving the sheet
+	 * @throws SmartsheetException the exception thrown by the handler, or a JSONSerializerException
+	 */
+	// @Override
+	public void deserializeSheet(java.io.InputStream inputStream, SheetHandler handler) throws SmartsheetException {
+		Util.throwIfNull(inputStream, handler);
+
+		try {
+			JsonParser parser = OBJECT_MAPPER.getFactory().createParser(inputStream);
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JSONSerializerException("A sheet must be a JSON object.");
+			}
+
+			ObjectNode properties = OBJECT_MAPPER.createObjectNode();
+			boolean started = false;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if (!"rows".equals(name) || token != JsonToken.START_ARRAY) {
+					properties.set(name, OBJECT_MAPPER.<JsonNode>readTree(parser));
+					continue;
+				}
+
+				if (!started) {
+					handler.start(OBJECT_MAPPER.treeToValue(properties, Sheet.class));
+					started = true;
+				}
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					handler.row(OBJECT_MAPPER.readValue(parser, Row.class));
+				}
+			}
+
+			Sheet sheet = OBJECT_MAPPER.treeToValue(properties, Sheet.class);
+			if (!started) {
+				handler.start(sheet);
+			}
+			handler.end(sheet);
+		} catch (JsonParseException e) {
+			throw new JSONSerializerException(e);
+		} catch (JsonMappingException e) {
+			throw new JSONSerializerException(e);
+		} catch (IOException e) {
+			throw new JSONSerializerException(e);
+		}
+	}
 }
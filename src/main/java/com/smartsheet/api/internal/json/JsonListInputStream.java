@@ -0,0 +1,161 @@
+package com.smartsheet.api.internal.json;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.util.Util;
+
+/**
+ * This class is an InputStream producing the JSON of an object with a list field whose elements are read lazily from
+ * an iterator, so that the list can be sent as a request body without ever being held in memory.
+ *
+ * The object is serialized without the list field, which is then appended as the last field. Elements are serialized
+ * one at a time as the stream is read, only the JSON of the current element is buffered.
+ *
+ * Thread Safety: This class is not thread safe.
+ */
+public class JsonListInputStream extends InputStream {
+
+	/** The suffix closing the list and the object. */
+	private static final byte[] SUFFIX = { ']', '}' };
+
+	/** The serializer. */
+	private final JsonSerializer serializer;
+
+	/** The elements of the list. */
+	private final Iterator<?> elements;
+
+	/** The buffer the current element is serialized to. */
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+	/** The bytes being read. */
+	private byte[] current;
+
+	/** The position in the bytes being read. */
+	private int position;
+
+	/** Whether an element has been written. */
+	private boolean first = true;
+
+	/** Whether the suffix has been returned. */
+	private boolean finished;
+
+	/**
+	 * Constructor, the object is serialized immediately.
+	 *
+	 * Exceptions: - IllegalArgumentException : if any argument is null or field is empty, or if the object doesn't
+	 * serialize to a JSON object
+	 *
+	 * @param serializer the serializer
+	 * @param object the object, whose list field must be null so that it's omitted
+	 * @param field the name of the list field
+	 * @param elements the elements of the list
+	 * @throws JSONSerializerException if the object can't be serialized
+	 */
+	public JsonListInputStream(JsonSerializer serializer, Object object, String field, Iterator<?> elements)
+			throws JSONSerializerException {
+		Util.throwIfNull(serializer, object, field, elements);
+		Util.throwIfEmpty(field);
+
+		this.serializer = serializer;
+		this.elements = elements;
+
+		serializer.serialize(object, buffer);
+		byte[] json = buffer.toByteArray();
+		if (json.length < 2 || json[0] != '{' || json[json.length - 1] != '}') {
+			throw new IllegalArgumentException();
+		}
+		buffer.reset();
+		buffer.write(json, 0, json.length - 1);
+		if (json.length > 2) {
+			buffer.write(',');
+		}
+		byte[] name = ("\"" + field + "\":[").getBytes(Charset.forName("UTF-8"));
+		buffer.write(name, 0, name.length);
+		this.current = buffer.toByteArray();
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!fill()) {
+			return -1;
+		}
+		return current[position++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+		if (!fill()) {
+			return -1;
+		}
+		int count = Math.min(length, current.length - position);
+		System.arraycopy(current, position, bytes, offset, count);
+		position += count;
+		return count;
+	}
+
+	@Override
+	public int available() {
+		return current.length - position;
+	}
+
+	/**
+	 * Make sure there are bytes to read, serializing the next element or returning the suffix as needed.
+	 *
+	 * @return false at the end of the stream
+	 * @throws IOException if the next element can't be read or serialized
+	 */
+	private boolean fill() throws IOException {
+		while (position == current.length) {
+			if (elements.hasNext()) {
+				Object element = elements.next();
+				Util.throwIfNull(element);
+				buffer.reset();
+				if (!first) {
+					buffer.write(',');
+				}
+				first = false;
+				try {
+					serializer.serialize(element, buffer);
+				} catch (SmartsheetException e) {
+					throw new IOException(e.getMessage(), e);
+				}
+				current = buffer.toByteArray();
+			} else if (!finished) {
+				finished = true;
+				current = SUFFIX;
+			} else {
+				return false;
+			}
+			position = 0;
+		}
+		return true;
+	}
+}
@@ -29,6 +29,8 @@ import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.smartsheet.api.SheetHandler;
+import com.smartsheet.api.SmartsheetException;
 import com.smartsheet.api.models.Result;
 
 /**
@@ -148,4 +150,17 @@ public interface JsonSerializer {
 	public <T> Result<List<T>> deserializeListResult(Class<T> objectClass, java.io.InputStream inputStream)
 			throws JSONSerializerException;
 
+	/**
+	 * De-serialize a sheet from JSON, passing its rows to a handler one at a time instead of collecting them, so that
+	 * only one row is held in memory at a time.
+	 * 
+	 * Exceptions: - IllegalArgumentException : if any argument is null - JSONSerializerException : if there is any
+	 * other error occurred during the operation
+	 *
+	 * @param inputStream the input stream
+	 * @param handler the handler receiving the sheet
+	 * @throws SmartsheetException the exception thrown by the handler, or a JSONSerializerException
+	 */
+	public void deserializeSheet(java.io.InputStream inputStream, SheetHandler handler) throws SmartsheetException;
+
 }
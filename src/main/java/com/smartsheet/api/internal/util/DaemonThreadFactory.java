@@ -0,0 +1,63 @@
+package com.smartsheet.api.internal.util;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class creates the daemon threads of the SDK's worker pools, so that they never keep the JVM running. The
+ * threads are named after the pool and numbered from 1.
+ *
+ * Thread Safety: This class is thread safe because the thread count is atomic.
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+
+	/** The prefix of the thread names. */
+	private final String prefix;
+
+	/** The number of threads created. */
+	private final AtomicInteger count = new AtomicInteger();
+
+	/**
+	 * Constructor.
+	 *
+	 * Exceptions: - IllegalArgumentException : if prefix is null
+	 *
+	 * @param prefix the prefix of the thread names, followed by the thread number
+	 */
+	public DaemonThreadFactory(String prefix) {
+		Util.throwIfNull(prefix);
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Create a daemon thread.
+	 *
+	 * @param runnable the task of the thread
+	 * @return the thread
+	 */
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+}
@@ -0,0 +1,120 @@
+package com.smartsheet.api.models;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.File;
+
+/**
+ * Represents a file to attach to a sheet, row or comment in a bulk upload.
+ */
+public class AttachmentUpload {
+	/**
+	 * Represents the type of the object the file is attached to.
+	 */
+	private AttachmentParentType parentType;
+
+	/**
+	 * Represents the ID of the object the file is attached to.
+	 */
+	private Long parentId;
+
+	/**
+	 * Represents the file.
+	 */
+	private File file;
+
+	/**
+	 * Represents the content type of the file.
+	 */
+	private String contentType;
+
+	/**
+	 * Gets the type of the object the file is attached to.
+	 *
+	 * @return the parent type
+	 */
+	public AttachmentParentType getParentType() {
+		return parentType;
+	}
+
+	/**
+	 * Sets the type of the object the file is attached to.
+	 *
+	 * @param parentType the new parent type
+	 */
+	public void setParentType(AttachmentParentType parentType) {
+		this.parentType = parentType;
+	}
+
+	/**
+	 * Gets the ID of the object the file is attached to.
+	 *
+	 * @return the parent id
+	 */
+	public Long getParentId() {
+		return parentId;
+	}
+
+	/**
+	 * Sets the ID of the object the file is attached to.
+	 *
+	 * @param parentId the new parent id
+	 */
+	public void setParentId(Long parentId) {
+		this.parentId = parentId;
+	}
+
+	/**
+	 * Gets the file.
+	 *
+	 * @return the file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Sets the file.
+	 *
+	 * @param file the new file
+	 */
+	public void setFile(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Gets the content type of the file.
+	 *
+	 * @return the content type
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Sets the content type of the file.
+	 *
+	 * @param contentType the new content type
+	 */
+	public void setContentType(String contentType) {
+		this.contentType = contentType;
+	}
+}
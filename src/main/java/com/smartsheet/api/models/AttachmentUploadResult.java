@@ -0,0 +1,143 @@
+package com.smartsheet.api.models;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import com.smartsheet.api.SmartsheetException;
+
+/**
+ * Represents the outcome of one file of a bulk attachment upload.
+ */
+public class AttachmentUploadResult {
+	/**
+	 * Represents the upload.
+	 */
+	private AttachmentUpload upload;
+
+	/**
+	 * Represents the created attachment, null if the upload failed.
+	 */
+	private Attachment attachment;
+
+	/**
+	 * Represents the SHA-256 digest of the uploaded content, null if the upload failed.
+	 */
+	private String digest;
+
+	/**
+	 * Represents the number of attempts made.
+	 */
+	private Integer attempts;
+
+	/**
+	 * Represents the failure of the upload, null if it succeeded.
+	 */
+	private SmartsheetException failure;
+
+	/**
+	 * Gets the upload.
+	 *
+	 * @return the upload
+	 */
+	public AttachmentUpload getUpload() {
+		return upload;
+	}
+
+	/**
+	 * Sets the upload.
+	 *
+	 * @param upload the new upload
+	 */
+	public void setUpload(AttachmentUpload upload) {
+		this.upload = upload;
+	}
+
+	/**
+	 * Gets the created attachment.
+	 *
+	 * @return the attachment, null if the upload failed
+	 */
+	public Attachment getAttachment() {
+		return attachment;
+	}
+
+	/**
+	 * Sets the created attachment.
+	 *
+	 * @param attachment the new attachment
+	 */
+	public void setAttachment(Attachment attachment) {
+		this.attachment = attachment;
+	}
+
+	/**
+	 * Gets the SHA-256 digest of the uploaded content.
+	 *
+	 * @return the digest as lower case hexadecimal, null if the upload failed
+	 */
+	public String getDigest() {
+		return digest;
+	}
+
+	/**
+	 * Sets the SHA-256 digest of the uploaded content.
+	 *
+	 * @param digest the new digest
+	 */
+	public void setDigest(String digest) {
+		this.digest = digest;
+	}
+
+	/**
+	 * Gets the number of attempts made.
+	 *
+	 * @return the attempts
+	 */
+	public Integer getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * Sets the number of attempts made.
+	 *
+	 * @param attempts the new attempts
+	 */
+	public void setAttempts(Integer attempts) {
+		this.attempts = attempts;
+	}
+
+	/**
+	 * Gets the failure of the upload.
+	 *
+	 * @return the failure, null if the upload succeeded
+	 */
+	public SmartsheetException getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Sets the failure of the upload.
+	 *
+	 * @param failure the new failure
+	 */
+	public void setFailure(SmartsheetException failure) {
+		this.failure = failure;
+	}
+}
@@ -2,6 +2,7 @@ package com.smartsheet.api.models;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import com.smartsheet.api.models.format.Format;
 
@@ -231,6 +232,26 @@ public class Cell {
 		/** The cells. */
 		List<Cell> cells = new ArrayList<Cell>();
 		
+		/** The column IDs by title, used to add cells by column title. */
+		private final Map<String, Long> columnIdsByTitle;
+		
+		/**
+		 * Constructor.
+		 */
+		public UpdateRowCellsBuilder() {
+			this(null);
+		}
+		
+		/**
+		 * Constructor for a builder that can also add cells by column title, see
+		 * {@link com.smartsheet.api.SheetColumnResources#getColumnIdsByTitle(long)}.
+		 *
+		 * @param columnIdsByTitle the column IDs by title
+		 */
+		public UpdateRowCellsBuilder(Map<String, Long> columnIdsByTitle) {
+			this.columnIdsByTitle = columnIdsByTitle;
+		}
+		
 		/**
 		 * Adds the cell.
 		 *
@@ -264,6 +285,35 @@ public class Cell {
 			return this;
 		}
 		
+		/**
+		 * Adds the cell of the column with the given title.
+		 *
+		 * @param columnTitle the column title
+		 * @param value the value
+		 * @param strict the strict
+		 * @return the update row cells builder
+		 * @throws IllegalArgumentException if the builder has no column IDs by title or the title is unknown
+		 */
+		public UpdateRowCellsBuilder addCell(String columnTitle, Object value, Boolean strict) {
+			Long columnId = columnIdsByTitle == null ? null : columnIdsByTitle.get(columnTitle);
+			if (columnId == null) {
+				throw new IllegalArgumentException("Unknown column title " + columnTitle);
+			}
+			return addCell(columnId, value, strict);
+		}
+		
+		/**
+		 * Adds the cell of the column with the given title.
+		 *
+		 * @param columnTitle the column title
+		 * @param value the value
+		 * @return the update row cells builder
+		 * @throws IllegalArgumentException if the builder has no column IDs by title or the title is unknown
+		 */
+		public UpdateRowCellsBuilder addCell(String columnTitle, Object value) {
+			return addCell(columnTitle, value, true);
+		}
+		
 		/**
 		 * Returns the list of cells.
 		 *
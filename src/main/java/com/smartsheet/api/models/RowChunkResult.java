@@ -0,0 +1,146 @@
+package com.smartsheet.api.models;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.util.List;
+
+import com.smartsheet.api.SmartsheetException;
+
+/**
+ * Represents the outcome of inserting one chunk of rows in a bulk insert.
+ */
+public class RowChunkResult {
+	/**
+	 * Represents the position of the chunk, starting at 0.
+	 */
+	private Integer chunkIndex;
+
+	/**
+	 * Represents the rows sent in the chunk.
+	 */
+	private List<Row> rows;
+
+	/**
+	 * Represents the rows created by the chunk, null if it failed.
+	 */
+	private List<Row> insertedRows;
+
+	/**
+	 * Represents the failure of the chunk, null if it succeeded.
+	 */
+	private SmartsheetException failure;
+
+	/**
+	 * Represents whether the rows were inserted below the rows of every previous successful chunk, null if the chunk
+	 * failed or if the row numbers are unknown.
+	 */
+	private Boolean inOrder;
+
+	/**
+	 * Gets the chunk index.
+	 *
+	 * @return the chunk index
+	 */
+	public Integer getChunkIndex() {
+		return chunkIndex;
+	}
+
+	/**
+	 * Sets the chunk index.
+	 *
+	 * @param chunkIndex the new chunk index
+	 */
+	public void setChunkIndex(Integer chunkIndex) {
+		this.chunkIndex = chunkIndex;
+	}
+
+	/**
+	 * Gets the rows sent in the chunk.
+	 *
+	 * @return the rows
+	 */
+	public List<Row> getRows() {
+		return rows;
+	}
+
+	/**
+	 * Sets the rows sent in the chunk.
+	 *
+	 * @param rows the new rows
+	 */
+	public void setRows(List<Row> rows) {
+		this.rows = rows;
+	}
+
+	/**
+	 * Gets the rows created by the chunk.
+	 *
+	 * @return the inserted rows, null if the chunk failed
+	 */
+	public List<Row> getInsertedRows() {
+		return insertedRows;
+	}
+
+	/**
+	 * Sets the rows created by the chunk.
+	 *
+	 * @param insertedRows the new inserted rows
+	 */
+	public void setInsertedRows(List<Row> insertedRows) {
+		this.insertedRows = insertedRows;
+	}
+
+	/**
+	 * Gets the failure of the chunk.
+	 *
+	 * @return the failure, null if the chunk succeeded
+	 */
+	public SmartsheetException getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Sets the failure of the chunk.
+	 *
+	 * @param failure the new failure
+	 */
+	public void setFailure(SmartsheetException failure) {
+		this.failure = failure;
+	}
+
+	/**
+	 * Gets whether the rows were inserted below the rows of every previous successful chunk.
+	 *
+	 * @return true if the chunk kept its order, null if it failed or if the row numbers are unknown
+	 */
+	public Boolean getInOrder() {
+		return inOrder;
+	}
+
+	/**
+	 * Sets whether the rows were inserted below the rows of every previous successful chunk.
+	 *
+	 * @param inOrder the new in order flag
+	 */
+	public void setInOrder(Boolean inOrder) {
+		this.inOrder = inOrder;
+	}
+}
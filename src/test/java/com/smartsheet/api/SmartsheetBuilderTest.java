@@ -20,7 +20,9 @@ package com.smartsheet.api;
  * %[license]
  */
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -51,6 +53,16 @@ public class SmartsheetBuilderTest {
 		Smartsheet ss = (SmartsheetImpl)new SmartsheetBuilder().setBaseURI("a").setAccessToken("b").setHttpClient(
 				new DefaultHttpClient()).setJsonSerializer(new JacksonJsonSerializer()).setAssumedUser("user").build();
 		ss.getClass();
+
+		SmartsheetBuilder builder = new SmartsheetBuilder().setMaxConnections(50);
+		assertEquals(50, builder.getMaxConnections());
+		builder.build();
+		try {
+			new SmartsheetBuilder().setMaxConnections(0).build();
+			fail("Exception should have been thrown");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
 	}
 
 }
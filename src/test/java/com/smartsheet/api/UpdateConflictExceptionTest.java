@@ -0,0 +1,55 @@
+package com.smartsheet.api;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.models.Error;
+
+public class UpdateConflictExceptionTest {
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@Test
+	public void testUpdateConflictException() {
+		try{
+			throw new UpdateConflictException("testing testing");
+		}catch(UpdateConflictException e){
+			assertEquals("testing testing",e.getMessage());
+			assertEquals(0, e.getErrorCode());
+		}
+
+		Exception cause = new Exception();
+		assertSame(cause, new UpdateConflictException("testing", cause).getCause());
+
+		Error error = new Error();
+		error.setErrorCode(4004);
+		error.setMessage("busy");
+		assertEquals(4004, new UpdateConflictException("testing", new SmartsheetRestException(error)).getErrorCode());
+	}
+
+}
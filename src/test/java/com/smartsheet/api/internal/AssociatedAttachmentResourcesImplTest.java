@@ -25,12 +25,14 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.UploadListener;
 import com.smartsheet.api.internal.http.DefaultHttpClient;
 import com.smartsheet.api.models.Attachment;
 import com.smartsheet.api.models.AttachmentParentType;
@@ -74,6 +76,28 @@ public class AssociatedAttachmentResourcesImplTest extends ResourcesImplBase {
 		assertEquals(AttachmentParentType.SHEET, attachment.getParentType());
 	}
 
+	@Test
+	public void testAttachFileWithListener() throws SmartsheetException, IOException {
+		server.setResponseBody(new File("src/test/resources/attachFile.json"));
+		File file = new File("src/test/resources/large_sheet.pdf");
+		final List<Long> progress = new ArrayList<Long>();
+		final String[] digest = new String[1];
+		Attachment attachment = associatedAttachment.attachFile(1234L, file, "application/pdf", new UploadListener() {
+			public void progress(long sent, long total, long bytesPerSecond) {
+				assertEquals(936995L, total);
+				progress.add(sent);
+			}
+
+			public void uploaded(long size, String sha256, long elapsedMillis) {
+				assertEquals(936995L, size);
+				digest[0] = sha256;
+			}
+		});
+		assertEquals("Testing.PDF", attachment.getName());
+		assertEquals(936995L, progress.get(progress.size() - 1).longValue());
+		assertEquals(64, digest[0].length());
+	}
+
 	@Test
 	public void testAttachURL() throws SmartsheetException, IOException {
 		server.setResponseBody(new File("src/test/resources/attachLink.json"));
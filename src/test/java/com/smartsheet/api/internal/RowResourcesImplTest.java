@@ -21,10 +21,12 @@ package com.smartsheet.api.internal;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
@@ -36,7 +38,11 @@ import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.smartsheet.api.CellMerger;
 import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.SmartsheetRestException;
+import com.smartsheet.api.UpdateConflictException;
+import com.smartsheet.api.internal.cache.RowValueTracker;
 import com.smartsheet.api.internal.http.DefaultHttpClient;
 import com.smartsheet.api.models.AccessLevel;
 import com.smartsheet.api.models.Cell;
@@ -95,6 +101,17 @@ public class RowResourcesImplTest extends ResourcesImplBase {
 		
 		assertTrue(rows.size() == 1);
 		assertTrue(rows.get(0).getCells().size() == 1);
+
+		// Without retries a busy sheet is reported as the original error.
+		server.setStatus(400);
+		server.setResponseBody("{\"errorCode\":4004,\"message\":\"The sheet is being updated.\"}");
+		try {
+			rowResourcesImpl.moveRow(1234L, rowWrapper);
+			fail("Exception should have been thrown");
+		} catch (SmartsheetRestException e) {
+			assertFalse(e instanceof UpdateConflictException);
+			assertEquals(4004, e.getErrorCode());
+		}
 	}
 
 	@Test
@@ -139,6 +156,55 @@ public class RowResourcesImplTest extends ResourcesImplBase {
 		assertTrue(8764071660021636L == cellResult.get(0).getColumnId());
 	}
 
+	@Test
+	public void testUpdateCellsWithMerger() throws SmartsheetException, IOException {
+		server.setResponseBody(new File("src/test/resources/updateCell.json"));
+		List<Cell> cells = new ArrayList<Cell>();
+		Cell cell = new Cell();
+		cell.setColumnId(8764071660021636L);
+		cell.setValue("Some New Text");
+		cells.add(cell);
+		final List<Row> merged = new ArrayList<Row>();
+		CellMerger merger = new CellMerger() {
+			public List<Cell> merge(Row current, List<Cell> cells) {
+				merged.add(current);
+				return null;
+			}
+		};
+
+		// A row that hasn't been seen is written without check, and the values written are remembered.
+		RowValueTracker values = rowResourcesImpl.getSmartsheet().getRowValueTracker();
+		assertEquals(2, rowResourcesImpl.updateCells(1234L, cells, merger, 1).size());
+		assertTrue(values.isTracked(1234L));
+		assertTrue(merged.isEmpty());
+
+		// The cell has been modified since it was last seen and the merger abandons the update.
+		server.setResponseBody(new File("src/test/resources/getRow.json"));
+		try {
+			rowResourcesImpl.updateCells(1234L, cells, merger, 1);
+			fail("Exception should have been thrown");
+		} catch (UpdateConflictException e) {
+			// Expected
+		}
+		assertEquals(1, merged.size());
+
+		// The current row is remembered once the merger has seen it.
+		Row current = merged.get(0);
+		assertFalse(values.isModified(1234L, current, cells));
+
+		// Requests rejected because the sheet is busy are retried.
+		values.forget(1234L);
+		server.setStatus(400);
+		server.setResponseBody("{\"errorCode\":4004,\"message\":\"The sheet is being updated.\"}");
+		try {
+			rowResourcesImpl.updateCells(1234L, cells, merger, 1);
+			fail("Exception should have been thrown");
+		} catch (UpdateConflictException e) {
+			assertEquals("The sheet is being updated.", e.getMessage());
+			assertEquals(4004, e.getErrorCode());
+		}
+	}
+
 	@Test
 	public void testGetCellHistory() throws IOException, SmartsheetException {
 		server.setResponseBody(new File("src/test/resources/getCellHistory.json"));
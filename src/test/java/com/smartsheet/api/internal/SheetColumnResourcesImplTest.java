@@ -21,12 +21,15 @@ package com.smartsheet.api.internal;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -34,6 +37,7 @@ import org.junit.Test;
 import com.smartsheet.api.SmartsheetException;
 import com.smartsheet.api.internal.http.DefaultHttpClient;
 import com.smartsheet.api.models.AutoNumberFormat;
+import com.smartsheet.api.models.Cell;
 import com.smartsheet.api.models.Column;
 import com.smartsheet.api.models.ColumnType;
 
@@ -61,6 +65,31 @@ public class SheetColumnResourcesImplTest extends ResourcesImplBase {
 		assertEquals(columns.get(0).getTitle(),"something new");
 	}
 
+	@Test
+	public void testGetColumnIdsByTitle() throws SmartsheetException, IOException {
+		server.setResponseBody(new File("src/test/resources/listColumns.json"));
+
+		Map<String, Long> ids = sheetColumnResourcesImpl.getColumnIdsByTitle(1234L);
+		assertEquals(Long.valueOf(8764071660021636L), ids.get("something new"));
+		assertEquals(Long.valueOf(8764071660021636L), sheetColumnResourcesImpl.getColumnIdsByIndex(1234L).get(0));
+
+		// The columns are cached until a column of the sheet changes.
+		assertSame(ids, sheetColumnResourcesImpl.getColumnIdsByTitle(1234L));
+
+		List<Cell> cells = new Cell.UpdateRowCellsBuilder(ids).addCell("something new", "value").build();
+		assertEquals(Long.valueOf(8764071660021636L), cells.get(0).getColumnId());
+
+		server.setResponseBody(new File("src/test/resources/addColumn.json"));
+		Column col = new Column();
+		col.setIndex(1);
+		col.setTitle("Status");
+		col.setType(ColumnType.TEXT_NUMBER);
+		sheetColumnResourcesImpl.addColumn(1234L, col);
+
+		server.setResponseBody(new File("src/test/resources/listColumns.json"));
+		assertNotSame(ids, sheetColumnResourcesImpl.getColumnIdsByTitle(1234L));
+	}
+
 	@Test
 	public void testAddColumn() throws SmartsheetException, IOException {
 		server.setResponseBody(new File("src/test/resources/addColumn.json"));
@@ -25,6 +25,7 @@ import static org.junit.Assert.*;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -38,6 +39,8 @@ import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.smartsheet.api.ProgressListener;
+import com.smartsheet.api.SheetHandler;
 import com.smartsheet.api.SmartsheetException;
 import com.smartsheet.api.internal.http.DefaultHttpClient;
 import com.smartsheet.api.models.AccessLevel;
@@ -46,6 +49,7 @@ import com.smartsheet.api.models.ColumnType;
 import com.smartsheet.api.models.FormatDetails;
 import com.smartsheet.api.models.ObjectInclusion;
 import com.smartsheet.api.models.PaperSize;
+import com.smartsheet.api.models.Row;
 import com.smartsheet.api.models.Sheet;
 import com.smartsheet.api.models.SheetEmail;
 import com.smartsheet.api.models.SheetEmailFormat;
@@ -112,6 +116,26 @@ public class SheetResourcesImplTest extends ResourcesImplBase {
 		
 	}
 
+	@Test
+	public void testStreamSheet() throws SmartsheetException, IOException {
+		server.setResponseBody(new File("src/test/resources/getSheetWithFormat.json"));
+		final List<String> events = new ArrayList<String>();
+		sheetResource.streamSheet(123123L, null, new SheetHandler() {
+			public void start(Sheet sheet) {
+				events.add("start " + sheet.getColumns().size() + " " + sheet.getAccessLevel());
+			}
+
+			public void row(Row row) {
+				events.add("row " + row.getRowNumber());
+			}
+
+			public void end(Sheet sheet) {
+				events.add("end " + sheet.getColumns().size() + " " + sheet.getAccessLevel() + " " + sheet.getRows());
+			}
+		});
+		assertEquals(Arrays.asList("start 9 null", "row 1", "row 2", "row 3", "end 9 OWNER null"), events);
+	}
+
 	@Test
 	public void testGetSheetAsExcel() throws SmartsheetException, IOException {
 		File file = new File("src/test/resources/getExcel.xls");
@@ -155,6 +179,41 @@ public class SheetResourcesImplTest extends ResourcesImplBase {
 		assertEquals("Downloaded PDF does not match the original size.",936995,output.toByteArray().length);
 	}
 
+	@Test
+	public void testGetSheetAsFileWithProgress() throws SmartsheetException, IOException {
+		File file = new File("src/test/resources/large_sheet.pdf");
+		server.setResponseBody(file);
+		server.setContentType("application/pdf");
+		final List<Long> progress = new ArrayList<Long>();
+		ProgressListener listener = new ProgressListener() {
+			public void progress(long completed, long total) {
+				progress.add(completed);
+			}
+		};
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		assertEquals(936995, sheetResource.getSheetAsPDF(1234L, Channels.newChannel(output), PaperSize.LEGAL,
+				listener));
+		assertEquals(936995, output.toByteArray().length);
+		assertEquals(936995L, progress.get(progress.size() - 1).longValue());
+
+		// The target file is replaced once complete, leaving no temporary file behind.
+		File directory = new File(System.getProperty("java.io.tmpdir"), "sheet-download-test-" + System.nanoTime());
+		directory.mkdirs();
+		File target = new File(directory, "sheet.xls");
+		file = new File("src/test/resources/getExcel.xls");
+		server.setResponseBody(file);
+		server.setContentType("application/vnd.ms-excel");
+		try {
+			assertEquals(file.length(), sheetResource.getSheetAsExcel(1234L, target, null));
+			assertEquals(file.length(), target.length());
+			assertEquals(1, directory.listFiles().length);
+		} finally {
+			target.delete();
+			directory.delete();
+		}
+	}
+
 	@Test
 	public void testCreateSheet() throws SmartsheetException, IOException {
 		server.setResponseBody(new File("src/test/resources/createSheet.json"));
@@ -24,6 +24,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
@@ -34,12 +35,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.SmartsheetRestException;
 import com.smartsheet.api.internal.http.DefaultHttpClient;
 import com.smartsheet.api.models.Cell;
 import com.smartsheet.api.models.Column;
 import com.smartsheet.api.models.Link;
 import com.smartsheet.api.models.LinkType;
 import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowChunkResult;
 import com.smartsheet.api.models.RowWrapper;
 
 public class SheetRowResourcesImplTest extends ResourcesImplBase {
@@ -95,6 +98,62 @@ public class SheetRowResourcesImplTest extends ResourcesImplBase {
 		assertNull(rows.get(0).getColumnById(8764071660021636L));
 	}
 
+	@Test
+	public void testInsertRowsFromIterator() throws SmartsheetException, IOException {
+		server.setResponseBody(new File("src/test/resources/insertRows.json"));
+
+		List<Row> rows = new ArrayList<Row>();
+		rows.add(new Row());
+		RowWrapper placement = new RowWrapper.InsertRowsBuilder().setToBottom(true).build();
+
+		List<Row> newRows = sheetRowResource.insertRows(1234L, placement, rows.iterator());
+		assertNotNull(newRows);
+		assertEquals(1, newRows.size());
+	}
+
+	@Test
+	public void testInsertRowsInChunks() throws SmartsheetException, IOException {
+		server.setResponseBody(new File("src/test/resources/insertRows.json"));
+
+		List<Row> rows = new ArrayList<Row>();
+		for (int i = 0; i < 5; i++) {
+			rows.add(new Row());
+		}
+
+		RowWrapper placement = new RowWrapper.InsertRowsBuilder().setSiblingId(1234L).build();
+		List<RowChunkResult> results = sheetRowResource.insertRows(1234L, placement, rows.iterator(), 2, 1);
+		assertEquals(3, results.size());
+		assertEquals(1, results.get(2).getRows().size());
+		assertNotNull(results.get(0).getInsertedRows());
+		assertNull(results.get(0).getFailure());
+		assertEquals(Boolean.TRUE, results.get(2).getInOrder());
+
+		placement = new RowWrapper.InsertRowsBuilder().setToBottom(true).build();
+		results = sheetRowResource.insertRows(1234L, placement, rows.iterator(), 2, 3);
+		assertEquals(3, results.size());
+		assertEquals(Integer.valueOf(1), results.get(1).getChunkIndex());
+		// Every chunk reports row number 1, so only the first landed below the previous chunks.
+		assertEquals(Boolean.TRUE, results.get(0).getInOrder());
+		assertEquals(Boolean.FALSE, results.get(1).getInOrder());
+
+		// Concurrent chunks can't be chained.
+		try {
+			sheetRowResource.insertRows(1234L, new RowWrapper.InsertRowsBuilder().setToTop(true).build(),
+					rows.iterator(), 2, 3);
+			fail("Exception should have been thrown");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+
+		// A busy sheet is retried, then reported as the failure of the chunk.
+		server.setStatus(400);
+		server.setResponseBody("{\"errorCode\":4004,\"message\":\"The sheet is being updated.\"}");
+		results = sheetRowResource.insertRows(1234L, placement, rows.iterator(), 5, 2);
+		assertEquals(1, results.size());
+		assertEquals(4004, ((SmartsheetRestException) results.get(0).getFailure()).getErrorCode());
+		assertNull(results.get(0).getInOrder());
+	}
+
 	@Test
 	public void testGetRow() throws SmartsheetException, IOException {
 		server.setResponseBody(new File("src/test/resources/getRow.json"));
@@ -0,0 +1,240 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.AssociatedAttachmentResources;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.ServiceUnavailableException;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.UploadListener;
+import com.smartsheet.api.internal.http.HttpClientException;
+import com.smartsheet.api.models.Attachment;
+import com.smartsheet.api.models.AttachmentParentType;
+import com.smartsheet.api.models.AttachmentUpload;
+import com.smartsheet.api.models.AttachmentUploadResult;
+import com.smartsheet.api.models.Error;
+
+public class BulkAttachmentUploaderTest {
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = new File(System.getProperty("java.io.tmpdir"), "attachment-uploader-test-" + System.nanoTime());
+		directory.mkdirs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testUpload() throws Exception {
+		List<String> names = Collections.synchronizedList(new ArrayList<String>());
+		TestAttachmentResources rows = new TestAttachmentResources(names);
+		TestAttachmentResources sheets = new TestAttachmentResources(names);
+		BulkAttachmentUploader uploader = new BulkAttachmentUploader(sheets, rows, null,
+				new RequestRateLimiter(60000, 100), 1, 0);
+
+		List<AttachmentUpload> uploads = Arrays.asList(upload(AttachmentParentType.ROW, 1L, "small", 10),
+				upload(AttachmentParentType.ROW, 2L, "large", 3000), upload(AttachmentParentType.SHEET, 3L, "busy", 500),
+				upload(AttachmentParentType.ROW, 4L, "missing", 100), upload(AttachmentParentType.ROW, 5L, "gone", 0));
+		uploads.get(4).setFile(new File(directory, "absent"));
+		List<AttachmentUploadResult> results = uploader.upload(uploads, null);
+
+		// A single worker uploads the largest files first.
+		assertEquals(Arrays.asList("large", "busy", "busy", "missing", "small", "absent"), names);
+
+		assertEquals(5, results.size());
+		assertEquals("small", results.get(0).getAttachment().getName());
+		assertEquals(Integer.valueOf(1), results.get(0).getAttempts());
+		assertEquals(64, results.get(0).getDigest().length());
+		assertNull(results.get(0).getFailure());
+
+		assertEquals("busy", results.get(2).getAttachment().getName());
+		assertEquals(Integer.valueOf(2), results.get(2).getAttempts());
+		assertNull(results.get(2).getFailure());
+
+		assertTrue(results.get(3).getFailure() instanceof ResourceNotFoundException);
+		assertEquals(Integer.valueOf(1), results.get(3).getAttempts());
+		assertNull(results.get(3).getAttachment());
+
+		assertTrue(results.get(4).getFailure().getCause() instanceof FileNotFoundException);
+	}
+
+	@Test
+	public void testConnectionFailure() throws Exception {
+		TestAttachmentResources rows = new TestAttachmentResources(new ArrayList<String>());
+		rows.failures = 1;
+		BulkAttachmentUploader uploader = new BulkAttachmentUploader(null, rows, null,
+				new RequestRateLimiter(60000, 100), 2, 0);
+		List<AttachmentUploadResult> results = uploader.upload(Arrays.asList(upload(AttachmentParentType.ROW, 1L,
+				"flaky", 10)), null);
+		assertEquals(Integer.valueOf(2), results.get(0).getAttempts());
+		assertNull(results.get(0).getFailure());
+		assertEquals("flaky", results.get(0).getAttachment().getName());
+
+		// A connection failure after part of the file was sent is not retried.
+		results = uploader.upload(Arrays.asList(upload(AttachmentParentType.ROW, 1L, "reset", 10)), null);
+		assertEquals(Integer.valueOf(1), results.get(0).getAttempts());
+		assertTrue(results.get(0).getFailure() instanceof HttpClientException);
+		assertNull(results.get(0).getAttachment());
+
+		try {
+			uploader.upload(Arrays.asList(upload(AttachmentParentType.COMMENT, 1L, "comment", 10)), null);
+			fail("Exception should have been thrown.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testInterrupted() throws Exception {
+		TestAttachmentResources rows = new TestAttachmentResources(new ArrayList<String>());
+		BulkAttachmentUploader uploader = new BulkAttachmentUploader(null, rows, null,
+				new RequestRateLimiter(60000, 100), 1, 0);
+		List<AttachmentUploadResult> results = uploader.upload(Arrays.asList(upload(AttachmentParentType.ROW, 1L,
+				"interrupted", 10)), null);
+		assertEquals(Integer.valueOf(1), results.get(0).getAttempts());
+		assertTrue(results.get(0).getFailure().getCause() instanceof InterruptedException);
+		assertNull(results.get(0).getAttachment());
+	}
+
+	@Test
+	public void testByteRateCap() throws Exception {
+		TestAttachmentResources rows = new TestAttachmentResources(new ArrayList<String>());
+		BulkAttachmentUploader uploader = new BulkAttachmentUploader(null, rows, null,
+				new RequestRateLimiter(60000, 100), 3, 1000000);
+		List<AttachmentUpload> uploads = new ArrayList<AttachmentUpload>();
+		for (int i = 0; i < 3; i++) {
+			uploads.add(upload(AttachmentParentType.ROW, i, "file" + i, 200000));
+		}
+
+		long start = System.nanoTime();
+		uploader.upload(uploads, null);
+		// The first 200 KB go at once, the next 400 KB take 400 ms at 1 MB per second.
+		assertTrue(System.nanoTime() - start >= 350000000L);
+	}
+
+	private AttachmentUpload upload(AttachmentParentType parentType, long parentId, String name, int size)
+			throws Exception {
+		File file = new File(directory, name);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(size);
+		raf.close();
+
+		AttachmentUpload upload = new AttachmentUpload();
+		upload.setParentType(parentType);
+		upload.setParentId(parentId);
+		upload.setFile(file);
+		upload.setContentType("application/octet-stream");
+		return upload;
+	}
+
+	private static class TestAttachmentResources implements AssociatedAttachmentResources {
+		private final List<String> names;
+		private int failures;
+
+		TestAttachmentResources(List<String> names) {
+			this.names = names;
+		}
+
+		public Attachment attachFile(long objectId, File file, String contentType, UploadListener listener)
+				throws FileNotFoundException, SmartsheetException {
+			names.add(file.getName());
+			if (!file.exists()) {
+				throw new FileNotFoundException(file.getPath());
+			}
+			Error error = new Error();
+			error.setErrorCode(4004);
+			error.setMessage("Rate limit exceeded.");
+			if ("missing".equals(file.getName())) {
+				error.setErrorCode(1006);
+				error.setMessage("Not Found");
+				throw new ResourceNotFoundException(error);
+			}
+			if ("busy".equals(file.getName()) && names.lastIndexOf("busy") == names.indexOf("busy")) {
+				throw new ServiceUnavailableException(error);
+			}
+			if ("interrupted".equals(file.getName())) {
+				// The retry waits for the request budget, and is interrupted.
+				Thread.currentThread().interrupt();
+				throw new ServiceUnavailableException(error);
+			}
+			if ("reset".equals(file.getName())) {
+				listener.progress(file.length() / 2, file.length(), 0);
+				throw new HttpClientException("Connection reset");
+			}
+			synchronized (this) {
+				if (failures > 0) {
+					failures--;
+					throw new HttpClientException("Connection reset");
+				}
+			}
+
+			listener.progress(file.length(), file.length(), 0);
+			listener.uploaded(file.length(), "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", 1);
+			Attachment attachment = new Attachment();
+			attachment.setName(file.getName());
+			attachment.setSizeInKb(file.length() / 1024);
+			return attachment;
+		}
+
+		public List<Attachment> listAttachments(long objectId) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Attachment attachFile(long objectId, File file, String contentType) throws FileNotFoundException,
+				SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Attachment attachFile(long objectId, InputStream inputStream, String contentType, long contentLength,
+				String attachmentName) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Attachment attachURL(long objectId, Attachment attachment) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.AssociatedAttachmentResources;
+import com.smartsheet.api.AssociatedDiscussionResources;
+import com.smartsheet.api.CellMerger;
+import com.smartsheet.api.InvalidRequestException;
+import com.smartsheet.api.ProgressListener;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.RowResources;
+import com.smartsheet.api.ServiceUnavailableException;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.CellHistory;
+import com.smartsheet.api.models.Error;
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowEmail;
+import com.smartsheet.api.models.RowWrapper;
+
+public class BulkRowDeleterTest {
+
+	private SheetWriteExecutor executor;
+
+	@Before
+	public void setUp() throws Exception {
+		executor = new SheetWriteExecutor(4, 10);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdown();
+	}
+
+	@Test
+	public void testDeleteRows() throws Exception {
+		TestRowResources rows = new TestRowResources();
+		BulkRowDeleter deleter = new BulkRowDeleter(rows, executor, new RequestRateLimiter(60000, 100));
+
+		// Row IDs are the sheet ID times 100 plus an index.
+		Map<Long, List<Long>> rowIds = new LinkedHashMap<Long, List<Long>>();
+		for (long sheetId = 1; sheetId <= 3; sheetId++) {
+			List<Long> ids = new ArrayList<Long>();
+			for (int i = 0; i < 20; i++) {
+				ids.add(sheetId * 100 + i);
+			}
+			rowIds.put(sheetId, ids);
+		}
+		final AtomicLong progress = new AtomicLong();
+		Map<Long, SmartsheetException> failures = deleter.deleteRows(rowIds, new ProgressListener() {
+			public void progress(long completed, long total) {
+				assertEquals(60, total);
+				progress.set(Math.max(progress.get(), completed));
+			}
+		});
+
+		assertEquals(60, progress.get());
+		assertEquals(2, failures.size());
+		assertTrue(failures.get(213L) instanceof InvalidRequestException);
+		// The row whose worker was interrupted while waiting for the budget is reported.
+		assertTrue(failures.get(310L).getCause() instanceof InterruptedException);
+		// The missing row counts as deleted, and the rate limited row was retried.
+		assertEquals(57, rows.deleted.size());
+		assertEquals(2, rows.attempts.get(305L).intValue());
+
+		// The rows of each sheet are deleted in order.
+		long[] last = new long[4];
+		for (Long rowId : rows.deleted) {
+			assertTrue(rowId > last[(int) (rowId / 100)]);
+			last[(int) (rowId / 100)] = rowId;
+		}
+	}
+
+	@Test
+	public void testRateLimiter() throws Exception {
+		RequestRateLimiter limiter = new RequestRateLimiter(600, 2);
+		long start = System.nanoTime();
+		for (int i = 0; i < 4; i++) {
+			limiter.acquire();
+		}
+		// Two permits are available at once, the next two take 100 milliseconds each.
+		long elapsed = (System.nanoTime() - start) / 1000000;
+		assertTrue(elapsed >= 150 && elapsed < 2000);
+	}
+
+	private static Error error(int code) {
+		Error error = new Error();
+		error.setErrorCode(code);
+		error.setMessage("Error " + code);
+		return error;
+	}
+
+	private static class TestRowResources implements RowResources {
+		private final List<Long> deleted = new ArrayList<Long>();
+		private final Map<Long, Integer> attempts = new LinkedHashMap<Long, Integer>();
+
+		public synchronized void deleteRow(long id) throws SmartsheetException {
+			Integer count = attempts.get(id);
+			attempts.put(id, count == null ? 1 : count + 1);
+			if (id == 213L) {
+				throw new InvalidRequestException(error(1008));
+			}
+			if (id == 107L) {
+				throw new ResourceNotFoundException(error(1006));
+			}
+			if (id == 305L && count == null) {
+				throw new ServiceUnavailableException(error(4003));
+			}
+			if (id == 310L) {
+				Thread.currentThread().interrupt();
+				throw new ServiceUnavailableException(error(4003));
+			}
+			deleted.add(id);
+		}
+
+		public List<Cell> updateCells(long rowId, List<Cell> cells) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Cell> updateCells(long rowId, List<Cell> cells, CellMerger merger, int maxRetries)
+				throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Row> moveRow(long id, RowWrapper rowWrapper, int maxRetries) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Row getRow(long id, EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Row> moveRow(long id, RowWrapper rowWrapper) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void sendRow(long id, RowEmail email) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<CellHistory> getCellHistory(long rowId, long columnId) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public AssociatedAttachmentResources attachments() {
+			throw new UnsupportedOperationException();
+		}
+
+		public AssociatedDiscussionResources discussions() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
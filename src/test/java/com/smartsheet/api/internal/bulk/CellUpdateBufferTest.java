@@ -0,0 +1,170 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.AssociatedAttachmentResources;
+import com.smartsheet.api.AssociatedDiscussionResources;
+import com.smartsheet.api.CellMerger;
+import com.smartsheet.api.RowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.CellHistory;
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowEmail;
+import com.smartsheet.api.models.RowWrapper;
+
+public class CellUpdateBufferTest {
+
+	private TestRowResources rows;
+	private CellUpdateBuffer buffer;
+
+	@Before
+	public void setUp() throws Exception {
+		rows = new TestRowResources();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		buffer.close();
+	}
+
+	@Test
+	public void testCoalescing() throws Exception {
+		buffer = new CellUpdateBuffer(rows, 10, 60000, 100);
+
+		Future<List<Cell>> first = buffer.updateCells(1L, Arrays.asList(cell(10L, "a")));
+		Future<List<Cell>> second = buffer.updateCells(1L, Arrays.asList(cell(10L, "b"), cell(11L, "c")));
+		buffer.updateCells(2L, Arrays.asList(cell(10L, "d")));
+		assertSame(first, second);
+		assertEquals(0, rows.requests.size());
+
+		assertSame(first, buffer.flush(1L));
+		List<Cell> sent = first.get(5, TimeUnit.SECONDS);
+		assertEquals(2, sent.size());
+		assertEquals("b", sent.get(0).getValue());
+		assertEquals("c", sent.get(1).getValue());
+		assertNull(buffer.flush(1L));
+
+		for (Future<List<Cell>> future : buffer.flush()) {
+			future.get(5, TimeUnit.SECONDS);
+		}
+		assertEquals(2, rows.requests.size());
+		assertEquals(3, buffer.getRequestedUpdates());
+		assertEquals(1, buffer.getSavedCalls());
+		assertEquals(1, buffer.getCoalescedCells());
+	}
+
+	@Test
+	public void testThresholds() throws Exception {
+		buffer = new CellUpdateBuffer(rows, 2, 50, 100);
+
+		// The row is flushed once it holds two distinct cells.
+		buffer.updateCells(1L, Arrays.asList(cell(10L, "a")));
+		Future<List<Cell>> full = buffer.updateCells(1L, Arrays.asList(cell(11L, "b")));
+		assertEquals(2, full.get(5, TimeUnit.SECONDS).size());
+
+		// A single cell is flushed once it has waited long enough.
+		Future<List<Cell>> timed = buffer.updateCells(2L, Arrays.asList(cell(10L, "c")));
+		assertEquals(1, timed.get(5, TimeUnit.SECONDS).size());
+		assertEquals(0, buffer.getBufferedCells());
+	}
+
+	@Test
+	public void testBoundedMemory() throws Exception {
+		buffer = new CellUpdateBuffer(rows, 10, 60000, 2);
+
+		Future<List<Cell>> first = buffer.updateCells(1L, Arrays.asList(cell(10L, "a"), cell(11L, "b")));
+
+		// No space left, so the pending row is flushed before the update is buffered.
+		buffer.updateCells(2L, Arrays.asList(cell(10L, "c")));
+		assertEquals(2, first.get(5, TimeUnit.SECONDS).size());
+		assertEquals(1, buffer.getBufferedCells());
+	}
+
+	private static Cell cell(long columnId, String value) {
+		Cell cell = new Cell();
+		cell.setColumnId(columnId);
+		cell.setValue(value);
+		return cell;
+	}
+
+	private static class TestRowResources implements RowResources {
+		private final List<Long> requests = new ArrayList<Long>();
+
+		public synchronized List<Cell> updateCells(long rowId, List<Cell> cells) throws SmartsheetException {
+			requests.add(rowId);
+			return cells;
+		}
+
+		public List<Cell> updateCells(long rowId, List<Cell> cells, CellMerger merger, int maxRetries)
+				throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Row> moveRow(long id, RowWrapper rowWrapper, int maxRetries) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Row getRow(long id, EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Row> moveRow(long id, RowWrapper rowWrapper) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void deleteRow(long id) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void sendRow(long id, RowEmail email) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<CellHistory> getCellHistory(long rowId, long columnId) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public AssociatedAttachmentResources attachments() {
+			throw new UnsupportedOperationException();
+		}
+
+		public AssociatedDiscussionResources discussions() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
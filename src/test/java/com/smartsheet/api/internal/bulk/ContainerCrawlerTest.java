@@ -0,0 +1,210 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.smartsheet.api.FolderResources;
+import com.smartsheet.api.HomeFolderResources;
+import com.smartsheet.api.HomeResources;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.ShareResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.WorkspaceFolderResources;
+import com.smartsheet.api.WorkspaceResources;
+import com.smartsheet.api.models.Error;
+import com.smartsheet.api.models.Folder;
+import com.smartsheet.api.models.Home;
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Sheet;
+import com.smartsheet.api.models.Template;
+import com.smartsheet.api.models.Workspace;
+
+public class ContainerCrawlerTest {
+
+	@Test
+	public void testCrawl() throws Exception {
+		TestResources resources = new TestResources();
+		// Home: sheet 1, folder 10 > (sheet 2, folder 11 > (sheet 3, template 1)), workspace 20 > (folder 11, sheet 1)
+		resources.home.home.setSheets(Arrays.asList(sheet(1L)));
+		resources.home.home.setFolders(Arrays.asList(folder(10L)));
+		resources.home.home.setWorkspaces(Arrays.asList(workspace(20L)));
+		resources.containers.put(10L, folder(10L, Arrays.asList(sheet(2L)), Arrays.asList(folder(11L)), null));
+		Template template = new Template();
+		template.setId(1L);
+		resources.containers.put(11L, folder(11L, Arrays.asList(sheet(3L)), null, Arrays.asList(template)));
+		resources.containers.put(20L, folder(20L, Arrays.asList(sheet(1L)), Arrays.asList(folder(11L)), null));
+
+		TestVisitor visitor = new TestVisitor();
+		new ContainerCrawler(resources.home, resources, resources, 4).crawl(visitor);
+		Collections.sort(visitor.entries);
+		assertEquals(Arrays.asList("folder 10", "folder 11", "sheet 1", "sheet 2", "sheet 3", "template 1",
+				"workspace 20"), visitor.entries);
+		// Each container is fetched once.
+		assertEquals(3, resources.fetches);
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+		TestResources resources = new TestResources();
+		resources.home.home.setFolders(Arrays.asList(folder(10L), folder(12L)));
+		resources.containers.put(10L, folder(10L, null, null, null));
+
+		try {
+			new ContainerCrawler(resources.home, resources, resources, 2).crawl(new TestVisitor());
+			fail("Exception should have been thrown.");
+		} catch (ResourceNotFoundException e) {
+			// Expected
+		}
+	}
+
+	private static Sheet sheet(long id) {
+		Sheet sheet = new Sheet();
+		sheet.setId(id);
+		return sheet;
+	}
+
+	private static Folder folder(long id) {
+		Folder folder = new Folder();
+		folder.setId(id);
+		return folder;
+	}
+
+	private static Workspace workspace(long id) {
+		Workspace workspace = new Workspace();
+		workspace.setId(id);
+		return workspace;
+	}
+
+	private static Folder folder(long id, List<Sheet> sheets, List<Folder> folders, List<Template> templates) {
+		Folder folder = new Workspace();
+		folder.setId(id);
+		folder.setSheets(sheets);
+		folder.setFolders(folders);
+		folder.setTemplates(templates);
+		return folder;
+	}
+
+	private static class TestVisitor implements ContainerVisitor {
+		private final List<String> entries = new ArrayList<String>();
+
+		public synchronized void workspace(Workspace workspace) {
+			entries.add("workspace " + workspace.getId());
+		}
+
+		public synchronized void folder(Folder folder, Folder container) {
+			entries.add("folder " + folder.getId());
+		}
+
+		public synchronized void sheet(Sheet sheet, Folder container) {
+			entries.add("sheet " + sheet.getId());
+		}
+
+		public synchronized void template(Template template, Folder container) {
+			entries.add("template " + template.getId());
+		}
+	}
+
+	private static class TestHomeResources implements HomeResources {
+		private final Home home = new Home();
+
+		public Home getHome(EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+			return home;
+		}
+
+		public HomeFolderResources folders() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static class TestResources implements WorkspaceResources, FolderResources {
+		private final TestHomeResources home = new TestHomeResources();
+		private final Map<Long, Folder> containers = new HashMap<Long, Folder>();
+		private int fetches;
+
+		public synchronized Workspace getWorkspace(long id) throws SmartsheetException {
+			return (Workspace) getFolder(id);
+		}
+
+		public synchronized Folder getFolder(long folderId) throws SmartsheetException {
+			fetches++;
+			Folder folder = containers.get(folderId);
+			if (folder == null) {
+				Error error = new Error();
+				error.setErrorCode(1006);
+				error.setMessage("Not Found");
+				throw new ResourceNotFoundException(error);
+			}
+			return folder;
+		}
+
+		public WorkspaceFolderResources folders() {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Workspace> listWorkspaces() throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Workspace createWorkspace(Workspace workspace) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Workspace updateWorkspace(Workspace workspace) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void deleteWorkspace(long id) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public ShareResources shares() {
+			throw new UnsupportedOperationException();
+		}
+
+		public Folder updateFolder(Folder folder) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void deleteFolder(long folderId) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Folder> listFolders(long parentFolderId) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Folder createFolder(long parentFolderId, Folder folder) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.smartsheet.api.AssociatedAttachmentResources;
+import com.smartsheet.api.AssociatedDiscussionResources;
+import com.smartsheet.api.InvalidRequestException;
+import com.smartsheet.api.SheetColumnResources;
+import com.smartsheet.api.SheetRowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Column;
+import com.smartsheet.api.models.ColumnType;
+import com.smartsheet.api.models.Error;
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowChunkResult;
+import com.smartsheet.api.models.RowEmail;
+import com.smartsheet.api.models.RowWrapper;
+import com.smartsheet.api.models.SystemColumnType;
+
+public class CsvImporterTest {
+
+	@Test
+	public void testReadRecord() throws Exception {
+		CsvReader csv = new CsvReader(new StringReader("a,\"b,c\",\"d\"\"e\"\r\n\"multi\nline\",,f\r\rlast"));
+		assertEquals(Arrays.asList("a", "b,c", "d\"e"), csv.readRecord());
+		assertEquals(1, csv.getFirstLine());
+		assertEquals(1, csv.getLastLine());
+		assertEquals(Arrays.asList("multi\nline", "", "f"), csv.readRecord());
+		assertEquals(2, csv.getFirstLine());
+		assertEquals(3, csv.getLastLine());
+		assertEquals(Arrays.asList(""), csv.readRecord());
+		assertEquals(4, csv.getFirstLine());
+		assertEquals(Arrays.asList("last"), csv.readRecord());
+		assertEquals(5, csv.getLastLine());
+		assertNull(csv.readRecord());
+
+		try {
+			new CsvReader(new StringReader("\"open")).readRecord();
+			fail("Exception should have been thrown.");
+		} catch (java.io.IOException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testConvert() {
+		assertEquals(Long.valueOf(42), CsvImporter.convert(ColumnType.TEXT_NUMBER, " 42 "));
+		assertEquals(Double.valueOf(-1.5), CsvImporter.convert(ColumnType.TEXT_NUMBER, "-1.5"));
+		assertEquals("007", CsvImporter.convert(ColumnType.TEXT_NUMBER, "007"));
+		assertEquals("1,000", CsvImporter.convert(ColumnType.TEXT_NUMBER, "1,000"));
+		assertEquals(Boolean.TRUE, CsvImporter.convert(ColumnType.CHECKBOX, "Yes"));
+		assertEquals(Boolean.FALSE, CsvImporter.convert(ColumnType.CHECKBOX, "0"));
+		assertEquals("maybe", CsvImporter.convert(ColumnType.CHECKBOX, "maybe"));
+		assertEquals("2014-01-31", CsvImporter.convert(ColumnType.DATE, "2014-01-31 "));
+		assertEquals(" text ", CsvImporter.convert(ColumnType.PICKLIST, " text "));
+	}
+
+	@Test
+	public void testImport() throws Exception {
+		TestResources resources = new TestResources();
+		CsvImporter importer = new CsvImporter(resources, resources, new RequestRateLimiter(60000, 100), 2, 2);
+		TestListener listener = new TestListener();
+
+		String csv = "Name,count,Done,Created\n"
+				+ "a,1,yes,ignored\n"
+				+ "b,2,no,\n"
+				+ "\n"
+				+ "c,fail,,\n"
+				+ "\"d\nd\",4,x,\n"
+				+ "e,5\n";
+		assertEquals(3, importer.importCsv(7L, new StringReader(csv), listener));
+
+		Collections.sort(listener.events);
+		assertEquals(Arrays.asList("failed 5-7", "inserted 2-3 2", "inserted 8-8 1"), listener.events);
+
+		// Batches in flight together may be inserted in any order.
+		Row row = null;
+		for (Row inserted : resources.inserted) {
+			if ("a".equals(inserted.getCells().get(0).getValue())) {
+				row = inserted;
+			}
+		}
+		assertEquals(3, row.getCells().size());
+		assertEquals(Long.valueOf(1), row.getCells().get(1).getValue());
+		assertEquals(Boolean.TRUE, row.getCells().get(2).getValue());
+		assertEquals(Long.valueOf(3), row.getCells().get(2).getColumnId());
+		assertTrue(resources.maxConcurrent <= 2);
+	}
+
+	@Test
+	public void testUnknownColumn() throws Exception {
+		TestResources resources = new TestResources();
+		CsvImporter importer = new CsvImporter(resources, resources, new RequestRateLimiter(60000, 100), 2, 1);
+		try {
+			importer.importCsv(7L, new StringReader("Name,Other\na,b\n"), new TestListener());
+			fail("Exception should have been thrown.");
+		} catch (SmartsheetException e) {
+			// Expected
+		}
+		assertEquals(0, resources.inserted.size());
+	}
+
+	@Test
+	public void testUnreadableInput() throws Exception {
+		TestResources resources = new TestResources();
+		CsvImporter importer = new CsvImporter(resources, resources, new RequestRateLimiter(60000, 100), 2, 2);
+		TestListener listener = new TestListener();
+		try {
+			importer.importCsv(7L, new StringReader("Name\na\nb\nc\n\"open"), listener);
+			fail("Exception should have been thrown.");
+		} catch (SmartsheetException e) {
+			// Expected
+		}
+
+		// The partial batch read before the failure is sent, and all batches are done on return.
+		Collections.sort(listener.events);
+		assertEquals(Arrays.asList("inserted 2-3 2", "inserted 4-4 1"), listener.events);
+		assertEquals(3, resources.inserted.size());
+	}
+
+	private static Column column(long id, String title, ColumnType type) {
+		Column column = new Column();
+		column.setId(id);
+		column.setTitle(title);
+		column.setType(type);
+		return column;
+	}
+
+	private static class TestListener implements CsvImportListener {
+		private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+		public void inserted(long firstLine, long lastLine, List<Row> rows) {
+			events.add("inserted " + firstLine + "-" + lastLine + " " + rows.size());
+		}
+
+		public void failed(long firstLine, long lastLine, SmartsheetException failure) {
+			assertTrue(failure instanceof InvalidRequestException);
+			events.add("failed " + firstLine + "-" + lastLine);
+		}
+	}
+
+	private static class TestResources implements SheetColumnResources, SheetRowResources {
+		private final List<Row> inserted = Collections.synchronizedList(new ArrayList<Row>());
+		private int concurrent;
+		private int maxConcurrent;
+
+		public List<Column> listColumns(long sheetId) throws SmartsheetException {
+			Column created = column(4, "Created", ColumnType.DATETIME);
+			created.setSystemColumnType(SystemColumnType.CREATED_DATE);
+			return Arrays.asList(column(1, "Name", ColumnType.TEXT_NUMBER), column(2, "Count", ColumnType.TEXT_NUMBER),
+					column(3, "Done", ColumnType.CHECKBOX), created);
+		}
+
+		public List<Row> insertRows(long sheetId, RowWrapper rowWrapper) throws SmartsheetException {
+			assertEquals(7L, sheetId);
+			assertEquals(Boolean.TRUE, rowWrapper.getToBottom());
+			synchronized (this) {
+				maxConcurrent = Math.max(maxConcurrent, ++concurrent);
+			}
+			try {
+				Thread.sleep(20);
+				for (Row row : rowWrapper.getRows()) {
+					for (Cell cell : row.getCells()) {
+						if ("fail".equals(cell.getValue())) {
+							Error error = new Error();
+							error.setErrorCode(1042);
+							error.setMessage("Invalid value");
+							throw new InvalidRequestException(error);
+						}
+					}
+				}
+				inserted.addAll(rowWrapper.getRows());
+				return rowWrapper.getRows();
+			} catch (InterruptedException e) {
+				throw new SmartsheetException(e);
+			} finally {
+				synchronized (this) {
+					concurrent--;
+				}
+			}
+		}
+
+		public Column addColumn(long sheetId, Column column) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Map<String, Long> getColumnIdsByTitle(long sheetId) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Map<Integer, Long> getColumnIdsByIndex(long sheetId) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Row> insertRows(long sheetId, RowWrapper placement, Iterator<Row> rows)
+				throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<RowChunkResult> insertRows(long sheetId, RowWrapper placement, Iterator<Row> rows, int chunkSize,
+				int maxInFlight) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Row getRow(long id, int rowNumber) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Row getRow(long id, EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void sendRow(long id, RowEmail email) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public AssociatedAttachmentResources attachments() {
+			throw new UnsupportedOperationException();
+		}
+
+		public AssociatedDiscussionResources discussions() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.AssociatedAttachmentResources;
+import com.smartsheet.api.AttachmentResources;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.UploadListener;
+import com.smartsheet.api.internal.cache.AttachmentIndex;
+import com.smartsheet.api.models.Attachment;
+import com.smartsheet.api.models.AttachmentParentType;
+import com.smartsheet.api.models.AttachmentType;
+import com.smartsheet.api.models.Error;
+
+public class DeduplicatingAttachmentUploaderTest {
+	private File directory;
+	private File indexFile;
+	private TestAttachmentResources resources;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = new File(System.getProperty("java.io.tmpdir"), "dedup-uploader-test-" + System.nanoTime());
+		directory.mkdirs();
+		indexFile = new File(directory, "attachments.index");
+		resources = new TestAttachmentResources();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testAttachFile() throws Exception {
+		File report = write("report.pdf", "quarterly report");
+		File copy = write("copy.pdf", "quarterly report");
+		DeduplicatingAttachmentUploader uploader = newUploader();
+
+		Attachment first = uploader.attachFile(AttachmentParentType.ROW, 1, report, "application/pdf");
+		Attachment second = uploader.attachFile(AttachmentParentType.ROW, 1, copy, "application/pdf");
+		assertEquals(first.getId(), second.getId());
+		assertEquals("report.pdf", second.getName());
+
+		// The same content on another row is uploaded again, it can't be shared.
+		Attachment other = uploader.attachFile(AttachmentParentType.ROW, 2, copy, "application/pdf");
+		assertEquals(Arrays.asList("report.pdf", "copy.pdf"), resources.uploads);
+		assertEquals(1, uploader.getSkipCount());
+		assertEquals(2, uploader.getUploadCount());
+
+		// The index survives a restart, but not the deletion of the attachment.
+		uploader = newUploader();
+		uploader.attachFile(AttachmentParentType.ROW, 2, report, "application/pdf");
+		assertEquals(2, resources.uploads.size());
+		resources.deleted.add(other.getId());
+		uploader.attachFile(AttachmentParentType.ROW, 2, report, "application/pdf");
+		assertEquals(3, resources.uploads.size());
+		assertEquals(1, uploader.getSkipCount());
+	}
+
+	@Test
+	public void testAttachLink() throws Exception {
+		File contract = write("contract.docx", "terms");
+		AttachmentIndex index = new AttachmentIndex(indexFile);
+		index.putUrl(AttachmentIndex.digest(contract), "https://dms.example.com/contract");
+		DeduplicatingAttachmentUploader uploader = new DeduplicatingAttachmentUploader(null, resources, null,
+				resources, index);
+
+		Attachment link = uploader.attachFile(AttachmentParentType.ROW, 1, contract, "application/msword");
+		assertEquals(AttachmentType.LINK, link.getAttachmentType());
+		assertEquals("https://dms.example.com/contract", link.getUrl());
+		assertSame(link, resources.links.get(0));
+		assertEquals(0, resources.uploads.size());
+		assertEquals(1, uploader.getLinkCount());
+
+		uploader.attachFile(AttachmentParentType.ROW, 1, contract, "application/msword");
+		assertEquals(1, resources.links.size());
+		assertEquals(1, uploader.getSkipCount());
+	}
+
+	@Test
+	public void testAttachNewVersion() throws Exception {
+		File draft = write("plan.txt", "draft");
+		DeduplicatingAttachmentUploader uploader = newUploader();
+
+		Attachment version = uploader.attachNewVersion(100, draft, "text/plain");
+		assertEquals(uploader.attachNewVersion(100, draft, "text/plain").getId(), version.getId());
+		assertEquals(uploader.attachNewVersion(version.getId(), draft, "text/plain").getId(), version.getId());
+		assertEquals(1, resources.uploads.size());
+		assertEquals(2, uploader.getSkipCount());
+
+		write("plan.txt", "final");
+		assertEquals(Long.valueOf(version.getId() + 1), uploader.attachNewVersion(100, draft, "text/plain").getId());
+		assertEquals(2, resources.uploads.size());
+		assertNull(new AttachmentIndex(indexFile).findVersion(100, AttachmentIndex.digest(write("old.txt", "draft"))));
+	}
+
+	private DeduplicatingAttachmentUploader newUploader() {
+		return new DeduplicatingAttachmentUploader(null, resources, null, resources, new AttachmentIndex(indexFile));
+	}
+
+	private File write(String name, String content) throws Exception {
+		File file = new File(directory, name);
+		FileOutputStream output = new FileOutputStream(file);
+		output.write(content.getBytes("UTF-8"));
+		output.close();
+		return file;
+	}
+
+	private static class TestAttachmentResources implements AssociatedAttachmentResources, AttachmentResources {
+		private final List<String> uploads = new ArrayList<String>();
+		private final List<Attachment> links = new ArrayList<Attachment>();
+		private final Set<Long> deleted = new HashSet<Long>();
+		private long nextId = 1000;
+
+		public Attachment attachFile(long objectId, File file, String contentType, UploadListener listener)
+				throws FileNotFoundException, SmartsheetException {
+			uploads.add(file.getName());
+			listener.uploaded(file.length(), AttachmentIndex.digest(file), 1);
+			return newAttachment(file.getName(), AttachmentType.FILE);
+		}
+
+		public Attachment attachURL(long objectId, Attachment attachment) throws SmartsheetException {
+			links.add(attachment);
+			attachment.setId(nextId++);
+			return attachment;
+		}
+
+		public Attachment getAttachment(long id) throws SmartsheetException {
+			if (deleted.contains(id)) {
+				Error error = new Error();
+				error.setErrorCode(1006);
+				error.setMessage("Not Found");
+				throw new ResourceNotFoundException(error);
+			}
+			return new Attachment();
+		}
+
+		public Attachment attachNewVersion(long attachmentId, File file, String contentType)
+				throws FileNotFoundException, SmartsheetException {
+			uploads.add(file.getName());
+			return newAttachment(file.getName(), AttachmentType.FILE);
+		}
+
+		private Attachment newAttachment(String name, AttachmentType type) {
+			Attachment attachment = new Attachment();
+			attachment.setId(nextId++);
+			attachment.setName(name);
+			attachment.setAttachmentType(type);
+			return attachment;
+		}
+
+		public List<Attachment> listAttachments(long objectId) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Attachment attachFile(long objectId, File file, String contentType) throws FileNotFoundException,
+				SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Attachment attachFile(long objectId, InputStream inputStream, String contentType, long contentLength,
+				String attachmentName) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void deleteAllAttachmentVersions(long id) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Attachment> listAttachmentVersions(long id) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Attachment attachNewVersion(long attachmentId, InputStream inputStream, String contentType,
+				long contentLength, String attachmentName) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Sheet;
+
+public class InventorySyncTest {
+
+	private File stateFile;
+
+	@Before
+	public void setUp() throws Exception {
+		stateFile = new File(System.getProperty("java.io.tmpdir"), "inventory-sync-test-" + System.nanoTime());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		stateFile.delete();
+	}
+
+	@Test
+	public void testSync() throws Exception {
+		TestSheetResources resources = new TestSheetResources();
+		resources.sheets.put(1L, sheet(1L, 1000, 1));
+		resources.sheets.put(2L, sheet(2L, 1000, 1));
+
+		TestListener listener = new TestListener();
+		InventorySync sync = new InventorySync(resources, stateFile);
+		assertEquals(2, sync.sync(listener, false, EnumSet.noneOf(ObjectInclusion.class)));
+		assertEquals(Arrays.asList("added 1", "added 2"), listener.events);
+		assertEquals(Arrays.asList("list", "get 1", "get 2"), resources.requests);
+
+		// A new instance resumes from the state file and only fetches what changed.
+		resources.sheets.put(2L, sheet(2L, 2000, 2));
+		resources.sheets.remove(1L);
+		resources.sheets.put(3L, sheet(3L, 1000, 1));
+		resources.requests.clear();
+		listener.events.clear();
+		sync = new InventorySync(resources, stateFile);
+		assertEquals(2, sync.getSheetCount());
+		assertEquals(3, sync.sync(listener, true, null));
+		assertEquals(Arrays.asList("changed 2", "added 3", "deleted 1"), listener.events);
+		assertEquals(Arrays.asList("listOrganization"), resources.requests);
+
+		// Nothing changed.
+		listener.events.clear();
+		assertEquals(0, sync.sync(listener, false, EnumSet.noneOf(ObjectInclusion.class)));
+		assertEquals(2, sync.getSheetCount());
+	}
+
+	private static Sheet sheet(long id, long modifiedAt, int version) {
+		Sheet sheet = new Sheet();
+		sheet.setId(id);
+		sheet.setModifiedAt(new Date(modifiedAt));
+		sheet.setVersion(version);
+		return sheet;
+	}
+
+	private static class TestListener implements InventoryListener {
+		private final List<String> events = new ArrayList<String>();
+
+		public void added(Sheet sheet) {
+			events.add("added " + sheet.getId());
+		}
+
+		public void changed(Sheet sheet) {
+			events.add("changed " + sheet.getId());
+		}
+
+		public void deleted(long sheetId) {
+			events.add("deleted " + sheetId);
+		}
+	}
+}
@@ -0,0 +1,320 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.AssociatedAttachmentResources;
+import com.smartsheet.api.AssociatedDiscussionResources;
+import com.smartsheet.api.CellMerger;
+import com.smartsheet.api.InvalidRequestException;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.RowResources;
+import com.smartsheet.api.ServiceUnavailableException;
+import com.smartsheet.api.SheetRowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.json.JacksonJsonSerializer;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.CellHistory;
+import com.smartsheet.api.models.Error;
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowChunkResult;
+import com.smartsheet.api.models.RowEmail;
+import com.smartsheet.api.models.RowWrapper;
+
+public class MutationJournalTest {
+
+	private File directory;
+	private TestResources resources;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = new File(System.getProperty("java.io.tmpdir"), "mutation-journal-test-" + System.nanoTime());
+		resources = new TestResources();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testRecoverAndReplay() throws Exception {
+		MutationJournal journal = new MutationJournal(directory, 4096, new JacksonJsonSerializer());
+		RowWrapper rowWrapper = new RowWrapper();
+		rowWrapper.setToBottom(true);
+		Row row = new Row();
+		row.setCells(Arrays.asList(cell(10L, "new")));
+		rowWrapper.setRows(Arrays.asList(row));
+
+		long insert = journal.appendInsertRows(1L, rowWrapper);
+		long update = journal.appendUpdateCells(2L, Arrays.asList(cell(10L, "a")));
+		journal.appendDeleteRow(3L);
+		journal.acknowledge(insert);
+		journal.close();
+
+		// A new journal finds the mutations without acknowledgement and continues the sequence.
+		journal = new MutationJournal(directory, 4096, new JacksonJsonSerializer());
+		assertEquals(2, journal.getPendingCount());
+		assertEquals(update + 2, journal.appendDeleteRow(4L));
+
+		Map<Long, SmartsheetException> failures = new HashMap<Long, SmartsheetException>();
+		assertEquals(3, journal.replay(resources, resources, failures));
+		assertTrue(failures.isEmpty());
+		assertEquals(Arrays.asList("update 2 a", "delete 3", "delete 4"), resources.calls);
+		assertEquals(0, journal.getPendingCount());
+		journal.close();
+
+		journal = new MutationJournal(directory, 4096, new JacksonJsonSerializer());
+		assertEquals(0, journal.getPendingCount());
+		journal.close();
+	}
+
+	@Test
+	public void testTornRecord() throws Exception {
+		MutationJournal journal = new MutationJournal(directory, 4096, new JacksonJsonSerializer());
+		journal.appendDeleteRow(1L);
+		journal.appendDeleteRow(2L);
+		journal.close();
+
+		// Corrupt the payload of the second record, as if its write had been interrupted.
+		File segment = directory.listFiles()[0];
+		RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+		raf.seek(2 * 25 - 1);
+		raf.write(0xFF);
+		raf.close();
+
+		journal = new MutationJournal(directory, 4096, new JacksonJsonSerializer());
+		assertEquals(1, journal.getPendingCount());
+		journal.replay(resources, resources, new HashMap<Long, SmartsheetException>());
+		assertEquals(Arrays.asList("delete 1"), resources.calls);
+		journal.close();
+	}
+
+	@Test
+	public void testSegmentDeletion() throws Exception {
+		MutationJournal journal = new MutationJournal(directory, 64, new JacksonJsonSerializer());
+		List<Long> sequences = new ArrayList<Long>();
+		for (long rowId = 1; rowId <= 6; rowId++) {
+			sequences.add(journal.appendDeleteRow(rowId));
+		}
+		assertEquals(3, directory.listFiles().length);
+
+		// The oldest segment is kept while any of its mutations is pending.
+		File oldest = new File(directory, "journal-1.seg");
+		journal.acknowledge(sequences.get(1));
+		assertTrue(oldest.exists());
+		journal.acknowledge(sequences.get(0));
+		assertFalse(oldest.exists());
+
+		for (Long sequence : sequences) {
+			journal.acknowledge(sequence);
+		}
+		journal.close();
+		journal = new MutationJournal(directory, 64, new JacksonJsonSerializer());
+		assertEquals(0, journal.getPendingCount());
+		assertEquals(1, directory.listFiles().length);
+		journal.close();
+	}
+
+	@Test
+	public void testBufferAcknowledges() throws Exception {
+		MutationJournal journal = new MutationJournal(directory, 4096, new JacksonJsonSerializer());
+		CellUpdateBuffer buffer = new CellUpdateBuffer(resources, 10, 60000, 100, journal);
+		buffer.updateCells(1L, Arrays.asList(cell(10L, "a")));
+		buffer.updateCells(1L, Arrays.asList(cell(10L, "b")));
+		assertEquals(2, journal.getPendingCount());
+
+		buffer.flush(1L).get();
+		assertEquals(0, journal.getPendingCount());
+		buffer.close();
+		journal.close();
+	}
+
+	@Test
+	public void testPoisonRecords() throws Exception {
+		MutationJournal journal = new MutationJournal(directory, 4096, new JacksonJsonSerializer());
+		long rejected = journal.appendUpdateCells(5L, Arrays.asList(cell(10L, "a")));
+		journal.appendDeleteRow(1L);
+		journal.appendUpdateCells(6L, Arrays.asList(cell(10L, "b")));
+		journal.appendDeleteRow(2L);
+		journal.close();
+
+		// A rejected update is acknowledged and reported, an unavailable service stops the replay.
+		journal = new MutationJournal(directory, 4096, new JacksonJsonSerializer());
+		Map<Long, SmartsheetException> failures = new HashMap<Long, SmartsheetException>();
+		try {
+			journal.replay(resources, resources, failures);
+			fail("Exception should have been thrown.");
+		} catch (ServiceUnavailableException e) {
+			// Expected
+		}
+		assertEquals(1, failures.size());
+		assertTrue(failures.get(rejected) instanceof InvalidRequestException);
+		assertEquals(2, journal.getPendingCount());
+		journal.close();
+
+		resources.calls.clear();
+		resources.unavailable = false;
+		journal = new MutationJournal(directory, 4096, new JacksonJsonSerializer());
+		assertEquals(2, journal.replay(resources, resources, failures));
+		assertEquals(Arrays.asList("update 6 b", "delete 2"), resources.calls);
+		assertEquals(0, journal.getPendingCount());
+		journal.close();
+	}
+
+	@Test
+	public void testBufferAcknowledgesRejectedUpdates() throws Exception {
+		MutationJournal journal = new MutationJournal(directory, 4096, new JacksonJsonSerializer());
+		CellUpdateBuffer buffer = new CellUpdateBuffer(resources, 10, 60000, 100, journal);
+		buffer.updateCells(5L, Arrays.asList(cell(10L, "a")));
+		buffer.updateCells(6L, Arrays.asList(cell(10L, "b")));
+
+		for (Future<List<Cell>> future : buffer.flush()) {
+			try {
+				future.get();
+				fail("Exception should have been thrown.");
+			} catch (ExecutionException e) {
+				// Expected
+			}
+		}
+		// Only the update that failed transiently is kept for replay.
+		assertEquals(1, journal.getPendingCount());
+		buffer.close();
+		journal.close();
+	}
+
+	private static Cell cell(long columnId, String value) {
+		Cell cell = new Cell();
+		cell.setColumnId(columnId);
+		cell.setValue(value);
+		return cell;
+	}
+
+	private static class TestResources implements RowResources, SheetRowResources {
+		private final List<String> calls = new ArrayList<String>();
+		private volatile boolean unavailable = true;
+
+		public synchronized List<Cell> updateCells(long rowId, List<Cell> cells) throws SmartsheetException {
+			Error error = new Error();
+			if (rowId == 5) {
+				error.setErrorCode(1008);
+				error.setMessage("Unable to parse request.");
+				throw new InvalidRequestException(error);
+			}
+			if (rowId == 6 && unavailable) {
+				error.setErrorCode(4001);
+				error.setMessage("Service unavailable.");
+				throw new ServiceUnavailableException(error);
+			}
+			calls.add("update " + rowId + " " + cells.get(0).getValue());
+			return cells;
+		}
+
+		public synchronized void deleteRow(long id) throws SmartsheetException {
+			calls.add("delete " + id);
+			if (id == 4) {
+				Error error = new Error();
+				error.setErrorCode(1006);
+				error.setMessage("Not Found");
+				throw new ResourceNotFoundException(error);
+			}
+		}
+
+		public synchronized List<Row> insertRows(long sheetId, RowWrapper rowWrapper) throws SmartsheetException {
+			calls.add("insert " + sheetId + " " + rowWrapper.getRows().get(0).getCells().get(0).getValue());
+			return rowWrapper.getRows();
+		}
+
+		public List<Row> insertRows(long sheetId, RowWrapper placement, Iterator<Row> rows)
+				throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<RowChunkResult> insertRows(long sheetId, RowWrapper placement, Iterator<Row> rows, int chunkSize,
+				int maxInFlight) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Row getRow(long id, int rowNumber) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Cell> updateCells(long rowId, List<Cell> cells, CellMerger merger, int maxRetries)
+				throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Row> moveRow(long id, RowWrapper rowWrapper, int maxRetries) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Row getRow(long id, EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Row> moveRow(long id, RowWrapper rowWrapper) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void sendRow(long id, RowEmail email) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<CellHistory> getCellHistory(long rowId, long columnId) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public AssociatedAttachmentResources attachments() {
+			throw new UnsupportedOperationException();
+		}
+
+		public AssociatedDiscussionResources discussions() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
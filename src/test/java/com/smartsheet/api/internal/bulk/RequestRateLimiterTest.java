@@ -0,0 +1,91 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.smartsheet.api.InvalidRequestException;
+import com.smartsheet.api.ServiceUnavailableException;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.models.Error;
+
+public class RequestRateLimiterTest {
+
+	@Test
+	public void testCall() throws Exception {
+		RequestRateLimiter limiter = new RequestRateLimiter(60000, 10);
+		final AtomicInteger attempts = new AtomicInteger();
+
+		// A rate limited request is retried once all requests backed off.
+		long start = System.currentTimeMillis();
+		assertEquals("done", limiter.call(new Callable<String>() {
+			public String call() throws SmartsheetException {
+				if (attempts.incrementAndGet() == 1) {
+					throw new ServiceUnavailableException(error(4004));
+				}
+				return "done";
+			}
+		}));
+		assertEquals(2, attempts.get());
+		assertTrue(System.currentTimeMillis() - start >= RequestRateLimiter.RETRY_DELAY);
+
+		// Other failures are not retried.
+		attempts.set(0);
+		try {
+			limiter.call(new Callable<String>() {
+				public String call() throws SmartsheetException {
+					attempts.incrementAndGet();
+					throw new InvalidRequestException(error(1008));
+				}
+			});
+			fail("Exception should have been thrown.");
+		} catch (InvalidRequestException e) {
+			// Expected
+		}
+		assertEquals(1, attempts.get());
+
+		try {
+			limiter.call(new Callable<String>() {
+				public String call() throws IOException {
+					throw new IOException("closed");
+				}
+			});
+			fail("Exception should have been thrown.");
+		} catch (SmartsheetException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	private static Error error(int errorCode) {
+		Error error = new Error();
+		error.setErrorCode(errorCode);
+		error.setMessage("Error " + errorCode);
+		return error;
+	}
+}
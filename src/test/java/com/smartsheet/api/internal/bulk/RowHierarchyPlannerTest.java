@@ -0,0 +1,143 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowWrapper;
+import com.smartsheet.api.models.Sheet;
+
+public class RowHierarchyPlannerTest {
+
+	@Test
+	public void testUnchanged() {
+		// 1 > (2, 3), 4
+		Sheet sheet = sheet(new long[] { 1, 2, 3, 4 }, new int[] { 0, 1, 1, 0 });
+		Map<Long, Long> parents = new HashMap<Long, Long>();
+		parents.put(2L, 1L);
+		parents.put(3L, 1L);
+		assertTrue(RowHierarchyPlanner.plan(sheet, Arrays.asList(1L, 2L, 3L, 4L), parents).isEmpty());
+	}
+
+	@Test
+	public void testRestructure() {
+		// 1 > (2 > 3), 4, 5
+		Sheet sheet = sheet(new long[] { 1, 2, 3, 4, 5 }, new int[] { 0, 1, 2, 0, 0 });
+
+		// Target: 5, 4 > (2 > 3, 1)
+		List<Long> order = Arrays.asList(5L, 4L, 2L, 3L, 1L);
+		Map<Long, Long> parents = new HashMap<Long, Long>();
+		parents.put(2L, 4L);
+		parents.put(3L, 2L);
+		parents.put(1L, 4L);
+
+		Map<Long, RowWrapper> moves = RowHierarchyPlanner.plan(sheet, order, parents);
+		// 3 stays under 2 and moves along with it.
+		assertEquals(3, moves.size());
+		assertTrue(!moves.containsKey(3L));
+
+		Map<Long, Long> simulated = new HashMap<Long, Long>();
+		List<Long> outline = simulate(sheet, moves, simulated);
+		assertEquals(order, outline);
+		assertEquals(parents, simulated);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testChildBeforeParent() {
+		Sheet sheet = sheet(new long[] { 1, 2 }, new int[] { 0, 0 });
+		Map<Long, Long> parents = new HashMap<Long, Long>();
+		parents.put(1L, 2L);
+		RowHierarchyPlanner.plan(sheet, Arrays.asList(1L, 2L), parents);
+	}
+
+	private static Sheet sheet(long[] ids, int[] parentNumbers) {
+		List<Row> rows = new ArrayList<Row>();
+		for (int i = 0; i < ids.length; i++) {
+			Row row = new Row();
+			row.setId(ids[i]);
+			row.setRowNumber(i + 1);
+			row.setParentRowNumber(parentNumbers[i] == 0 ? null : parentNumbers[i]);
+			rows.add(row);
+		}
+		Sheet sheet = new Sheet();
+		sheet.setRows(rows);
+		return sheet;
+	}
+
+	/**
+	 * Apply moves to a tree the way the API does, returning the outline and filling the parents of the rows.
+	 */
+	private static List<Long> simulate(Sheet sheet, Map<Long, RowWrapper> moves, Map<Long, Long> parents) {
+		Map<Long, List<Long>> children = new HashMap<Long, List<Long>>();
+		Map<Integer, Long> ids = new HashMap<Integer, Long>();
+		children.put(null, new ArrayList<Long>());
+		for (Row row : sheet.getRows()) {
+			ids.put(row.getRowNumber(), row.getId());
+			children.put(row.getId(), new ArrayList<Long>());
+			Long parent = row.getParentRowNumber() == null ? null : ids.get(row.getParentRowNumber());
+			parents.put(row.getId(), parent);
+			children.get(parent).add(row.getId());
+		}
+
+		for (Map.Entry<Long, RowWrapper> move : moves.entrySet()) {
+			Long rowId = move.getKey();
+			RowWrapper position = move.getValue();
+			children.get(parents.get(rowId)).remove(rowId);
+			Long parent;
+			int index;
+			if (position.getSiblingId() != null) {
+				parent = parents.get(position.getSiblingId());
+				index = children.get(parent).indexOf(position.getSiblingId()) + 1;
+			} else {
+				parent = position.getParentId();
+				index = 0;
+			}
+			children.get(parent).add(index, rowId);
+			parents.put(rowId, parent);
+		}
+
+		List<Long> outline = new ArrayList<Long>();
+		addOutline(children, null, outline);
+		for (Long rowId : outline) {
+			if (parents.get(rowId) == null) {
+				parents.remove(rowId);
+			}
+		}
+		return outline;
+	}
+
+	private static void addOutline(Map<Long, List<Long>> children, Long parent, List<Long> outline) {
+		for (Long child : children.get(parent)) {
+			outline.add(child);
+			addOutline(children, child, outline);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.smartsheet.api.models.RowWrapper;
+
+public class RowReorderPlannerTest {
+
+	@Test
+	public void testLongestIncreasingSubsequence() {
+		assertArrayEquals(new int[0], RowReorderPlanner.longestIncreasingSubsequence(new int[0]));
+		assertArrayEquals(new int[] { 0, 2, 3 }, RowReorderPlanner.longestIncreasingSubsequence(new int[] { 0, 3, 1,
+				2 }));
+		assertEquals(1, RowReorderPlanner.longestIncreasingSubsequence(new int[] { 3, 2, 1, 0 }).length);
+	}
+
+	@Test
+	public void testNearSortedSheet() {
+		List<Long> target = new ArrayList<Long>();
+		for (long rowId = 0; rowId < 10000; rowId++) {
+			target.add(rowId);
+		}
+
+		// Displace 30 rows.
+		List<Long> current = new ArrayList<Long>(target);
+		Random random = new Random(42);
+		for (int i = 0; i < 30; i++) {
+			current.add(random.nextInt(current.size()), current.remove(random.nextInt(current.size())));
+		}
+
+		Map<Long, RowWrapper> moves = RowReorderPlanner.plan(current, target);
+		assertTrue(moves.size() <= 30);
+		assertEquals(target, simulate(current, moves));
+	}
+
+	@Test
+	public void testReversed() {
+		List<Long> current = Arrays.asList(1L, 2L, 3L, 4L);
+		List<Long> target = new ArrayList<Long>(current);
+		Collections.reverse(target);
+
+		Map<Long, RowWrapper> moves = RowReorderPlanner.plan(current, target);
+		assertEquals(3, moves.size());
+		assertEquals(target, simulate(current, moves));
+		assertTrue(RowReorderPlanner.plan(target, target).isEmpty());
+	}
+
+	private static List<Long> simulate(List<Long> current, Map<Long, RowWrapper> moves) {
+		List<Long> rows = new ArrayList<Long>(current);
+		for (Map.Entry<Long, RowWrapper> move : moves.entrySet()) {
+			rows.remove(move.getKey());
+			if (Boolean.TRUE.equals(move.getValue().getToTop())) {
+				rows.add(0, move.getKey());
+			} else {
+				rows.add(rows.indexOf(move.getValue().getSiblingId()) + 1, move.getKey());
+			}
+		}
+		return rows;
+	}
+}
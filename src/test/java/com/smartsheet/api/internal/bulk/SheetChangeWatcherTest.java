@@ -0,0 +1,143 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Sheet;
+
+public class SheetChangeWatcherTest {
+
+	private SheetChangeWatcher watcher;
+
+	@After
+	public void tearDown() throws Exception {
+		watcher.shutdown();
+	}
+
+	@Test
+	public void testAdaptiveIntervals() throws Exception {
+		TestSheetResources resources = new TestSheetResources();
+		resources.sheets.put(1L, sheet(1L, 1));
+		resources.sheets.put(2L, sheet(2L, 1));
+		TestListener listener = new TestListener();
+		watcher = new SheetChangeWatcher(resources, new RequestRateLimiter(60000, 10), 10, 80,
+				EnumSet.noneOf(ObjectInclusion.class), 2);
+		watcher.addListener(listener);
+		watcher.watch(1L, null);
+		watcher.watch(2L, 1);
+
+		// Idle sheets back off up to the maximum interval.
+		long deadline = System.currentTimeMillis() + 5000;
+		while (watcher.getInterval(1L) < 80 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(80, watcher.getInterval(1L));
+		assertTrue(listener.events.isEmpty());
+
+		// A change is reported with the new content, and polling speeds up again.
+		resources.sheets.put(1L, sheet(1L, 2));
+		assertEquals("changed 1 1 2 true", listener.events.poll(5, TimeUnit.SECONDS));
+		assertTrue(watcher.getInterval(1L) < 80);
+
+		// A deleted sheet is reported and unwatched.
+		resources.sheets.remove(2L);
+		assertEquals("removed 2", listener.events.poll(5, TimeUnit.SECONDS));
+		assertEquals(-1, watcher.getInterval(2L));
+	}
+
+	@Test
+	public void testFailingListenerAndBudget() throws Exception {
+		TestSheetResources resources = new TestSheetResources();
+		resources.sheets.put(1L, sheet(1L, 1));
+		CountingLimiter limiter = new CountingLimiter();
+		TestListener listener = new TestListener();
+		watcher = new SheetChangeWatcher(resources, limiter, 10, 20, EnumSet.noneOf(ObjectInclusion.class), 1);
+		watcher.addListener(new SheetChangeListener() {
+			public void changed(long sheetId, int previousVersion, int version, Sheet sheet) {
+				throw new IllegalStateException();
+			}
+
+			public void removed(long sheetId) {
+				throw new IllegalStateException();
+			}
+		});
+		watcher.addListener(listener);
+		watcher.watch(1L, 1);
+
+		// A failing listener neither hides the change from the others nor stops the polling.
+		resources.sheets.put(1L, sheet(1L, 2));
+		assertEquals("changed 1 1 2 true", listener.events.poll(5, TimeUnit.SECONDS));
+		resources.sheets.put(1L, sheet(1L, 3));
+		assertEquals("changed 1 2 3 true", listener.events.poll(5, TimeUnit.SECONDS));
+
+		// Fetching a changed sheet takes a permit too.
+		watcher.shutdown();
+		Thread.sleep(100);
+		synchronized (resources) {
+			assertTrue(limiter.permits.get() >= resources.requests.size());
+		}
+	}
+
+	private static Sheet sheet(long id, int version) {
+		Sheet sheet = new Sheet();
+		sheet.setId(id);
+		sheet.setVersion(version);
+		return sheet;
+	}
+
+	private static class TestListener implements SheetChangeListener {
+		private final BlockingQueue<String> events = new LinkedBlockingQueue<String>();
+
+		public void changed(long sheetId, int previousVersion, int version, Sheet sheet) {
+			events.add("changed " + sheetId + " " + previousVersion + " " + version + " " + (sheet != null));
+		}
+
+		public void removed(long sheetId) {
+			events.add("removed " + sheetId);
+		}
+	}
+
+	private static class CountingLimiter extends RequestRateLimiter {
+		private final AtomicInteger permits = new AtomicInteger();
+
+		CountingLimiter() {
+			super(60000, 10);
+		}
+
+		@Override
+		public void acquire() throws InterruptedException {
+			super.acquire();
+			permits.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.smartsheet.api.AssociatedAttachmentResources;
+import com.smartsheet.api.AssociatedDiscussionResources;
+import com.smartsheet.api.CellMerger;
+import com.smartsheet.api.RowResources;
+import com.smartsheet.api.SheetRowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.CellHistory;
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowChunkResult;
+import com.smartsheet.api.models.RowEmail;
+import com.smartsheet.api.models.RowWrapper;
+import com.smartsheet.api.models.Sheet;
+
+public class SheetDiffTest {
+
+	private static final long KEY = 10L;
+	private static final long VALUE = 11L;
+
+	@Test
+	public void testCompute() {
+		Sheet sheet = sheet(row(1L, "a", "1"), row(2L, "b", "2"), row(3L, "c", "3"), row(4L, "d", null));
+
+		// b changes, c is removed, d is unchanged (empty and null are the same), e is new.
+		SheetDiff diff = SheetDiff.compute(sheet, KEY, Arrays.asList(row(null, "a", "1"), row(null, "b", "two"),
+				row(null, "d", ""), row(null, "e", "5")), true);
+		assertEquals(1, diff.getInserts().size());
+		assertEquals(Arrays.asList(2L), new ArrayList<Long>(diff.getUpdates().keySet()));
+		assertEquals(1, diff.getUpdates().get(2L).size());
+		assertEquals(Arrays.asList(3L), diff.getDeletes());
+		assertTrue(diff.getMoves().isEmpty());
+
+		// Whole numbers match regardless of their type.
+		sheet = sheet(row(1L, 7.0, "x"));
+		assertTrue(SheetDiff.compute(sheet, KEY, Arrays.asList(row(null, 7, "x")), false).isEmpty());
+
+		// Without deletion, unmatched rows are kept.
+		sheet = sheet(row(1L, "a", "1"), row(2L, "b", "2"));
+		assertTrue(SheetDiff.compute(sheet, KEY, Arrays.asList(row(null, "b", "2")), false).isEmpty());
+	}
+
+	@Test
+	public void testMoves() {
+		Sheet sheet = sheet(row(1L, "a", null), row(2L, "b", null), row(3L, "c", null));
+		SheetDiff diff = SheetDiff.compute(sheet, KEY, Arrays.asList(row(null, "c", null), row(null, "a", null),
+				row(null, "b", null)), false);
+		assertEquals(Arrays.asList(3L), new ArrayList<Long>(diff.getMoves().keySet()));
+		assertEquals(Boolean.TRUE, diff.getMoves().get(3L).getToTop());
+
+		diff = SheetDiff.compute(sheet, KEY, Arrays.asList(row(null, "a", null), row(null, "c", null),
+				row(null, "b", null)), false);
+		assertEquals(Arrays.asList(2L), new ArrayList<Long>(diff.getMoves().keySet()));
+		assertEquals(Long.valueOf(3L), diff.getMoves().get(2L).getSiblingId());
+	}
+
+	@Test
+	public void testApply() throws Exception {
+		Sheet sheet = sheet(row(1L, "a", "1"), row(2L, "b", "2"), row(3L, "c", "3"));
+		SheetDiff diff = SheetDiff.compute(sheet, KEY, Arrays.asList(row(null, "b", "two"), row(null, "a", "1"),
+				row(null, "d", "4"), row(null, "e", "5"), row(null, "f", "6")), true);
+
+		TestResources resources = new TestResources();
+		assertEquals(5, diff.apply(5L, resources, resources, 2));
+		assertEquals(Arrays.asList("delete 3", "update 2", "move 1", "insert 5 2", "insert 5 1"), resources.calls);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateDesiredKey() {
+		SheetDiff.compute(sheet(), KEY, Arrays.asList(row(null, "a", null), row(null, "a", null)), false);
+	}
+
+	private static Sheet sheet(Row... rows) {
+		Sheet sheet = new Sheet();
+		sheet.setRows(Arrays.asList(rows));
+		return sheet;
+	}
+
+	private static Row row(Long id, Object key, Object value) {
+		Row row = new Row();
+		row.setId(id);
+		row.setCells(Arrays.asList(cell(KEY, key), cell(VALUE, value)));
+		return row;
+	}
+
+	private static Cell cell(long columnId, Object value) {
+		Cell cell = new Cell();
+		cell.setColumnId(columnId);
+		cell.setValue(value);
+		return cell;
+	}
+
+	private static class TestResources implements RowResources, SheetRowResources {
+		private final List<String> calls = new ArrayList<String>();
+
+		public List<Cell> updateCells(long rowId, List<Cell> cells) throws SmartsheetException {
+			calls.add("update " + rowId);
+			return cells;
+		}
+
+		public void deleteRow(long id) throws SmartsheetException {
+			calls.add("delete " + id);
+		}
+
+		public List<Row> moveRow(long id, RowWrapper rowWrapper) throws SmartsheetException {
+			calls.add("move " + id);
+			return new ArrayList<Row>();
+		}
+
+		public List<Row> insertRows(long sheetId, RowWrapper rowWrapper) throws SmartsheetException {
+			calls.add("insert " + sheetId + " " + rowWrapper.getRows().size());
+			return rowWrapper.getRows();
+		}
+
+		public List<Row> insertRows(long sheetId, RowWrapper placement, Iterator<Row> rows)
+				throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<RowChunkResult> insertRows(long sheetId, RowWrapper placement, Iterator<Row> rows, int chunkSize,
+				int maxInFlight) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Row getRow(long id, int rowNumber) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Cell> updateCells(long rowId, List<Cell> cells, CellMerger merger, int maxRetries)
+				throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<Row> moveRow(long id, RowWrapper rowWrapper, int maxRetries) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public Row getRow(long id, EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public void sendRow(long id, RowEmail email) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public List<CellHistory> getCellHistory(long rowId, long columnId) throws SmartsheetException {
+			throw new UnsupportedOperationException();
+		}
+
+		public AssociatedAttachmentResources attachments() {
+			throw new UnsupportedOperationException();
+		}
+
+		public AssociatedDiscussionResources discussions() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
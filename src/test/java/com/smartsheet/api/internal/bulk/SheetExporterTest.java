@@ -0,0 +1,194 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.ProgressListener;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.ServiceUnavailableException;
+import com.smartsheet.api.SheetHandler;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.internal.cache.ColumnarSheetReader;
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Column;
+import com.smartsheet.api.models.Error;
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+
+public class SheetExporterTest {
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = new File(System.getProperty("java.io.tmpdir"), "sheet-exporter-test-" + System.nanoTime());
+		directory.mkdirs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testExportCsv() throws Exception {
+		TestSheetResources resources = new TestSheetResources();
+		resources.sheets.put(1L, sheet(1L, 3));
+		resources.sheets.put(2L, sheet(2L, 0));
+
+		SheetExporter exporter = new SheetExporter(resources, directory, SheetExporter.Format.CSV, 2,
+				new RequestRateLimiter(60000, 100));
+		final AtomicLong progress = new AtomicLong();
+		Map<Long, SmartsheetException> failures = exporter.export(Arrays.asList(1L, 2L, 9L), new ProgressListener() {
+			public void progress(long completed, long total) {
+				assertEquals(3, total);
+				progress.set(Math.max(progress.get(), completed));
+			}
+		});
+
+		assertEquals(3, progress.get());
+		assertEquals(1, failures.size());
+		assertTrue(failures.get(9L) instanceof ResourceNotFoundException);
+		assertFalse(exporter.getFile(9L).exists());
+		assertEquals(2, directory.listFiles().length);
+
+		assertEquals("Name,Notes\r\n"
+				+ "row 0,plain\r\n"
+				+ "row 1,\"with, comma\"\r\n"
+				+ "row 2,\"with \"\"quotes\"\"\"\r\n", read(exporter.getFile(1L)));
+		assertEquals("Name,Notes\r\n", read(exporter.getFile(2L)));
+	}
+
+	@Test
+	public void testExportInterrupted() throws Exception {
+		TestSheetResources resources = new TestSheetResources() {
+			@Override
+			public void streamSheet(long id, EnumSet<ObjectInclusion> includes, SheetHandler handler)
+					throws SmartsheetException {
+				// The retry waits for the request budget, and is interrupted.
+				Thread.currentThread().interrupt();
+				Error error = new Error();
+				error.setErrorCode(4003);
+				error.setMessage("Rate limit exceeded.");
+				throw new ServiceUnavailableException(error);
+			}
+		};
+		resources.sheets.put(1L, sheet(1L, 3));
+
+		SheetExporter exporter = new SheetExporter(resources, directory, SheetExporter.Format.CSV, 1,
+				new RequestRateLimiter(60000, 100));
+		Map<Long, SmartsheetException> failures = exporter.export(Arrays.asList(1L), null);
+		assertTrue(failures.get(1L).getCause() instanceof InterruptedException);
+		assertFalse(exporter.getFile(1L).exists());
+	}
+
+	@Test
+	public void testExportColumnar() throws Exception {
+		TestSheetResources resources = new TestSheetResources();
+		for (long id = 1; id <= 5; id++) {
+			resources.sheets.put(id, sheet(id, 600));
+		}
+
+		SheetExporter exporter = new SheetExporter(resources, directory, SheetExporter.Format.COLUMNAR, 3,
+				new RequestRateLimiter(60000, 100));
+		assertTrue(exporter.exportOrganization(null).isEmpty());
+		assertEquals("listOrganization", resources.requests.get(0));
+		assertEquals(6, resources.requests.size());
+
+		ColumnarSheetReader reader = ColumnarSheetReader.open(exporter.getFile(4L));
+		assertEquals(4L, reader.getSheetId());
+		assertEquals(Integer.valueOf(7), reader.getVersion());
+		assertEquals(600, reader.getRowCount());
+		assertEquals(3, reader.getRowGroupCount());
+		Sheet sheet = reader.toSheet();
+		assertEquals("sheet 4", sheet.getName());
+		assertEquals("with \"quotes\"", sheet.getRows().get(599).getCells().get(1).getValue());
+	}
+
+	private static Sheet sheet(long id, int rowCount) {
+		List<Column> columns = new ArrayList<Column>();
+		for (String title : Arrays.asList("Name", "Notes")) {
+			Column column = new Column();
+			column.setId(id * 10 + columns.size());
+			column.setTitle(title);
+			columns.add(column);
+		}
+
+		List<Row> rows = new ArrayList<Row>();
+		for (int i = 0; i < rowCount; i++) {
+			Row row = new Row();
+			row.setId(id * 1000 + i);
+			row.setRowNumber(i + 1);
+			List<Cell> cells = new ArrayList<Cell>();
+			for (Column column : columns) {
+				Cell cell = new Cell();
+				cell.setColumnId(column.getId());
+				cells.add(cell);
+			}
+			cells.get(0).setValue("row " + i);
+			cells.get(1).setValue(i % 3 == 0 ? "plain" : i % 3 == 1 ? "with, comma" : "with \"quotes\"");
+			row.setCells(cells);
+			rows.add(row);
+		}
+
+		Sheet sheet = new Sheet();
+		sheet.setId(id);
+		sheet.setName("sheet " + id);
+		sheet.setVersion(7);
+		sheet.setColumns(columns);
+		sheet.setRows(rows);
+		return sheet;
+	}
+
+	private static String read(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			int read = 0;
+			while (read < bytes.length) {
+				read += in.read(bytes, read, bytes.length - read);
+			}
+			return new String(bytes, "UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.models.Row;
+
+public class SheetWriteExecutorTest {
+
+	private SheetWriteExecutor executor;
+
+	@Before
+	public void setUp() throws Exception {
+		executor = new SheetWriteExecutor(2, 2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdown();
+	}
+
+	@Test
+	public void testOrdering() throws Exception {
+		final List<Integer> writes = Collections.synchronizedList(new ArrayList<Integer>());
+		Row row = new Row();
+		row.setSheetId(1L);
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		for (int i = 0; i < 20; i++) {
+			final int value = i;
+			Callable<Integer> write = new Callable<Integer>() {
+				public Integer call() {
+					writes.add(value);
+					return value;
+				}
+			};
+			futures.add(i % 2 == 0 ? executor.submit(1L, write) : executor.submit(row, write));
+		}
+		for (int i = 0; i < 20; i++) {
+			assertEquals(Integer.valueOf(i), futures.get(i).get(5, TimeUnit.SECONDS));
+			assertEquals(Integer.valueOf(i), writes.get(i));
+		}
+	}
+
+	@Test
+	public void testParallelLanesAndBackpressure() throws Exception {
+		final CountDownLatch blocked = new CountDownLatch(1);
+		Callable<Void> blocking = new Callable<Void>() {
+			public Void call() throws Exception {
+				blocked.await();
+				return null;
+			}
+		};
+		Callable<Void> noop = new Callable<Void>() {
+			public Void call() {
+				return null;
+			}
+		};
+
+		// Sheet 1 is stuck, sheet 2 still makes progress.
+		executor.submit(1L, blocking);
+		executor.submit(2L, noop).get(5, TimeUnit.SECONDS);
+
+		// The lane of sheet 1 accepts two pending writes, the next submit blocks.
+		long deadline = System.currentTimeMillis() + 5000;
+		while (executor.getLaneDepth(1L) > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		executor.submit(1L, noop);
+		executor.submit(1L, noop);
+		assertEquals(2, executor.getLaneDepth(1L));
+
+		final CountDownLatch submitted = new CountDownLatch(1);
+		Thread producer = new Thread() {
+			public void run() {
+				try {
+					executor.submit(1L, new Callable<Void>() {
+						public Void call() {
+							return null;
+						}
+					});
+					submitted.countDown();
+				} catch (InterruptedException e) {
+					// Ignore exception, the test fails on the latch.
+				}
+			}
+		};
+		producer.start();
+		assertTrue(!submitted.await(100, TimeUnit.MILLISECONDS));
+
+		blocked.countDown();
+		assertTrue(submitted.await(5, TimeUnit.SECONDS));
+
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5000));
+		try {
+			executor.submit(1L, noop);
+			fail("Exception should have been thrown");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+	}
+}
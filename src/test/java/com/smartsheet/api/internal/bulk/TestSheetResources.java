@@ -0,0 +1,206 @@
+package com.smartsheet.api.internal.bulk;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.smartsheet.api.AssociatedAttachmentResources;
+import com.smartsheet.api.AssociatedDiscussionResources;
+import com.smartsheet.api.ProgressListener;
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.ShareResources;
+import com.smartsheet.api.SheetColumnResources;
+import com.smartsheet.api.SheetHandler;
+import com.smartsheet.api.SheetResources;
+import com.smartsheet.api.SheetRowResources;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.models.Error;
+import com.smartsheet.api.models.ObjectInclusion;
+import com.smartsheet.api.models.PaperSize;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+import com.smartsheet.api.models.SheetEmail;
+import com.smartsheet.api.models.SheetPublish;
+
+/**
+ * In-memory sheet resources for the tests of this package, serving the sheets it holds and counting the requests.
+ */
+class TestSheetResources implements SheetResources {
+	final Map<Long, Sheet> sheets = Collections.synchronizedMap(new LinkedHashMap<Long, Sheet>());
+	final List<String> requests = new ArrayList<String>();
+
+	static ResourceNotFoundException notFound() {
+		Error error = new Error();
+		error.setErrorCode(1006);
+		error.setMessage("Not Found");
+		return new ResourceNotFoundException(error);
+	}
+
+	synchronized Sheet sheet(long id) throws ResourceNotFoundException {
+		Sheet sheet = sheets.get(id);
+		if (sheet == null) {
+			throw notFound();
+		}
+		return sheet;
+	}
+
+	public synchronized List<Sheet> listSheets() throws SmartsheetException {
+		requests.add("list");
+		return new ArrayList<Sheet>(sheets.values());
+	}
+
+	public synchronized List<Sheet> listOrganizationSheets() throws SmartsheetException {
+		requests.add("listOrganization");
+		return new ArrayList<Sheet>(sheets.values());
+	}
+
+	public synchronized Sheet getSheet(long id, EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+		requests.add("get " + id);
+		return sheet(id);
+	}
+
+	public void streamSheet(long id, EnumSet<ObjectInclusion> includes, SheetHandler handler)
+			throws SmartsheetException {
+		Sheet sheet;
+		synchronized (this) {
+			requests.add("stream " + id);
+			sheet = sheet(id);
+		}
+		Sheet properties = new Sheet();
+		properties.setId(sheet.getId());
+		properties.setName(sheet.getName());
+		properties.setColumns(sheet.getColumns());
+		handler.start(properties);
+		if (sheet.getRows() != null) {
+			for (Row row : sheet.getRows()) {
+				handler.row(row);
+			}
+		}
+		properties.setVersion(sheet.getVersion());
+		handler.end(properties);
+	}
+
+	public synchronized int getSheetVersion(long id) throws SmartsheetException {
+		requests.add("version " + id);
+		return sheet(id).getVersion();
+	}
+
+	public void getSheetAsExcel(long id, OutputStream outputStream) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public void getSheetAsPDF(long id, OutputStream outputStream, PaperSize paperSize) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public long getSheetAsExcel(long id, WritableByteChannel channel, ProgressListener listener)
+			throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public long getSheetAsExcel(long id, File file, ProgressListener listener) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public long getSheetAsPDF(long id, WritableByteChannel channel, PaperSize paperSize, ProgressListener listener)
+			throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public long getSheetAsPDF(long id, File file, PaperSize paperSize, ProgressListener listener)
+			throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public Sheet createSheet(Sheet sheet) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public Sheet createSheetFromExisting(Sheet sheet, EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public Sheet createSheetInFolder(long folderId, Sheet sheet) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public Sheet createSheetInFolderFromExisting(long folderID, Sheet sheet, EnumSet<ObjectInclusion> includes)
+			throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public Sheet createSheetInWorkspace(long workspaceId, Sheet sheet) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public Sheet createSheetInWorkspaceFromExisting(long workspaceId, Sheet sheet,
+			EnumSet<ObjectInclusion> includes) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public void deleteSheet(long id) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public Sheet updateSheet(Sheet sheet) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public void sendSheet(long id, SheetEmail email) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public ShareResources shares() {
+		throw new UnsupportedOperationException();
+	}
+
+	public SheetRowResources rows() {
+		throw new UnsupportedOperationException();
+	}
+
+	public SheetColumnResources columns() {
+		throw new UnsupportedOperationException();
+	}
+
+	public AssociatedAttachmentResources attachments() {
+		throw new UnsupportedOperationException();
+	}
+
+	public AssociatedDiscussionResources discussions() {
+		throw new UnsupportedOperationException();
+	}
+
+	public SheetPublish getPublishStatus(long id) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+
+	public SheetPublish updatePublishStatus(long id, SheetPublish publish) throws SmartsheetException {
+		throw new UnsupportedOperationException();
+	}
+}
@@ -0,0 +1,109 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.models.Attachment;
+import com.smartsheet.api.models.AttachmentParentType;
+import com.smartsheet.api.models.AttachmentType;
+
+public class AttachmentIndexTest {
+
+	private File indexFile;
+
+	@Before
+	public void setUp() throws Exception {
+		indexFile = File.createTempFile("attachment-index-test-", ".index");
+		indexFile.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		indexFile.delete();
+	}
+
+	@Test
+	public void testLogAndCompaction() throws Exception {
+		AttachmentIndex index = new AttachmentIndex(indexFile);
+		index.put("a", attachment(1L, 10L));
+		long length = indexFile.length();
+		index.put("b", attachment(2L, 10L));
+		index.putVersion(1L, "c", attachment(3L, 10L));
+		index.putUrl("d", "https://example.com/d");
+
+		// Changes are appended, the file isn't rewritten.
+		assertTrue(indexFile.length() > length);
+		index = new AttachmentIndex(indexFile);
+		assertEquals(AttachmentType.FILE, index.find("b", AttachmentParentType.ROW, 10L).getAttachmentType());
+		assertNull(index.find("a", AttachmentParentType.ROW, 10L));
+		assertEquals(Long.valueOf(3L), index.findVersion(1L, "c").getId());
+		assertEquals("https://example.com/d", index.getUrl("d"));
+
+		// Replacing the same attachment over and over compacts the log.
+		for (int i = 0; i < 3000; i++) {
+			index.put("e" + i, attachment(2L, 10L));
+		}
+		assertTrue(indexFile.length() < 1000 * 50);
+		index = new AttachmentIndex(indexFile);
+		assertEquals(2, index.getAttachmentCount());
+		assertNotNull(index.find("e2999", AttachmentParentType.ROW, 10L));
+	}
+
+	@Test
+	public void testTruncatedRecord() throws Exception {
+		AttachmentIndex index = new AttachmentIndex(indexFile);
+		index.put("a", attachment(1L, 10L));
+		index.put("b", attachment(2L, 10L));
+		RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+		file.setLength(file.length() - 3);
+		file.close();
+
+		// The cut record is dropped, and later records aren't appended after it.
+		index = new AttachmentIndex(indexFile);
+		assertNotNull(index.find("a", AttachmentParentType.ROW, 10L));
+		assertNull(index.find("b", AttachmentParentType.ROW, 10L));
+		index.put("c", attachment(3L, 10L));
+		index = new AttachmentIndex(indexFile);
+		assertEquals(2, index.getAttachmentCount());
+		assertNotNull(index.find("c", AttachmentParentType.ROW, 10L));
+	}
+
+	private static Attachment attachment(long id, long parentId) {
+		Attachment attachment = new Attachment();
+		attachment.setId(id);
+		attachment.setName("file" + id);
+		attachment.setAttachmentType(AttachmentType.FILE);
+		attachment.setParentType(AttachmentParentType.ROW);
+		attachment.setParentId(parentId);
+		return attachment;
+	}
+}
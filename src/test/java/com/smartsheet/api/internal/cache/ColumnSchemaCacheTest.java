@@ -0,0 +1,72 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ColumnSchemaCacheTest {
+
+	@Test
+	public void testLookup() {
+		ColumnSchemaCache cache = new ColumnSchemaCache();
+		assertNull(cache.getColumnIdsByTitle(1L));
+
+		cache.put(1L, TieredSheetCacheTest.createSheet(1L, 0).getColumns());
+		Map<String, Long> ids = cache.getColumnIdsByTitle(1L);
+		assertEquals(Long.valueOf(11L), ids.get("Name"));
+		assertEquals(Long.valueOf(12L), ids.get("Done"));
+		assertEquals(Long.valueOf(12L), cache.getColumnIdsByIndex(1L).get(1));
+		assertEquals(2, cache.getColumns(1L).size());
+	}
+
+	@Test
+	public void testInvalidate() {
+		ColumnSchemaCache cache = new ColumnSchemaCache();
+		cache.put(1L, TieredSheetCacheTest.createSheet(1L, 0).getColumns());
+		cache.put(2L, TieredSheetCacheTest.createSheet(2L, 0).getColumns());
+
+		cache.invalidate(1L);
+		assertNull(cache.getColumns(1L));
+		assertEquals(2, cache.getColumns(2L).size());
+
+		cache.invalidateColumn(12L);
+		assertNull(cache.getColumns(2L));
+	}
+
+	@Test
+	public void testEviction() {
+		ColumnSchemaCache cache = new ColumnSchemaCache(2);
+		cache.put(1L, TieredSheetCacheTest.createSheet(1L, 0).getColumns());
+		cache.put(2L, TieredSheetCacheTest.createSheet(2L, 0).getColumns());
+		cache.getColumns(1L);
+		cache.put(3L, TieredSheetCacheTest.createSheet(3L, 0).getColumns());
+
+		// The least recently used sheet is evicted.
+		assertNull(cache.getColumns(2L));
+		assertEquals(2, cache.getColumns(1L).size());
+		assertEquals(2, cache.getColumns(3L).size());
+	}
+}
@@ -0,0 +1,180 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.ResourceNotFoundException;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.models.Error;
+import com.smartsheet.api.models.Sheet;
+
+public class RefreshAheadSchedulerTest {
+
+	private TieredSheetCache cache;
+	private TestLoader loader;
+	private RefreshAheadScheduler scheduler;
+
+	@Before
+	public void setUp() throws Exception {
+		cache = new TieredSheetCache(1024 * 1024, 0, 0, null, 60000);
+		loader = new TestLoader();
+		scheduler = new RefreshAheadScheduler(cache, loader, 60000, 10000, 1);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void testSelectDue() {
+		long now = System.currentTimeMillis();
+		cache.put(TieredSheetCacheTest.createSheet(1L, 1));
+		cache.put(TieredSheetCacheTest.createSheet(2L, 1));
+		cache.put(TieredSheetCacheTest.createSheet(3L, 1));
+		scheduler.recordAccess(1L);
+		scheduler.recordAccess(1L);
+		for (int i = 0; i < 5; i++) {
+			scheduler.recordAccess(2L);
+		}
+		scheduler.recordAccess(3L);
+
+		// Nothing expires within the refresh-ahead window yet.
+		assertTrue(scheduler.selectDue(now).isEmpty());
+
+		// Sheet 3 is not hot, and the rate cap lets only the hottest sheet through.
+		List<Long> due = scheduler.selectDue(now + 55000);
+		assertEquals(1, due.size());
+		assertEquals(Long.valueOf(2L), due.get(0));
+
+		// The budget is spent until it's replenished.
+		assertTrue(scheduler.selectDue(now + 55000).isEmpty());
+
+		// Counters of sheets that are no longer cached are dropped.
+		cache.invalidate(2L);
+		due = scheduler.selectDue(now + 56000);
+		assertEquals(1, due.size());
+		assertEquals(Long.valueOf(1L), due.get(0));
+	}
+
+	@Test
+	public void testRateCap() throws Exception {
+		// Scans run every 100 ms and every hot sheet is due again 100 ms after it's validated. Scans only see the
+		// time of the test clock, which runs a minute ahead so that every sheet is due, and moves by whole seconds.
+		final AtomicLong now = new AtomicLong(System.currentTimeMillis() + 60000);
+		scheduler.shutdown();
+		scheduler = new RefreshAheadScheduler(cache, loader, 300, 200, 1, new RefreshAheadScheduler.Clock() {
+			public long currentTimeMillis() {
+				return now.get();
+			}
+		});
+		loader.version = 7;
+		for (long sheetId = 1; sheetId <= 5; sheetId++) {
+			cache.put(TieredSheetCacheTest.createSheet(sheetId, 1));
+			for (int i = 0; i < 1000; i++) {
+				scheduler.recordAccess(sheetId);
+			}
+		}
+
+		// One refresh saved up at start, then one per second, and no more than one second's worth saved up.
+		awaitVersionChecks(1);
+		now.addAndGet(1000);
+		awaitVersionChecks(2);
+		now.addAndGet(3000);
+		awaitVersionChecks(3);
+	}
+
+	/**
+	 * Wait until the background refreshes made a number of version checks, then check that they make no more while
+	 * the test clock stands still.
+	 */
+	private void awaitVersionChecks(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (loader.versionChecks.get() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(300);
+		assertEquals(expected, loader.versionChecks.get());
+	}
+
+	@Test
+	public void testRefresh() throws Exception {
+		cache.put(TieredSheetCacheTest.createSheet(1L, 1));
+		long validatedAt = cache.getValidatedAt(1L);
+		Thread.sleep(5);
+
+		// An unchanged version only marks the sheet as validated.
+		loader.version = 7;
+		scheduler.refresh(1L);
+		assertTrue(cache.getValidatedAt(1L) > validatedAt);
+		assertEquals(0, loader.loads);
+
+		// A changed version replaces the cached content.
+		loader.version = 8;
+		scheduler.refresh(1L);
+		assertEquals(1, loader.loads);
+		assertEquals(Integer.valueOf(8), cache.get(1L).getVersion());
+
+		// A deleted sheet is removed from the cache.
+		loader.version = -1;
+		scheduler.refresh(1L);
+		assertNull(cache.get(1L));
+	}
+
+	private class TestLoader implements RefreshAheadScheduler.SheetLoader {
+		private volatile int version;
+		private int loads;
+		private final AtomicInteger versionChecks = new AtomicInteger();
+
+		public int getSheetVersion(long sheetId) throws SmartsheetException {
+			versionChecks.incrementAndGet();
+			if (version < 0) {
+				Error error = new Error();
+				error.setErrorCode(1006);
+				error.setMessage("Not Found");
+				throw new ResourceNotFoundException(error);
+			}
+			return version;
+		}
+
+		public Sheet loadSheet(long sheetId, Sheet cached, int version) throws SmartsheetException {
+			loads++;
+			Sheet sheet = TieredSheetCacheTest.createSheet(sheetId, 1);
+			sheet.setVersion(version);
+			return sheet;
+		}
+
+		public void cacheSheet(Sheet sheet) {
+			cache.put(sheet);
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.ProgressListener;
+import com.smartsheet.api.SmartsheetException;
+import com.smartsheet.api.models.PaperSize;
+
+public class RenditionCacheTest {
+
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = new File(System.getProperty("java.io.tmpdir"), "rendition-cache-test-" + System.nanoTime());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testHitsAndVersions() throws Exception {
+		RenditionCache cache = new RenditionCache(directory, 1000);
+		TestLoader loader = new TestLoader("v1", 0);
+
+		assertEquals("v1", get(cache, 1L, 1, PaperSize.A4, loader));
+		assertEquals("v1", get(cache, 1L, 1, PaperSize.A4, loader));
+		assertEquals(1, loader.calls.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// Another paper size is another rendition.
+		get(cache, 1L, 1, null, loader);
+		assertEquals(2, loader.calls.get());
+		assertEquals(2, directory.listFiles().length);
+
+		// A new version replaces the renditions of the previous one.
+		loader = new TestLoader("v2", 0);
+		assertEquals("v2", get(cache, 1L, 2, PaperSize.A4, loader));
+		assertEquals(1, directory.listFiles().length);
+		assertEquals(2, cache.getTotalBytes());
+
+		// A new cache finds the rendition.
+		cache = new RenditionCache(directory, 1000);
+		assertEquals("v2", get(cache, 1L, 2, PaperSize.A4, loader));
+		assertEquals(1, loader.calls.get());
+
+		cache.invalidate(1L);
+		assertEquals(0, directory.listFiles().length);
+		assertEquals(0, cache.getTotalBytes());
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		RenditionCache cache = new RenditionCache(directory, 25);
+		TestLoader loader = new TestLoader("0123456789", 0);
+
+		get(cache, 1L, 1, null, loader);
+		get(cache, 2L, 1, null, loader);
+		get(cache, 1L, 1, null, loader);
+		get(cache, 3L, 1, null, loader);
+		assertEquals(3, loader.calls.get());
+		assertEquals(20, cache.getTotalBytes());
+
+		// Sheet 2 was the least recently used.
+		get(cache, 1L, 1, null, loader);
+		get(cache, 3L, 1, null, loader);
+		assertEquals(3, loader.calls.get());
+		get(cache, 2L, 1, null, loader);
+		assertEquals(4, loader.calls.get());
+
+		// A rendition larger than the cache is served but not kept.
+		TestLoader large = new TestLoader("012345678901234567890123456789", 0);
+		assertEquals("012345678901234567890123456789", get(cache, 4L, 1, null, large));
+		get(cache, 4L, 1, null, large);
+		assertEquals(2, large.calls.get());
+		assertEquals(2, directory.listFiles().length);
+	}
+
+	@Test
+	public void testCoalescing() throws Exception {
+		RenditionCache cache = new RenditionCache(directory, 1000);
+		TestLoader loader = new TestLoader("shared", 200);
+		List<String> results = getConcurrently(cache, loader, 4);
+
+		assertEquals(4, results.size());
+		for (String result : results) {
+			assertEquals("shared", result);
+		}
+		assertEquals(1, loader.calls.get());
+		assertEquals(1, cache.getMissCount());
+
+		// Renditions larger than the cache are shared by the waiting callers too, and then deleted.
+		cache = new RenditionCache(directory, 3);
+		loader = new TestLoader("too large", 200);
+		results = getConcurrently(cache, loader, 4);
+		assertEquals(4, results.size());
+		for (String result : results) {
+			assertEquals("too large", result);
+		}
+		assertEquals(1, loader.calls.get());
+		assertEquals(0, directory.listFiles().length);
+	}
+
+	@Test
+	public void testProgress() throws Exception {
+		RenditionCache cache = new RenditionCache(directory, 1000);
+		TestLoader loader = new TestLoader("progress", 0);
+		final List<Long> progress = new ArrayList<Long>();
+		ProgressListener listener = new ProgressListener() {
+			public void progress(long completed, long total) {
+				progress.add(completed);
+			}
+		};
+
+		// The download reports its own progress, without a second pass for the copy from the cache.
+		cache.get(1L, 1, "pdf", null, Channels.newChannel(new ByteArrayOutputStream()), listener, loader);
+		assertEquals(Arrays.asList(-8L), progress);
+
+		progress.clear();
+		cache.get(1L, 1, "pdf", null, Channels.newChannel(new ByteArrayOutputStream()), listener, loader);
+		assertEquals(Arrays.asList(8L), progress);
+	}
+
+	@Test
+	public void testLoaderFailure() throws Exception {
+		RenditionCache cache = new RenditionCache(directory, 1000);
+		TestLoader loader = new TestLoader(null, 0);
+		try {
+			get(cache, 1L, 1, null, loader);
+			fail("Exception should have been thrown.");
+		} catch (SmartsheetException e) {
+			assertEquals("failed", e.getMessage());
+		}
+		assertEquals(0, directory.listFiles().length);
+		assertEquals(0, cache.getTotalBytes());
+	}
+
+	private static List<String> getConcurrently(final RenditionCache cache, final TestLoader loader, int count)
+			throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<String> results = new ArrayList<String>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < count; i++) {
+			Thread thread = new Thread() {
+				public void run() {
+					try {
+						start.await();
+						String result = get(cache, 1L, 1, PaperSize.LETTER, loader);
+						synchronized (results) {
+							results.add(result);
+						}
+					} catch (Exception e) {
+						// The result is missing.
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return results;
+	}
+
+	private static String get(RenditionCache cache, long sheetId, int version, PaperSize paperSize, TestLoader loader)
+			throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		long count = cache.get(sheetId, version, "pdf", paperSize, Channels.newChannel(output), null, loader);
+		assertEquals(output.size(), count);
+		return output.toString("UTF-8");
+	}
+
+	private static class TestLoader implements RenditionCache.Loader {
+		private final String content;
+		private final long delay;
+		private final AtomicInteger calls = new AtomicInteger();
+
+		TestLoader(String content, long delay) {
+			this.content = content;
+			this.delay = delay;
+		}
+
+		public long load(WritableByteChannel channel, ProgressListener listener) throws SmartsheetException {
+			calls.incrementAndGet();
+			if (content == null) {
+				throw new SmartsheetException("failed");
+			}
+			try {
+				Thread.sleep(delay);
+				ByteBuffer buffer = ByteBuffer.wrap(content.getBytes("UTF-8"));
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				if (listener != null) {
+					// Negated to tell the download from the copy.
+					listener.progress(-buffer.capacity(), buffer.capacity());
+				}
+				return buffer.capacity();
+			} catch (Exception e) {
+				throw new SmartsheetException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Row;
+
+public class RowValueTrackerTest {
+
+	@Test
+	public void testIsModified() {
+		RowValueTracker tracker = new RowValueTracker(10);
+		Row row = row(cell(11L, "a"), cell(12L, 1));
+		assertFalse(tracker.isModified(1L, row, Arrays.asList(cell(11L, "b"))));
+		tracker.recordRow(1L, row);
+
+		// Edits of other cells are not conflicts, cells never seen aren't checked.
+		Row current = row(cell(11L, "a"), cell(12L, 2), cell(13L, "x"));
+		assertFalse(tracker.isModified(1L, current, Arrays.asList(cell(11L, "b"), cell(13L, "y"))));
+		assertTrue(tracker.isModified(1L, current, Arrays.asList(cell(12L, 3))));
+
+		// A cell cleared by another writer is a modification, a cell written through this client is not.
+		assertTrue(tracker.isModified(1L, row(cell(12L, 1)), Arrays.asList(cell(11L, "b"))));
+		tracker.recordCells(1L, Arrays.asList(cell(12L, 2)));
+		assertFalse(tracker.isModified(1L, current, Arrays.asList(cell(12L, 3))));
+	}
+
+	@Test
+	public void testMaxRows() {
+		RowValueTracker tracker = new RowValueTracker(2);
+		tracker.recordCells(1L, Arrays.asList(cell(11L, "a")));
+		tracker.recordCells(2L, Arrays.asList(cell(11L, "b")));
+
+		// The least recently seen row is forgotten first.
+		tracker.isTracked(1L);
+		tracker.recordCells(3L, Arrays.asList(cell(11L, "c")));
+		assertFalse(tracker.isTracked(2L));
+		assertTrue(tracker.isTracked(1L));
+
+		tracker.forget(1L);
+		assertFalse(tracker.isTracked(1L));
+	}
+
+	private static Row row(Cell... cells) {
+		Row row = new Row();
+		row.setCells(Arrays.asList(cells));
+		return row;
+	}
+
+	private static Cell cell(long columnId, Object value) {
+		Cell cell = new Cell();
+		cell.setColumnId(columnId);
+		cell.setValue(value);
+		return cell;
+	}
+}
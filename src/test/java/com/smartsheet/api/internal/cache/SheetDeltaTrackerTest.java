@@ -0,0 +1,122 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+
+public class SheetDeltaTrackerTest {
+
+	@Test
+	public void testPlanDelta() {
+		SheetDeltaTracker tracker = new SheetDeltaTracker();
+		tracker.track(TieredSheetCacheTest.createSheet(1L, 1000));
+
+		// Nothing was written through this client.
+		assertNull(tracker.planDelta(1L, 7, 8));
+
+		tracker.recordCellUpdate(101L);
+		tracker.recordCellUpdate(105L);
+		tracker.recordCellUpdate(101L);
+		tracker.recordCellUpdate(999999L);
+
+		Set<Long> rowIds = tracker.planDelta(1L, 7, 10);
+		assertEquals(2, rowIds.size());
+		assertTrue(rowIds.contains(101L));
+		assertTrue(rowIds.contains(105L));
+
+		// Someone else wrote to the sheet as well.
+		assertNull(tracker.planDelta(1L, 7, 11));
+
+		// The cached version doesn't match the tracked one.
+		assertNull(tracker.planDelta(1L, 6, 9));
+
+		tracker.forget(1L);
+		assertNull(tracker.planDelta(1L, 7, 10));
+	}
+
+	@Test
+	public void testPlanDeltaCost() {
+		SheetDeltaTracker tracker = new SheetDeltaTracker();
+		tracker.track(TieredSheetCacheTest.createSheet(1L, 100));
+		tracker.recordCellUpdate(100L);
+		assertEquals(1, tracker.planDelta(1L, 7, 8).size());
+
+		// Two round trips cost more than fetching a small sheet in one.
+		tracker.recordCellUpdate(101L);
+		assertNull(tracker.planDelta(1L, 7, 9));
+	}
+
+	@Test
+	public void testMaxRows() {
+		SheetDeltaTracker tracker = new SheetDeltaTracker(250);
+		tracker.track(createSheet(1L, 100));
+		tracker.track(createSheet(2L, 100));
+		tracker.recordCellUpdate(1100L);
+
+		// The least recently used sheet is forgotten to make room.
+		tracker.track(createSheet(3L, 100));
+		assertEquals(200, tracker.getTrackedRows());
+		assertEquals(1, tracker.planDelta(1L, 7, 8).size());
+		tracker.recordCellUpdate(2100L);
+		assertNull(tracker.planDelta(2L, 7, 8));
+		tracker.forget(3L);
+		assertEquals(100, tracker.getTrackedRows());
+	}
+
+	@Test
+	public void testPatchRows() {
+		Sheet sheet = TieredSheetCacheTest.createSheet(1L, 3);
+		Row row = new Row();
+		row.setId(101L);
+		Map<Long, Row> rows = new HashMap<Long, Row>();
+		rows.put(101L, row);
+
+		assertTrue(SheetDeltaTracker.patchRows(sheet, rows));
+		assertSame(row, sheet.getRows().get(1));
+		assertEquals(3, sheet.getRows().size());
+
+		Row missing = new Row();
+		missing.setId(5L);
+		rows.put(5L, missing);
+		assertFalse(SheetDeltaTracker.patchRows(sheet, rows));
+	}
+
+	private static Sheet createSheet(long id, int rowCount) {
+		Sheet sheet = TieredSheetCacheTest.createSheet(id, rowCount);
+		for (Row row : sheet.getRows()) {
+			row.setId(row.getId() + id * 1000);
+		}
+		return sheet;
+	}
+}
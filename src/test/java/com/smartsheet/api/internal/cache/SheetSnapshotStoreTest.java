@@ -0,0 +1,166 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+
+public class SheetSnapshotStoreTest {
+
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = new File(System.getProperty("java.io.tmpdir"), "snapshot-store-test-" + System.nanoTime());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testSaveAndReload() {
+		SheetSnapshotStore store = new SheetSnapshotStore(directory);
+		assertNull(store.getVersion(1L));
+		assertNull(store.load(1L));
+
+		Sheet sheet = TieredSheetCacheTest.createSheet(1L, 2500);
+		store.save(sheet);
+		sheet.setVersion(8);
+		store.save(sheet);
+		assertEquals(1, directory.listFiles().length);
+
+		// A new store finds the snapshot without reading it.
+		store = new SheetSnapshotStore(directory);
+		assertEquals(Integer.valueOf(8), store.getVersion(1L));
+
+		Sheet loaded = store.load(1L);
+		assertEquals(Integer.valueOf(8), loaded.getVersion());
+		assertEquals("Sheet 1", loaded.getName());
+		assertEquals(2, loaded.getColumns().size());
+		assertEquals(2500, loaded.getRows().size());
+		Row row = loaded.getRows().get(2499);
+		assertEquals(Long.valueOf(2599L), row.getId());
+		assertEquals("value 2499", row.getCells().get(0).getValue());
+		assertEquals(Boolean.FALSE, row.getCells().get(1).getValue());
+
+		store.delete(1L);
+		assertNull(store.getVersion(1L));
+		assertEquals(0, directory.listFiles().length);
+	}
+
+	@Test
+	public void testReadColumn() throws Exception {
+		Sheet sheet = TieredSheetCacheTest.createSheet(1L, 10);
+		sheet.getRows().get(3).getCells().remove(1);
+		Cell unknown = new Cell();
+		unknown.setColumnId(99L);
+		unknown.setValue("unknown");
+		sheet.getRows().get(4).getCells().add(unknown);
+
+		ColumnarSheetReader reader = new ColumnarSheetReader(write(sheet, 4));
+		assertEquals(1L, reader.getSheetId());
+		assertEquals(Integer.valueOf(7), reader.getVersion());
+		assertEquals(10, reader.getRowCount());
+		assertEquals(3, reader.getRowGroupCount());
+
+		List<Cell> done = reader.readColumn(1);
+		assertEquals(10, done.size());
+		assertNull(done.get(3));
+		assertEquals(Boolean.TRUE, done.get(2).getValue());
+
+		List<Row> rows = reader.readRowGroup(0);
+		assertEquals(4, rows.size());
+		assertEquals(1, rows.get(3).getCells().size());
+		rows = reader.readRowGroup(1);
+		assertEquals(3, rows.get(0).getCells().size());
+		assertEquals("unknown", rows.get(0).getCells().get(2).getValue());
+		assertEquals(2, reader.readRowGroup(2).size());
+	}
+
+	@Test
+	public void testUnreadableSnapshot() throws Exception {
+		SheetSnapshotStore store = new SheetSnapshotStore(directory);
+		assertTrue(store.save(TieredSheetCacheTest.createSheet(1L, 10)));
+
+		// A snapshot emptied by a system crash, since it is not forced to disk, is deleted when it's opened.
+		RandomAccessFile raf = new RandomAccessFile(directory.listFiles()[0], "rw");
+		raf.setLength(0);
+		raf.close();
+		store = new SheetSnapshotStore(directory);
+		assertNull(store.load(1L));
+		assertNull(store.getVersion(1L));
+		assertEquals(0, directory.listFiles().length);
+	}
+
+	@Test
+	public void testIncompleteFile() throws Exception {
+		ByteBuffer buffer = write(TieredSheetCacheTest.createSheet(1L, 10), 4);
+		buffer.limit(buffer.limit() - 1);
+		try {
+			new ColumnarSheetReader(buffer);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+
+	private ByteBuffer write(Sheet sheet, int rowGroupSize) throws Exception {
+		directory.mkdirs();
+		File file = new File(directory, "test");
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			ColumnarSheetWriter writer = new ColumnarSheetWriter(raf.getChannel(), sheet, rowGroupSize);
+			for (Row row : sheet.getRows()) {
+				writer.addRow(row);
+			}
+			writer.finish();
+			byte[] bytes = new byte[(int) raf.length()];
+			raf.seek(0);
+			raf.readFully(bytes);
+			return ByteBuffer.wrap(bytes);
+		} finally {
+			raf.close();
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package com.smartsheet.api.internal.cache;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.models.Cell;
+import com.smartsheet.api.models.Column;
+import com.smartsheet.api.models.ColumnType;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
+
+public class TieredSheetCacheTest {
+
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = new File(System.getProperty("java.io.tmpdir"), "tiered-cache-test-" + System.nanoTime());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testCodecRoundTrip() {
+		Sheet sheet = createSheet(1234L, 3);
+
+		Sheet decoded = SheetCodec.decode(SheetCodec.encode(sheet));
+
+		assertEquals(Long.valueOf(1234L), decoded.getId());
+		assertEquals("Sheet 1234", decoded.getName());
+		assertEquals(Integer.valueOf(7), decoded.getVersion());
+		assertEquals(2, decoded.getColumns().size());
+		assertEquals(Long.valueOf(11L), decoded.getColumns().get(0).getId());
+		assertEquals(ColumnType.CHECKBOX, decoded.getColumns().get(1).getType());
+		assertEquals(3, decoded.getRows().size());
+		Row row = decoded.getRows().get(2);
+		assertEquals(Long.valueOf(102L), row.getId());
+		assertEquals(Integer.valueOf(3), row.getRowNumber());
+		assertEquals(sheet.getRows().get(2).getModifiedAt(), row.getModifiedAt());
+		assertEquals("value 2", row.getCells().get(0).getValue());
+		assertEquals(Boolean.TRUE, row.getCells().get(1).getValue());
+		assertEquals(Long.valueOf(12L), row.getCells().get(1).getColumnId());
+	}
+
+	@Test
+	public void testHeapTier() {
+		TieredSheetCache cache = new TieredSheetCache(1024 * 1024, 0, 0, null, 60000);
+		Sheet sheet = createSheet(1L, 10);
+		cache.put(sheet);
+
+		assertSame(sheet, cache.get(1L));
+		assertTrue(cache.isFresh(1L));
+		assertNull(cache.get(2L));
+		assertFalse(cache.isFresh(2L));
+
+		cache.invalidate(1L);
+		assertNull(cache.get(1L));
+		assertEquals(0, cache.getHeapBytesUsed());
+	}
+
+	@Test
+	public void testDemotionAndPromotion() {
+		Sheet first = createSheet(1L, 50);
+		long heapBytes = TieredSheetCache.estimateHeapBytes(first);
+		TieredSheetCache cache = new TieredSheetCache(heapBytes, 1024 * 1024, 0, null, 60000);
+
+		cache.put(first);
+		cache.put(createSheet(2L, 50));
+
+		// The first sheet has been demoted to the off-heap tier.
+		assertTrue(cache.getOffHeapBytesUsed() > 0);
+		Sheet decoded = cache.get(1L);
+		assertNotNull(decoded);
+		assertNotSame(first, decoded);
+		assertEquals(50, decoded.getRows().size());
+
+		// The second read promotes it back to the heap tier, demoting the second sheet.
+		Sheet promoted = cache.get(1L);
+		assertSame(promoted, cache.get(1L));
+		assertEquals(Integer.valueOf(7), cache.get(2L).getVersion());
+	}
+
+	@Test
+	public void testPeek() {
+		Sheet first = createSheet(1L, 50);
+		long heapBytes = TieredSheetCache.estimateHeapBytes(first);
+		TieredSheetCache cache = new TieredSheetCache(heapBytes, 1024 * 1024, 0, null, 60000);
+		cache.put(first);
+		cache.put(createSheet(2L, 50));
+
+		// Peeking at the demoted sheet never promotes it.
+		for (int i = 0; i < TieredSheetCache.PROMOTION_HITS; i++) {
+			assertEquals(50, cache.peek(1L).getRows().size());
+		}
+		assertNotSame(cache.peek(1L), cache.peek(1L));
+		assertNotNull(cache.peek(2L));
+		assertNull(cache.peek(3L));
+	}
+
+	@Test
+	public void testDiskTier() {
+		TieredSheetCache cache = new TieredSheetCache(0, 0, 1024 * 1024, directory, 0);
+		cache.put(createSheet(1L, 20));
+
+		assertTrue(cache.getDiskBytesUsed() > 0);
+		assertEquals(1, directory.listFiles().length);
+		assertFalse(cache.isFresh(1L));
+		assertEquals(20, cache.get(1L).getRows().size());
+
+		cache.clear();
+		assertNull(cache.get(1L));
+		assertEquals(0, directory.listFiles().length);
+	}
+
+	@Test
+	public void testSpillToDisk() {
+		TieredSheetCache cache = new TieredSheetCache(0, OffHeapSlabStore.DEFAULT_PAGE_SIZE, 1024 * 1024, directory, 0);
+		for (long id = 1; id <= 5; id++) {
+			cache.put(createSheet(id, 200));
+		}
+
+		for (long id = 1; id <= 5; id++) {
+			assertEquals(200, cache.get(id).getRows().size());
+		}
+		assertTrue(cache.getDiskBytesUsed() > 0);
+	}
+
+	static Sheet createSheet(long id, int rowCount) {
+		Sheet sheet = new Sheet();
+		sheet.setId(id);
+		sheet.setName("Sheet " + id);
+		sheet.setVersion(7);
+
+		List<Column> columns = new ArrayList<Column>();
+		Column text = new Column();
+		text.setId(11L);
+		text.setIndex(0);
+		text.setTitle("Name");
+		text.setPrimary(true);
+		text.setType(ColumnType.TEXT_NUMBER);
+		columns.add(text);
+		Column done = new Column();
+		done.setId(12L);
+		done.setIndex(1);
+		done.setTitle("Done");
+		done.setType(ColumnType.CHECKBOX);
+		columns.add(done);
+		sheet.setColumns(columns);
+
+		List<Row> rows = new ArrayList<Row>();
+		for (int i = 0; i < rowCount; i++) {
+			Row row = new Row();
+			row.setId(100L + i);
+			row.setSheetId(id);
+			row.setRowNumber(i + 1);
+			row.setModifiedAt(new Date(1400000000000L + i));
+			List<Cell> cells = new ArrayList<Cell>();
+			Cell name = new Cell();
+			name.setColumnId(11L);
+			name.setValue("value " + i);
+			cells.add(name);
+			Cell check = new Cell();
+			check.setColumnId(12L);
+			check.setValue(i % 2 == 0);
+			cells.add(check);
+			row.setCells(cells);
+			rows.add(row);
+		}
+		sheet.setRows(rows);
+		return sheet;
+	}
+}
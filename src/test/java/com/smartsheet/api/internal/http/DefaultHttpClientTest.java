@@ -46,6 +46,17 @@ public class DefaultHttpClientTest {
 	@Test
 	public void testDefaultHttpClientCloseableHttpClient() { }
 
+	@Test
+	public void testDefaultHttpClientMaxConnections() {
+		new DefaultHttpClient(50);
+		try {
+			new DefaultHttpClient(0);
+			fail("Exception should have been thrown");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+
 	@Test
 	public void testRequest() throws HttpClientException, URISyntaxException {
 		// Null Argument
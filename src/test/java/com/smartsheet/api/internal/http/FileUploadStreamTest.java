@@ -0,0 +1,128 @@
+package com.smartsheet.api.internal.http;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.UploadListener;
+
+public class FileUploadStreamTest {
+
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("upload-stream-test-", ".bin");
+		byte[] content = new byte[200000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i * 31);
+		}
+		FileOutputStream output = new FileOutputStream(file);
+		output.write(content);
+		output.close();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		file.delete();
+	}
+
+	@Test
+	public void testReadAndDigest() throws Exception {
+		final List<Long> progress = new ArrayList<Long>();
+		FileUploadStream stream = new FileUploadStream(file, new UploadListener() {
+			public void progress(long sent, long total, long bytesPerSecond) {
+				assertEquals(200000, total);
+				progress.add(sent);
+			}
+
+			public void uploaded(long size, String digest, long elapsedMillis) {
+				fail("The stream doesn't complete uploads.");
+			}
+		});
+		assertEquals(200000, stream.getSize());
+
+		MessageDigest expected = MessageDigest.getInstance("SHA-256");
+		byte[] buffer = new byte[4096];
+		int count;
+		while ((count = stream.read(buffer, 0, buffer.length)) != -1) {
+			if (stream.getBytesRead() < 200000) {
+				assertNull(stream.getDigest());
+			}
+			expected.update(buffer, 0, count);
+		}
+		assertEquals(FileUploadStream.toHex(expected.digest()), stream.getDigest());
+		assertEquals(200000, stream.getBytesRead());
+		assertEquals(4, progress.size());
+		assertEquals(Long.valueOf(65536), progress.get(0));
+		assertEquals(Long.valueOf(200000), progress.get(3));
+
+		stream.close();
+		stream.close();
+		try {
+			stream.read();
+			fail("Exception should have been thrown.");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testEmptyFile() throws Exception {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(0);
+		raf.close();
+		FileUploadStream stream = new FileUploadStream(file, null);
+		assertEquals(-1, stream.read());
+		assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", stream.getDigest());
+		stream.close();
+	}
+
+	@Test
+	public void testTruncatedFile() throws Exception {
+		FileUploadStream stream = new FileUploadStream(file, null);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(1000);
+		raf.close();
+		try {
+			stream.read(new byte[4096], 0, 4096);
+			fail("Exception should have been thrown.");
+		} catch (IOException e) {
+			// Expected
+		} finally {
+			stream.close();
+		}
+	}
+}
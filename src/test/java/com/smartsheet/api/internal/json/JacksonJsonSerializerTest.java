@@ -39,8 +39,12 @@ import org.junit.Test;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.smartsheet.api.SheetHandler;
+import com.smartsheet.api.SmartsheetException;
 import com.smartsheet.api.models.Folder;
 import com.smartsheet.api.models.Result;
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.Sheet;
 import com.smartsheet.api.models.User;
 
 public class JacksonJsonSerializerTest {
@@ -165,6 +169,47 @@ public class JacksonJsonSerializerTest {
 		assertEquals(originalUser.getFirstName(),user.getFirstName());
 	}
 	
+	@Test
+	public void testDeserializeSheet() throws SmartsheetException {
+		final List<String> events = new ArrayList<String>();
+		SheetHandler handler = new SheetHandler() {
+			public void start(Sheet sheet) {
+				events.add("start " + sheet.getName() + " " + sheet.getColumns().size() + " " + sheet.getVersion());
+			}
+
+			public void row(Row row) {
+				events.add("row " + row.getRowNumber() + " " + row.getCells().get(0).getValue());
+			}
+
+			public void end(Sheet sheet) {
+				events.add("end " + sheet.getName() + " " + sheet.getVersion() + " " + sheet.getRows());
+			}
+		};
+
+		String json = "{\"name\":\"s\",\"columns\":[{\"title\":\"a\"},{\"title\":\"b\"}],\"rows\":["
+				+ "{\"rowNumber\":1,\"cells\":[{\"value\":\"x\"}]},{\"rowNumber\":2,\"cells\":[{\"value\":2}]}],"
+				+ "\"version\":7}";
+		jjs.deserializeSheet(new ByteArrayInputStream(json.getBytes()), handler);
+		assertEquals(4, events.size());
+		assertEquals("start s 2 null", events.get(0));
+		assertEquals("row 1 x", events.get(1));
+		assertEquals("row 2 2", events.get(2));
+		assertEquals("end s 7 null", events.get(3));
+
+		// A sheet without rows is still started and ended
+		events.clear();
+		jjs.deserializeSheet(new ByteArrayInputStream("{\"name\":\"s\",\"columns\":[]}".getBytes()), handler);
+		assertEquals(2, events.size());
+		assertEquals("start s 0 null", events.get(0));
+
+		try {
+			jjs.deserializeSheet(new ByteArrayInputStream("[]".getBytes()), handler);
+			fail("Exception should have been thrown.");
+		} catch (JSONSerializerException e) {
+			// Expected
+		}
+	}
+
 	@Test
 	public void testDeserializeMap() throws JSONSerializerException, FileNotFoundException, IOException {
 		// Test null pointer exceptions
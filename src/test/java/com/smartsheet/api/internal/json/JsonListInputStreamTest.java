@@ -0,0 +1,79 @@
+package com.smartsheet.api.internal.json;
+
+/*
+ * #[license]
+ * Smartsheet SDK for Java
+ * %%
+ * Copyright (C) 2014 Smartsheet
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * %[license]
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.smartsheet.api.models.Row;
+import com.smartsheet.api.models.RowWrapper;
+
+public class JsonListInputStreamTest {
+	JacksonJsonSerializer jjs;
+
+	@Before
+	public void setUp() throws Exception {
+		jjs = new JacksonJsonSerializer();
+	}
+
+	@Test
+	public void testRead() throws Exception {
+		List<Row> rows = new ArrayList<Row>();
+		for (int i = 1; i <= 3; i++) {
+			Row row = new Row();
+			row.setRowNumber(i);
+			rows.add(row);
+		}
+
+		RowWrapper rowWrapper = new RowWrapper.InsertRowsBuilder().setToBottom(true).setRows(rows).build();
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		jjs.serialize(rowWrapper, expected);
+
+		RowWrapper placement = new RowWrapper.InsertRowsBuilder().setToBottom(true).build();
+		assertEquals(expected.toString("UTF-8"), read(new JsonListInputStream(jjs, placement, "rows",
+				rows.iterator())));
+
+		// An object without other fields and an empty list.
+		assertEquals("{\"rows\":[]}", read(new JsonListInputStream(jjs, new RowWrapper(), "rows",
+				new ArrayList<Row>().iterator())));
+		assertEquals("{\"rows\":[1,2]}", read(new JsonListInputStream(jjs, new RowWrapper(), "rows",
+				Arrays.asList(1, 2).iterator())));
+	}
+
+	private static String read(InputStream in) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		// Read with a small buffer so that elements are split across reads.
+		byte[] buffer = new byte[3];
+		int count;
+		while ((count = in.read(buffer)) != -1) {
+			out.write(buffer, 0, count);
+		}
+		return out.toString("UTF-8");
+	}
+}